@@ -0,0 +1,152 @@
+package com.madiben.benchmarks;
+
+import com.madiben.models.MeteorologyData;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generador de datos sintéticos de AEMET para los benchmarks
+ * Genera estaciones × días registros con el mismo formato que los CSV de la carpeta data
+ * (un archivo AemetYYYYMMDD.csv por día, en Windows-1252). Con la misma semilla siempre genera los mismos datos
+ */
+public class AemetDataGenerator {
+    public static final int DEFAULT_STATIONS = 800;
+    public static final LocalDate START_DATE = LocalDate.of(2000, 1, 1);
+    private static final Charset WINDOWS_1252 = Charset.forName("windows-1252");
+    private static final DateTimeFormatter FILE_DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("H:mm");
+    private static final String[] PROVINCES = {"A Coruña", "Álava", "Albacete", "Alicante", "Almería", "Asturias",
+            "Ávila", "Badajoz", "Barcelona", "Burgos", "Cáceres", "Cádiz", "Cantabria", "Castellón", "Ceuta",
+            "Ciudad Real", "Córdoba", "Cuenca", "Girona", "Granada", "Guadalajara", "Guipúzcoa", "Huelva", "Huesca",
+            "Illes Balears", "Jaén", "La Rioja", "Las Palmas", "León", "Lleida", "Lugo", "Madrid", "Málaga", "Melilla",
+            "Murcia", "Navarra", "Ourense", "Palencia", "Pontevedra", "Salamanca", "Santa Cruz de Tenerife", "Segovia",
+            "Sevilla", "Soria", "Tarragona", "Teruel", "Toledo", "Valencia", "Valladolid", "Vizcaya", "Zamora",
+            "Zaragoza"};
+
+    /**
+     * Constructor privado: clase de utilidad
+     */
+    private AemetDataGenerator() {
+    }
+
+    /**
+     * Calcula los días necesarios para generar al menos el número de registros indicado
+     *
+     * @param rows     Número de registros
+     * @param stations Número de estaciones
+     * @return Número de días
+     */
+    public static int daysFor(long rows, int stations) {
+        return (int) Math.max(1, (rows + stations - 1) / stations);
+    }
+
+    /**
+     * Genera los datos en memoria
+     *
+     * @param stations Número de estaciones
+     * @param days     Número de días
+     * @param seed     Semilla de los valores aleatorios
+     * @return Lista de MeteorologyData
+     */
+    public static List<MeteorologyData> generateRows(int stations, int days, long seed) {
+        List<MeteorologyData> rows = new ArrayList<>(stations * days);
+        Random random = new Random(seed);
+        for (int day = 0; day < days; day++) {
+            LocalDate date = START_DATE.plusDays(day);
+            for (int station = 0; station < stations; station++) {
+                rows.add(row(random, date, station));
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Escribe los datos en un archivo AemetYYYYMMDD.csv por día
+     *
+     * @param folder   Carpeta de destino
+     * @param stations Número de estaciones
+     * @param days     Número de días
+     * @param seed     Semilla de los valores aleatorios
+     * @return Rutas de los archivos generados
+     * @throws IOException No se han podido escribir los archivos
+     */
+    public static List<Path> writeCsvFiles(Path folder, int stations, int days, long seed) throws IOException {
+        Files.createDirectories(folder);
+        List<Path> files = new ArrayList<>(days);
+        Random random = new Random(seed);
+        for (int day = 0; day < days; day++) {
+            LocalDate date = START_DATE.plusDays(day);
+            Path file = folder.resolve("Aemet" + date.format(FILE_DATE_FORMATTER) + ".csv");
+            try (BufferedWriter writer = Files.newBufferedWriter(file, WINDOWS_1252)) {
+                for (int station = 0; station < stations; station++) {
+                    writer.write(line(row(random, date, station)));
+                    writer.write('\n');
+                }
+            }
+            files.add(file);
+        }
+        return files;
+    }
+
+    /**
+     * Genera el registro de una estación en una fecha
+     *
+     * @param random  Generador de valores aleatorios
+     * @param date    Fecha del registro
+     * @param station Número de estación
+     * @return MeteorologyData generado
+     */
+    private static MeteorologyData row(Random random, LocalDate date, int station) {
+        float maxTemperature = Math.round((5 + random.nextFloat() * 30) * 10) / 10f;
+        float minTemperature = Math.round((maxTemperature - 2 - random.nextFloat() * 12) * 10) / 10f;
+        float precipitation = random.nextFloat() < 0.7f ? 0 : Math.round(random.nextFloat() * 300) / 10f;
+        return MeteorologyData.builder()
+                .date(date)
+                .location(String.format("Estación %04d", station))
+                .province(PROVINCES[station % PROVINCES.length])
+                .maxTemperature(maxTemperature)
+                .maxTemperatureTime(LocalTime.of(11 + random.nextInt(7), random.nextInt(60)))
+                .minTemperature(minTemperature)
+                .minTemperatureTime(LocalTime.of(random.nextInt(9), random.nextInt(60)))
+                .precipitation(precipitation)
+                .build();
+    }
+
+    /**
+     * Devuelve la línea CSV de un registro, con el espacio final en las temperaturas como en los archivos de AEMET
+     *
+     * @param data Registro
+     * @return Línea CSV sin salto de línea
+     */
+    private static String line(MeteorologyData data) {
+        return data.getLocation() + ";" + data.getProvince() + ";" + data.getMaxTemperature() + " ;"
+                + data.getMaxTemperatureTime().format(TIME_FORMATTER) + ";" + data.getMinTemperature() + " ;"
+                + data.getMinTemperatureTime().format(TIME_FORMATTER) + ";" + data.getPrecipitation();
+    }
+
+    /**
+     * Genera los archivos desde línea de comandos
+     *
+     * @param args carpeta, número de estaciones y número de días
+     * @throws IOException No se han podido escribir los archivos
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3) {
+            System.out.println("Uso: AemetDataGenerator <carpeta> <estaciones> <días>");
+            return;
+        }
+        List<Path> files = writeCsvFiles(Paths.get(args[0]), Integer.parseInt(args[1]), Integer.parseInt(args[2]), 42);
+        System.out.println(files.size() + " archivos generados en " + args[0]);
+    }
+}
@@ -0,0 +1,65 @@
+package com.madiben.benchmarks;
+
+import com.madiben.models.MeteorologyData;
+import com.madiben.repositories.meteorology.MeteorologyDataRepositoryImpl;
+import com.madiben.services.database.DatabaseManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Base de datos H2 de los benchmarks
+ * Usa una base de datos propia en un directorio temporal para no tocar la de la aplicación
+ */
+public class BenchmarkDatabase {
+
+    static {
+        try {
+            System.setProperty("db.url", Files.createTempDirectory("meteorology-jmh").toString());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        System.setProperty("db.name", "benchmark");
+        System.setProperty("db.init", "true");
+    }
+
+    /**
+     * Constructor privado: clase de utilidad
+     */
+    private BenchmarkDatabase() {
+    }
+
+    /**
+     * Devuelve el DatabaseManager configurado para la base de datos de los benchmarks
+     *
+     * @return DatabaseManager
+     */
+    public static DatabaseManager database() {
+        return DatabaseManager.getInstance();
+    }
+
+    /**
+     * Devuelve un repositorio sobre la base de datos de los benchmarks
+     *
+     * @return Repositorio de MeteorologyData
+     */
+    public static MeteorologyDataRepositoryImpl repository() {
+        return new MeteorologyDataRepositoryImpl(database());
+    }
+
+    /**
+     * Vacía la tabla y la carga con los registros indicados
+     *
+     * @param rows Registros a cargar
+     * @throws SQLException No se ha podido cargar la tabla
+     */
+    public static void reset(List<MeteorologyData> rows) throws SQLException {
+        database().delete("DELETE FROM MeteorologyData");
+        if (!rows.isEmpty()) {
+            repository().saveAll(rows);
+        }
+    }
+}
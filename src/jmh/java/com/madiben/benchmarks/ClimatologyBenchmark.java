@@ -0,0 +1,98 @@
+package com.madiben.benchmarks;
+
+import com.madiben.controllers.MeteorologyDataController;
+import com.madiben.models.MeteorologyData;
+import com.madiben.models.dto.MeteorologyProvinceDayData;
+import com.madiben.models.dto.MeteorologyRollingDayData;
+import com.madiben.services.CRUD.meteorology.MeteorologyDataServiceImpl;
+import com.madiben.services.analytics.ClimatologyEngine;
+import com.madiben.services.analytics.StationSeries;
+import com.madiben.services.analytics.StationTimeSeriesIndex;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks de las medias móviles (7, 30 y 365 días) y las anomalías climatológicas de ClimatologyEngine sobre
+ * décadas de datos sintéticos, frente a volver a recorrer cada ventana en cada día
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ClimatologyBenchmark {
+    private static final String PROVINCE = "Madrid";
+
+    @Param({"52"})
+    private int stations;
+
+    @Param({"40"})
+    private int years;
+
+    private MeteorologyDataController controller;
+    private List<MeteorologyData> dataList;
+    private List<StationSeries> series;
+    private List<MeteorologyProvinceDayData> provinceDays;
+    private ClimatologyEngine engine;
+
+    /**
+     * Genera stations × years años de datos, construye el índice por estación y los datos por día de PROVINCE
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+        int days = (int) (AemetDataGenerator.START_DATE.plusYears(years).toEpochDay()
+                - AemetDataGenerator.START_DATE.toEpochDay());
+        dataList = AemetDataGenerator.generateRows(stations, days, 42);
+        StationTimeSeriesIndex index = StationTimeSeriesIndex.of(dataList);
+        series = index.getLocations().stream().flatMap(location -> index.find(location).stream()).toList();
+        controller = new MeteorologyDataController(MeteorologyDataServiceImpl
+                .getInstance(BenchmarkDatabase.repository()));
+        provinceDays = controller.getProvinceDataFilterByProvince(dataList, PROVINCE);
+        engine = new ClimatologyEngine(7, 30, 365);
+    }
+
+    @Benchmark
+    public void stationsIncremental(Blackhole blackhole) {
+        for (StationSeries station : series) {
+            blackhole.consume(engine.compute(station));
+        }
+    }
+
+    @Benchmark
+    public void stationsRescan(Blackhole blackhole) {
+        int[] windows = engine.getWindows();
+        for (StationSeries station : series) {
+            LocalDate date = station.getFirstDate();
+            LocalDate last = station.getLastDate();
+            while (!date.isAfter(last)) {
+                for (int window : windows) {
+                    StationSeries.Slice slice = station.slice(date.minusDays(window - 1L), date);
+                    float[] maxTemperatures = slice.getMaxTemperatures();
+                    float[] minTemperatures = slice.getMinTemperatures();
+                    float[] precipitations = slice.getPrecipitations();
+                    double temperature = 0;
+                    double precipitation = 0;
+                    for (int i = 0; i < maxTemperatures.length; i++) {
+                        temperature += (maxTemperatures[i] + minTemperatures[i]) / 2.0;
+                        precipitation += precipitations[i];
+                    }
+                    blackhole.consume(temperature / maxTemperatures.length);
+                    blackhole.consume(precipitation);
+                }
+                date = date.plusDays(1);
+            }
+        }
+    }
+
+    @Benchmark
+    public List<MeteorologyRollingDayData> provinceRolling() {
+        return engine.compute(PROVINCE, provinceDays);
+    }
+
+    @Benchmark
+    public List<MeteorologyRollingDayData> provinceRollingFromList() {
+        return engine.compute(PROVINCE, controller.getProvinceDataFilterByProvince(dataList, PROVINCE));
+    }
+}
@@ -0,0 +1,78 @@
+package com.madiben.benchmarks;
+
+import com.madiben.controllers.MeteorologyDataController;
+import com.madiben.models.MeteorologyData;
+import com.madiben.models.dto.MeteorologyDayData;
+import com.madiben.models.dto.MeteorologyProvinceDayData;
+import com.madiben.models.dto.MeteorologyProvinceDaySummary;
+import com.madiben.services.CRUD.meteorology.MeteorologyDataServiceImpl;
+import com.madiben.services.analytics.MeteorologyColumnStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks de las agregaciones de MeteorologyDataController sobre una List de MeteorologyData
+ * frente a las mismas agregaciones sobre MeteorologyColumnStore
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ColumnStoreBenchmark {
+    @Param({"100000", "1000000"})
+    private long rows;
+
+    private MeteorologyDataController controller;
+    private List<MeteorologyData> dataList;
+    private MeteorologyColumnStore store;
+
+    /**
+     * Genera los datos y los carga en la lista y en el almacén columnar
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+        int stations = AemetDataGenerator.DEFAULT_STATIONS;
+        dataList = AemetDataGenerator.generateRows(stations, AemetDataGenerator.daysFor(rows, stations), 42);
+        store = new MeteorologyColumnStore(dataList.size());
+        store.addAll(dataList);
+        controller = new MeteorologyDataController(MeteorologyDataServiceImpl
+                .getInstance(BenchmarkDatabase.repository()));
+    }
+
+    @Benchmark
+    public List<MeteorologyDayData> getDayDataList() {
+        return controller.getDayData(dataList);
+    }
+
+    @Benchmark
+    public List<MeteorologyDayData> getDayDataColumnar() {
+        return controller.getDayData(store);
+    }
+
+    @Benchmark
+    public List<MeteorologyProvinceDayData> getProvinceDataFilterByProvinceList() {
+        return controller.getProvinceDataFilterByProvince(dataList, "Barcelona");
+    }
+
+    @Benchmark
+    public List<MeteorologyProvinceDayData> getProvinceDataFilterByProvinceColumnar() {
+        return controller.getProvinceDataFilterByProvince(store, "Barcelona");
+    }
+
+    @Benchmark
+    public List<MeteorologyProvinceDaySummary> getProvinceDaySummariesColumnar() {
+        return controller.getProvinceDaySummaries(store);
+    }
+
+    @Benchmark
+    public Optional<MeteorologyData> getMaxPrecipitationDataList() {
+        return controller.getMaxPrecipitationData(dataList);
+    }
+
+    @Benchmark
+    public Optional<MeteorologyData> getMaxPrecipitationDataColumnar() {
+        return controller.getMaxPrecipitationData(store);
+    }
+}
@@ -0,0 +1,67 @@
+package com.madiben.benchmarks;
+
+import com.madiben.controllers.MeteorologyDataController;
+import com.madiben.models.MeteorologyData;
+import com.madiben.models.dto.MeteorologyDataGroupedDTO;
+import com.madiben.models.dto.MeteorologyDayData;
+import com.madiben.models.dto.MeteorologyProvinceDayData;
+import com.madiben.models.dto.MeteorologyProvinceDaySummary;
+import com.madiben.services.CRUD.meteorology.MeteorologyDataServiceImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks de las consultas de MeteorologyDataController sobre H2
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ControllerBenchmark {
+    @Param({"10000"})
+    private long rows;
+
+    private MeteorologyDataController controller;
+
+    /**
+     * Carga la tabla con los datos generados
+     *
+     * @throws SQLException No se ha podido cargar la tabla
+     */
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        int stations = AemetDataGenerator.DEFAULT_STATIONS;
+        BenchmarkDatabase.reset(AemetDataGenerator.generateRows(stations,
+                AemetDataGenerator.daysFor(rows, stations), 42));
+        controller = new MeteorologyDataController(MeteorologyDataServiceImpl
+                .getInstance(BenchmarkDatabase.repository()));
+    }
+
+    @Benchmark
+    public List<MeteorologyDayData> getDayData() {
+        return controller.getDayData();
+    }
+
+    @Benchmark
+    public List<MeteorologyDataGroupedDTO> dataGrouper() {
+        return controller.dataGrouper();
+    }
+
+    @Benchmark
+    public List<MeteorologyProvinceDayData> getProvinceDataFilterByProvince() {
+        return controller.getProvinceDataFilterByProvince("Barcelona");
+    }
+
+    @Benchmark
+    public List<MeteorologyProvinceDaySummary> getProvinceDaySummaries() {
+        return controller.getProvinceDaySummaries();
+    }
+
+    @Benchmark
+    public Optional<MeteorologyData> getMaxPrecipitationData() {
+        return controller.getMaxPrecipitationData();
+    }
+}
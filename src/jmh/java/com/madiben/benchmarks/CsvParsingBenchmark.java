@@ -0,0 +1,82 @@
+package com.madiben.benchmarks;
+
+import com.madiben.exceptions.ReadCSVFailException;
+import com.madiben.services.io.CsvManager;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Benchmarks de lectura de los CSV de AEMET con los distintos parsers de CsvManager
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CsvParsingBenchmark {
+    @Param({"10000"})
+    private long rows;
+
+    private Path folder;
+    private List<Path> files;
+
+    /**
+     * Genera los archivos CSV sintéticos
+     *
+     * @throws IOException No se han podido generar
+     */
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        folder = Files.createTempDirectory("meteorology-csv");
+        int stations = AemetDataGenerator.DEFAULT_STATIONS;
+        files = AemetDataGenerator.writeCsvFiles(folder, stations, AemetDataGenerator.daysFor(rows, stations), 42);
+    }
+
+    /**
+     * Borra los archivos generados
+     *
+     * @throws IOException No se han podido borrar
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(folder)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public int stringParserList() throws ReadCSVFailException {
+        return CsvManager.getInstance().folderDataToMeteorologyList(folder.toString()).size();
+    }
+
+    @Benchmark
+    public long stringParserStream() throws ReadCSVFailException {
+        try (var stream = CsvManager.getInstance().folderDataToMeteorologyStream(folder.toString())) {
+            return stream.count();
+        }
+    }
+
+    @Benchmark
+    public void byteParser(Blackhole blackhole) throws ReadCSVFailException {
+        for (Path file : files) {
+            blackhole.consume(CsvManager.getInstance()
+                    .fileBytesToMeteorologyDataList(folder.toString(), file.getFileName().toString()));
+        }
+    }
+
+    @Benchmark
+    public void mappedParser(Blackhole blackhole) throws ReadCSVFailException {
+        for (Path file : files) {
+            blackhole.consume(CsvManager.getInstance()
+                    .mappedFileToMeteorologyDataList(folder.toString(), file.getFileName().toString()));
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.madiben.benchmarks;
+
+import com.madiben.exceptions.CreateFolderException;
+import com.madiben.models.MeteorologyData;
+import com.madiben.services.io.ExportManager;
+import com.madiben.services.io.format.ExportFormat;
+import com.madiben.services.io.format.GzipFormat;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks de la exportación y la importación de ExportManager con cada formato.
+ * La importación de CSV equivalente está en CsvParsingBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ExportBenchmark {
+    @Param({"10000"})
+    private long rows;
+
+    @Param({"json-pretty", "json", "jsonl", "jsonl.gz", "bin", "bin.gz"})
+    private String format;
+
+    private List<MeteorologyData> data;
+    private ExportFormat exportFormat;
+    private Path exportedFile;
+
+    /**
+     * Genera los datos a exportar y un archivo exportado con el formato para la importación
+     */
+    @Setup(Level.Trial)
+    public void setup() throws CreateFolderException, IOException, SQLException {
+        int stations = AemetDataGenerator.DEFAULT_STATIONS;
+        data = AemetDataGenerator.generateRows(stations, AemetDataGenerator.daysFor(rows, stations), 42);
+        ExportManager manager = ExportManager.getInstance();
+        exportFormat = switch (format) {
+            case "json-pretty" -> manager.json(true);
+            case "json" -> manager.json(false);
+            case "jsonl" -> manager.jsonLines();
+            case "jsonl.gz" -> new GzipFormat(manager.jsonLines());
+            case "bin" -> manager.binary();
+            default -> new GzipFormat(manager.binary());
+        };
+        exportMeteorologyData();
+        exportedFile = Paths.get("out", "benchmark" + exportFormat.getExtension());
+    }
+
+    @Benchmark
+    public long exportMeteorologyData() throws CreateFolderException, IOException, SQLException {
+        return ExportManager.getInstance().exportMeteorologyData("benchmark", action -> {
+            data.forEach(action);
+            return data.size();
+        }, exportFormat);
+    }
+
+    @Benchmark
+    public long importMeteorologyData(Blackhole blackhole) throws IOException {
+        return ExportManager.getInstance().importMeteorologyData(exportedFile, blackhole::consume);
+    }
+}
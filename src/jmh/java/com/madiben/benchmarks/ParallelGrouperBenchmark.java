@@ -0,0 +1,53 @@
+package com.madiben.benchmarks;
+
+import com.madiben.models.MeteorologyData;
+import com.madiben.services.analytics.MeteorologyAggregate;
+import com.madiben.services.analytics.ParallelGrouper;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Benchmarks de la agrupación por fecha (getDayData) y por fecha y provincia (dataGrouper) con ParallelGrouper,
+ * en secuencial (parallelism=1) y en paralelo
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ParallelGrouperBenchmark {
+    @Param({"1000000"})
+    private long rows;
+
+    @Param({"1", "0"})
+    private int parallelism;
+
+    private List<MeteorologyData> dataList;
+    private ParallelGrouper grouper;
+
+    /**
+     * Genera los datos y crea el ParallelGrouper. Con parallelism=1 el umbral es infinito y la agrupación
+     * es secuencial; con parallelism=0 se usa un hilo por procesador
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+        int stations = AemetDataGenerator.DEFAULT_STATIONS;
+        dataList = AemetDataGenerator.generateRows(stations, AemetDataGenerator.daysFor(rows, stations), 42);
+        grouper = new ParallelGrouper(parallelism, parallelism == 1 ? Integer.MAX_VALUE : 1);
+    }
+
+    @Benchmark
+    public SortedMap<LocalDate, MeteorologyAggregate> groupByDate() {
+        return grouper.groupBy(dataList, MeteorologyData::getDate, MeteorologyAggregate.collector());
+    }
+
+    @Benchmark
+    public SortedMap<LocalDate, TreeMap<String, List<MeteorologyData>>> groupByDateAndProvince() {
+        return grouper.groupBy(dataList, MeteorologyData::getDate,
+                Collectors.groupingBy(MeteorologyData::getProvince, TreeMap::new, Collectors.toList()));
+    }
+}
@@ -0,0 +1,101 @@
+package com.madiben.benchmarks;
+
+import com.madiben.models.MeteorologyData;
+import com.madiben.models.dto.ProvinceQuantiles;
+import com.madiben.services.analytics.ProvinceMonthSketch;
+import com.madiben.services.analytics.QuantileSketchAccumulator;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks de los percentiles 50, 90 y 99 de la temperatura máxima y la precipitación de una provincia en un mes
+ * ordenando los registros de una List frente a consultar su ProvinceMonthSketch, ya en memoria o leído de su
+ * formato binario, y coste de acumular los resúmenes de todos los registros durante la ingesta
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class QuantileSketchBenchmark {
+    private static final String PROVINCE = "Madrid";
+
+    @Param({"1000000"})
+    private long rows;
+
+    private List<MeteorologyData> dataList;
+    private YearMonth month;
+    private ProvinceMonthSketch sketch;
+    private byte[] sketchBytes;
+
+    /**
+     * Genera los datos, acumula sus resúmenes y elige como mes el central de los datos
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+        int stations = AemetDataGenerator.DEFAULT_STATIONS;
+        int days = AemetDataGenerator.daysFor(rows, stations);
+        dataList = AemetDataGenerator.generateRows(stations, days, 42);
+        month = YearMonth.from(AemetDataGenerator.START_DATE.plusDays(days / 2));
+        Map<ProvinceMonthSketch.Key, ProvinceMonthSketch> sketches = accumulate().getSketches();
+        sketch = sketches.get(ProvinceMonthSketch.Key.of(PROVINCE, month));
+        sketchBytes = sketch.toBytes();
+    }
+
+    @Benchmark
+    public double[] quantilesSortList() {
+        double[] maxTemperatures = dataList.stream()
+                .filter(data -> data.getProvince().equals(PROVINCE) && YearMonth.from(data.getDate()).equals(month))
+                .mapToDouble(MeteorologyData::getMaxTemperature)
+                .sorted()
+                .toArray();
+        double[] precipitations = dataList.stream()
+                .filter(data -> data.getProvince().equals(PROVINCE) && YearMonth.from(data.getDate()).equals(month))
+                .mapToDouble(MeteorologyData::getPrecipitation)
+                .sorted()
+                .toArray();
+        return new double[]{percentile(maxTemperatures, 0.5), percentile(maxTemperatures, 0.9),
+                percentile(maxTemperatures, 0.99), percentile(precipitations, 0.5),
+                percentile(precipitations, 0.9), percentile(precipitations, 0.99)};
+    }
+
+    @Benchmark
+    public ProvinceQuantiles quantilesSketch() {
+        return sketch.toQuantiles(month);
+    }
+
+    @Benchmark
+    public ProvinceQuantiles quantilesSketchFromBytes() throws IOException {
+        return ProvinceMonthSketch.fromBytes(PROVINCE, month, sketchBytes).toQuantiles(month);
+    }
+
+    @Benchmark
+    public QuantileSketchAccumulator accumulateAll() {
+        return accumulate();
+    }
+
+    /**
+     * Acumula los resúmenes de cada provincia y mes de todos los registros
+     *
+     * @return Resúmenes acumulados
+     */
+    private QuantileSketchAccumulator accumulate() {
+        QuantileSketchAccumulator accumulator = new QuantileSketchAccumulator();
+        dataList.forEach(accumulator::add);
+        return accumulator;
+    }
+
+    /**
+     * Devuelve el percentil de unos valores ordenados, con el mismo criterio que KllSketch
+     *
+     * @param sorted Valores ordenados
+     * @param q      Cuantil, entre 0 y 1
+     * @return Valor del percentil
+     */
+    private static double percentile(double[] sorted, double q) {
+        return sorted[(int) Math.ceil(q * sorted.length) - 1];
+    }
+}
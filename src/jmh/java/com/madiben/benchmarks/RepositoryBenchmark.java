@@ -0,0 +1,119 @@
+package com.madiben.benchmarks;
+
+import com.madiben.models.MeteorologyData;
+import com.madiben.repositories.meteorology.MeteorologyDataRepositoryImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks de MeteorologyDataRepositoryImpl contra H2
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RepositoryBenchmark {
+
+    /**
+     * Estado de escritura registro a registro: la tabla empieza vacía
+     */
+    @State(Scope.Benchmark)
+    public static class WriteState {
+        @Param({"10000"})
+        private long rows;
+
+        private MeteorologyDataRepositoryImpl repository;
+        private List<MeteorologyData> data;
+        private long saved;
+
+        @Setup(Level.Trial)
+        public void setup() throws SQLException {
+            int stations = AemetDataGenerator.DEFAULT_STATIONS;
+            data = AemetDataGenerator.generateRows(stations, AemetDataGenerator.daysFor(rows, stations), 42);
+            repository = BenchmarkDatabase.repository();
+            BenchmarkDatabase.reset(List.of());
+        }
+
+        /**
+         * Devuelve un registro nuevo cada vez, con una fecha distinta para no repetir la clave natural
+         *
+         * @return Registro a guardar
+         */
+        MeteorologyData nextRow() {
+            MeteorologyData template = data.get((int) (saved % data.size()));
+            return MeteorologyData.builder()
+                    .date(AemetDataGenerator.START_DATE.minusDays(++saved))
+                    .location(template.getLocation())
+                    .province(template.getProvince())
+                    .maxTemperature(template.getMaxTemperature())
+                    .maxTemperatureTime(template.getMaxTemperatureTime())
+                    .minTemperature(template.getMinTemperature())
+                    .minTemperatureTime(template.getMinTemperatureTime())
+                    .precipitation(template.getPrecipitation())
+                    .build();
+        }
+    }
+
+    /**
+     * Estado de escritura por lotes: la tabla se vacía antes de cada invocación
+     */
+    @State(Scope.Benchmark)
+    public static class SaveAllState {
+        @Param({"10000"})
+        private long rows;
+
+        private MeteorologyDataRepositoryImpl repository;
+        private List<MeteorologyData> data;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            int stations = AemetDataGenerator.DEFAULT_STATIONS;
+            data = AemetDataGenerator.generateRows(stations, AemetDataGenerator.daysFor(rows, stations), 42);
+            repository = BenchmarkDatabase.repository();
+        }
+
+        @Setup(Level.Invocation)
+        public void clearTable() throws SQLException {
+            BenchmarkDatabase.reset(List.of());
+        }
+    }
+
+    /**
+     * Estado de lectura: la tabla se carga una vez con los datos generados
+     */
+    @State(Scope.Benchmark)
+    public static class ReadState {
+        @Param({"10000"})
+        private long rows;
+
+        private MeteorologyDataRepositoryImpl repository;
+
+        @Setup(Level.Trial)
+        public void setup() throws SQLException {
+            int stations = AemetDataGenerator.DEFAULT_STATIONS;
+            BenchmarkDatabase.reset(AemetDataGenerator.generateRows(stations,
+                    AemetDataGenerator.daysFor(rows, stations), 42));
+            repository = BenchmarkDatabase.repository();
+        }
+    }
+
+    @Benchmark
+    public Optional<MeteorologyData> save(WriteState state) throws SQLException {
+        return state.repository.save(state.nextRow());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long saveAll(SaveAllState state) throws SQLException {
+        return state.repository.saveAll(state.data);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<MeteorologyData> findAll(ReadState state) throws SQLException {
+        return state.repository.findAll();
+    }
+}
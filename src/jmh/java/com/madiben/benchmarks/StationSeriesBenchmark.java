@@ -0,0 +1,82 @@
+package com.madiben.benchmarks;
+
+import com.madiben.models.MeteorologyData;
+import com.madiben.models.dto.StationRangeStats;
+import com.madiben.services.analytics.StationTimeSeriesIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks de las consultas de una estación en un rango de días (extremos y temperatura máxima diaria)
+ * recorriendo una List de MeteorologyData frente a StationTimeSeriesIndex
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StationSeriesBenchmark {
+    private static final String LOCATION = "Estación 0042";
+
+    @Param({"1000000"})
+    private long rows;
+
+    private List<MeteorologyData> dataList;
+    private StationTimeSeriesIndex index;
+    private LocalDate from;
+    private LocalDate to;
+
+    /**
+     * Genera los datos, construye el índice y elige como rango el año central de los datos
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+        int stations = AemetDataGenerator.DEFAULT_STATIONS;
+        int days = AemetDataGenerator.daysFor(rows, stations);
+        dataList = AemetDataGenerator.generateRows(stations, days, 42);
+        index = StationTimeSeriesIndex.of(dataList);
+        from = AemetDataGenerator.START_DATE.plusDays(days / 2 - 182L);
+        to = from.plusDays(364);
+    }
+
+    @Benchmark
+    public Optional<MeteorologyData> maxTemperatureList() {
+        return dataList.stream()
+                .filter(data -> data.getLocation().equals(LOCATION))
+                .filter(data -> !data.getDate().isBefore(from) && !data.getDate().isAfter(to))
+                .max(Comparator.comparingDouble(MeteorologyData::getMaxTemperature));
+    }
+
+    @Benchmark
+    public List<StationRangeStats> rangeStatsIndex() {
+        return index.find(LOCATION).stream()
+                .map(station -> station.getStats(from, to))
+                .flatMap(Optional::stream)
+                .toList();
+    }
+
+    @Benchmark
+    public float[] dailyMaxTemperatureList() {
+        List<MeteorologyData> days = dataList.stream()
+                .filter(data -> data.getLocation().equals(LOCATION))
+                .filter(data -> !data.getDate().isBefore(from) && !data.getDate().isAfter(to))
+                .sorted(Comparator.comparing(MeteorologyData::getDate))
+                .toList();
+        float[] maxTemperatures = new float[days.size()];
+        for (int i = 0; i < maxTemperatures.length; i++) {
+            maxTemperatures[i] = days.get(i).getMaxTemperature();
+        }
+        return maxTemperatures;
+    }
+
+    @Benchmark
+    public float[] dailyMaxTemperatureIndex() {
+        return index.find(LOCATION).stream()
+                .findFirst()
+                .map(station -> station.slice(from, to).getMaxTemperatures())
+                .orElse(new float[0]);
+    }
+}
@@ -2,24 +2,53 @@ package com.madiben;
 
 import com.madiben.controllers.MeteorologyDataController;
 import com.madiben.exceptions.ReadCSVFailException;
+import com.madiben.exceptions.UncheckedSQLException;
 import com.madiben.models.MeteorologyData;
+import com.madiben.models.dto.FileExportReport;
+import com.madiben.models.dto.FileIngestionReport;
+import com.madiben.models.dto.MeteorologyProvinceDaySummary;
+import com.madiben.models.dto.ProvinceQuantiles;
+import com.madiben.repositories.analytics.ProvinceMonthSketchRepositoryImpl;
+import com.madiben.repositories.ingestion.IngestedFileRepositoryImpl;
+import com.madiben.repositories.meteorology.MeteorologyDataRepository;
 import com.madiben.repositories.meteorology.MeteorologyDataRepositoryImpl;
 import com.madiben.services.CRUD.meteorology.MeteorologyDataServiceImpl;
+import com.madiben.services.CRUD.meteorology.QuantileSketchService;
+import com.madiben.services.CRUD.meteorology.QuantileSketchServiceImpl;
+import com.madiben.services.analytics.QuantileSketchAccumulator;
 import com.madiben.services.database.DatabaseManager;
+import com.madiben.services.io.CsvFolderWatcher;
 import com.madiben.services.io.CsvManager;
+import com.madiben.services.io.IncrementalCsvIngestor;
+import com.madiben.services.io.ParallelCsvIngestor;
+import com.madiben.services.io.ParallelProvinceExporter;
+import com.madiben.utils.ApplicationProperties;
+import com.madiben.utils.UtilParsers;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
 
 /**
  * Clase principal de la aplicación
  */
 public class MeteorologyApp {
-    private MeteorologyDataController controller = new MeteorologyDataController
-            (MeteorologyDataServiceImpl.getInstance(new MeteorologyDataRepositoryImpl(DatabaseManager.getInstance())));
+    private final MeteorologyDataRepository meteorologyDataRepository =
+            new MeteorologyDataRepositoryImpl(DatabaseManager.getInstance());
+    private final QuantileSketchService quantileSketchService = QuantileSketchServiceImpl.getInstance(
+            new ProvinceMonthSketchRepositoryImpl(DatabaseManager.getInstance()), meteorologyDataRepository);
+    private final MeteorologyDataServiceImpl meteorologyDataService = MeteorologyDataServiceImpl.getInstance(
+            meteorologyDataRepository, quantileSketchService);
+    private MeteorologyDataController controller = new MeteorologyDataController(meteorologyDataService);
 
     private static MeteorologyApp meteorologyAppInstance;
     private final Logger logger = LoggerFactory.getLogger(MeteorologyApp.class);
@@ -47,25 +76,219 @@ public class MeteorologyApp {
      */
     public void run() {
         readCSVFilesAtFolderAndSaveToDatabase();
+        if (Boolean.parseBoolean(ApplicationProperties.getInstance().readProperty("db.explain", "false"))) {
+            printQueryPlans("Madrid");
+        }
         printQueries();
         exportProvinceToJson("Madrid");
+        if (Boolean.parseBoolean(ApplicationProperties.getInstance().readProperty("export.all", "false"))) {
+            exportAllProvincesToJson();
+        }
+        if (Boolean.parseBoolean(ApplicationProperties.getInstance().readProperty("csv.watch", "false"))) {
+            watchDataFolder();
+        }
         finish();
     }
 
     /**
-     * Método que lee los archivos CSV de la carpeta data y los guarda en la base de datos
+     * Devuelve la ruta de la carpeta data con los archivos CSV
+     *
+     * @return Ruta de la carpeta data
+     */
+    private String dataFolder() {
+        return System.getProperty("user.dir") + File.separator + "data";
+    }
+
+    /**
+     * Método que lee los archivos CSV de la carpeta data, los guarda en la base de datos y actualiza los resúmenes
+     * de cuantiles de cada provincia y mes con los registros guardados
      */
     private void readCSVFilesAtFolderAndSaveToDatabase() {
-        try {
-            for (MeteorologyData meteorologyData : CsvManager.getInstance()
-                    .folderDataToMeteorologyList(System.getProperty("user.dir") + File.separator + "data")) {
-                controller.save(meteorologyData);
+        String path = dataFolder();
+        ApplicationProperties properties = ApplicationProperties.getInstance();
+        QuantileSketchAccumulator sketches = new QuantileSketchAccumulator();
+        if (Boolean.parseBoolean(properties.readProperty("csv.incremental", "true"))) {
+            readCSVFilesIncrementally(path, properties, sketches);
+        } else if (Boolean.parseBoolean(properties.readProperty("csv.parallel", "false"))) {
+            readCSVFilesInParallel(path, properties, sketches);
+        } else {
+            try (Stream<MeteorologyData> data = CsvManager.getInstance().folderDataToMeteorologyStream(path)) {
+                if (controller.saveAll(data.peek(sketches::add)) < sketches.getAdded()) {
+                    rebuildQuantileSketches();
+                    return;
+                }
+            } catch (ReadCSVFailException e) {
+                logger.error("Error al leer la carpeta de los CSV", e);
+                rebuildQuantileSketches();
+                return;
+            } catch (UncheckedSQLException e) {
+                logger.error("Error al guardar los datos de los CSV", e.getCause());
+                rebuildQuantileSketches();
+                return;
             }
+        }
+        updateQuantileSketches(sketches);
+    }
+
+    /**
+     * Método que actualiza los resúmenes de cuantiles con los de una ingesta
+     *
+     * @param sketches Resúmenes de los registros ingeridos
+     */
+    private void updateQuantileSketches(QuantileSketchAccumulator sketches) {
+        try {
+            quantileSketchService.update(sketches);
+        } catch (SQLException e) {
+            logger.error("Error al actualizar los resúmenes de cuantiles", e);
+        }
+    }
+
+    /**
+     * Método que reconstruye los resúmenes de cuantiles desde la base de datos, cuando una ingesta sin trozos
+     * no se ha podido guardar entera
+     */
+    private void rebuildQuantileSketches() {
+        try {
+            quantileSketchService.rebuild();
+        } catch (SQLException e) {
+            logger.error("Error al reconstruir los resúmenes de cuantiles", e);
+        }
+    }
+
+    /**
+     * Método que lee en paralelo los archivos CSV de la carpeta y los guarda en la base de datos
+     *
+     * @param path       Ruta de la carpeta de los archivos CSV
+     * @param properties Propiedades de la aplicación
+     * @param sketches   Resúmenes de cuantiles a los que se añaden los registros guardados
+     */
+    private void readCSVFilesInParallel(String path, ApplicationProperties properties,
+                                        QuantileSketchAccumulator sketches) {
+        try {
+            List<FileIngestionReport> reports = parallelCsvIngestor(properties).ingest(path,
+                    sketches.tracking(meteorologyDataService::saveAll));
+            long saved = reports.stream().mapToLong(FileIngestionReport::getSavedRows).sum();
+            long failed = reports.stream().filter(report -> !report.isSuccess()).count();
+            long partial = reports.stream().filter(FileIngestionReport::isPartiallySaved).count();
+            String msg = "Ingesta en paralelo: " + reports.size() + " archivos, " + saved + " registros guardados, "
+                    + failed + " archivos con errores (" + partial + " guardados a medias)";
+            logger.info(msg);
         } catch (ReadCSVFailException e) {
             logger.error("Error al leer el CSV", e);
         }
     }
 
+    /**
+     * Método que lee los archivos CSV nuevos o modificados de la carpeta y los inserta o actualiza en la base de datos
+     * Los archivos que no han cambiado desde la última ingesta se saltan
+     *
+     * @param path       Ruta de la carpeta de los archivos CSV
+     * @param properties Propiedades de la aplicación
+     * @param sketches   Resúmenes de cuantiles a los que se añaden los registros guardados
+     */
+    private void readCSVFilesIncrementally(String path, ApplicationProperties properties,
+                                           QuantileSketchAccumulator sketches) {
+        IncrementalCsvIngestor ingestor = new IncrementalCsvIngestor(
+                new IngestedFileRepositoryImpl(DatabaseManager.getInstance()), parallelCsvIngestor(properties));
+        try {
+            List<FileIngestionReport> reports = ingestor.ingest(path,
+                    sketches.tracking(meteorologyDataService::upsertAll));
+            long saved = reports.stream().mapToLong(FileIngestionReport::getSavedRows).sum();
+            long skipped = reports.stream().filter(FileIngestionReport::isSkipped).count();
+            long failed = reports.stream().filter(report -> !report.isSuccess()).count();
+            long partial = reports.stream().filter(FileIngestionReport::isPartiallySaved).count();
+            String msg = "Ingesta incremental: " + reports.size() + " archivos, " + skipped + " sin cambios, "
+                    + saved + " registros guardados, " + failed + " archivos con errores (" + partial
+                    + " guardados a medias)";
+            logger.info(msg);
+        } catch (ReadCSVFailException | SQLException e) {
+            logger.error("Error al leer el CSV", e);
+        }
+    }
+
+    /**
+     * Método que vigila la carpeta data hasta que se detiene el programa. Cada archivo CSV nuevo o modificado
+     * se inserta o actualiza en la base de datos, se actualizan los resúmenes de cuantiles y se imprime el resumen
+     * de las provincias de su día
+     */
+    private void watchDataFolder() {
+        ApplicationProperties properties = ApplicationProperties.getInstance();
+        IncrementalCsvIngestor ingestor = new IncrementalCsvIngestor(
+                new IngestedFileRepositoryImpl(DatabaseManager.getInstance()), parallelCsvIngestor(properties));
+        CsvFolderWatcher watcher = new CsvFolderWatcher(Paths.get(dataFolder()),
+                Long.parseLong(properties.readProperty("csv.watch.debounce.ms", "2000")),
+                Integer.parseInt(properties.readProperty("csv.watch.queue.capacity", "64")),
+                file -> {
+                    QuantileSketchAccumulator sketches = new QuantileSketchAccumulator();
+                    List<FileIngestionReport> reports = ingestor.ingest(List.of(file),
+                            sketches.tracking(meteorologyDataService::upsertAll));
+                    updateQuantileSketches(sketches);
+                    reports.stream()
+                            .filter(report -> !report.isSkipped())
+                            .forEach(report -> printIngestedFile(report, file));
+                });
+        Thread shutdownHook = new Thread(watcher::close);
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+        try {
+            watcher.start();
+            watcher.awaitTermination();
+        } catch (IOException e) {
+            logger.error("Error al vigilar la carpeta de los CSV", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            watcher.close();
+        }
+    }
+
+    /**
+     * Método que imprime el resultado de la ingesta de un archivo y el resumen de las provincias de su día
+     *
+     * @param report Informe de la ingesta del archivo
+     * @param file   Archivo ingerido
+     */
+    private void printIngestedFile(FileIngestionReport report, Path file) {
+        String msg = "Archivo " + report.getFileName() + ": " + report.getSavedRows() + " registros guardados"
+                + (report.isSuccess() ? "" : report.isPartiallySaved() ? " con errores (guardado a medias)"
+                : " con errores");
+        logger.info(msg);
+        if (report.isSuccess()) {
+            printProvinceDaySummaries(controller.getProvinceDaySummaries(
+                    UtilParsers.getInstance().parseFileNameToDate(file.getFileName().toString())));
+        }
+    }
+
+    /**
+     * Crea el ingestor en paralelo con la configuración de las propiedades csv.*
+     *
+     * @param properties Propiedades de la aplicación
+     * @return ParallelCsvIngestor configurado
+     */
+    private ParallelCsvIngestor parallelCsvIngestor(ApplicationProperties properties) {
+        return new ParallelCsvIngestor(
+                Integer.parseInt(properties.readProperty("csv.parallelism",
+                        String.valueOf(Runtime.getRuntime().availableProcessors()))),
+                Integer.parseInt(properties.readProperty("csv.writers", "1")),
+                Integer.parseInt(properties.readProperty("csv.queue.capacity", "16")),
+                Integer.parseInt(properties.readProperty("csv.chunk.size", "1000")));
+    }
+
+    /**
+     * Método que imprime el plan de ejecución (EXPLAIN) de las consultas del repositorio
+     *
+     * @param province Provincia con la que se explican las consultas filtradas por provincia
+     */
+    private void printQueryPlans(String province) {
+        try {
+            meteorologyDataRepository.explainQueries(province).forEach((query, plan) -> {
+                String msg = "Plan de " + query + ":\n" + plan;
+                logger.info(msg);
+            });
+        } catch (SQLException e) {
+            logger.error("Error al obtener los planes de ejecución", e);
+        }
+    }
+
     /**
      * Método que imprime los datos de las consultas
      */
@@ -74,6 +297,34 @@ public class MeteorologyApp {
         printDataGroupedByProvincesAndDate();
         printMaxPrecipitationData();
         printDayDataByProvince("Barcelona");
+        printProvinceQuantiles("Madrid");
+    }
+
+    /**
+     * Método que imprime los percentiles aproximados de la temperatura máxima y la precipitación de cada mes
+     * de una provincia
+     *
+     * @param province Provincia a imprimir
+     */
+    private void printProvinceQuantiles(String province) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("\n").append("Percentiles de la provincia ").append(province).append(": ").append("\n");
+        try {
+            List<ProvinceQuantiles> quantiles = quantileSketchService.getQuantiles(province);
+            quantiles.forEach(e -> sb.append("\n").append("Mes: ").append(e.getMonth())
+                    .append(" (").append(e.getCount()).append(" registros, error de rango ")
+                    .append(String.format("%.2f", e.getRankError() * 100)).append(" %)").append("\n")
+                    .append("Temperatura máxima p50/p90/p99: ").append(e.getMaxTemperatureP50()).append(" / ")
+                    .append(e.getMaxTemperatureP90()).append(" / ").append(e.getMaxTemperatureP99()).append("\n")
+                    .append("Precipitación p50/p90/p99: ").append(e.getPrecipitationP50()).append(" / ")
+                    .append(e.getPrecipitationP90()).append(" / ").append(e.getPrecipitationP99()).append("\n"));
+            if (quantiles.isEmpty()) {
+                sb.append("No hay datos\n");
+            }
+            logger.info(sb.toString());
+        } catch (SQLException e) {
+            logger.error("Error al obtener los percentiles", e);
+        }
     }
 
     /**
@@ -114,20 +365,27 @@ public class MeteorologyApp {
      * Método que imprime los datos agrupados por fecha y provincia
      */
     private void printDataGroupedByProvincesAndDate() {
+        printProvinceDaySummaries(controller.getProvinceDaySummaries());
+    }
+
+    /**
+     * Método que imprime los resúmenes de cada día y provincia
+     *
+     * @param summaries Resúmenes a imprimir
+     */
+    private void printProvinceDaySummaries(List<MeteorologyProvinceDaySummary> summaries) {
         StringBuilder str = new StringBuilder();
-        controller.dataGrouper().forEach(e -> {
+        summaries.forEach(e -> {
             str.append("\n");
             str.append("Fecha: ").append(e.getDate()).append("\t").append("Provincia: ").append(e.getProvince())
                     .append("\n");
-            str.append("Máxima temperatura: ").append(controller.maxTemperature(e.getMeteorologyData())).append("\n");
-            str.append("Mínima temperatura: ").append(controller.minTemperature(e.getMeteorologyData())).append("\n");
-            str.append("Media de temperatura: ").append(String.format("%.2f", controller
-                    .avgTemperature(e.getMeteorologyData()))).append("\n");
-            str.append("Media de precipitación: ").append(String.format("%.2f", controller
-                    .avgPrecipitation(e.getMeteorologyData()))).append("\n");
+            str.append("Máxima temperatura: ").append(e.getMaxTemperature()).append("\n");
+            str.append("Mínima temperatura: ").append(e.getMinTemperature()).append("\n");
+            str.append("Media de temperatura: ").append(String.format("%.2f", e.getAvgTemperature())).append("\n");
+            str.append("Media de precipitación: ").append(String.format("%.2f", e.getAvgPrecipitation()))
+                    .append("\n");
             StringBuilder locations = new StringBuilder();
-            controller.locationListWithPrecipitation(e.getMeteorologyData()).forEach(d ->
-                    locations.append("- ").append(d).append("\n"));
+            e.getRainyLocations().forEach(d -> locations.append("- ").append(d).append("\n"));
             if (locations.isEmpty()) {
                 str.append("No ha llovido en ningún lugar\n");
             } else {
@@ -217,10 +475,52 @@ public class MeteorologyApp {
         }
     }
 
+    /**
+     * Método que exporta los datos de cada provincia a su fichero, en paralelo y con una sola consulta
+     */
+    private void exportAllProvincesToJson() {
+        ApplicationProperties properties = ApplicationProperties.getInstance();
+        ParallelProvinceExporter exporter = new ParallelProvinceExporter(
+                Integer.parseInt(properties.readProperty("export.parallelism",
+                        String.valueOf(Runtime.getRuntime().availableProcessors()))),
+                Integer.parseInt(properties.readProperty("export.queue.capacity", "16")),
+                Integer.parseInt(properties.readProperty("export.chunk.size", "1000")));
+        logger.info("Exportando datos de todas las provincias...");
+        long start = System.nanoTime();
+        List<FileExportReport> reports = controller.exportAllProvinces(exporter);
+        StringBuilder sb = new StringBuilder();
+        reports.forEach(report -> sb.append("\n").append(report.getFileName()).append(": ")
+                .append(report.getRows()).append(" registros, ").append(report.getBytes()).append(" bytes, ")
+                .append(report.getMillis()).append(" ms").append(report.isSuccess() ? "" : " - " + report.getError()));
+        long bytes = reports.stream().mapToLong(FileExportReport::getBytes).sum();
+        long failed = reports.stream().filter(report -> !report.isSuccess()).count();
+        String msg = "Exportación de todas las provincias: " + reports.size() + " archivos, " + bytes + " bytes, "
+                + failed + " archivos con errores en " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+                + " ms" + sb;
+        logger.info(msg);
+    }
+
     /**
      * Método de finalización del programa
      */
     private void finish() {
+        DatabaseManager.getInstance().getPoolMetrics().ifPresent(metrics -> {
+            String msg = "Pool de conexiones: " + metrics.getAcquisitions() + " conexiones prestadas, "
+                    + metrics.getTimeouts() + " esperas agotadas, espera media "
+                    + String.format("%.3f", metrics.getAvgWaitMillis()) + " ms, espera máxima "
+                    + String.format("%.3f", metrics.getMaxWaitMillis()) + " ms. Caché de PreparedStatement: "
+                    + metrics.getStatementCacheHits() + " aciertos, " + metrics.getStatementCacheMisses() + " fallos ("
+                    + String.format("%.1f", metrics.getStatementCacheHitRatio() * 100) + "%)";
+            logger.info(msg);
+        });
+        controller.getCacheStats().forEach((name, stats) -> {
+            String msg = "Caché de " + name + ": " + stats.getSize() + "/" + stats.getMaxSize() + " entradas, "
+                    + stats.getHits() + " aciertos, " + stats.getMisses() + " fallos ("
+                    + String.format("%.1f", stats.getHitRatio() * 100) + "%), " + stats.getEvictions()
+                    + " desalojos, " + stats.getExpirations() + " caducadas, " + stats.getInvalidations()
+                    + " invalidaciones";
+            logger.info(msg);
+        });
         DatabaseManager.getInstance().close();
     }
 }
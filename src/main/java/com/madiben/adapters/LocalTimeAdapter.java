@@ -15,11 +15,11 @@ public class LocalTimeAdapter extends TypeAdapter<LocalTime> {
     private final DateTimeFormatter formatter = DateTimeFormatter.ISO_LOCAL_TIME;
 
     /**
-     * Mtodo de escritura
+     * Método de escritura
      *
      * @param out   JsonWriter
      * @param value LocalDate
-     * @throws IOException Excepcin de escritura
+     * @throws IOException Excepción de escritura
      */
     @Override
     public void write(JsonWriter out, LocalTime value) throws IOException {
@@ -31,11 +31,11 @@ public class LocalTimeAdapter extends TypeAdapter<LocalTime> {
     }
 
     /**
-     * Mtodo de lectura
+     * Método de lectura
      *
      * @param in JsonReader
      * @return LocalDate
-     * @throws IOException Excepcin de lectura
+     * @throws IOException Excepción de lectura
      */
     @Override
     public LocalTime read(JsonReader in) throws IOException {
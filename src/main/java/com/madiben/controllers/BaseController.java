@@ -6,6 +6,7 @@ import com.madiben.exceptions.MeteorologyDataNotFoundException;
 import java.sql.SQLException;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Controlador base
@@ -19,6 +20,10 @@ public interface BaseController<T> {
 
     Optional<T> save(T entity) throws SQLException;
 
+    long saveAll(List<T> entities) throws SQLException;
+
+    long saveAll(Stream<T> entities) throws SQLException;
+
     Optional<T> update(String id, T entity) throws SQLException, MeteorologyDataException;
 
     boolean delete(String id) throws SQLException, MeteorologyDataNotFoundException;
@@ -1,20 +1,35 @@
 package com.madiben.controllers;
 
 import com.madiben.exceptions.MeteorologyDataException;
+import com.madiben.exceptions.UncheckedSQLException;
 import com.madiben.models.MeteorologyData;
+import com.madiben.models.dto.CacheStats;
+import com.madiben.models.dto.FileExportReport;
 import com.madiben.models.dto.MeteorologyDataGroupedDTO;
+import com.madiben.models.dto.MeteorologyDataKey;
 import com.madiben.models.dto.MeteorologyDayData;
 import com.madiben.models.dto.MeteorologyProvinceDayData;
+import com.madiben.models.dto.MeteorologyProvinceDaySummary;
+import com.madiben.models.dto.MeteorologyRollingDayData;
 import com.madiben.services.CRUD.meteorology.MeteorologyDataService;
+import com.madiben.services.analytics.ClimatologyEngine;
+import com.madiben.services.analytics.MeteorologyAggregate;
+import com.madiben.services.analytics.MeteorologyColumnStore;
+import com.madiben.services.analytics.ParallelGrouper;
+import com.madiben.services.analytics.QuantileSketchAccumulator;
 import com.madiben.services.database.DatabaseManager;
 import com.madiben.services.io.ExportManager;
+import com.madiben.services.io.ParallelCsvIngestor;
+import com.madiben.services.io.ParallelProvinceExporter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.file.Path;
 import java.sql.SQLException;
 import java.time.LocalDate;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Controlador de MeteorologyData
@@ -47,6 +62,91 @@ public class MeteorologyDataController implements BaseController<MeteorologyData
         return new ArrayList<>();
     }
 
+    /**
+     * Busca una página de elementos ordenados por día, provincia y lugar. Para pedir la siguiente página se pasa
+     * MeteorologyDataKey.of(último elemento de la página)
+     *
+     * @param after Clave del último elemento de la página anterior, o null para pedir la primera página
+     * @param size  Número máximo de elementos de la página
+     * @return Elementos de la página; si hay menos de size, es la última
+     */
+    public List<MeteorologyData> findPage(MeteorologyDataKey after, int size) {
+        logger.debug("FindPage");
+        try {
+            return meteorologyDataService.findPage(after, size);
+        } catch (SQLException e) {
+            logger.error("Error Find Page: ", e);
+        }
+        return new ArrayList<>();
+    }
+
+    /**
+     * Busca los elementos de un rango de días
+     *
+     * @param from Primer día del rango (incluido)
+     * @param to   Último día del rango (incluido)
+     * @return Lista de elementos ordenada por día, provincia y lugar
+     */
+    public List<MeteorologyData> findByDateRange(LocalDate from, LocalDate to) {
+        logger.debug("FindByDateRange");
+        try {
+            return meteorologyDataService.findByDateRange(from, to);
+        } catch (SQLException e) {
+            logger.error("Error Find By Date Range: ", e);
+        }
+        return new ArrayList<>();
+    }
+
+    /**
+     * Busca los elementos de una provincia en un rango de días, por ejemplo los últimos 30 días de Barcelona
+     *
+     * @param province Provincia a buscar
+     * @param from     Primer día del rango (incluido)
+     * @param to       Último día del rango (incluido)
+     * @return Lista de elementos ordenada por día y lugar
+     */
+    public List<MeteorologyData> findByProvinceAndDateRange(String province, LocalDate from, LocalDate to) {
+        logger.debug("FindByProvinceAndDateRange");
+        try {
+            return meteorologyDataService.findByProvinceAndDateRange(province, from, to);
+        } catch (SQLException e) {
+            logger.error("Error Find By Province And Date Range: ", e);
+        }
+        return new ArrayList<>();
+    }
+
+    /**
+     * Busca los elementos de un lugar
+     *
+     * @param location Lugar a buscar
+     * @return Lista de elementos ordenada por día y provincia
+     */
+    public List<MeteorologyData> findByLocation(String location) {
+        logger.debug("FindByLocation");
+        try {
+            return meteorologyDataService.findByLocation(location);
+        } catch (SQLException e) {
+            logger.error("Error Find By Location: ", e);
+        }
+        return new ArrayList<>();
+    }
+
+    /**
+     * Busca los elementos con una precipitación mayor que un umbral
+     *
+     * @param threshold Umbral de precipitación
+     * @return Lista de elementos ordenada de mayor a menor precipitación
+     */
+    public List<MeteorologyData> findByPrecipitationAbove(float threshold) {
+        logger.debug("FindByPrecipitationAbove");
+        try {
+            return meteorologyDataService.findByPrecipitationAbove(threshold);
+        } catch (SQLException e) {
+            logger.error("Error Find By Precipitation Above: ", e);
+        }
+        return new ArrayList<>();
+    }
+
     /**
      * Busca un elemento en el repositorio por su id
      *
@@ -81,6 +181,72 @@ public class MeteorologyDataController implements BaseController<MeteorologyData
         return Optional.empty();
     }
 
+    /**
+     * Guarda una lista de elementos en el repositorio por lotes
+     *
+     * @param meteorologyDataList Elementos a guardar
+     * @return Número de elementos guardados
+     */
+    public long saveAll(List<MeteorologyData> meteorologyDataList) {
+        String msg = "SaveAll " + meteorologyDataList.size() + " elementos";
+        logger.debug(msg);
+        try {
+            return meteorologyDataService.saveAll(meteorologyDataList);
+        } catch (MeteorologyDataException | SQLException e) {
+            logger.error(msg, e);
+        }
+        return 0;
+    }
+
+    /**
+     * Guarda por lotes los elementos de un Stream a medida que se consumen
+     *
+     * @param meteorologyDataStream Stream de elementos a guardar
+     * @return Número de elementos guardados
+     */
+    public long saveAll(Stream<MeteorologyData> meteorologyDataStream) {
+        logger.debug("SaveAll Stream");
+        try {
+            return meteorologyDataService.saveAll(meteorologyDataStream);
+        } catch (MeteorologyDataException | SQLException e) {
+            logger.error("Error SaveAll Stream: ", e);
+        }
+        return 0;
+    }
+
+    /**
+     * Inserta o actualiza una lista de elementos por lotes según su clave natural (día, provincia y lugar)
+     *
+     * @param meteorologyDataList Elementos a guardar
+     * @return Número de elementos insertados o actualizados
+     */
+    public long upsertAll(List<MeteorologyData> meteorologyDataList) {
+        String msg = "UpsertAll " + meteorologyDataList.size() + " elementos";
+        logger.debug(msg);
+        try {
+            return meteorologyDataService.upsertAll(meteorologyDataList);
+        } catch (SQLException e) {
+            logger.error(msg, e);
+        }
+        return 0;
+    }
+
+    /**
+     * Inserta o actualiza por lotes los elementos de un Stream según su clave natural (día, provincia y lugar)
+     *
+     * @param meteorologyDataStream Stream de elementos a guardar
+     * @return Número de elementos insertados o actualizados
+     */
+    public long upsertAll(Stream<MeteorologyData> meteorologyDataStream) {
+        logger.debug("UpsertAll Stream");
+        try {
+            return meteorologyDataService.upsertAll(meteorologyDataStream);
+        } catch (SQLException e) {
+            logger.error("Error UpsertAll Stream: ", e);
+        }
+        return 0;
+    }
+
     /**
      * Actualiza un elemento del repositorio
      *
@@ -118,15 +284,27 @@ public class MeteorologyDataController implements BaseController<MeteorologyData
     }
 
     /**
-     * Exporta los datos de una provincia a un archivo CSV
+     * Devuelve las estadísticas de las cachés del servicio
+     *
+     * @return Mapa con las estadísticas de cada caché
+     */
+    public Map<String, CacheStats> getCacheStats() {
+        return meteorologyDataService.getCacheStats();
+    }
+
+    /**
+     * Exporta los datos de una provincia a un archivo con el formato configurado (JSON por defecto)
+     * Los datos se leen de la base de datos con un cursor y se escriben a medida que se leen
      *
      * @param province Provincia a exportar
      * @return ¿Exportado?
      */
     public boolean exportDataByProvince(String province) {
         try {
-            ExportManager.getInstance().exportMeteorologyData(findAll().stream().filter(meteorologyData ->
-                    meteorologyData.getProvince().equalsIgnoreCase(province)).toList(), province);
+            long rows = ExportManager.getInstance().exportMeteorologyData(province,
+                    action -> meteorologyDataService.forEachByProvince(province, action));
+            String msg = "Exportados " + rows + " registros de la provincia " + province;
+            logger.debug(msg);
         } catch (Exception e) {
             logger.error("Error al exportar los datos por provincia", e);
             return false;
@@ -134,131 +312,209 @@ public class MeteorologyDataController implements BaseController<MeteorologyData
         return true;
     }
 
+    /**
+     * Importa un archivo exportado (.json, .jsonl o .bin, comprimido o no con .gz) y sus elementos se insertan
+     * o actualizan según su clave natural (día, provincia y lugar), en lotes de db.batch.size elementos.
+     * Si falla la lectura o el guardado de un lote la importación se detiene; los lotes anteriores quedan guardados
+     * y, como se guardan por clave natural, basta con volver a importar el archivo. Al terminar, con o sin error,
+     * los resúmenes de cuantiles se actualizan con los lotes guardados
+     *
+     * @param file Archivo exportado
+     * @return Número de elementos insertados o actualizados, o -1 si la importación ha fallado
+     */
+    public long importData(Path file) {
+        String msg = "Importando " + file;
+        logger.debug(msg);
+        int batchSize = DatabaseManager.getInstance().getBatchSize();
+        List<MeteorologyData> batch = new ArrayList<>(batchSize);
+        QuantileSketchAccumulator sketches = new QuantileSketchAccumulator();
+        ParallelCsvIngestor.ChunkWriter upsert = sketches.tracking(rows -> meteorologyDataService.upsertAll(rows));
+        long[] saved = {0};
+        long result;
+        try {
+            ExportManager.getInstance().importMeteorologyData(file, data -> {
+                batch.add(data);
+                if (batch.size() >= batchSize) {
+                    try {
+                        saved[0] += upsert.write(batch);
+                    } catch (SQLException e) {
+                        throw new UncheckedSQLException(e);
+                    }
+                    batch.clear();
+                }
+            });
+            saved[0] += upsert.write(batch);
+            result = saved[0];
+        } catch (Exception e) {
+            msg = "Error al importar " + file + ", importación detenida con " + saved[0] + " elementos guardados";
+            logger.error(msg, e instanceof UncheckedSQLException unchecked ? unchecked.getCause() : e);
+            result = -1;
+        }
+        try {
+            meteorologyDataService.updateQuantileSketches(sketches);
+        } catch (SQLException e) {
+            logger.error("Error al actualizar los resúmenes de cuantiles", e);
+        }
+        return result;
+    }
+
+    /**
+     * Exporta los datos de cada provincia a su archivo con una sola consulta ordenada por provincia.
+     * Los archivos se escriben en paralelo con el exportador indicado
+     *
+     * @param exporter Exportador de provincias
+     * @return Informe de cada archivo, vacío si no se ha podido leer la base de datos
+     */
+    public List<FileExportReport> exportAllProvinces(ParallelProvinceExporter exporter) {
+        try {
+            return exporter.export(meteorologyDataService::forEachOrderedByProvince);
+        } catch (Exception e) {
+            logger.error("Error al exportar los datos de todas las provincias", e);
+            return List.of();
+        }
+    }
+
     /**
      * Devuelve los datos de meteorología con mayor precipitación
+     * La consulta se resuelve en la base de datos
      *
      * @return Optional de MeteorologyData con los datos de meteorología con mayor precipitación
      */
     public Optional<MeteorologyData> getMaxPrecipitationData() {
-        return findAll().stream()
-                .max(Comparator.comparing(MeteorologyData::getPrecipitation));
+        logger.debug("GetMaxPrecipitationData");
+        try {
+            return meteorologyDataService.findMaxPrecipitation();
+        } catch (SQLException e) {
+            logger.error("Error GetMaxPrecipitationData: ", e);
+        }
+        return Optional.empty();
     }
 
     /**
-     * Devuelve una lista de MeteorologyProvinceDayData con los datos de cada día de la provincia
+     * Devuelve los datos de meteorología con mayor precipitación de una lista de MeteorologyData
      *
-     * @param province Provincia a consultar
-     * @return Lista de MeteorologyProvinceDayData con los datos de cada día de la provincia
+     * @param dataList Lista de MeteorologyData
+     * @return Optional de MeteorologyData con los datos de meteorología con mayor precipitación
      */
-    public List<MeteorologyProvinceDayData> getProvinceDataFilterByProvince(String province) {
-        Map<LocalDate, List<MeteorologyData>> dateMap = mapDataByDate(province);
-        return dateMap.entrySet().stream().map(entry -> {
-                    List<MeteorologyData> dataList = entry.getValue();
-                    return MeteorologyProvinceDayData.builder()
-                            .date(entry.getKey())
-                            .maxTemperature(getDataOfMaxTemperature(dataList))
-                            .minTemperature(getDataOfMinTemperature(dataList))
-                            .avgMaxTemperature(avgMaxTemperature(dataList))
-                            .avgMinTemperature(avgMinTemperature(dataList))
-                            .maxPrecipitation(getDataOfMaxPrecipitation(dataList))
-                            .avgPrecipitation(avgPrecipitation(dataList))
-                            .build();
-                }).toList();
+    public Optional<MeteorologyData> getMaxPrecipitationData(List<MeteorologyData> dataList) {
+        return aggregate(dataList).getMaxPrecipitationData();
     }
 
     /**
-     * Devuelve una lista de MeteorologyDayData con los datos de cada día
+     * Devuelve los datos de meteorología con mayor precipitación de un almacén columnar
      *
-     * @return Lista de MeteorologyDayData con los datos de cada día
+     * @param store Almacén columnar de MeteorologyData
+     * @return Optional de MeteorologyData con los datos de meteorología con mayor precipitación
      */
-    public List<MeteorologyDayData> getDayData(){
-        List<MeteorologyDayData> list = new ArrayList<>();
-        findAll().stream()
-                .collect(Collectors.groupingBy(MeteorologyData::getDate))
-                .forEach((key, value) -> list.add(MeteorologyDayData.builder()
-                .date(key)
-                .maxTemperature(getDataOfMaxTemperature(value))
-                .minTemperature(getDataOfMinTemperature(value))
-                .maxPrecipitation(getDataOfMaxPrecipitation(value)).build()));
-        return list;
+    public Optional<MeteorologyData> getMaxPrecipitationData(MeteorologyColumnStore store) {
+        return store.maxPrecipitation();
     }
 
     /**
-     * Devuelve un mapa con los datos de meteorología agrupados por fecha
+     * Devuelve una lista de MeteorologyProvinceDayData con los datos de cada día de la provincia
+     * La consulta se resuelve en la base de datos
      *
      * @param province Provincia a consultar
-     * @return Mapa con los datos de meteorología agrupados por fecha
+     * @return Lista de MeteorologyProvinceDayData con los datos de cada día de la provincia
      */
-    private Map<LocalDate, List<MeteorologyData>> mapDataByDate(String province) {
-        return getDataFilterByProvince(province).stream()
-                .collect(Collectors.groupingBy(MeteorologyData::getDate));
+    public List<MeteorologyProvinceDayData> getProvinceDataFilterByProvince(String province) {
+        String msg = "GetProvinceDataFilterByProvince " + province;
+        logger.debug(msg);
+        try {
+            return meteorologyDataService.findProvinceDayData(province);
+        } catch (SQLException e) {
+            logger.error(msg, e);
+        }
+        return new ArrayList<>();
     }
 
     /**
-     * Devuelve una lista de MeteorologyData con los datos de meteorología de una provincia
+     * Obtiene las medias móviles, la precipitación acumulada y las anomalías climatológicas de cada día de una
+     * provincia, calculadas con ClimatologyEngine a partir de sus datos por día
      *
      * @param province Provincia a consultar
-     * @return Lista de MeteorologyData con los datos de meteorología de una provincia
+     * @return Lista de MeteorologyRollingDayData ordenada por fecha
      */
-    private List<MeteorologyData> getDataFilterByProvince(String province) {
-        return findAll().stream()
-                .filter(data -> data.getProvince().equalsIgnoreCase(province)).toList();
+    public List<MeteorologyRollingDayData> getProvinceRollingData(String province) {
+        String msg = "GetProvinceRollingData " + province;
+        logger.debug(msg);
+        return ClimatologyEngine.getInstance().compute(province, getProvinceDataFilterByProvince(province));
     }
 
     /**
-     * Devuelve los datos de meteorología con mayor temperatura
+     * Devuelve una lista de MeteorologyProvinceDayData con los datos de cada día de la provincia
+     * a partir de una lista de MeteorologyData. Cada día se agrega en una sola pasada con MeteorologyAggregate,
+     * en paralelo si la lista es grande (ParallelGrouper)
      *
-     * @return Optional de MeteorologyData con los datos de meteorología con mayor temperatura
+     * @param dataList Lista de MeteorologyData
+     * @param province Provincia a consultar
+     * @return Lista de MeteorologyProvinceDayData con los datos de cada día de la provincia, ordenada por fecha
      */
-    private Optional<MeteorologyData> getDataOfMaxTemperature(List<MeteorologyData> dataList) {
-        return dataList.stream()
-                .max(Comparator.comparingDouble(MeteorologyData::getMaxTemperature));
+    public List<MeteorologyProvinceDayData> getProvinceDataFilterByProvince(List<MeteorologyData> dataList,
+                                                                            String province) {
+        List<MeteorologyData> provinceList = dataList.stream()
+                .filter(data -> data.getProvince().equalsIgnoreCase(province))
+                .toList();
+        return ParallelGrouper.getInstance()
+                .groupBy(provinceList, MeteorologyData::getDate, MeteorologyAggregate.collector())
+                .entrySet().stream()
+                .map(entry -> entry.getValue().toProvinceDayData(entry.getKey()))
+                .toList();
     }
 
     /**
-     * Devuelve los datos de meteorología con menor temperatura
+     * Devuelve una lista de MeteorologyProvinceDayData con los datos de cada día de la provincia
+     * a partir de un almacén columnar
      *
-     * @return Optional de MeteorologyData con los datos de meteorología con menor temperatura
+     * @param store    Almacén columnar de MeteorologyData
+     * @param province Provincia a consultar
+     * @return Lista de MeteorologyProvinceDayData con los datos de cada día de la provincia, ordenada por fecha
      */
-    private Optional<MeteorologyData> getDataOfMinTemperature(List<MeteorologyData> dataList) {
-        return dataList.stream()
-                .min(Comparator.comparingDouble(MeteorologyData::getMaxTemperature));
+    public List<MeteorologyProvinceDayData> getProvinceDataFilterByProvince(MeteorologyColumnStore store,
+                                                                            String province) {
+        return store.provinceDayData(province);
     }
 
     /**
-     * Devuelve los datos de meteorología con mayor precipitación
+     * Devuelve una lista de MeteorologyDayData con los datos de cada día
+     * La consulta se resuelve en la base de datos
      *
-     * @return Optional de MeteorologyData con los datos de meteorología con mayor precipitación
+     * @return Lista de MeteorologyDayData con los datos de cada día
      */
-    private Optional<MeteorologyData> getDataOfMaxPrecipitation(List<MeteorologyData> dataList) {
-        return dataList.stream()
-                .max(Comparator.comparingDouble(MeteorologyData::getPrecipitation));
+    public List<MeteorologyDayData> getDayData() {
+        logger.debug("GetDayData");
+        try {
+            return meteorologyDataService.findDayData();
+        } catch (SQLException e) {
+            logger.error("Error GetDayData: ", e);
+        }
+        return new ArrayList<>();
     }
 
     /**
-     * Devuelve la temperatura mínima de una lista de MeteorologyData
+     * Devuelve una lista de MeteorologyDayData con los datos de cada día a partir de una lista de MeteorologyData.
+     * Cada día se agrega en una sola pasada con MeteorologyAggregate, en paralelo si la lista es grande
+     * (ParallelGrouper)
      *
      * @param dataList Lista de MeteorologyData
-     * @return Temperatura mínima
+     * @return Lista de MeteorologyDayData con los datos de cada día, ordenada por fecha
      */
-    private double avgMinTemperature(List<MeteorologyData> dataList) {
-        return dataList.stream()
-                .mapToDouble(MeteorologyData::getMinTemperature)
-                .average()
-                .orElse(0.0);
+    public List<MeteorologyDayData> getDayData(List<MeteorologyData> dataList) {
+        return ParallelGrouper.getInstance()
+                .groupBy(dataList, MeteorologyData::getDate, MeteorologyAggregate.collector())
+                .entrySet().stream()
+                .map(entry -> entry.getValue().toDayData(entry.getKey()))
+                .toList();
     }
 
     /**
-     * Devuelve la temperatura máxima de una lista de MeteorologyData
+     * Devuelve una lista de MeteorologyDayData con los datos de cada día a partir de un almacén columnar
      *
-     * @param dataList Lista de MeteorologyData
-     * @return Temperatura máxima
+     * @param store Almacén columnar de MeteorologyData
+     * @return Lista de MeteorologyDayData con los datos de cada día, ordenada por fecha
      */
-    private double avgMaxTemperature(List<MeteorologyData> dataList) {
-        return dataList.stream()
-                .mapToDouble(MeteorologyData::getMaxTemperature)
-                .average()
-                .orElse(0.0);
+    public List<MeteorologyDayData> getDayData(MeteorologyColumnStore store) {
+        return store.dayData();
     }
 
     /**
@@ -267,9 +523,22 @@ public class MeteorologyDataController implements BaseController<MeteorologyData
      * @return Lista de MeteorologyDataGroupedDTO con los datos de meteorología agrupados por fecha y provincia
      */
     public List<MeteorologyDataGroupedDTO> dataGrouper() {
-        Map<LocalDate, Map<String, List<MeteorologyData>>> groupedData = findAll().stream()
-                .collect(Collectors.groupingBy(MeteorologyData::getDate,
-                        Collectors.groupingBy(MeteorologyData::getProvince)));
+        return dataGrouper(findAll());
+    }
+
+    /**
+     * Devuelve una lista de MeteorologyDataGroupedDTO con los datos de una lista de MeteorologyData
+     * agrupados por fecha y provincia, en paralelo si la lista es grande (ParallelGrouper).
+     * Los datos de cada grupo mantienen el orden de la lista
+     *
+     * @param dataList Lista de MeteorologyData
+     * @return Lista de MeteorologyDataGroupedDTO con los datos de meteorología agrupados por fecha y provincia,
+     * ordenada por fecha y provincia
+     */
+    public List<MeteorologyDataGroupedDTO> dataGrouper(List<MeteorologyData> dataList) {
+        SortedMap<LocalDate, TreeMap<String, List<MeteorologyData>>> groupedData = ParallelGrouper.getInstance()
+                .groupBy(dataList, MeteorologyData::getDate,
+                        Collectors.groupingBy(MeteorologyData::getProvince, TreeMap::new, Collectors.toList()));
         List<MeteorologyDataGroupedDTO> result = new ArrayList<>();
         groupedData.forEach((date, provinceDataMap) -> provinceDataMap.forEach((province, meteoList) ->
                 result.add(MeteorologyDataGroupedDTO.builder()
@@ -281,6 +550,50 @@ public class MeteorologyDataController implements BaseController<MeteorologyData
         return result;
     }
 
+    /**
+     * Devuelve el resumen de cada día y provincia: temperatura máxima y mínima, medias y lugares donde ha llovido
+     * La consulta se resuelve en la base de datos, que solo devuelve una fila por día y provincia
+     *
+     * @return Lista de MeteorologyProvinceDaySummary ordenada por fecha y provincia
+     */
+    public List<MeteorologyProvinceDaySummary> getProvinceDaySummaries() {
+        logger.debug("GetProvinceDaySummaries");
+        try {
+            return meteorologyDataService.findProvinceDaySummaries();
+        } catch (SQLException e) {
+            logger.error("Error GetProvinceDaySummaries: ", e);
+        }
+        return new ArrayList<>();
+    }
+
+    /**
+     * Devuelve el resumen de cada provincia en un día
+     * La consulta se resuelve en la base de datos y solo agrega los datos de ese día
+     *
+     * @param date Día a consultar
+     * @return Lista de MeteorologyProvinceDaySummary ordenada por provincia
+     */
+    public List<MeteorologyProvinceDaySummary> getProvinceDaySummaries(LocalDate date) {
+        String msg = "GetProvinceDaySummaries " + date;
+        logger.debug(msg);
+        try {
+            return meteorologyDataService.findProvinceDaySummaries(date);
+        } catch (SQLException e) {
+            logger.error(msg, e);
+        }
+        return new ArrayList<>();
+    }
+
+    /**
+     * Devuelve el resumen de cada día y provincia a partir de un almacén columnar
+     *
+     * @param store Almacén columnar de MeteorologyData
+     * @return Lista de MeteorologyProvinceDaySummary ordenada por fecha y provincia
+     */
+    public List<MeteorologyProvinceDaySummary> getProvinceDaySummaries(MeteorologyColumnStore store) {
+        return store.provinceDaySummaries();
+    }
+
     /**
      * Devuelve la temperatura máxima de una lista de MeteorologyData
      *
@@ -288,10 +601,7 @@ public class MeteorologyDataController implements BaseController<MeteorologyData
      * @return Temperatura máxima
      */
     public float maxTemperature(List<MeteorologyData> dataList) {
-        return dataList.stream()
-                .max(Comparator.comparing(MeteorologyData::getMaxTemperature))
-                .map(MeteorologyData::getMaxTemperature)
-                .orElse(0.0f);
+        return aggregate(dataList).getMaxTemperature();
     }
 
     /**
@@ -301,23 +611,17 @@ public class MeteorologyDataController implements BaseController<MeteorologyData
      * @return Temperatura mínima
      */
     public float minTemperature(List<MeteorologyData> dataList) {
-        return dataList.stream()
-                .min(Comparator.comparing(MeteorologyData::getMinTemperature))
-                .map(MeteorologyData::getMinTemperature)
-                .orElse(0.0f);
+        return aggregate(dataList).getMinTemperature();
     }
 
     /**
-     * Devuelve la temperatura media de una lista de MeteorologyData
+     * Devuelve la precipitación media de una lista de MeteorologyData
      *
      * @param dataList Lista de MeteorologyData
-     * @return Temperatura media
+     * @return Precipitación media
      */
     public double avgPrecipitation(List<MeteorologyData> dataList) {
-        return dataList.stream()
-                .mapToDouble(MeteorologyData::getPrecipitation)
-                .average()
-                .orElse(0.0);
+        return aggregate(dataList).getAvgPrecipitation();
     }
 
     /**
@@ -327,10 +631,7 @@ public class MeteorologyDataController implements BaseController<MeteorologyData
      * @return Temperatura media
      */
     public double avgTemperature(List<MeteorologyData> dataList) {
-        return dataList.stream()
-                .mapToDouble(e -> ((e.getMaxTemperature() + e.getMinTemperature()) / 2))
-                .average()
-                .orElse(0.0);
+        return aggregate(dataList).getAvgTemperature();
     }
 
     /**
@@ -340,9 +641,66 @@ public class MeteorologyDataController implements BaseController<MeteorologyData
      * @return Lista de Strings de localidad con precipitación
      */
     public List<String> locationListWithPrecipitation(List<MeteorologyData> dataList) {
-        return dataList.stream()
-                .filter(meteorologyData -> meteorologyData.getPrecipitation() > 0)
-                .map(MeteorologyData::getLocation)
-                .toList();
+        return aggregate(dataList).getRainyLocations();
+    }
+
+    /**
+     * Agrega una lista de MeteorologyData en una sola pasada
+     *
+     * @param dataList Lista de MeteorologyData
+     * @return MeteorologyAggregate con los extremos, las medias y los lugares con precipitación de la lista
+     */
+    private MeteorologyAggregate aggregate(List<MeteorologyData> dataList) {
+        return dataList.stream().collect(MeteorologyAggregate.collector());
+    }
+
+    /**
+     * Devuelve la temperatura máxima de un almacén columnar
+     *
+     * @param store Almacén columnar de MeteorologyData
+     * @return Temperatura máxima
+     */
+    public float maxTemperature(MeteorologyColumnStore store) {
+        return store.maxTemperature();
+    }
+
+    /**
+     * Devuelve la temperatura mínima de un almacén columnar
+     *
+     * @param store Almacén columnar de MeteorologyData
+     * @return Temperatura mínima
+     */
+    public float minTemperature(MeteorologyColumnStore store) {
+        return store.minTemperature();
+    }
+
+    /**
+     * Devuelve la precipitación media de un almacén columnar
+     *
+     * @param store Almacén columnar de MeteorologyData
+     * @return Precipitación media
+     */
+    public double avgPrecipitation(MeteorologyColumnStore store) {
+        return store.avgPrecipitation();
+    }
+
+    /**
+     * Devuelve la temperatura media de un almacén columnar
+     *
+     * @param store Almacén columnar de MeteorologyData
+     * @return Temperatura media
+     */
+    public double avgTemperature(MeteorologyColumnStore store) {
+        return store.avgTemperature();
+    }
+
+    /**
+     * Devuelve una lista de Strings de localidad con precipitación de un almacén columnar
+     *
+     * @param store Almacén columnar de MeteorologyData
+     * @return Lista de Strings de localidad con precipitación
+     */
+    public List<String> locationListWithPrecipitation(MeteorologyColumnStore store) {
+        return store.locationsWithPrecipitation();
     }
 }
\ No newline at end of file
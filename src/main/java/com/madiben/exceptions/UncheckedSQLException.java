@@ -0,0 +1,24 @@
+package com.madiben.exceptions;
+
+import java.sql.SQLException;
+
+/**
+ * UncheckedSQLException
+ * Envuelve una SQLException producida mientras se recorre un Stream de resultados, que no puede lanzar
+ * excepciones comprobadas
+ */
+public class UncheckedSQLException extends RuntimeException {
+    public UncheckedSQLException(SQLException cause) {
+        super(cause.getMessage(), cause);
+    }
+
+    /**
+     * Devuelve la SQLException original
+     *
+     * @return SQLException original
+     */
+    @Override
+    public synchronized SQLException getCause() {
+        return (SQLException) super.getCause();
+    }
+}
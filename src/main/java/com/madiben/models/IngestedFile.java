@@ -0,0 +1,43 @@
+package com.madiben.models;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * IngestedFile: punto de control de un archivo CSV ya ingerido
+ */
+@Data
+@Builder
+public class IngestedFile {
+    private String fileName;
+    private long size;
+    private String hash;
+    private Long lastModified;
+    private long rows;
+    private LocalDateTime ingestedOn;
+
+    /**
+     * Devuelve si el archivo tiene el mismo tamaño y la misma fecha de modificación que cuando se ingirió,
+     * en cuyo caso se da por no cambiado sin calcular su hash
+     *
+     * @param size         Tamaño actual del archivo
+     * @param lastModified Fecha de modificación actual del archivo, en milisegundos desde epoch
+     * @return ¿Mismo tamaño y misma fecha de modificación?
+     */
+    public boolean matches(long size, long lastModified) {
+        return this.size == size && this.lastModified != null && this.lastModified == lastModified;
+    }
+
+    /**
+     * Devuelve si el archivo no ha cambiado desde que se ingirió
+     *
+     * @param size Tamaño actual del archivo
+     * @param hash Hash actual del archivo
+     * @return ¿Mismo tamaño y mismo hash?
+     */
+    public boolean matches(long size, String hash) {
+        return this.size == size && this.hash.equals(hash);
+    }
+}
@@ -11,7 +11,7 @@ import java.util.UUID;
  * MeteorologyData
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 public class MeteorologyData {
     @Builder.Default
     private UUID uuid = UUID.randomUUID();
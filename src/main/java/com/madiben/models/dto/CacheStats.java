@@ -0,0 +1,29 @@
+package com.madiben.models.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Clase CacheStats que representa el estado de una caché en un instante
+ */
+@Data
+@Builder
+public class CacheStats {
+    private int size;
+    private int maxSize;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+    private long invalidations;
+
+    /**
+     * Devuelve la proporción de consultas resueltas por la caché
+     *
+     * @return Aciertos entre el total de consultas, entre 0 y 1
+     */
+    public double getHitRatio() {
+        long requests = hits + misses;
+        return requests > 0 ? (double) hits / requests : 0.0;
+    }
+}
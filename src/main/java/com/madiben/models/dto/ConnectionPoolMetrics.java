@@ -0,0 +1,42 @@
+package com.madiben.models.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Clase ConnectionPoolMetrics que representa el estado del pool de conexiones y de sus cachés de PreparedStatement
+ * en un instante
+ */
+@Data
+@Builder
+public class ConnectionPoolMetrics {
+    private int maxSize;
+    private int active;
+    private int idle;
+    private long acquisitions;
+    private long timeouts;
+    private double totalWaitMillis;
+    private double maxWaitMillis;
+    private long statementCacheHits;
+    private long statementCacheMisses;
+    private long statementCacheEvictions;
+
+    /**
+     * Devuelve el tiempo medio de espera para obtener una conexión
+     *
+     * @return Milisegundos de espera medios
+     */
+    public double getAvgWaitMillis() {
+        return acquisitions > 0 ? totalWaitMillis / acquisitions : 0.0;
+    }
+
+    /**
+     * Devuelve la proporción de PreparedStatement obtenidos de la caché
+     *
+     * @return Aciertos entre el total de PreparedStatement pedidos, entre 0 y 1
+     */
+    public double getStatementCacheHitRatio() {
+        long requests = statementCacheHits + statementCacheMisses;
+        return requests > 0 ? (double) statementCacheHits / requests : 0.0;
+    }
+}
@@ -0,0 +1,27 @@
+package com.madiben.models.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Clase FileExportReport que representa el resultado de la exportación de un archivo
+ */
+@Data
+@Builder
+public class FileExportReport {
+    private String fileName;
+    private String province;
+    private long rows;
+    private long bytes;
+    private long millis;
+    private String error;
+
+    /**
+     * Devuelve si el archivo se ha exportado sin errores
+     *
+     * @return ¿Sin errores?
+     */
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
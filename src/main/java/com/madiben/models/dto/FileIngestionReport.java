@@ -0,0 +1,37 @@
+package com.madiben.models.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Clase FileIngestionReport que representa el resultado de la ingesta de un archivo CSV
+ */
+@Data
+@Builder
+public class FileIngestionReport {
+    private String fileName;
+    private long parsedRows;
+    private long savedRows;
+    private long millis;
+    private String error;
+    private boolean skipped;
+
+    /**
+     * Devuelve si el archivo se ha ingerido sin errores
+     *
+     * @return ¿Sin errores?
+     */
+    public boolean isSuccess() {
+        return error == null && parsedRows == savedRows;
+    }
+
+    /**
+     * Devuelve si el archivo ha fallado después de guardar algún trozo, con lo que parte de sus registros
+     * están en la base de datos
+     *
+     * @return ¿Guardado a medias?
+     */
+    public boolean isPartiallySaved() {
+        return !isSuccess() && savedRows > 0;
+    }
+}
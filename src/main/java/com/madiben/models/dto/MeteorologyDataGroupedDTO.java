@@ -8,7 +8,7 @@ import java.time.LocalDate;
 import java.util.List;
 
 /**
- * Clase MeteorologyDataGropuedDTO que representa los datos de meteorologa agrupados por fecha y provincia
+ * Clase MeteorologyDataGropuedDTO que representa los datos de meteorología agrupados por fecha y provincia
  */
 @Data
 @Builder
@@ -0,0 +1,33 @@
+package com.madiben.models.dto;
+
+import com.madiben.models.MeteorologyData;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * Clase MeteorologyDataKey que representa la clave natural de un MeteorologyData (día, provincia y lugar),
+ * usada para pedir la página siguiente a un elemento
+ */
+@Data
+@Builder
+public class MeteorologyDataKey {
+    private LocalDate date;
+    private String province;
+    private String location;
+
+    /**
+     * Devuelve la clave natural de un elemento
+     *
+     * @param data Elemento
+     * @return Clave del elemento
+     */
+    public static MeteorologyDataKey of(MeteorologyData data) {
+        return MeteorologyDataKey.builder()
+                .date(data.getDate())
+                .province(data.getProvince())
+                .location(data.getLocation())
+                .build();
+    }
+}
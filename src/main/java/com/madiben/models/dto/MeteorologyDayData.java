@@ -8,7 +8,7 @@ import java.time.LocalDate;
 import java.util.Optional;
 
 /**
- * Clase MeteorologyProvinceData que representa los datos de meteorologa de una provincia
+ * Clase MeteorologyProvinceData que representa los datos de meteorología de una provincia
  */
 @Data
 @Builder
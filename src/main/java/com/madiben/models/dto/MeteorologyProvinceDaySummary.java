@@ -0,0 +1,22 @@
+package com.madiben.models.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Clase MeteorologyProvinceDaySummary que representa el resumen de los datos de meteorología de una provincia en un día
+ */
+@Data
+@Builder
+public class MeteorologyProvinceDaySummary {
+    private LocalDate date;
+    private String province;
+    private float maxTemperature;
+    private float minTemperature;
+    private double avgTemperature;
+    private double avgPrecipitation;
+    private List<String> rainyLocations;
+}
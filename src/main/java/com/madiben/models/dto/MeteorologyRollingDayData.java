@@ -0,0 +1,29 @@
+package com.madiben.models.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.SortedMap;
+
+/**
+ * Clase MeteorologyRollingDayData que representa los datos de un día de una estación o de una provincia con sus
+ * medias móviles, su precipitación acumulada y su anomalía respecto a la normal climatológica de ese día del año
+ */
+@Data
+@Builder
+public class MeteorologyRollingDayData {
+    private LocalDate date;
+    private String location;
+    private String province;
+    private double avgTemperature;
+    private double precipitation;
+    private SortedMap<Integer, Double> rollingAvgTemperature;
+    private SortedMap<Integer, Double> rollingPrecipitation;
+    private double cumulativePrecipitation;
+    private double yearPrecipitation;
+    private double normalTemperature;
+    private double temperatureAnomaly;
+    private double normalPrecipitation;
+    private double precipitationAnomaly;
+}
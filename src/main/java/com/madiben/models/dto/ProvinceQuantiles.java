@@ -0,0 +1,28 @@
+package com.madiben.models.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Month;
+import java.time.YearMonth;
+
+/**
+ * Clase ProvinceQuantiles que representa los percentiles aproximados de la temperatura máxima y la precipitación
+ * de una provincia en un mes (month) o en un mes de todos los años (month null)
+ * Los percentiles están a menos de rankError del rango exacto con probabilidad del 99 %
+ */
+@Data
+@Builder
+public class ProvinceQuantiles {
+    private String province;
+    private YearMonth month;
+    private Month calendarMonth;
+    private long count;
+    private float maxTemperatureP50;
+    private float maxTemperatureP90;
+    private float maxTemperatureP99;
+    private float precipitationP50;
+    private float precipitationP90;
+    private float precipitationP99;
+    private double rankError;
+}
@@ -0,0 +1,26 @@
+package com.madiben.models.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * Clase StationRangeStats que representa los extremos y la precipitación de una estación en un rango de días
+ */
+@Data
+@Builder
+public class StationRangeStats {
+    private String location;
+    private String province;
+    private LocalDate from;
+    private LocalDate to;
+    private int days;
+    private float maxTemperature;
+    private LocalDate maxTemperatureDate;
+    private float minTemperature;
+    private LocalDate minTemperatureDate;
+    private float maxPrecipitation;
+    private LocalDate maxPrecipitationDate;
+    private double totalPrecipitation;
+}
@@ -3,6 +3,7 @@ package com.madiben.repositories;
 import java.sql.SQLException;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Interfaz que define las operaciones CRUD sobre un repositorio
@@ -34,6 +35,23 @@ public interface CRUDRepository<T, I> {
      */
     Optional<T> save(T entity) throws SQLException;
 
+    /**
+     * Guarda una lista de elementos en el repositorio por lotes
+     *
+     * @param entities Elementos a guardar
+     * @return Número de elementos guardados
+     */
+    long saveAll(List<T> entities) throws SQLException;
+
+    /**
+     * Guarda por lotes los elementos de un Stream a medida que se consumen,
+     * sin llegar a tenerlos todos en memoria
+     *
+     * @param entities Stream de elementos a guardar
+     * @return Número de elementos guardados
+     */
+    long saveAll(Stream<T> entities) throws SQLException;
+
     /**
      * Actualiza un elemento del repositorio
      *
@@ -0,0 +1,52 @@
+package com.madiben.repositories.analytics;
+
+import com.madiben.services.analytics.ProvinceMonthSketch;
+
+import java.sql.SQLException;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Interfaz que define las operaciones sobre los resúmenes de cuantiles de cada provincia y mes
+ */
+public interface ProvinceMonthSketchRepository {
+    /**
+     * Devuelve todos los resúmenes
+     *
+     * @return Lista de resúmenes
+     */
+    List<ProvinceMonthSketch> findAll() throws SQLException;
+
+    /**
+     * Busca el resumen de una provincia en un mes
+     *
+     * @param province Provincia (sin distinguir mayúsculas y minúsculas)
+     * @param month    Mes
+     * @return Optional del resumen
+     */
+    Optional<ProvinceMonthSketch> find(String province, YearMonth month) throws SQLException;
+
+    /**
+     * Guarda por lotes varios resúmenes, sustituyendo los anteriores de la misma provincia y mes
+     *
+     * @param sketches Resúmenes a guardar
+     * @return Número de resúmenes guardados
+     */
+    long saveAll(Collection<ProvinceMonthSketch> sketches) throws SQLException;
+
+    /**
+     * Borra el resumen de una provincia en un mes
+     *
+     * @param province Provincia (sin distinguir mayúsculas y minúsculas)
+     * @param month    Mes
+     * @return ¿Borrado?
+     */
+    boolean delete(String province, YearMonth month) throws SQLException;
+
+    /**
+     * Borra todos los resúmenes
+     */
+    void deleteAll() throws SQLException;
+}
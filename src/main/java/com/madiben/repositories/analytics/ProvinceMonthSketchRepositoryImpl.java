@@ -0,0 +1,105 @@
+package com.madiben.repositories.analytics;
+
+import com.madiben.services.analytics.ProvinceMonthSketch;
+import com.madiben.services.database.DatabaseManager;
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Implementación de la interfaz ProvinceMonthSketchRepository
+ * Cada resumen se guarda en una fila con su provincia, el primer día de su mes y el resumen en el formato binario
+ * de ProvinceMonthSketch.toBytes
+ */
+@RequiredArgsConstructor
+public class ProvinceMonthSketchRepositoryImpl implements ProvinceMonthSketchRepository {
+    private final DatabaseManager database;
+
+    /**
+     * Devuelve todos los resúmenes
+     *
+     * @return Lista de resúmenes
+     */
+    @Override
+    public List<ProvinceMonthSketch> findAll() throws SQLException {
+        var sql = "SELECT * FROM ProvinceMonthSketch";
+        return database.select(sql, this::mapRow);
+    }
+
+    /**
+     * Busca el resumen de una provincia en un mes
+     *
+     * @param province Provincia (sin distinguir mayúsculas y minúsculas)
+     * @param month    Mes
+     * @return Optional del resumen
+     */
+    @Override
+    public Optional<ProvinceMonthSketch> find(String province, YearMonth month) throws SQLException {
+        var sql = "SELECT * FROM ProvinceMonthSketch WHERE Province = ? AND MonthDate = ?";
+        return database.selectOne(sql, this::mapRow, province, month.atDay(1));
+    }
+
+    /**
+     * Guarda por lotes varios resúmenes, sustituyendo los anteriores de la misma provincia y mes
+     *
+     * @param sketches Resúmenes a guardar
+     * @return Número de resúmenes guardados
+     */
+    @Override
+    public long saveAll(Collection<ProvinceMonthSketch> sketches) throws SQLException {
+        var sql = "MERGE INTO ProvinceMonthSketch (Province, MonthDate, Sketch) KEY (Province, MonthDate) " +
+                "VALUES (?, ?, ?)";
+        try (var batch = database.batchInsert(sql)) {
+            for (ProvinceMonthSketch sketch : sketches) {
+                batch.add(sketch.getProvince(), sketch.getMonth().atDay(1), sketch.toBytes());
+            }
+            batch.flush();
+            return batch.getInserted();
+        }
+    }
+
+    /**
+     * Borra el resumen de una provincia en un mes
+     *
+     * @param province Provincia (sin distinguir mayúsculas y minúsculas)
+     * @param month    Mes
+     * @return ¿Borrado?
+     */
+    @Override
+    public boolean delete(String province, YearMonth month) throws SQLException {
+        var sql = "DELETE FROM ProvinceMonthSketch WHERE Province = ? AND MonthDate = ?";
+        return database.update(sql, province, month.atDay(1)) == 1;
+    }
+
+    /**
+     * Borra todos los resúmenes
+     */
+    @Override
+    public void deleteAll() throws SQLException {
+        var sql = "DELETE FROM ProvinceMonthSketch";
+        database.update(sql);
+    }
+
+    /**
+     * Convierte la fila actual del ResultSet en un ProvinceMonthSketch
+     *
+     * @param res ResultSet posicionado en la fila
+     * @return ProvinceMonthSketch de la fila
+     * @throws SQLException No se ha podido leer la fila o el resumen no es válido
+     */
+    private ProvinceMonthSketch mapRow(ResultSet res) throws SQLException {
+        String province = res.getString("Province");
+        YearMonth month = YearMonth.from(res.getDate("MonthDate").toLocalDate());
+        try {
+            return ProvinceMonthSketch.fromBytes(province, month, res.getBytes("Sketch"));
+        } catch (IOException e) {
+            throw new SQLException("Resumen de cuantiles no válido de " + province + " en " + month, e);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.madiben.repositories.ingestion;
+
+import com.madiben.models.IngestedFile;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Interfaz que define las operaciones sobre los puntos de control de los archivos CSV ingeridos
+ */
+public interface IngestedFileRepository {
+    /**
+     * Devuelve todos los archivos ingeridos
+     *
+     * @return Lista de archivos ingeridos
+     */
+    List<IngestedFile> findAll() throws SQLException;
+
+    /**
+     * Busca el punto de control de un archivo
+     *
+     * @param fileName Nombre del archivo
+     * @return Optional del archivo ingerido
+     */
+    Optional<IngestedFile> findByFileName(String fileName) throws SQLException;
+
+    /**
+     * Guarda el punto de control de un archivo, sustituyendo el anterior si existe
+     *
+     * @param ingestedFile Archivo ingerido
+     */
+    void save(IngestedFile ingestedFile) throws SQLException;
+}
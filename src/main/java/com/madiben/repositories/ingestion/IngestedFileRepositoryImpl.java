@@ -0,0 +1,77 @@
+package com.madiben.repositories.ingestion;
+
+import com.madiben.models.IngestedFile;
+import com.madiben.services.database.DatabaseManager;
+import lombok.RequiredArgsConstructor;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Implementación de la interfaz IngestedFileRepository
+ */
+@RequiredArgsConstructor
+public class IngestedFileRepositoryImpl implements IngestedFileRepository {
+    private final DatabaseManager database;
+
+    /**
+     * Devuelve todos los archivos ingeridos
+     *
+     * @return Lista de archivos ingeridos
+     */
+    @Override
+    public List<IngestedFile> findAll() throws SQLException {
+        var sql = "SELECT * FROM IngestedFile";
+        return database.select(sql, this::mapRow);
+    }
+
+    /**
+     * Busca el punto de control de un archivo
+     *
+     * @param fileName Nombre del archivo
+     * @return Optional del archivo ingerido
+     */
+    @Override
+    public Optional<IngestedFile> findByFileName(String fileName) throws SQLException {
+        var sql = "SELECT * FROM IngestedFile WHERE FileName = ?";
+        return database.selectOne(sql, this::mapRow, fileName);
+    }
+
+    /**
+     * Guarda el punto de control de un archivo, sustituyendo el anterior si existe
+     *
+     * @param ingestedFile Archivo ingerido
+     */
+    @Override
+    public void save(IngestedFile ingestedFile) throws SQLException {
+        var sql = "MERGE INTO IngestedFile (FileName, FileSize, FileHash, LastModified, RowCount, IngestedOn) " +
+                "KEY (FileName) VALUES (?, ?, ?, ?, ?, ?)";
+        database.update(sql,
+                ingestedFile.getFileName(),
+                ingestedFile.getSize(),
+                ingestedFile.getHash(),
+                ingestedFile.getLastModified(),
+                ingestedFile.getRows(),
+                ingestedFile.getIngestedOn());
+    }
+
+    /**
+     * Convierte la fila actual del ResultSet en un IngestedFile
+     *
+     * @param res ResultSet posicionado en la fila
+     * @return IngestedFile de la fila
+     * @throws SQLException No se ha podido leer la fila
+     */
+    private IngestedFile mapRow(ResultSet res) throws SQLException {
+        return IngestedFile.builder()
+                .fileName(res.getString("FileName"))
+                .size(res.getLong("FileSize"))
+                .hash(res.getString("FileHash"))
+                .lastModified(res.getObject("LastModified", Long.class))
+                .rows(res.getLong("RowCount"))
+                .ingestedOn(res.getTimestamp("IngestedOn").toLocalDateTime())
+                .build();
+    }
+}
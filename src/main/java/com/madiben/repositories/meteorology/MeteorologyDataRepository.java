@@ -1,11 +1,187 @@
 package com.madiben.repositories.meteorology;
 
 import com.madiben.models.MeteorologyData;
+import com.madiben.models.dto.MeteorologyDataKey;
+import com.madiben.models.dto.MeteorologyDayData;
+import com.madiben.models.dto.MeteorologyProvinceDayData;
+import com.madiben.models.dto.MeteorologyProvinceDaySummary;
 import com.madiben.repositories.CRUDRepository;
 
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
 /**
  * Interfaz que define las operaciones CRUD de MeteorologyDataRepository
+ * Además de las operaciones CRUD, define las consultas de agregación que se resuelven en la base de datos
  */
 public interface MeteorologyDataRepository extends CRUDRepository<MeteorologyData, String> {
 
+    /**
+     * Inserta o actualiza una lista de elementos por lotes según su clave natural (día, provincia y lugar)
+     *
+     * @param entities Elementos a guardar
+     * @return Número de elementos insertados o actualizados
+     */
+    long upsertAll(List<MeteorologyData> entities) throws SQLException;
+
+    /**
+     * Inserta o actualiza por lotes los elementos de un Stream según su clave natural (día, provincia y lugar)
+     *
+     * @param entities Stream de elementos a guardar
+     * @return Número de elementos insertados o actualizados
+     */
+    long upsertAll(Stream<MeteorologyData> entities) throws SQLException;
+
+    /**
+     * Recorre todos los elementos del repositorio sin cargarlos en una lista
+     *
+     * @param action Consumidor de cada elemento
+     * @return Número de elementos recorridos
+     */
+    long forEach(Consumer<MeteorologyData> action) throws SQLException;
+
+    /**
+     * Devuelve un Stream de todos los elementos que los lee de la base de datos a medida que se consume.
+     * Mantiene una conexión ocupada hasta que se cierra, así que se debe usar en un try-with-resources
+     *
+     * @return Stream de elementos ordenados por día, provincia y lugar
+     */
+    Stream<MeteorologyData> streamAll() throws SQLException;
+
+    /**
+     * Devuelve una página de elementos ordenados por su clave natural (día, provincia y lugar)
+     * Para pedir la página siguiente se pasa la clave del último elemento de la página anterior; el coste de cada
+     * página no depende de cuántas se hayan pedido antes
+     *
+     * @param after Clave del último elemento de la página anterior, o null para pedir la primera página
+     * @param size  Número máximo de elementos de la página
+     * @return Elementos de la página; si hay menos de size, es la última
+     */
+    List<MeteorologyData> findPage(MeteorologyDataKey after, int size) throws SQLException;
+
+    /**
+     * Devuelve los días que tienen algún elemento
+     *
+     * @return Lista de días ordenada
+     */
+    List<LocalDate> findDates() throws SQLException;
+
+    /**
+     * Devuelve los elementos de un día
+     *
+     * @param date Día a buscar
+     * @return Lista de elementos del día
+     */
+    List<MeteorologyData> findByDate(LocalDate date) throws SQLException;
+
+    /**
+     * Devuelve los elementos de un rango de días
+     *
+     * @param from Primer día del rango (incluido)
+     * @param to   Último día del rango (incluido)
+     * @return Lista de elementos ordenada por día, provincia y lugar
+     */
+    List<MeteorologyData> findByDateRange(LocalDate from, LocalDate to) throws SQLException;
+
+    /**
+     * Devuelve los elementos de una provincia (sin distinguir mayúsculas y minúsculas) en un rango de días
+     *
+     * @param province Provincia a buscar
+     * @param from     Primer día del rango (incluido)
+     * @param to       Último día del rango (incluido)
+     * @return Lista de elementos ordenada por día y lugar
+     */
+    List<MeteorologyData> findByProvinceAndDateRange(String province, LocalDate from, LocalDate to)
+            throws SQLException;
+
+    /**
+     * Devuelve los elementos de un lugar
+     *
+     * @param location Lugar a buscar
+     * @return Lista de elementos ordenada por día y provincia
+     */
+    List<MeteorologyData> findByLocation(String location) throws SQLException;
+
+    /**
+     * Devuelve los elementos con una precipitación mayor que un umbral
+     *
+     * @param threshold Umbral de precipitación
+     * @return Lista de elementos ordenada de mayor a menor precipitación
+     */
+    List<MeteorologyData> findByPrecipitationAbove(float threshold) throws SQLException;
+
+    /**
+     * Devuelve el elemento con mayor precipitación
+     *
+     * @return Optional del elemento con mayor precipitación
+     */
+    Optional<MeteorologyData> findMaxPrecipitation() throws SQLException;
+
+    /**
+     * Devuelve los elementos de una provincia (sin distinguir mayúsculas y minúsculas)
+     *
+     * @param province Provincia a buscar
+     * @return Lista de elementos de la provincia
+     */
+    List<MeteorologyData> findByProvince(String province) throws SQLException;
+
+    /**
+     * Recorre los elementos de una provincia (sin distinguir mayúsculas y minúsculas) sin cargarlos en una lista
+     *
+     * @param province Provincia a buscar
+     * @param action   Consumidor de cada elemento
+     * @return Número de elementos recorridos
+     */
+    long forEachByProvince(String province, Consumer<MeteorologyData> action) throws SQLException;
+
+    /**
+     * Recorre todos los elementos ordenados por provincia y día sin cargarlos en una lista
+     *
+     * @param action Consumidor de cada elemento
+     * @return Número de elementos recorridos
+     */
+    long forEachOrderedByProvince(Consumer<MeteorologyData> action) throws SQLException;
+
+    /**
+     * Devuelve por cada día el elemento de mayor temperatura, el de menor temperatura y el de mayor precipitación
+     *
+     * @return Lista de MeteorologyDayData ordenada por fecha
+     */
+    List<MeteorologyDayData> findDayData() throws SQLException;
+
+    /**
+     * Devuelve por cada día de una provincia los elementos extremos y las medias del día
+     *
+     * @param province Provincia a consultar
+     * @return Lista de MeteorologyProvinceDayData ordenada por fecha
+     */
+    List<MeteorologyProvinceDayData> findProvinceDayData(String province) throws SQLException;
+
+    /**
+     * Devuelve el resumen de cada día y provincia
+     *
+     * @return Lista de MeteorologyProvinceDaySummary ordenada por fecha y provincia
+     */
+    List<MeteorologyProvinceDaySummary> findProvinceDaySummaries() throws SQLException;
+
+    /**
+     * Devuelve el resumen de cada provincia en un día
+     *
+     * @param date Día a consultar
+     * @return Lista de MeteorologyProvinceDaySummary ordenada por provincia
+     */
+    List<MeteorologyProvinceDaySummary> findProvinceDaySummaries(LocalDate date) throws SQLException;
+
+    /**
+     * Devuelve el plan de ejecución (EXPLAIN) de las consultas del repositorio
+     *
+     * @param province Provincia con la que se explican las consultas filtradas por provincia
+     * @return Mapa ordenado con el nombre de cada consulta y su plan de ejecución
+     */
+    Map<String, String> explainQueries(String province) throws SQLException;
 }
@@ -1,20 +1,76 @@
 package com.madiben.repositories.meteorology;
 
 import com.madiben.models.MeteorologyData;
+import com.madiben.models.dto.MeteorologyDataKey;
+import com.madiben.models.dto.MeteorologyDayData;
+import com.madiben.models.dto.MeteorologyProvinceDayData;
+import com.madiben.models.dto.MeteorologyProvinceDaySummary;
 import com.madiben.services.database.DatabaseManager;
 import lombok.RequiredArgsConstructor;
 
+import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Optional;
-import java.util.UUID;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Implementación de la interfaz MeteorologyDataRepository
  */
 @RequiredArgsConstructor
 public class MeteorologyDataRepositoryImpl implements MeteorologyDataRepository {
+    private static final String RANKED_SQL = "SELECT * FROM (SELECT m.*, " +
+            "ROW_NUMBER() OVER (PARTITION BY DayDate ORDER BY MaxTemperature DESC, _ROWID_) AS MaxTemperatureRank, " +
+            "ROW_NUMBER() OVER (PARTITION BY DayDate ORDER BY MinTemperature, _ROWID_) AS MinTemperatureRank, " +
+            "ROW_NUMBER() OVER (PARTITION BY DayDate ORDER BY Precipitation DESC, _ROWID_) AS PrecipitationRank, " +
+            "AVG(CAST(MaxTemperature AS DOUBLE PRECISION)) OVER (PARTITION BY DayDate) AS AvgMaxTemperature, " +
+            "AVG(CAST(MinTemperature AS DOUBLE PRECISION)) OVER (PARTITION BY DayDate) AS AvgMinTemperature, " +
+            "AVG(CAST(Precipitation AS DOUBLE PRECISION)) OVER (PARTITION BY DayDate) AS AvgPrecipitation " +
+            "FROM meteorologyData m %s) r " +
+            "WHERE MaxTemperatureRank = 1 OR MinTemperatureRank = 1 OR PrecipitationRank = 1 ORDER BY DayDate";
+    private static final String PROVINCE_FILTER = "WHERE Province = ?";
+    private static final String FIND_BY_PROVINCE_SQL = "SELECT * FROM meteorologyData " + PROVINCE_FILTER;
+    private static final String ORDERED_BY_PROVINCE_SQL = "SELECT * FROM meteorologyData ORDER BY Province, DayDate";
+    private static final String NATURAL_ORDER = " ORDER BY DayDate, Province, Location";
+    private static final String STREAM_ALL_SQL = "SELECT * FROM meteorologyData" + NATURAL_ORDER;
+    private static final String FIRST_PAGE_SQL = STREAM_ALL_SQL + " LIMIT ?";
+    private static final String NEXT_PAGE_SQL = "SELECT * FROM meteorologyData " +
+            "WHERE DayDate >= ? AND (DayDate, Province, Location) > (?, ?, ?)" + NATURAL_ORDER + " LIMIT ?";
+    private static final String FIND_DATES_SQL = "SELECT DISTINCT DayDate FROM meteorologyData ORDER BY DayDate";
+    private static final String FIND_BY_DATE_SQL = "SELECT * FROM meteorologyData WHERE DayDate = ?";
+    private static final String FIND_BY_DATE_RANGE_SQL =
+            "SELECT * FROM meteorologyData WHERE DayDate >= ? AND DayDate <= ?" + NATURAL_ORDER;
+    private static final String FIND_BY_PROVINCE_AND_DATE_RANGE_SQL = "SELECT * FROM meteorologyData " +
+            PROVINCE_FILTER + " AND DayDate >= ? AND DayDate <= ? ORDER BY DayDate, Location";
+    private static final String FIND_BY_LOCATION_SQL =
+            "SELECT * FROM meteorologyData WHERE Location = ? ORDER BY DayDate, Province";
+    private static final String FIND_BY_PRECIPITATION_ABOVE_SQL =
+            "SELECT * FROM meteorologyData WHERE Precipitation > ? ORDER BY Precipitation DESC";
+    private static final String MAX_PRECIPITATION_SQL =
+            "SELECT * FROM meteorologyData ORDER BY Precipitation DESC LIMIT 1";
+    private static final String PROVINCE_DAY_SUMMARIES_SQL = "SELECT DayDate, Province, " +
+            "MAX(MaxTemperature) AS MaxTemperature, MIN(MinTemperature) AS MinTemperature, " +
+            "AVG((CAST(MaxTemperature AS DOUBLE PRECISION) + MinTemperature) / 2) AS AvgTemperature, " +
+            "AVG(CAST(Precipitation AS DOUBLE PRECISION)) AS AvgPrecipitation, " +
+            "LISTAGG(CASE WHEN Precipitation > 0 THEN Location END, ';') WITHIN GROUP (ORDER BY Location) " +
+            "AS RainyLocations " +
+            "FROM meteorologyData %s GROUP BY DayDate, Province ORDER BY DayDate, Province";
+    private static final String INSERT_SQL = "INSERT INTO meteorologyData (ID, DayDate, Location, Province, " +
+            "MaxTemperature, MaxTemperatureTime, MinTemperature, MinTemperatureTime, Precipitation) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPSERT_SQL = "MERGE INTO meteorologyData t USING (VALUES (CAST(? AS UUID), " +
+            "CAST(? AS DATE), CAST(? AS VARCHAR), CAST(? AS VARCHAR_IGNORECASE), CAST(? AS REAL), CAST(? AS TIME), " +
+            "CAST(? AS REAL), CAST(? AS TIME), CAST(? AS REAL))) " +
+            "s(ID, DayDate, Location, Province, MaxTemperature, MaxTemperatureTime, MinTemperature, " +
+            "MinTemperatureTime, Precipitation) " +
+            "ON t.DayDate = s.DayDate AND t.Province = s.Province AND t.Location = s.Location " +
+            "WHEN MATCHED THEN UPDATE SET MaxTemperature = s.MaxTemperature, " +
+            "MaxTemperatureTime = s.MaxTemperatureTime, MinTemperature = s.MinTemperature, " +
+            "MinTemperatureTime = s.MinTemperatureTime, Precipitation = s.Precipitation " +
+            "WHEN NOT MATCHED THEN INSERT (ID, DayDate, Location, Province, MaxTemperature, MaxTemperatureTime, " +
+            "MinTemperature, MinTemperatureTime, Precipitation) VALUES (s.ID, s.DayDate, s.Location, s.Province, " +
+            "s.MaxTemperature, s.MaxTemperatureTime, s.MinTemperature, s.MinTemperatureTime, s.Precipitation)";
     private final DatabaseManager database;
 
     /**
@@ -24,25 +80,8 @@ public class MeteorologyDataRepositoryImpl implements MeteorologyDataRepository
      */
     @Override
     public List<MeteorologyData> findAll() throws SQLException {
-        List<MeteorologyData> list = new ArrayList<>();
         var sql = "SELECT * FROM meteorologyData";
-        database.beginTransaction();
-        var res = database.select(sql).orElseThrow();
-        while (res.next()) {
-            list.add(MeteorologyData.builder()
-                    .uuid(UUID.fromString(res.getString("ID")))
-                    .date(res.getDate("DayDate").toLocalDate())
-                    .location(res.getString("Location"))
-                    .province(res.getString("Province"))
-                    .maxTemperature(res.getFloat("MaxTemperature"))
-                    .maxTemperatureTime(res.getTime("MaxTemperatureTime").toLocalTime())
-                    .minTemperature(res.getFloat("MinTemperature"))
-                    .minTemperatureTime(res.getTime("MinTemperatureTime").toLocalTime())
-                    .precipitation(res.getFloat("Precipitation"))
-                    .build());
-        }
-        database.commit();
-        return list;
+        return database.select(sql, this::mapRow);
     }
 
     /**
@@ -53,25 +92,8 @@ public class MeteorologyDataRepositoryImpl implements MeteorologyDataRepository
      */
     @Override
     public Optional<MeteorologyData> findById(String id) throws SQLException {
-        Optional<MeteorologyData> optReturn = Optional.empty();
-        var sql = "SELECT * FROM meteorologyData WHERE cod = ?";
-        database.beginTransaction();
-        var res = database.select(sql, id).orElseThrow();
-        if (res.next()) {
-            optReturn = Optional.of(MeteorologyData.builder()
-                    .uuid(UUID.fromString(res.getString("ID")))
-                    .date(res.getDate("DayDate").toLocalDate())
-                    .location(res.getString("Location"))
-                    .province(res.getString("Province"))
-                    .maxTemperature(res.getFloat("MaxTemperature"))
-                    .maxTemperatureTime(res.getTime("MaxTemperatureTime").toLocalTime())
-                    .minTemperature(res.getFloat("MinTemperature"))
-                    .minTemperatureTime(res.getTime("MinTemperatureTime").toLocalTime())
-                    .precipitation(res.getFloat("Precipitation"))
-                    .build());
-        }
-        database.commit();
-        return optReturn;
+        var sql = "SELECT * FROM meteorologyData WHERE ID = ?";
+        return database.selectOne(sql, this::mapRow, id);
     }
 
     /**
@@ -82,11 +104,429 @@ public class MeteorologyDataRepositoryImpl implements MeteorologyDataRepository
      */
     @Override
     public Optional<MeteorologyData> save(MeteorologyData entity) throws SQLException {
-        var sql = "INSERT INTO meteorologyData (ID, DayDate, Location, Province, MaxTemperature, MaxTemperatureTime, " +
-                "MinTemperature, MinTemperatureTime, Precipitation) " +
-                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
-        database.beginTransaction();
-        database.insertAndGetKey(sql, entity.getUuid().toString(),
+        database.insert(INSERT_SQL, insertParams(entity));
+        return Optional.of(entity);
+    }
+
+    /**
+     * Guarda una lista de elementos en el repositorio por lotes
+     *
+     * @param entities Elementos a guardar
+     * @return Número de elementos guardados
+     */
+    @Override
+    public long saveAll(List<MeteorologyData> entities) throws SQLException {
+        return saveAll(entities.stream());
+    }
+
+    /**
+     * Guarda por lotes los elementos de un Stream a medida que se consumen.
+     * Solo se pide un nuevo elemento al Stream cuando el anterior se ha añadido al lote,
+     * por lo que en memoria nunca hay más de un lote de elementos
+     *
+     * @param entities Stream de elementos a guardar
+     * @return Número de elementos guardados
+     */
+    @Override
+    public long saveAll(Stream<MeteorologyData> entities) throws SQLException {
+        try (var batch = database.batchInsert(INSERT_SQL)) {
+            Iterator<MeteorologyData> iterator = entities.iterator();
+            while (iterator.hasNext()) {
+                batch.add(insertParams(iterator.next()));
+            }
+            batch.flush();
+            return batch.getInserted();
+        }
+    }
+
+    /**
+     * Inserta o actualiza una lista de elementos por lotes según su clave natural (día, provincia y lugar)
+     *
+     * @param entities Elementos a guardar
+     * @return Número de elementos insertados o actualizados
+     */
+    @Override
+    public long upsertAll(List<MeteorologyData> entities) throws SQLException {
+        return upsertAll(entities.stream());
+    }
+
+    /**
+     * Inserta o actualiza por lotes los elementos de un Stream según su clave natural (día, provincia y lugar).
+     * Los elementos que ya existen conservan su ID, así que volver a ingerir los mismos datos no los duplica
+     *
+     * @param entities Stream de elementos a guardar
+     * @return Número de elementos insertados o actualizados
+     */
+    @Override
+    public long upsertAll(Stream<MeteorologyData> entities) throws SQLException {
+        try (var batch = database.batchInsert(UPSERT_SQL)) {
+            Iterator<MeteorologyData> iterator = entities.iterator();
+            while (iterator.hasNext()) {
+                batch.add(insertParams(iterator.next()));
+            }
+            batch.flush();
+            return batch.getInserted();
+        }
+    }
+
+    /**
+     * Recorre todos los elementos del repositorio sin cargarlos en una lista
+     *
+     * @param action Consumidor de cada elemento
+     * @return Número de elementos recorridos
+     */
+    @Override
+    public long forEach(Consumer<MeteorologyData> action) throws SQLException {
+        return database.forEach("SELECT * FROM meteorologyData", this::mapRow, action);
+    }
+
+    /**
+     * Devuelve un Stream de todos los elementos que los lee de la base de datos a medida que se consume
+     * Recorre la clave natural, así el orden es estable
+     *
+     * @return Stream de elementos ordenados por día, provincia y lugar
+     */
+    @Override
+    public Stream<MeteorologyData> streamAll() throws SQLException {
+        return database.stream(STREAM_ALL_SQL, this::mapRow);
+    }
+
+    /**
+     * Devuelve una página de elementos ordenados por su clave natural
+     * La página empieza justo después de la clave indicada (paginación por clave), con lo que la base de datos
+     * salta directamente a ella por el índice de la clave natural en lugar de recorrer y descartar las anteriores
+     * como haría un OFFSET. La condición DayDate >= ? es redundante, pero H2 no usa la comparación de filas
+     * para posicionarse en el índice y sí la del día
+     *
+     * @param after Clave del último elemento de la página anterior, o null para pedir la primera página
+     * @param size  Número máximo de elementos de la página
+     * @return Elementos de la página
+     */
+    @Override
+    public List<MeteorologyData> findPage(MeteorologyDataKey after, int size) throws SQLException {
+        if (after == null) {
+            return database.select(FIRST_PAGE_SQL, this::mapRow, size);
+        }
+        return database.select(NEXT_PAGE_SQL, this::mapRow, after.getDate(), after.getDate(), after.getProvince(),
+                after.getLocation(), size);
+    }
+
+    /**
+     * Devuelve los días que tienen algún elemento
+     *
+     * @return Lista de días ordenada
+     */
+    @Override
+    public List<LocalDate> findDates() throws SQLException {
+        return database.select(FIND_DATES_SQL, res -> res.getDate("DayDate").toLocalDate());
+    }
+
+    /**
+     * Devuelve los elementos de un día
+     *
+     * @param date Día a buscar
+     * @return Lista de elementos del día
+     */
+    @Override
+    public List<MeteorologyData> findByDate(LocalDate date) throws SQLException {
+        return database.select(FIND_BY_DATE_SQL, this::mapRow, date);
+    }
+
+    /**
+     * Devuelve los elementos de un rango de días
+     * El rango se resuelve sobre la clave natural, que empieza por el día, así que solo se leen las filas del rango
+     *
+     * @param from Primer día del rango (incluido)
+     * @param to   Último día del rango (incluido)
+     * @return Lista de elementos ordenada por día, provincia y lugar
+     */
+    @Override
+    public List<MeteorologyData> findByDateRange(LocalDate from, LocalDate to) throws SQLException {
+        return database.select(FIND_BY_DATE_RANGE_SQL, this::mapRow, from, to);
+    }
+
+    /**
+     * Devuelve los elementos de una provincia en un rango de días
+     * Usa el índice por provincia y día, así que solo se leen las filas de la provincia en el rango
+     *
+     * @param province Provincia a buscar
+     * @param from     Primer día del rango (incluido)
+     * @param to       Último día del rango (incluido)
+     * @return Lista de elementos ordenada por día y lugar
+     */
+    @Override
+    public List<MeteorologyData> findByProvinceAndDateRange(String province, LocalDate from, LocalDate to)
+            throws SQLException {
+        return database.select(FIND_BY_PROVINCE_AND_DATE_RANGE_SQL, this::mapRow, province, from, to);
+    }
+
+    /**
+     * Devuelve los elementos de un lugar, con el índice por lugar y día
+     *
+     * @param location Lugar a buscar
+     * @return Lista de elementos ordenada por día y provincia
+     */
+    @Override
+    public List<MeteorologyData> findByLocation(String location) throws SQLException {
+        return database.select(FIND_BY_LOCATION_SQL, this::mapRow, location);
+    }
+
+    /**
+     * Devuelve los elementos con una precipitación mayor que un umbral
+     * Recorre el índice de precipitación desde el máximo y se detiene al llegar al umbral
+     *
+     * @param threshold Umbral de precipitación
+     * @return Lista de elementos ordenada de mayor a menor precipitación
+     */
+    @Override
+    public List<MeteorologyData> findByPrecipitationAbove(float threshold) throws SQLException {
+        return database.select(FIND_BY_PRECIPITATION_ABOVE_SQL, this::mapRow, threshold);
+    }
+
+    /**
+     * Devuelve el elemento con mayor precipitación
+     *
+     * @return Optional del elemento con mayor precipitación
+     */
+    @Override
+    public Optional<MeteorologyData> findMaxPrecipitation() throws SQLException {
+        return database.selectOne(MAX_PRECIPITATION_SQL, this::mapRow);
+    }
+
+    /**
+     * Devuelve los elementos de una provincia
+     * La columna Province no distingue mayúsculas y minúsculas, así la comparación puede usar su índice
+     *
+     * @param province Provincia a buscar
+     * @return Lista de elementos de la provincia
+     */
+    @Override
+    public List<MeteorologyData> findByProvince(String province) throws SQLException {
+        return database.select(FIND_BY_PROVINCE_SQL, this::mapRow, province);
+    }
+
+    /**
+     * Recorre los elementos de una provincia sin cargarlos en una lista
+     *
+     * @param province Provincia a buscar
+     * @param action   Consumidor de cada elemento
+     * @return Número de elementos recorridos
+     */
+    @Override
+    public long forEachByProvince(String province, Consumer<MeteorologyData> action) throws SQLException {
+        return database.forEach(FIND_BY_PROVINCE_SQL, this::mapRow, action, province);
+    }
+
+    /**
+     * Recorre todos los elementos ordenados por provincia y día sin cargarlos en una lista
+     * Una sola consulta que recorre el índice de provincia y día
+     *
+     * @param action Consumidor de cada elemento
+     * @return Número de elementos recorridos
+     */
+    @Override
+    public long forEachOrderedByProvince(Consumer<MeteorologyData> action) throws SQLException {
+        return database.forEach(ORDERED_BY_PROVINCE_SQL, this::mapRow, action);
+    }
+
+    /**
+     * Devuelve por cada día el elemento de mayor temperatura, el de menor temperatura y el de mayor precipitación.
+     * La base de datos solo devuelve esos elementos (como máximo tres por día). En caso de empate gana el primero
+     * insertado (_ROWID_), que es el primero que ven los agregados en memoria al recorrer la tabla con findAll o
+     * forEach
+     *
+     * @return Lista de MeteorologyDayData ordenada por fecha
+     */
+    @Override
+    public List<MeteorologyDayData> findDayData() throws SQLException {
+        List<MeteorologyDayData> list = new ArrayList<>();
+        MeteorologyDayData current = null;
+        for (RankedRow row : database.select(String.format(RANKED_SQL, ""), this::mapRankedRow)) {
+            MeteorologyData data = row.data();
+            if (current == null || !current.getDate().equals(data.getDate())) {
+                current = MeteorologyDayData.builder().date(data.getDate())
+                        .maxTemperature(Optional.empty())
+                        .minTemperature(Optional.empty())
+                        .maxPrecipitation(Optional.empty())
+                        .build();
+                list.add(current);
+            }
+            setExtremes(row, current::setMaxTemperature, current::setMinTemperature,
+                    current::setMaxPrecipitation);
+        }
+        return list;
+    }
+
+    /**
+     * Devuelve por cada día de una provincia los elementos de temperatura máxima, mínima y de mayor precipitación,
+     * junto con las medias del día. Los empates se resuelven igual que en findDayData
+     *
+     * @param province Provincia a consultar (sin distinguir mayúsculas y minúsculas)
+     * @return Lista de MeteorologyProvinceDayData ordenada por fecha
+     */
+    @Override
+    public List<MeteorologyProvinceDayData> findProvinceDayData(String province) throws SQLException {
+        List<MeteorologyProvinceDayData> list = new ArrayList<>();
+        MeteorologyProvinceDayData current = null;
+        for (RankedRow row : database.select(String.format(RANKED_SQL, PROVINCE_FILTER),
+                this::mapRankedRow, province)) {
+            MeteorologyData data = row.data();
+            if (current == null || !current.getDate().equals(data.getDate())) {
+                current = MeteorologyProvinceDayData.builder().date(data.getDate())
+                        .maxTemperature(Optional.empty())
+                        .minTemperature(Optional.empty())
+                        .maxPrecipitation(Optional.empty())
+                        .avgMaxTemperature(row.avgMaxTemperature())
+                        .avgMinTemperature(row.avgMinTemperature())
+                        .avgPrecipitation(row.avgPrecipitation())
+                        .build();
+                list.add(current);
+            }
+            setExtremes(row, current::setMaxTemperature, current::setMinTemperature,
+                    current::setMaxPrecipitation);
+        }
+        return list;
+    }
+
+    /**
+     * Devuelve el resumen de cada día y provincia: temperatura máxima y mínima, medias y lugares donde ha llovido
+     *
+     * @return Lista de MeteorologyProvinceDaySummary ordenada por fecha y provincia
+     */
+    @Override
+    public List<MeteorologyProvinceDaySummary> findProvinceDaySummaries() throws SQLException {
+        return database.select(String.format(PROVINCE_DAY_SUMMARIES_SQL, ""), this::mapSummaryRow);
+    }
+
+    /**
+     * Devuelve el resumen de cada provincia en un día. Solo se agregan los elementos de ese día
+     *
+     * @param date Día a consultar
+     * @return Lista de MeteorologyProvinceDaySummary ordenada por provincia
+     */
+    @Override
+    public List<MeteorologyProvinceDaySummary> findProvinceDaySummaries(LocalDate date) throws SQLException {
+        return database.select(String.format(PROVINCE_DAY_SUMMARIES_SQL, "WHERE DayDate = ?"), this::mapSummaryRow,
+                date);
+    }
+
+    /**
+     * Devuelve el plan de ejecución de las consultas del repositorio, para comprobar con EXPLAIN
+     * que usan los índices del esquema
+     *
+     * @param province Provincia con la que se explican las consultas filtradas por provincia
+     * @return Mapa ordenado con el nombre de cada consulta y su plan de ejecución
+     * @throws SQLException No se ha podido obtener algún plan
+     */
+    @Override
+    public Map<String, String> explainQueries(String province) throws SQLException {
+        Map<String, String> plans = new LinkedHashMap<>();
+        plans.put("findByProvince", database.explain(FIND_BY_PROVINCE_SQL, province));
+        plans.put("findProvinceDayData", database.explain(String.format(RANKED_SQL, PROVINCE_FILTER), province));
+        plans.put("findMaxPrecipitation", database.explain(MAX_PRECIPITATION_SQL));
+        plans.put("findDayData", database.explain(String.format(RANKED_SQL, "")));
+        plans.put("findProvinceDaySummaries", database.explain(String.format(PROVINCE_DAY_SUMMARIES_SQL, "")));
+        LocalDate to = LocalDate.now();
+        LocalDate from = to.minusDays(30);
+        plans.put("findByDateRange", database.explain(FIND_BY_DATE_RANGE_SQL, from, to));
+        plans.put("findByProvinceAndDateRange",
+                database.explain(FIND_BY_PROVINCE_AND_DATE_RANGE_SQL, province, from, to));
+        plans.put("findByLocation", database.explain(FIND_BY_LOCATION_SQL, ""));
+        plans.put("findByPrecipitationAbove", database.explain(FIND_BY_PRECIPITATION_ABOVE_SQL, 10.0f));
+        plans.put("findPage", database.explain(NEXT_PAGE_SQL, LocalDate.now(), LocalDate.now(), province, "", 100));
+        return plans;
+    }
+
+    /**
+     * Convierte la fila actual del ResultSet en un MeteorologyData
+     *
+     * @param res ResultSet posicionado en la fila
+     * @return MeteorologyData de la fila
+     * @throws SQLException No se ha podido leer la fila
+     */
+    private MeteorologyData mapRow(ResultSet res) throws SQLException {
+        return MeteorologyData.builder()
+                .uuid(UUID.fromString(res.getString("ID")))
+                .date(res.getDate("DayDate").toLocalDate())
+                .location(res.getString("Location"))
+                .province(res.getString("Province"))
+                .maxTemperature(res.getFloat("MaxTemperature"))
+                .maxTemperatureTime(res.getTime("MaxTemperatureTime").toLocalTime())
+                .minTemperature(res.getFloat("MinTemperature"))
+                .minTemperatureTime(res.getTime("MinTemperatureTime").toLocalTime())
+                .precipitation(res.getFloat("Precipitation"))
+                .build();
+    }
+
+    /**
+     * Convierte la fila actual del ResultSet de PROVINCE_DAY_SUMMARIES_SQL en un MeteorologyProvinceDaySummary
+     *
+     * @param res ResultSet posicionado en la fila
+     * @return MeteorologyProvinceDaySummary de la fila
+     * @throws SQLException No se ha podido leer la fila
+     */
+    private MeteorologyProvinceDaySummary mapSummaryRow(ResultSet res) throws SQLException {
+        String rainyLocations = res.getString("RainyLocations");
+        return MeteorologyProvinceDaySummary.builder()
+                .date(res.getDate("DayDate").toLocalDate())
+                .province(res.getString("Province"))
+                .maxTemperature(res.getFloat("MaxTemperature"))
+                .minTemperature(res.getFloat("MinTemperature"))
+                .avgTemperature(res.getDouble("AvgTemperature"))
+                .avgPrecipitation(res.getDouble("AvgPrecipitation"))
+                .rainyLocations(rainyLocations == null || rainyLocations.isEmpty() ? List.of()
+                        : List.of(rainyLocations.split(";")))
+                .build();
+    }
+
+    /**
+     * Convierte la fila actual del ResultSet de RANKED_SQL en un RankedRow
+     *
+     * @param res ResultSet posicionado en la fila
+     * @return RankedRow de la fila
+     * @throws SQLException No se ha podido leer la fila
+     */
+    private RankedRow mapRankedRow(ResultSet res) throws SQLException {
+        return new RankedRow(mapRow(res),
+                res.getInt("MaxTemperatureRank") == 1,
+                res.getInt("MinTemperatureRank") == 1,
+                res.getInt("PrecipitationRank") == 1,
+                res.getDouble("AvgMaxTemperature"),
+                res.getDouble("AvgMinTemperature"),
+                res.getDouble("AvgPrecipitation"));
+    }
+
+    /**
+     * Asigna el elemento de la fila como temperatura máxima, mínima o precipitación máxima del día
+     * según los rangos de la fila
+     *
+     * @param row              Fila de RANKED_SQL
+     * @param maxTemperature   Asignación de la temperatura máxima
+     * @param minTemperature   Asignación de la temperatura mínima
+     * @param maxPrecipitation Asignación de la precipitación máxima
+     */
+    private void setExtremes(RankedRow row, Consumer<Optional<MeteorologyData>> maxTemperature,
+                             Consumer<Optional<MeteorologyData>> minTemperature,
+                             Consumer<Optional<MeteorologyData>> maxPrecipitation) {
+        if (row.maxTemperature()) {
+            maxTemperature.accept(Optional.of(row.data()));
+        }
+        if (row.minTemperature()) {
+            minTemperature.accept(Optional.of(row.data()));
+        }
+        if (row.maxPrecipitation()) {
+            maxPrecipitation.accept(Optional.of(row.data()));
+        }
+    }
+
+    /**
+     * Devuelve los parámetros de la consulta de inserción de un elemento
+     *
+     * @param entity Elemento a insertar
+     * @return Parámetros de las consultas INSERT_SQL y UPSERT_SQL
+     */
+    private Object[] insertParams(MeteorologyData entity) {
+        return new Object[]{entity.getUuid().toString(),
                 entity.getDate(),
                 entity.getLocation(),
                 entity.getProvince(),
@@ -94,9 +534,7 @@ public class MeteorologyDataRepositoryImpl implements MeteorologyDataRepository
                 entity.getMaxTemperatureTime(),
                 entity.getMinTemperature(),
                 entity.getMinTemperatureTime(),
-                entity.getPrecipitation());
-        database.commit();
-        return Optional.of(entity);
+                entity.getPrecipitation()};
     }
 
     /**
@@ -107,10 +545,8 @@ public class MeteorologyDataRepositoryImpl implements MeteorologyDataRepository
      */
     @Override
     public boolean delete(String id) throws SQLException {
-        var sql = "DELETE FROM meteorologyData WHERE cod= ?";
-        database.beginTransaction();
+        var sql = "DELETE FROM meteorologyData WHERE ID = ?";
         var rs = database.delete(sql, id);
-        database.commit();
         return (rs == 1);
     }
 
@@ -126,7 +562,6 @@ public class MeteorologyDataRepositoryImpl implements MeteorologyDataRepository
         var sql = "UPDATE meteorologyData SET DayDate = ?, Location = ?, Province = ?, MaxTemperature = ?, " +
                 "MaxTemperatureTime = ?, " +
                 "MinTemperature = ?, MinTemperatureTime = ?, Precipitation = ? WHERE ID = ?";
-        database.beginTransaction();
         database.update(sql,
                 entity.getDate(),
                 entity.getLocation(),
@@ -137,8 +572,23 @@ public class MeteorologyDataRepositoryImpl implements MeteorologyDataRepository
                 entity.getMinTemperatureTime(),
                 entity.getPrecipitation(),
                 id);
-        database.commit();
         return Optional.of(entity);
     }
+
+    /**
+     * Fila de RANKED_SQL: el elemento, si es el extremo del día en cada medida y las medias del día
+     *
+     * @param data              Elemento de la fila
+     * @param maxTemperature    ¿Es el de mayor temperatura del día?
+     * @param minTemperature    ¿Es el de menor temperatura del día?
+     * @param maxPrecipitation  ¿Es el de mayor precipitación del día?
+     * @param avgMaxTemperature Media de temperaturas máximas del día
+     * @param avgMinTemperature Media de temperaturas mínimas del día
+     * @param avgPrecipitation  Media de precipitación del día
+     */
+    private record RankedRow(MeteorologyData data, boolean maxTemperature, boolean minTemperature,
+                             boolean maxPrecipitation, double avgMaxTemperature, double avgMinTemperature,
+                             double avgPrecipitation) {
+    }
 }
 
@@ -3,6 +3,7 @@ package com.madiben.services.CRUD;
 import java.sql.SQLException;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Interfaz que define las operaciones CRUD de BaseCRUDService
@@ -14,6 +15,10 @@ public interface BaseCRUDService<I, E extends Throwable> {
 
     Optional<I> save(I item) throws SQLException, E;
 
+    long saveAll(List<I> items) throws SQLException, E;
+
+    long saveAll(Stream<I> items) throws SQLException, E;
+
     Optional<I> update(String id, I newI) throws SQLException, E;
 
     boolean delete(String id) throws SQLException, E;
@@ -2,11 +2,60 @@ package com.madiben.services.CRUD.meteorology;
 
 import com.madiben.exceptions.MeteorologyDataException;
 import com.madiben.models.MeteorologyData;
+import com.madiben.models.dto.CacheStats;
+import com.madiben.models.dto.MeteorologyDataKey;
+import com.madiben.models.dto.MeteorologyDayData;
+import com.madiben.models.dto.MeteorologyProvinceDayData;
+import com.madiben.models.dto.MeteorologyProvinceDaySummary;
 import com.madiben.services.CRUD.BaseCRUDService;
+import com.madiben.services.analytics.QuantileSketchAccumulator;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Interfaz que define las operaciones CRUD de MeteorologyDataService
  */
 public interface MeteorologyDataService extends BaseCRUDService<MeteorologyData, MeteorologyDataException> {
+    long upsertAll(List<MeteorologyData> meteorologyDataList) throws SQLException;
+
+    long upsertAll(Stream<MeteorologyData> meteorologyDataStream) throws SQLException;
+
+    Stream<MeteorologyData> streamAll() throws SQLException;
+
+    List<MeteorologyData> findPage(MeteorologyDataKey after, int size) throws SQLException;
+
+    Optional<MeteorologyData> findMaxPrecipitation() throws SQLException;
+
+    List<MeteorologyData> findByProvince(String province) throws SQLException;
+
+    List<MeteorologyData> findByDateRange(LocalDate from, LocalDate to) throws SQLException;
+
+    List<MeteorologyData> findByProvinceAndDateRange(String province, LocalDate from, LocalDate to)
+            throws SQLException;
+
+    List<MeteorologyData> findByLocation(String location) throws SQLException;
+
+    List<MeteorologyData> findByPrecipitationAbove(float threshold) throws SQLException;
+
+    long forEachByProvince(String province, Consumer<MeteorologyData> action) throws SQLException;
+
+    long forEachOrderedByProvince(Consumer<MeteorologyData> action) throws SQLException;
+
+    List<MeteorologyDayData> findDayData() throws SQLException;
+
+    List<MeteorologyProvinceDayData> findProvinceDayData(String province) throws SQLException;
+
+    List<MeteorologyProvinceDaySummary> findProvinceDaySummaries() throws SQLException;
+
+    List<MeteorologyProvinceDaySummary> findProvinceDaySummaries(LocalDate date) throws SQLException;
+
+    Map<String, CacheStats> getCacheStats();
 
+    void updateQuantileSketches(QuantileSketchAccumulator accumulator) throws SQLException;
 }
\ No newline at end of file
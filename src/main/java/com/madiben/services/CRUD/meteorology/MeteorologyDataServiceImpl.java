@@ -1,29 +1,68 @@
 package com.madiben.services.CRUD.meteorology;
 
 import com.madiben.models.MeteorologyData;
+import com.madiben.models.dto.CacheStats;
+import com.madiben.models.dto.MeteorologyDataKey;
+import com.madiben.models.dto.MeteorologyDayData;
+import com.madiben.models.dto.MeteorologyProvinceDayData;
+import com.madiben.models.dto.MeteorologyProvinceDaySummary;
 import com.madiben.repositories.meteorology.MeteorologyDataRepository;
+import com.madiben.services.analytics.MeteorologyAggregate;
+import com.madiben.services.analytics.MeteorologyAggregateCache;
+import com.madiben.services.analytics.ProvinceMonthSketch;
+import com.madiben.services.analytics.QuantileSketchAccumulator;
+import com.madiben.services.cache.ExpiringLruCache;
+import com.madiben.utils.ApplicationProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.SQLException;
-import java.util.List;
-import java.util.Optional;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Implementación de MeteorologyDataService
+ * findById lee primero de una caché de elementos por UUID, acotada en tamaño y en tiempo, que save rellena
+ * y update, delete y upsertAll invalidan. Como MeteorologyData es mutable, la caché guarda y devuelve copias, así
+ * modificar un elemento devuelto o guardado no cambia lo que devuelven las siguientes consultas.
+ * Los datos de cada día y los resúmenes por día y provincia se sirven desde MeteorologyAggregateCache mientras
+ * todos los días caben en ella: los días que no están cacheados se leen juntos con findByDateRange, sin bloquear
+ * la caché, y save, update y delete (uno a uno, sin bloquear la caché mientras escriben) actualizan los agregados
+ * del día afectado. Si hay más días que los que caben, la caché los desalojaría antes de volver a usarlos, así que
+ * se agregan en la base de datos con una consulta. Los datos de cada día de una provincia también se agregan en la
+ * base de datos, que usa el índice de provincia y día. Las escrituras por lotes invalidan los días que tocan.
+ * Si se crea con un QuantileSketchService, save, update y delete también reconstruyen los resúmenes de cuantiles
+ * de las provincias y meses que tocan. Las escrituras por lotes no los tocan: quien escribe por lotes acumula los
+ * resúmenes de lo que guarda (QuantileSketchAccumulator) y los une con updateQuantileSketches al terminar
  */
 public class MeteorologyDataServiceImpl implements MeteorologyDataService {
     private static MeteorologyDataServiceImpl instance;
     private final Logger logger = LoggerFactory.getLogger(MeteorologyDataServiceImpl.class);
     private final MeteorologyDataRepository meteorologyDataRepository;
+    private final ExpiringLruCache<UUID, MeteorologyData> entities;
+    private final MeteorologyAggregateCache aggregates;
+    private final QuantileSketchService quantileSketchService;
+    private final Object writeLock = new Object();
 
     /**
      * Constructor de MeteorologyDataServiceImpl
      *
      * @param meteorologyDataRepository Repositorio de MeteorologyData
+     * @param quantileSketchService     Servicio de los resúmenes de cuantiles, o null si no se mantienen
      */
-    private MeteorologyDataServiceImpl(MeteorologyDataRepository meteorologyDataRepository) {
+    private MeteorologyDataServiceImpl(MeteorologyDataRepository meteorologyDataRepository,
+                                       QuantileSketchService quantileSketchService) {
         this.meteorologyDataRepository = meteorologyDataRepository;
+        this.quantileSketchService = quantileSketchService;
+        ApplicationProperties properties = ApplicationProperties.getInstance();
+        this.entities = new ExpiringLruCache<>(Integer.parseInt(properties
+                .readProperty("cache.entities.max.size", "10000")), Long.parseLong(properties
+                .readProperty("cache.entities.ttl.seconds", "300")) * 1000);
+        this.aggregates = new MeteorologyAggregateCache(Integer.parseInt(properties
+                .readProperty("cache.aggregates.max.days", "366")));
     }
 
     /**
@@ -34,8 +73,21 @@ public class MeteorologyDataServiceImpl implements MeteorologyDataService {
      * @return Instancia de MeteorologyDataServiceImpl
      */
     public static MeteorologyDataServiceImpl getInstance(MeteorologyDataRepository meteorologyDataRepository) {
+        return getInstance(meteorologyDataRepository, null);
+    }
+
+    /**
+     * SINGLETON
+     * Devuelve la instancia de MeteorologyDataServiceImpl que mantiene los resúmenes de cuantiles
+     *
+     * @param meteorologyDataRepository Repositorio de MeteorologyData
+     * @param quantileSketchService     Servicio de los resúmenes de cuantiles, o null si no se mantienen
+     * @return Instancia de MeteorologyDataServiceImpl
+     */
+    public static MeteorologyDataServiceImpl getInstance(MeteorologyDataRepository meteorologyDataRepository,
+                                                         QuantileSketchService quantileSketchService) {
         if (instance == null) {
-            instance = new MeteorologyDataServiceImpl(meteorologyDataRepository);
+            instance = new MeteorologyDataServiceImpl(meteorologyDataRepository, quantileSketchService);
         }
         return instance;
     }
@@ -51,6 +103,31 @@ public class MeteorologyDataServiceImpl implements MeteorologyDataService {
         return meteorologyDataRepository.findAll();
     }
 
+    /**
+     * Devuelve un Stream de todos los elementos que los lee a medida que se consume. Se debe cerrar
+     *
+     * @return Stream de elementos ordenados por día, provincia y lugar
+     */
+    @Override
+    public Stream<MeteorologyData> streamAll() throws SQLException {
+        logger.debug("Recorriendo todos los meteorologyDatas con un cursor");
+        return meteorologyDataRepository.streamAll();
+    }
+
+    /**
+     * Devuelve una página de elementos ordenados por día, provincia y lugar
+     *
+     * @param after Clave del último elemento de la página anterior, o null para pedir la primera página
+     * @param size  Número máximo de elementos de la página
+     * @return Elementos de la página
+     */
+    @Override
+    public List<MeteorologyData> findPage(MeteorologyDataKey after, int size) throws SQLException {
+        String msg = "Obteniendo página de " + size + " meteorologyDatas después de " + after;
+        logger.debug(msg);
+        return meteorologyDataRepository.findPage(after, size);
+    }
+
     /**
      * Busca un elemento en el repositorio por su id
      *
@@ -60,8 +137,21 @@ public class MeteorologyDataServiceImpl implements MeteorologyDataService {
     @Override
     public Optional<MeteorologyData> findById(String id) throws SQLException {
         logger.debug("Obteniendo meteorologyData por id");
+        Optional<UUID> key = parseId(id);
+        if (key.isPresent()) {
+            Optional<MeteorologyData> cached = entities.get(key.get());
+            if (cached.isPresent()) {
+                logger.debug("MeteorologyData encontrado en caché");
+                return cached.map(MeteorologyDataServiceImpl::copy);
+            }
+        }
         logger.debug("MeteorologyData no encontrado en caché, buscando en base de datos");
-        return meteorologyDataRepository.findById(id);
+        long generation = entities.generation();
+        Optional<MeteorologyData> found = meteorologyDataRepository.findById(id);
+        if (found.isPresent() && key.isPresent()) {
+            entities.putIfUnchanged(key.get(), copy(found.get()), generation);
+        }
+        return found;
     }
 
     /**
@@ -74,12 +164,57 @@ public class MeteorologyDataServiceImpl implements MeteorologyDataService {
     public Optional<MeteorologyData> save(MeteorologyData meteorologyData) throws SQLException {
         Optional<MeteorologyData> modified;
         logger.debug("Guardando meteorologyData");
-        modified = meteorologyDataRepository.save(meteorologyData);
+        synchronized (writeLock) {
+            aggregates.beginWrite();
+            try {
+                modified = meteorologyDataRepository.save(meteorologyData);
+                modified.ifPresent(aggregates::add);
+            } finally {
+                aggregates.endWrite();
+            }
+        }
+        modified.ifPresent(data -> entities.put(data.getUuid(), copy(data)));
+        refreshQuantileSketches(modified.stream());
         return modified;
     }
 
     /**
-     * Actualiza un elemento del repositorio
+     * Guarda una lista de elementos en el repositorio por lotes
+     *
+     * @param meteorologyDataList Elementos a guardar
+     * @return Número de elementos guardados
+     */
+    @Override
+    public long saveAll(List<MeteorologyData> meteorologyDataList) throws SQLException {
+        String msg = "Guardando " + meteorologyDataList.size() + " meteorologyData por lotes";
+        logger.debug(msg);
+        try {
+            return meteorologyDataRepository.saveAll(meteorologyDataList);
+        } finally {
+            invalidateDates(meteorologyDataList.stream());
+        }
+    }
+
+    /**
+     * Guarda por lotes los elementos de un Stream a medida que se consumen
+     *
+     * @param meteorologyDataStream Stream de elementos a guardar
+     * @return Número de elementos guardados
+     */
+    @Override
+    public long saveAll(Stream<MeteorologyData> meteorologyDataStream) throws SQLException {
+        logger.debug("Guardando Stream de meteorologyData por lotes");
+        Set<LocalDate> dates = ConcurrentHashMap.newKeySet();
+        try {
+            return meteorologyDataRepository.saveAll(meteorologyDataStream.peek(data -> dates.add(data.getDate())));
+        } finally {
+            aggregates.invalidateAll(dates);
+        }
+    }
+
+    /**
+     * Actualiza un elemento del repositorio. newMeteorologyData lleva su propio uuid, así que a los agregados
+     * se añade con el id del elemento guardado
      *
      * @param meteorologyDataId  Id del elemento a actualizar
      * @param newMeteorologyData Elemento con los nuevos datos
@@ -88,8 +223,26 @@ public class MeteorologyDataServiceImpl implements MeteorologyDataService {
     @Override
     public Optional<MeteorologyData> update(String meteorologyDataId, MeteorologyData newMeteorologyData) throws SQLException {
         Optional<MeteorologyData> modified;
+        Optional<MeteorologyData> previous;
         logger.debug("Actualizando meteorologyData");
-        modified = meteorologyDataRepository.update(meteorologyDataId, newMeteorologyData);
+        synchronized (writeLock) {
+            aggregates.beginWrite();
+            try {
+                previous = meteorologyDataRepository.findById(meteorologyDataId);
+                modified = meteorologyDataRepository.update(meteorologyDataId, newMeteorologyData);
+                if (previous.isPresent()) {
+                    UUID storedId = previous.get().getUuid();
+                    aggregates.remove(previous.get());
+                    modified.ifPresent(data -> aggregates.add(data.toBuilder().uuid(storedId).build()));
+                }
+            } finally {
+                aggregates.endWrite();
+            }
+        }
+        parseId(meteorologyDataId).ifPresent(entities::invalidate);
+        if (previous.isPresent() && modified.isPresent()) {
+            refreshQuantileSketches(Stream.of(previous.get(), modified.get()));
+        }
         return modified;
     }
 
@@ -102,8 +255,388 @@ public class MeteorologyDataServiceImpl implements MeteorologyDataService {
     @Override
     public boolean delete(String id) throws SQLException {
         boolean removed;
+        Optional<MeteorologyData> previous;
         logger.debug("Eliminando meteorologyData");
-        removed = meteorologyDataRepository.delete(id);
+        synchronized (writeLock) {
+            aggregates.beginWrite();
+            try {
+                previous = meteorologyDataRepository.findById(id);
+                removed = meteorologyDataRepository.delete(id);
+                if (removed) {
+                    previous.ifPresent(aggregates::remove);
+                }
+            } finally {
+                aggregates.endWrite();
+            }
+        }
+        parseId(id).ifPresent(entities::invalidate);
+        if (removed) {
+            refreshQuantileSketches(previous.stream());
+        }
         return removed;
     }
+
+    /**
+     * Inserta o actualiza una lista de elementos por lotes según su clave natural
+     *
+     * @param meteorologyDataList Elementos a guardar
+     * @return Número de elementos insertados o actualizados
+     */
+    @Override
+    public long upsertAll(List<MeteorologyData> meteorologyDataList) throws SQLException {
+        String msg = "Insertando o actualizando " + meteorologyDataList.size() + " meteorologyData por lotes";
+        logger.debug(msg);
+        try {
+            return meteorologyDataRepository.upsertAll(meteorologyDataList);
+        } finally {
+            entities.clear();
+            invalidateDates(meteorologyDataList.stream());
+        }
+    }
+
+    /**
+     * Inserta o actualiza por lotes los elementos de un Stream según su clave natural
+     *
+     * @param meteorologyDataStream Stream de elementos a guardar
+     * @return Número de elementos insertados o actualizados
+     */
+    @Override
+    public long upsertAll(Stream<MeteorologyData> meteorologyDataStream) throws SQLException {
+        logger.debug("Insertando o actualizando Stream de meteorologyData por lotes");
+        Set<LocalDate> dates = ConcurrentHashMap.newKeySet();
+        try {
+            return meteorologyDataRepository.upsertAll(meteorologyDataStream.peek(data -> dates.add(data.getDate())));
+        } finally {
+            entities.clear();
+            aggregates.invalidateAll(dates);
+        }
+    }
+
+    /**
+     * Devuelve el elemento con mayor precipitación
+     *
+     * @return Optional del elemento con mayor precipitación
+     */
+    @Override
+    public Optional<MeteorologyData> findMaxPrecipitation() throws SQLException {
+        logger.debug("Obteniendo meteorologyData con mayor precipitación");
+        return meteorologyDataRepository.findMaxPrecipitation();
+    }
+
+    /**
+     * Devuelve los elementos de una provincia
+     *
+     * @param province Provincia a buscar
+     * @return Lista de elementos de la provincia
+     */
+    @Override
+    public List<MeteorologyData> findByProvince(String province) throws SQLException {
+        logger.debug("Obteniendo meteorologyDatas por provincia");
+        return meteorologyDataRepository.findByProvince(province);
+    }
+
+    /**
+     * Devuelve los elementos de un rango de días
+     *
+     * @param from Primer día del rango (incluido)
+     * @param to   Último día del rango (incluido)
+     * @return Lista de elementos ordenada por día, provincia y lugar
+     */
+    @Override
+    public List<MeteorologyData> findByDateRange(LocalDate from, LocalDate to) throws SQLException {
+        logger.debug("Obteniendo meteorologyDatas por rango de días");
+        return meteorologyDataRepository.findByDateRange(from, to);
+    }
+
+    /**
+     * Devuelve los elementos de una provincia en un rango de días
+     *
+     * @param province Provincia a buscar
+     * @param from     Primer día del rango (incluido)
+     * @param to       Último día del rango (incluido)
+     * @return Lista de elementos ordenada por día y lugar
+     */
+    @Override
+    public List<MeteorologyData> findByProvinceAndDateRange(String province, LocalDate from, LocalDate to)
+            throws SQLException {
+        logger.debug("Obteniendo meteorologyDatas por provincia y rango de días");
+        return meteorologyDataRepository.findByProvinceAndDateRange(province, from, to);
+    }
+
+    /**
+     * Devuelve los elementos de un lugar
+     *
+     * @param location Lugar a buscar
+     * @return Lista de elementos ordenada por día y provincia
+     */
+    @Override
+    public List<MeteorologyData> findByLocation(String location) throws SQLException {
+        logger.debug("Obteniendo meteorologyDatas por lugar");
+        return meteorologyDataRepository.findByLocation(location);
+    }
+
+    /**
+     * Devuelve los elementos con una precipitación mayor que un umbral
+     *
+     * @param threshold Umbral de precipitación
+     * @return Lista de elementos ordenada de mayor a menor precipitación
+     */
+    @Override
+    public List<MeteorologyData> findByPrecipitationAbove(float threshold) throws SQLException {
+        logger.debug("Obteniendo meteorologyDatas con precipitación mayor que un umbral");
+        return meteorologyDataRepository.findByPrecipitationAbove(threshold);
+    }
+
+    /**
+     * Recorre los elementos de una provincia sin cargarlos en una lista
+     *
+     * @param province Provincia a buscar
+     * @param action   Consumidor de cada elemento
+     * @return Número de elementos recorridos
+     */
+    @Override
+    public long forEachByProvince(String province, Consumer<MeteorologyData> action) throws SQLException {
+        logger.debug("Recorriendo meteorologyDatas por provincia");
+        return meteorologyDataRepository.forEachByProvince(province, action);
+    }
+
+    /**
+     * Recorre todos los elementos ordenados por provincia y día sin cargarlos en una lista
+     *
+     * @param action Consumidor de cada elemento
+     * @return Número de elementos recorridos
+     */
+    @Override
+    public long forEachOrderedByProvince(Consumer<MeteorologyData> action) throws SQLException {
+        logger.debug("Recorriendo meteorologyDatas ordenados por provincia");
+        return meteorologyDataRepository.forEachOrderedByProvince(action);
+    }
+
+    /**
+     * Devuelve los datos extremos de cada día
+     *
+     * @return Lista de MeteorologyDayData
+     */
+    @Override
+    public List<MeteorologyDayData> findDayData() throws SQLException {
+        logger.debug("Obteniendo datos de cada día");
+        List<LocalDate> dates = cachedDates();
+        if (dates == null) {
+            return meteorologyDataRepository.findDayData();
+        }
+        Map<LocalDate, MeteorologyAggregateCache.DayAggregate> days = dayAggregates(dates);
+        List<MeteorologyDayData> result = new ArrayList<>();
+        synchronized (aggregates) {
+            for (LocalDate date : dates) {
+                result.add(days.get(date).getTotal().toDayData(date));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Devuelve los datos de cada día de una provincia, agregados en la base de datos
+     *
+     * @param province Provincia a consultar
+     * @return Lista de MeteorologyProvinceDayData
+     */
+    @Override
+    public List<MeteorologyProvinceDayData> findProvinceDayData(String province) throws SQLException {
+        logger.debug("Obteniendo datos de cada día de una provincia");
+        return meteorologyDataRepository.findProvinceDayData(province);
+    }
+
+    /**
+     * Devuelve el resumen de cada día y provincia
+     *
+     * @return Lista de MeteorologyProvinceDaySummary
+     */
+    @Override
+    public List<MeteorologyProvinceDaySummary> findProvinceDaySummaries() throws SQLException {
+        logger.debug("Obteniendo resumen de cada día y provincia");
+        List<LocalDate> dates = cachedDates();
+        if (dates == null) {
+            return meteorologyDataRepository.findProvinceDaySummaries();
+        }
+        Map<LocalDate, MeteorologyAggregateCache.DayAggregate> days = dayAggregates(dates);
+        List<MeteorologyProvinceDaySummary> result = new ArrayList<>();
+        for (LocalDate date : dates) {
+            result.addAll(provinceDaySummaries(date, days.get(date)));
+        }
+        return result;
+    }
+
+    /**
+     * Devuelve el resumen de cada provincia en un día
+     *
+     * @param date Día a consultar
+     * @return Lista de MeteorologyProvinceDaySummary
+     */
+    @Override
+    public List<MeteorologyProvinceDaySummary> findProvinceDaySummaries(LocalDate date) throws SQLException {
+        String msg = "Obteniendo resumen de cada provincia del día " + date;
+        logger.debug(msg);
+        if (!aggregates.isEnabled()) {
+            return meteorologyDataRepository.findProvinceDaySummaries(date);
+        }
+        return provinceDaySummaries(date, dayAggregates(List.of(date)).get(date));
+    }
+
+    /**
+     * Devuelve las estadísticas de la caché de elementos y de la caché de agregados
+     *
+     * @return Mapa con las estadísticas de cada caché
+     */
+    @Override
+    public Map<String, CacheStats> getCacheStats() {
+        Map<String, CacheStats> stats = new LinkedHashMap<>();
+        stats.put("elementos", entities.getStats());
+        stats.put("agregados", aggregates.getStats());
+        return stats;
+    }
+
+    /**
+     * Une a los resúmenes de cuantiles los de una escritura por lotes, que ya debe estar guardada
+     *
+     * @param accumulator Resúmenes de los registros guardados
+     */
+    @Override
+    public void updateQuantileSketches(QuantileSketchAccumulator accumulator) throws SQLException {
+        if (quantileSketchService != null) {
+            logger.debug("Actualizando los resúmenes de cuantiles");
+            quantileSketchService.update(accumulator);
+        }
+    }
+
+    /**
+     * Copia un elemento para guardarlo en la caché de elementos o devolverlo desde ella. Todos sus campos son
+     * inmutables, así que basta con una copia superficial
+     *
+     * @param data Elemento
+     * @return Copia del elemento
+     */
+    private static MeteorologyData copy(MeteorologyData data) {
+        return data.toBuilder().build();
+    }
+
+    /**
+     * Convierte un id en la clave de la caché de elementos
+     *
+     * @param id Id del elemento
+     * @return Optional del UUID, vacío si el id no es un UUID válido
+     */
+    private Optional<UUID> parseId(String id) {
+        try {
+            return Optional.of(UUID.fromString(id));
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Devuelve los días con datos si todos caben en la caché de agregados
+     *
+     * @return Lista de días ordenada, o null si la caché está desactivada o los días no caben en ella
+     * @throws SQLException No se han podido leer los días
+     */
+    private List<LocalDate> cachedDates() throws SQLException {
+        if (!aggregates.isEnabled()) {
+            return null;
+        }
+        List<LocalDate> dates = meteorologyDataRepository.findDates();
+        if (dates.size() > aggregates.getMaxDays()) {
+            String msg = "Hay " + dates.size() + " días y la caché de agregados admite " + aggregates.getMaxDays()
+                    + ": se agregan en la base de datos";
+            logger.debug(msg);
+            return null;
+        }
+        return dates;
+    }
+
+    /**
+     * Devuelve los agregados de unos días. Los días que no están cacheados se leen de la base de datos con una
+     * consulta por cada tramo de días seguidos sin cachear, sin bloquear la caché durante la lectura; se cachean
+     * solo si la caché no ha cambiado mientras se leían. Quien use los agregados devueltos debe hacerlo con la
+     * caché bloqueada
+     *
+     * @param dates Días ordenados
+     * @return Agregados de cada día
+     * @throws SQLException No se han podido leer los registros de los días
+     */
+    private Map<LocalDate, MeteorologyAggregateCache.DayAggregate> dayAggregates(List<LocalDate> dates)
+            throws SQLException {
+        Map<LocalDate, MeteorologyAggregateCache.DayAggregate> result = new HashMap<>();
+        List<List<LocalDate>> missing = new ArrayList<>();
+        long generation;
+        synchronized (aggregates) {
+            generation = aggregates.generation();
+            List<LocalDate> run = null;
+            for (LocalDate date : dates) {
+                Optional<MeteorologyAggregateCache.DayAggregate> cached = aggregates.get(date);
+                if (cached.isPresent()) {
+                    result.put(date, cached.get());
+                    run = null;
+                } else {
+                    if (run == null) {
+                        run = new ArrayList<>();
+                        missing.add(run);
+                    }
+                    run.add(date);
+                }
+            }
+        }
+        for (List<LocalDate> run : missing) {
+            Map<LocalDate, List<MeteorologyData>> rows = new HashMap<>();
+            meteorologyDataRepository.findByDateRange(run.get(0), run.get(run.size() - 1))
+                    .forEach(data -> rows.computeIfAbsent(data.getDate(), date -> new ArrayList<>()).add(data));
+            for (LocalDate date : run) {
+                result.put(date, aggregates.putIfUnchanged(date, rows.getOrDefault(date, List.of()), generation));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Convierte los agregados de las provincias de un día en resúmenes
+     *
+     * @param date Día
+     * @param day  Agregados del día
+     * @return Lista de MeteorologyProvinceDaySummary ordenada por provincia
+     */
+    private List<MeteorologyProvinceDaySummary> provinceDaySummaries(LocalDate date,
+                                                                     MeteorologyAggregateCache.DayAggregate day) {
+        synchronized (aggregates) {
+            List<MeteorologyProvinceDaySummary> summaries = new ArrayList<>();
+            for (Map.Entry<String, MeteorologyAggregate> province : day.getProvinces().entrySet()) {
+                summaries.add(province.getValue().toSummary(date, province.getKey()));
+            }
+            return summaries;
+        }
+    }
+
+    /**
+     * Reconstruye los resúmenes de cuantiles de las provincias y meses de unos elementos escritos de uno en uno.
+     * El elemento ya está escrito, así que si falla solo se registra el error
+     *
+     * @param dataStream Elementos escritos, con sus datos anteriores si se han actualizado
+     */
+    private void refreshQuantileSketches(Stream<MeteorologyData> dataStream) {
+        if (quantileSketchService == null) {
+            return;
+        }
+        try {
+            quantileSketchService.refresh(dataStream.map(ProvinceMonthSketch::keyOf).distinct().toList());
+        } catch (SQLException e) {
+            logger.error("Error al actualizar los resúmenes de cuantiles", e);
+        }
+    }
+
+    /**
+     * Invalida los agregados de los días de unos elementos
+     *
+     * @param dataStream Elementos escritos
+     */
+    private void invalidateDates(Stream<MeteorologyData> dataStream) {
+        aggregates.invalidateAll(dataStream.map(MeteorologyData::getDate).distinct().toList());
+    }
 }
\ No newline at end of file
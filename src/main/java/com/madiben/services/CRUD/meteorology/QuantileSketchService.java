@@ -0,0 +1,29 @@
+package com.madiben.services.CRUD.meteorology;
+
+import com.madiben.models.dto.ProvinceQuantiles;
+import com.madiben.services.analytics.ProvinceMonthSketch;
+import com.madiben.services.analytics.QuantileSketchAccumulator;
+
+import java.sql.SQLException;
+import java.time.Month;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Interfaz que define las consultas de percentiles aproximados por provincia y mes
+ */
+public interface QuantileSketchService {
+    Optional<ProvinceQuantiles> getQuantiles(String province, YearMonth month) throws SQLException;
+
+    Optional<ProvinceQuantiles> getQuantiles(String province, Month month) throws SQLException;
+
+    List<ProvinceQuantiles> getQuantiles(String province) throws SQLException;
+
+    void update(QuantileSketchAccumulator accumulator) throws SQLException;
+
+    void refresh(Collection<ProvinceMonthSketch.Key> keys) throws SQLException;
+
+    void rebuild() throws SQLException;
+}
@@ -0,0 +1,280 @@
+package com.madiben.services.CRUD.meteorology;
+
+import com.madiben.models.MeteorologyData;
+import com.madiben.models.dto.ProvinceQuantiles;
+import com.madiben.repositories.analytics.ProvinceMonthSketchRepository;
+import com.madiben.repositories.meteorology.MeteorologyDataRepository;
+import com.madiben.services.analytics.ProvinceMonthSketch;
+import com.madiben.services.analytics.QuantileSketchAccumulator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.time.Month;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Implementación de QuantileSketchService
+ * Los percentiles se calculan con los resúmenes KLL de cada provincia y mes (ProvinceMonthSketch) que se guardan en
+ * ProvinceMonthSketchRepository y se mantienen en memoria, así una consulta es una búsqueda binaria en el resumen
+ * y no recorre los registros. Tras cada ingesta, update une a los resúmenes guardados los de los registros
+ * ingeridos. Un mes se reconstruye desde la base de datos en lugar de unirse si los registros ingeridos son de días
+ * que el resumen ya contenía (un archivo modificado o que había fallado que se vuelve a ingerir), ya que unirlos
+ * contaría esos días dos veces, o si algún trozo del mes no se ha podido guardar. Las escrituras de uno en uno
+ * (save, update y delete de MeteorologyDataService) llaman a refresh, que reconstruye solo los meses afectados.
+ * Si al leer los resúmenes no hay ninguno guardado (base de datos anterior a los resúmenes), se construyen todos
+ * una vez desde la base de datos
+ */
+public class QuantileSketchServiceImpl implements QuantileSketchService {
+    private static QuantileSketchServiceImpl instance;
+    private final Logger logger = LoggerFactory.getLogger(QuantileSketchServiceImpl.class);
+    private final ProvinceMonthSketchRepository sketchRepository;
+    private final MeteorologyDataRepository meteorologyDataRepository;
+    private final Map<CalendarKey, ProvinceMonthSketch> calendarSketches = new ConcurrentHashMap<>();
+    private Map<ProvinceMonthSketch.Key, ProvinceMonthSketch> sketches;
+
+    /**
+     * Constructor de QuantileSketchServiceImpl
+     *
+     * @param sketchRepository          Repositorio de los resúmenes
+     * @param meteorologyDataRepository Repositorio de MeteorologyData
+     */
+    private QuantileSketchServiceImpl(ProvinceMonthSketchRepository sketchRepository,
+                                      MeteorologyDataRepository meteorologyDataRepository) {
+        this.sketchRepository = sketchRepository;
+        this.meteorologyDataRepository = meteorologyDataRepository;
+    }
+
+    /**
+     * SINGLETON
+     * Devuelve la instancia de QuantileSketchServiceImpl
+     *
+     * @param sketchRepository          Repositorio de los resúmenes
+     * @param meteorologyDataRepository Repositorio de MeteorologyData
+     * @return Instancia de QuantileSketchServiceImpl
+     */
+    public static synchronized QuantileSketchServiceImpl getInstance(
+            ProvinceMonthSketchRepository sketchRepository, MeteorologyDataRepository meteorologyDataRepository) {
+        if (instance == null) {
+            instance = new QuantileSketchServiceImpl(sketchRepository, meteorologyDataRepository);
+        }
+        return instance;
+    }
+
+    /**
+     * Devuelve los percentiles de una provincia en un mes
+     *
+     * @param province Provincia (sin distinguir mayúsculas y minúsculas)
+     * @param month    Mes
+     * @return Optional de los percentiles, vacío si no hay datos de la provincia en el mes
+     */
+    @Override
+    public Optional<ProvinceQuantiles> getQuantiles(String province, YearMonth month) throws SQLException {
+        logger.debug("Obteniendo los percentiles de una provincia en un mes");
+        return Optional.ofNullable(getSketches().get(ProvinceMonthSketch.Key.of(province, month)))
+                .map(sketch -> sketch.toQuantiles(month));
+    }
+
+    /**
+     * Devuelve los percentiles de una provincia en un mes de todos los años, uniendo los resúmenes de cada año.
+     * El resumen unido se guarda hasta que una ingesta cambia alguno de sus meses
+     *
+     * @param province Provincia (sin distinguir mayúsculas y minúsculas)
+     * @param month    Mes del año
+     * @return Optional de los percentiles, vacío si no hay datos de la provincia en ese mes
+     */
+    @Override
+    public Optional<ProvinceQuantiles> getQuantiles(String province, Month month) throws SQLException {
+        logger.debug("Obteniendo los percentiles de una provincia en un mes de todos los años");
+        CalendarKey key = CalendarKey.of(province, month);
+        ProvinceMonthSketch merged = calendarSketches.get(key);
+        if (merged == null) {
+            synchronized (this) {
+                for (ProvinceMonthSketch sketch : getSketches().values()) {
+                    if (sketch.getMonth().getMonth() == month && sketch.getKey().province().equals(key.province())) {
+                        merged = merged == null ? sketch.copy() : merged.merge(sketch);
+                    }
+                }
+                if (merged == null) {
+                    return Optional.empty();
+                }
+                calendarSketches.put(key, merged);
+            }
+        }
+        return Optional.of(merged.toQuantiles(null));
+    }
+
+    /**
+     * Devuelve los percentiles de cada mes de una provincia
+     *
+     * @param province Provincia (sin distinguir mayúsculas y minúsculas)
+     * @return Lista de ProvinceQuantiles ordenada por mes
+     */
+    @Override
+    public List<ProvinceQuantiles> getQuantiles(String province) throws SQLException {
+        logger.debug("Obteniendo los percentiles de cada mes de una provincia");
+        String key = province.toLowerCase(Locale.ROOT);
+        return getSketches().values().stream()
+                .filter(sketch -> sketch.getKey().province().equals(key))
+                .sorted(Comparator.comparing(ProvinceMonthSketch::getMonth))
+                .map(sketch -> sketch.toQuantiles(sketch.getMonth()))
+                .toList();
+    }
+
+    /**
+     * Actualiza y guarda los resúmenes con los de una ingesta, que ya debe estar guardada en la base de datos.
+     * Si los resúmenes aún no se habían leído y se han tenido que construir desde la base de datos, ya contienen
+     * los registros ingeridos
+     *
+     * @param accumulator Resúmenes de los registros ingeridos
+     */
+    @Override
+    public synchronized void update(QuantileSketchAccumulator accumulator) throws SQLException {
+        if (load()) {
+            return;
+        }
+        Map<ProvinceMonthSketch.Key, ProvinceMonthSketch> current = sketches;
+        Map<ProvinceMonthSketch.Key, ProvinceMonthSketch> ingested = accumulator.getSketches();
+        Set<ProvinceMonthSketch.Key> rebuild = new HashSet<>(accumulator.getDirtyKeys());
+        List<ProvinceMonthSketch> changed = new ArrayList<>();
+        ingested.forEach((key, sketch) -> {
+            if (rebuild.contains(key)) {
+                return;
+            }
+            ProvinceMonthSketch stored = current.get(key);
+            if (stored == null) {
+                changed.add(sketch);
+            } else if (stored.overlaps(sketch)) {
+                rebuild.add(key);
+            } else {
+                changed.add(stored.copy().merge(sketch));
+            }
+        });
+        sketchRepository.saveAll(changed);
+        for (ProvinceMonthSketch sketch : changed) {
+            current.put(sketch.getKey(), sketch);
+            calendarSketches.remove(CalendarKey.of(sketch.getProvince(), sketch.getMonth().getMonth()));
+        }
+        int rebuilt = rebuild(rebuild);
+        String msg = "Resúmenes de cuantiles actualizados: " + changed.size() + " unidos, " + rebuilt
+                + " reconstruidos";
+        logger.debug(msg);
+    }
+
+    /**
+     * Reconstruye desde la base de datos los resúmenes de unas provincias y meses cuyos registros han cambiado.
+     * Los meses que se han quedado sin registros se borran
+     *
+     * @param keys Claves de los resúmenes a reconstruir
+     */
+    @Override
+    public synchronized void refresh(Collection<ProvinceMonthSketch.Key> keys) throws SQLException {
+        if (load()) {
+            return;
+        }
+        int rebuilt = rebuild(keys);
+        String msg = "Resúmenes de cuantiles reconstruidos: " + rebuilt;
+        logger.debug(msg);
+    }
+
+    /**
+     * Vuelve a construir todos los resúmenes recorriendo la base de datos y los guarda en lugar de los anteriores
+     */
+    @Override
+    public synchronized void rebuild() throws SQLException {
+        logger.debug("Reconstruyendo los resúmenes de cuantiles");
+        Map<ProvinceMonthSketch.Key, ProvinceMonthSketch> rebuilt = new ConcurrentHashMap<>();
+        meteorologyDataRepository.forEach(data -> rebuilt.computeIfAbsent(ProvinceMonthSketch.keyOf(data),
+                key -> new ProvinceMonthSketch(data.getProvince(), key.month())).add(data));
+        sketchRepository.deleteAll();
+        sketchRepository.saveAll(rebuilt.values());
+        sketches = rebuilt;
+        calendarSketches.clear();
+        String msg = "Resúmenes de cuantiles reconstruidos: " + rebuilt.size();
+        logger.debug(msg);
+    }
+
+    /**
+     * Devuelve los resúmenes, leyéndolos del repositorio si aún no se han leído
+     *
+     * @return Resumen de cada provincia y mes
+     * @throws SQLException No se ha podido consultar el repositorio
+     */
+    private synchronized Map<ProvinceMonthSketch.Key, ProvinceMonthSketch> getSketches() throws SQLException {
+        load();
+        return sketches;
+    }
+
+    /**
+     * Lee los resúmenes del repositorio si aún no se han leído. Si no hay ninguno guardado, los construye desde
+     * la base de datos; así se construyen una sola vez aunque la base de datos esté vacía
+     *
+     * @return ¿Se han construido desde la base de datos?
+     * @throws SQLException No se ha podido consultar el repositorio o la base de datos
+     */
+    private synchronized boolean load() throws SQLException {
+        if (sketches != null) {
+            return false;
+        }
+        Map<ProvinceMonthSketch.Key, ProvinceMonthSketch> loaded = new ConcurrentHashMap<>();
+        sketchRepository.findAll().forEach(sketch -> loaded.put(sketch.getKey(), sketch));
+        if (loaded.isEmpty()) {
+            rebuild();
+            return true;
+        }
+        sketches = loaded;
+        return false;
+    }
+
+    /**
+     * Reconstruye unos resúmenes con los registros de su provincia y mes, los guarda y borra los que se han
+     * quedado sin registros
+     *
+     * @param keys Claves de los resúmenes a reconstruir
+     * @return Número de resúmenes reconstruidos
+     * @throws SQLException No se han podido leer los registros o guardar los resúmenes
+     */
+    private int rebuild(Collection<ProvinceMonthSketch.Key> keys) throws SQLException {
+        List<ProvinceMonthSketch> rebuilt = new ArrayList<>();
+        for (ProvinceMonthSketch.Key key : keys) {
+            ProvinceMonthSketch sketch = null;
+            for (MeteorologyData data : meteorologyDataRepository.findByProvinceAndDateRange(key.province(),
+                    key.month().atDay(1), key.month().atEndOfMonth())) {
+                if (sketch == null) {
+                    sketch = new ProvinceMonthSketch(data.getProvince(), key.month());
+                }
+                sketch.add(data);
+            }
+            if (sketch != null) {
+                rebuilt.add(sketch);
+            } else if (sketches.remove(key) != null) {
+                sketchRepository.delete(key.province(), key.month());
+            }
+            calendarSketches.remove(CalendarKey.of(key.province(), key.month().getMonth()));
+        }
+        sketchRepository.saveAll(rebuilt);
+        rebuilt.forEach(sketch -> sketches.put(sketch.getKey(), sketch));
+        return rebuilt.size();
+    }
+
+    /**
+     * Clave del resumen unido de un mes de todos los años de una provincia
+     *
+     * @param province Provincia en minúsculas
+     * @param month    Mes del año
+     */
+    private record CalendarKey(String province, Month month) {
+        /**
+         * Crea la clave de una provincia y un mes del año
+         *
+         * @param province Provincia (sin distinguir mayúsculas y minúsculas)
+         * @param month    Mes del año
+         * @return Clave
+         */
+        static CalendarKey of(String province, Month month) {
+            return new CalendarKey(province.toLowerCase(Locale.ROOT), month);
+        }
+    }
+}
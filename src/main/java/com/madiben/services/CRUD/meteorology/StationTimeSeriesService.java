@@ -0,0 +1,25 @@
+package com.madiben.services.CRUD.meteorology;
+
+import com.madiben.models.dto.MeteorologyRollingDayData;
+import com.madiben.models.dto.StationRangeStats;
+import com.madiben.services.analytics.StationSeries;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Interfaz que define las consultas de series temporales por estación
+ */
+public interface StationTimeSeriesService {
+    List<StationSeries> findStations(String location) throws SQLException;
+
+    Optional<StationSeries> findStation(String location, String province) throws SQLException;
+
+    List<StationRangeStats> getRangeStats(String location, LocalDate from, LocalDate to) throws SQLException;
+
+    List<MeteorologyRollingDayData> getRollingData(String location, String province) throws SQLException;
+
+    void refresh() throws SQLException;
+}
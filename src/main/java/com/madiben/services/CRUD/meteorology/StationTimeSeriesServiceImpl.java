@@ -0,0 +1,135 @@
+package com.madiben.services.CRUD.meteorology;
+
+import com.madiben.models.dto.MeteorologyRollingDayData;
+import com.madiben.models.dto.StationRangeStats;
+import com.madiben.repositories.meteorology.MeteorologyDataRepository;
+import com.madiben.services.analytics.ClimatologyEngine;
+import com.madiben.services.analytics.StationSeries;
+import com.madiben.services.analytics.StationTimeSeriesIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Implementación de StationTimeSeriesService
+ * Las consultas se resuelven sobre un StationTimeSeriesIndex que se construye desde el repositorio la primera
+ * vez que se necesita. El índice es una foto de los datos: después de escribir en el repositorio hay que llamar
+ * a refresh para que las consultas vean los cambios
+ */
+public class StationTimeSeriesServiceImpl implements StationTimeSeriesService {
+    private static StationTimeSeriesServiceImpl instance;
+    private final Logger logger = LoggerFactory.getLogger(StationTimeSeriesServiceImpl.class);
+    private final MeteorologyDataRepository meteorologyDataRepository;
+    private StationTimeSeriesIndex index;
+
+    /**
+     * Constructor de StationTimeSeriesServiceImpl
+     *
+     * @param meteorologyDataRepository Repositorio de MeteorologyData
+     */
+    private StationTimeSeriesServiceImpl(MeteorologyDataRepository meteorologyDataRepository) {
+        this.meteorologyDataRepository = meteorologyDataRepository;
+    }
+
+    /**
+     * SINGLETON
+     * Devuelve la instancia de StationTimeSeriesServiceImpl
+     *
+     * @param meteorologyDataRepository Repositorio de MeteorologyData
+     * @return Instancia de StationTimeSeriesServiceImpl
+     */
+    public static synchronized StationTimeSeriesServiceImpl getInstance(
+            MeteorologyDataRepository meteorologyDataRepository) {
+        if (instance == null) {
+            instance = new StationTimeSeriesServiceImpl(meteorologyDataRepository);
+        }
+        return instance;
+    }
+
+    /**
+     * Devuelve las estaciones de un lugar, una por provincia
+     *
+     * @param location Lugar a buscar
+     * @return Lista de estaciones ordenada por provincia
+     */
+    @Override
+    public List<StationSeries> findStations(String location) throws SQLException {
+        logger.debug("Obteniendo las series de las estaciones de un lugar");
+        return getIndex().find(location);
+    }
+
+    /**
+     * Devuelve la estación de un lugar en una provincia
+     *
+     * @param location Lugar a buscar
+     * @param province Provincia a buscar (sin distinguir mayúsculas y minúsculas)
+     * @return Optional de la estación
+     */
+    @Override
+    public Optional<StationSeries> findStation(String location, String province) throws SQLException {
+        logger.debug("Obteniendo la serie de una estación");
+        return getIndex().find(location, province);
+    }
+
+    /**
+     * Devuelve los extremos y la precipitación total de cada estación de un lugar en un rango de días
+     *
+     * @param location Lugar a buscar
+     * @param from     Primer día del rango (incluido)
+     * @param to       Último día del rango (incluido)
+     * @return Lista de StationRangeStats de las estaciones con días en el rango, ordenada por provincia
+     */
+    @Override
+    public List<StationRangeStats> getRangeStats(String location, LocalDate from, LocalDate to)
+            throws SQLException {
+        logger.debug("Obteniendo los extremos de las estaciones de un lugar en un rango de días");
+        return getIndex().find(location).stream()
+                .map(station -> station.getStats(from, to))
+                .flatMap(Optional::stream)
+                .toList();
+    }
+
+    /**
+     * Devuelve las medias móviles, la precipitación acumulada y las anomalías climatológicas de cada día
+     * de una estación, calculadas con ClimatologyEngine
+     *
+     * @param location Lugar a buscar
+     * @param province Provincia a buscar (sin distinguir mayúsculas y minúsculas)
+     * @return Lista de MeteorologyRollingDayData ordenada por fecha, vacía si la estación no existe
+     */
+    @Override
+    public List<MeteorologyRollingDayData> getRollingData(String location, String province) throws SQLException {
+        logger.debug("Obteniendo los datos móviles y climatológicos de una estación");
+        return getIndex().find(location, province).map(ClimatologyEngine.getInstance()::compute)
+                .orElse(List.of());
+    }
+
+    /**
+     * Vuelve a construir el índice con los datos actuales del repositorio
+     */
+    @Override
+    public void refresh() throws SQLException {
+        logger.debug("Reconstruyendo el índice de series por estación");
+        StationTimeSeriesIndex refreshed = StationTimeSeriesIndex.fromRepository(meteorologyDataRepository);
+        synchronized (this) {
+            index = refreshed;
+        }
+    }
+
+    /**
+     * Devuelve el índice, construyéndolo desde el repositorio si aún no existe
+     *
+     * @return Índice de series por estación
+     * @throws SQLException No se ha podido consultar el repositorio
+     */
+    private synchronized StationTimeSeriesIndex getIndex() throws SQLException {
+        if (index == null) {
+            index = StationTimeSeriesIndex.fromRepository(meteorologyDataRepository);
+        }
+        return index;
+    }
+}
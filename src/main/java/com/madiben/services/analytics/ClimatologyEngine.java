@@ -0,0 +1,210 @@
+package com.madiben.services.analytics;
+
+import com.madiben.models.dto.MeteorologyProvinceDayData;
+import com.madiben.models.dto.MeteorologyRollingDayData;
+import com.madiben.utils.ApplicationProperties;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Calcula sobre la serie diaria de una estación o de una provincia las medias móviles de la temperatura media
+ * y la precipitación de cada ventana (por defecto 7, 30 y 365 días), la precipitación acumulada desde el primer día
+ * y desde el 1 de enero, y la normal climatológica de cada día del año con la anomalía de cada día respecto
+ * a ella. Las ventanas son de días naturales, así que los días sin datos no cuentan pero tampoco alargan la ventana.
+ * Cada ventana es un acumulador deslizante: al avanzar un día se suma el día que entra y se restan los que salen,
+ * con coste O(1) amortizado por día y ventana, sin volver a recorrer la ventana. Las sumas se guardan en punto fijo
+ * (enteros escalados por 2^24), igual que en MeteorologyAggregate, así restar deshace exactamente lo que se sumó y
+ * las medias no acumulan error por muchos días que se avance. Las normales se calculan en una primera pasada con
+ * la media de cada día del año (el 29 de febrero solo con los años bisiestos)
+ */
+public class ClimatologyEngine {
+    private static final double SCALE = 1 << 24;
+    private static final int DAYS_OF_YEAR = 366;
+    private static ClimatologyEngine instance;
+    private final int[] windows;
+
+    /**
+     * Constructor de ClimatologyEngine
+     *
+     * @param windows Días de cada ventana de medias móviles
+     * @throws IllegalArgumentException Si no hay ventanas o alguna no es positiva
+     */
+    public ClimatologyEngine(int... windows) {
+        if (windows.length == 0 || Arrays.stream(windows).anyMatch(window -> window <= 0)) {
+            throw new IllegalArgumentException("Las ventanas deben ser de uno o más días: " +
+                    Arrays.toString(windows));
+        }
+        this.windows = Arrays.stream(windows).sorted().distinct().toArray();
+    }
+
+    /**
+     * Devuelve la instancia configurada con analytics.rolling.windows (días separados por comas)
+     * SINGLETON
+     *
+     * @return Instancia de ClimatologyEngine
+     */
+    public static synchronized ClimatologyEngine getInstance() {
+        if (instance == null) {
+            String windows = ApplicationProperties.getInstance().readProperty("analytics.rolling.windows", "7,30,365");
+            instance = new ClimatologyEngine(Arrays.stream(windows.split(","))
+                    .mapToInt(window -> Integer.parseInt(window.trim())).toArray());
+        }
+        return instance;
+    }
+
+    /**
+     * Devuelve los días de cada ventana
+     *
+     * @return Copia de las ventanas, ordenadas
+     */
+    public int[] getWindows() {
+        return windows.clone();
+    }
+
+    /**
+     * Calcula los datos móviles y climatológicos de cada día de la serie de una estación.
+     * La temperatura media de un día es (máxima + mínima) / 2
+     *
+     * @param station Serie de la estación
+     * @return Lista de MeteorologyRollingDayData ordenada por fecha
+     */
+    public List<MeteorologyRollingDayData> compute(StationSeries station) {
+        int size = station.size();
+        int[] days = new int[size];
+        long[] temperatures = new long[size];
+        long[] precipitations = new long[size];
+        for (int i = 0; i < size; i++) {
+            days[i] = station.getEpochDay(i);
+            temperatures[i] = toFixed(station.getMaxTemperature(i)) + toFixed(station.getMinTemperature(i));
+            precipitations[i] = toFixed(station.getPrecipitation(i));
+        }
+        return compute(station.getLocation(), station.getProvince(), days, temperatures, precipitations);
+    }
+
+    /**
+     * Calcula los datos móviles y climatológicos de cada día de una provincia a partir de sus datos por día
+     * (MeteorologyDataController.getProvinceDataFilterByProvince). La temperatura media de un día es la media de
+     * las medias de las máximas y de las mínimas, y la precipitación la precipitación media de la provincia
+     *
+     * @param province Provincia
+     * @param dayData  Datos de cada día de la provincia, un elemento por día
+     * @return Lista de MeteorologyRollingDayData ordenada por fecha
+     */
+    public List<MeteorologyRollingDayData> compute(String province, List<MeteorologyProvinceDayData> dayData) {
+        List<MeteorologyProvinceDayData> sorted = new ArrayList<>(dayData);
+        sorted.sort(Comparator.comparing(MeteorologyProvinceDayData::getDate));
+        int size = sorted.size();
+        int[] days = new int[size];
+        long[] temperatures = new long[size];
+        long[] precipitations = new long[size];
+        for (int i = 0; i < size; i++) {
+            MeteorologyProvinceDayData data = sorted.get(i);
+            days[i] = (int) data.getDate().toEpochDay();
+            temperatures[i] = toFixed(data.getAvgMaxTemperature()) + toFixed(data.getAvgMinTemperature());
+            precipitations[i] = toFixed(data.getAvgPrecipitation());
+        }
+        return compute(null, province, days, temperatures, precipitations);
+    }
+
+    /**
+     * Calcula los datos móviles y climatológicos de una serie diaria
+     *
+     * @param location       Lugar, o null si la serie es de una provincia
+     * @param province       Provincia
+     * @param days           Días como epoch day, ordenados y sin repetir
+     * @param temperatures   Suma de la temperatura máxima y la mínima de cada día, en punto fijo
+     * @param precipitations Precipitación de cada día, en punto fijo
+     * @return Lista de MeteorologyRollingDayData ordenada por fecha
+     */
+    private List<MeteorologyRollingDayData> compute(String location, String province, int[] days,
+                                                    long[] temperatures, long[] precipitations) {
+        int size = days.length;
+        int[] dayOfYear = new int[size];
+        long[] normalTemperatureSums = new long[DAYS_OF_YEAR];
+        long[] normalPrecipitationSums = new long[DAYS_OF_YEAR];
+        int[] normalCounts = new int[DAYS_OF_YEAR];
+        for (int i = 0; i < size; i++) {
+            dayOfYear[i] = dayOfYearIndex(LocalDate.ofEpochDay(days[i]));
+            normalTemperatureSums[dayOfYear[i]] += temperatures[i];
+            normalPrecipitationSums[dayOfYear[i]] += precipitations[i];
+            normalCounts[dayOfYear[i]]++;
+        }
+
+        int[] tails = new int[windows.length];
+        long[] windowTemperatureSums = new long[windows.length];
+        long[] windowPrecipitationSums = new long[windows.length];
+        long cumulativePrecipitation = 0;
+        long yearPrecipitation = 0;
+        int year = Integer.MIN_VALUE;
+        List<MeteorologyRollingDayData> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            SortedMap<Integer, Double> rollingAvgTemperature = new TreeMap<>();
+            SortedMap<Integer, Double> rollingPrecipitation = new TreeMap<>();
+            for (int w = 0; w < windows.length; w++) {
+                windowTemperatureSums[w] += temperatures[i];
+                windowPrecipitationSums[w] += precipitations[i];
+                while (days[tails[w]] <= days[i] - windows[w]) {
+                    windowTemperatureSums[w] -= temperatures[tails[w]];
+                    windowPrecipitationSums[w] -= precipitations[tails[w]];
+                    tails[w]++;
+                }
+                int count = i - tails[w] + 1;
+                rollingAvgTemperature.put(windows[w], windowTemperatureSums[w] / SCALE / count / 2);
+                rollingPrecipitation.put(windows[w], windowPrecipitationSums[w] / SCALE);
+            }
+
+            LocalDate date = LocalDate.ofEpochDay(days[i]);
+            if (date.getYear() != year) {
+                year = date.getYear();
+                yearPrecipitation = 0;
+            }
+            cumulativePrecipitation += precipitations[i];
+            yearPrecipitation += precipitations[i];
+
+            int normalCount = normalCounts[dayOfYear[i]];
+            double avgTemperature = temperatures[i] / SCALE / 2;
+            double precipitation = precipitations[i] / SCALE;
+            double normalTemperature = normalTemperatureSums[dayOfYear[i]] / SCALE / normalCount / 2;
+            double normalPrecipitation = normalPrecipitationSums[dayOfYear[i]] / SCALE / normalCount;
+            result.add(MeteorologyRollingDayData.builder()
+                    .date(date)
+                    .location(location)
+                    .province(province)
+                    .avgTemperature(avgTemperature)
+                    .precipitation(precipitation)
+                    .rollingAvgTemperature(rollingAvgTemperature)
+                    .rollingPrecipitation(rollingPrecipitation)
+                    .cumulativePrecipitation(cumulativePrecipitation / SCALE)
+                    .yearPrecipitation(yearPrecipitation / SCALE)
+                    .normalTemperature(normalTemperature)
+                    .temperatureAnomaly(avgTemperature - normalTemperature)
+                    .normalPrecipitation(normalPrecipitation)
+                    .precipitationAnomaly(precipitation - normalPrecipitation)
+                    .build());
+        }
+        return result;
+    }
+
+    /**
+     * Devuelve la posición de un día en un año bisiesto (0 a 365), así cada fecha cae en la misma posición
+     * todos los años y el 29 de febrero tiene la suya
+     *
+     * @param date Día
+     * @return Posición del día del año
+     */
+    private static int dayOfYearIndex(LocalDate date) {
+        int index = date.getDayOfYear() - 1;
+        return !date.isLeapYear() && date.getMonthValue() > 2 ? index + 1 : index;
+    }
+
+    /**
+     * Convierte un valor en punto fijo
+     *
+     * @param value Valor
+     * @return Valor escalado por 2^24 y redondeado
+     */
+    private static long toFixed(double value) {
+        return Math.round(value * SCALE);
+    }
+}
@@ -0,0 +1,97 @@
+package com.madiben.services.analytics;
+
+/**
+ * Árbol de segmentos sobre un float[] que devuelve la posición del máximo o del mínimo de cualquier rango
+ * [from, to) en O(log n). Guarda posiciones y no valores, para saber también a qué fila corresponde el extremo;
+ * si hay empate se devuelve la primera posición. Ocupa 2n int: una sparse table respondería en O(1) pero ocupa
+ * n·log n posiciones, demasiado para tener tres por estación con series de décadas
+ */
+final class FloatSegmentTree {
+    private static final int NONE = -1;
+    private final float[] values;
+    private final int[] tree;
+    private final boolean max;
+
+    /**
+     * Constructor de FloatSegmentTree
+     *
+     * @param values Valores, que no se copian ni deben cambiar después
+     * @param max    ¿Se buscan máximos? Si es false, mínimos
+     */
+    private FloatSegmentTree(float[] values, boolean max) {
+        int size = values.length;
+        this.values = values;
+        this.max = max;
+        this.tree = new int[2 * size];
+        for (int i = 0; i < size; i++) {
+            tree[size + i] = i;
+        }
+        for (int node = size - 1; node > 0; node--) {
+            tree[node] = best(tree[2 * node], tree[2 * node + 1]);
+        }
+    }
+
+    /**
+     * Crea un árbol que devuelve la posición del máximo de cada rango
+     *
+     * @param values Valores
+     * @return Árbol de máximos
+     */
+    static FloatSegmentTree max(float[] values) {
+        return new FloatSegmentTree(values, true);
+    }
+
+    /**
+     * Crea un árbol que devuelve la posición del mínimo de cada rango
+     *
+     * @param values Valores
+     * @return Árbol de mínimos
+     */
+    static FloatSegmentTree min(float[] values) {
+        return new FloatSegmentTree(values, false);
+    }
+
+    /**
+     * Devuelve la posición del extremo de un rango
+     *
+     * @param from Primera posición del rango
+     * @param to   Posición siguiente a la última del rango
+     * @return Posición del extremo, o -1 si el rango está vacío
+     */
+    int query(int from, int to) {
+        int size = values.length;
+        int result = NONE;
+        for (int left = from + size, right = to + size; left < right; left >>= 1, right >>= 1) {
+            if ((left & 1) == 1) {
+                result = best(result, tree[left++]);
+            }
+            if ((right & 1) == 1) {
+                result = best(result, tree[--right]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Devuelve la mejor de dos posiciones. Con valores iguales se queda con la menor, así el resultado no depende
+     * del orden en que se combinan los nodos
+     *
+     * @param a Posición, o -1
+     * @param b Posición, o -1
+     * @return Posición con el mayor (o menor) valor
+     */
+    private int best(int a, int b) {
+        if (a == NONE) {
+            return b;
+        }
+        if (b == NONE) {
+            return a;
+        }
+        float valueA = values[a];
+        float valueB = values[b];
+        if (valueA == valueB) {
+            return Math.min(a, b);
+        }
+        return (max ? valueA > valueB : valueA < valueB) ? a : b;
+    }
+}
@@ -0,0 +1,390 @@
+package com.madiben.services.analytics;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Resumen de cuantiles aproximados de un flujo de float con el algoritmo KLL (Karnin, Lang y Liberty)
+ * Los valores se guardan en niveles: un valor del nivel h representa 2^h valores del flujo. Cuando los niveles
+ * superan su capacidad, el nivel más bajo que está lleno se ordena y la mitad de sus valores (los de posición par
+ * o impar, al azar) sube al nivel siguiente. La capacidad del nivel h es k·(2/3)^(niveles - 1 - h), con un mínimo
+ * de 8, así que el resumen guarda menos de 3k valores por muchos valores que se añadan.
+ * Dos resúmenes con el mismo k se pueden unir concatenando sus niveles y compactando, y el resultado tiene la misma
+ * garantía que si todos los valores se hubieran añadido a un único resumen.
+ * Error: con probabilidad del 99 %, el rango real del valor devuelto para el cuantil q está en
+ * q ± getNormalizedRankError(); con k = 200, q ± 1,33 %. Mientras se hayan añadido menos de k valores no se ha
+ * compactado nada y los cuantiles son exactos.
+ * No es thread-safe mientras se añaden valores; una vez completo se puede consultar desde varios hilos
+ */
+public class KllSketch {
+    public static final int DEFAULT_K = 200;
+    private static final int MIN_CAPACITY = 8;
+    private static final double DECAY = 2.0 / 3.0;
+    private static final int INITIAL_LEVEL_SIZE = 16;
+    private final int k;
+    private long n = 0;
+    private float min = Float.NaN;
+    private float max = Float.NaN;
+    private float[][] levels = new float[1][INITIAL_LEVEL_SIZE];
+    private int[] sizes = new int[1];
+    private int[] capacities;
+    private int totalCapacity;
+    private int retained = 0;
+    private volatile SortedView view;
+
+    /**
+     * Constructor de KllSketch con k = 200
+     */
+    public KllSketch() {
+        this(DEFAULT_K);
+    }
+
+    /**
+     * Constructor de KllSketch
+     *
+     * @param k Capacidad del nivel más alto. A mayor k, menor error y más memoria
+     * @throws IllegalArgumentException Si k es menor que 8
+     */
+    public KllSketch(int k) {
+        if (k < MIN_CAPACITY) {
+            throw new IllegalArgumentException("k debe ser al menos " + MIN_CAPACITY + ": " + k);
+        }
+        this.k = k;
+        updateCapacities();
+    }
+
+    /**
+     * Devuelve el error de rango normalizado del resumen para un cuantil, con probabilidad del 99 %.
+     * Es la fórmula empírica de la implementación KLL de Apache DataSketches
+     *
+     * @param k Parámetro k del resumen
+     * @return Error de rango, como fracción de 1
+     */
+    public static double getNormalizedRankError(int k) {
+        return 2.296 / Math.pow(k, 0.9723);
+    }
+
+    /**
+     * Añade un valor al resumen. Los NaN se ignoran
+     *
+     * @param value Valor
+     */
+    public void add(float value) {
+        if (Float.isNaN(value)) {
+            return;
+        }
+        if (n == 0) {
+            min = value;
+            max = value;
+        } else {
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        append(0, value);
+        n++;
+        view = null;
+        if (retained >= totalCapacity) {
+            compress();
+        }
+    }
+
+    /**
+     * Une a este resumen los valores de otro, que no cambia
+     *
+     * @param other Resumen a unir
+     * @return Este resumen
+     * @throws IllegalArgumentException Si los resúmenes tienen distinto k
+     */
+    public KllSketch merge(KllSketch other) {
+        if (other.k != k) {
+            throw new IllegalArgumentException("No se pueden unir resúmenes con distinto k: " + k + " y " + other.k);
+        }
+        if (other.n == 0) {
+            return this;
+        }
+        for (int level = 0; level < other.sizes.length; level++) {
+            for (int i = 0; i < other.sizes[level]; i++) {
+                append(level, other.levels[level][i]);
+            }
+        }
+        min = n == 0 ? other.min : Math.min(min, other.min);
+        max = n == 0 ? other.max : Math.max(max, other.max);
+        n += other.n;
+        view = null;
+        compress();
+        return this;
+    }
+
+    /**
+     * Devuelve el número de valores añadidos
+     *
+     * @return Número de valores
+     */
+    public long getN() {
+        return n;
+    }
+
+    /**
+     * Devuelve si no se ha añadido ningún valor
+     *
+     * @return ¿Está vacío?
+     */
+    public boolean isEmpty() {
+        return n == 0;
+    }
+
+    /**
+     * Devuelve el parámetro k del resumen
+     *
+     * @return k
+     */
+    public int getK() {
+        return k;
+    }
+
+    /**
+     * Devuelve el menor valor añadido
+     *
+     * @return Mínimo, o NaN si está vacío
+     */
+    public float getMin() {
+        return min;
+    }
+
+    /**
+     * Devuelve el mayor valor añadido
+     *
+     * @return Máximo, o NaN si está vacío
+     */
+    public float getMax() {
+        return max;
+    }
+
+    /**
+     * Devuelve el número de valores que guarda el resumen
+     *
+     * @return Número de valores guardados
+     */
+    public int getRetained() {
+        return retained;
+    }
+
+    /**
+     * Devuelve el valor aproximado de un cuantil: el menor valor guardado cuyo rango acumulado llega a q·n.
+     * La primera consulta después de añadir valores ordena los valores guardados; las siguientes son una
+     * búsqueda binaria
+     *
+     * @param q Cuantil, entre 0 y 1
+     * @return Valor del cuantil, o NaN si está vacío
+     * @throws IllegalArgumentException Si q no está entre 0 y 1
+     */
+    public float getQuantile(double q) {
+        if (q < 0 || q > 1 || Double.isNaN(q)) {
+            throw new IllegalArgumentException("El cuantil debe estar entre 0 y 1: " + q);
+        }
+        if (n == 0) {
+            return Float.NaN;
+        }
+        if (q == 0) {
+            return min;
+        }
+        if (q == 1) {
+            return max;
+        }
+        SortedView sorted = sortedView();
+        long rank = Math.max(1, (long) Math.ceil(q * n));
+        int low = 0;
+        int high = sorted.weights().length - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sorted.weights()[middle] < rank) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return sorted.values()[low];
+    }
+
+    /**
+     * Escribe el resumen en formato binario: k, n, mínimo, máximo, número de niveles y, por cada nivel,
+     * su número de valores y los valores
+     *
+     * @param output Salida
+     * @throws IOException Si no se puede escribir
+     */
+    public void writeTo(DataOutput output) throws IOException {
+        output.writeShort(k);
+        output.writeLong(n);
+        output.writeFloat(min);
+        output.writeFloat(max);
+        output.writeByte(sizes.length);
+        for (int level = 0; level < sizes.length; level++) {
+            output.writeShort(sizes[level]);
+            for (int i = 0; i < sizes[level]; i++) {
+                output.writeFloat(levels[level][i]);
+            }
+        }
+    }
+
+    /**
+     * Lee un resumen escrito con writeTo
+     *
+     * @param input Entrada
+     * @return Resumen leído
+     * @throws IOException Si no se puede leer o los datos no son un resumen válido
+     */
+    public static KllSketch readFrom(DataInput input) throws IOException {
+        int k = input.readUnsignedShort();
+        if (k < MIN_CAPACITY) {
+            throw new IOException("Resumen de cuantiles no válido: k = " + k);
+        }
+        KllSketch sketch = new KllSketch(k);
+        sketch.n = input.readLong();
+        sketch.min = input.readFloat();
+        sketch.max = input.readFloat();
+        int levelCount = input.readUnsignedByte();
+        sketch.levels = new float[Math.max(1, levelCount)][];
+        sketch.sizes = new int[sketch.levels.length];
+        sketch.levels[0] = new float[INITIAL_LEVEL_SIZE];
+        for (int level = 0; level < levelCount; level++) {
+            int size = input.readUnsignedShort();
+            sketch.levels[level] = new float[Math.max(size, INITIAL_LEVEL_SIZE)];
+            for (int i = 0; i < size; i++) {
+                sketch.levels[level][i] = input.readFloat();
+            }
+            sketch.sizes[level] = size;
+            sketch.retained += size;
+        }
+        sketch.updateCapacities();
+        return sketch;
+    }
+
+    /**
+     * Calcula la capacidad de cada nivel y la capacidad total según el número de niveles actual
+     */
+    private void updateCapacities() {
+        capacities = new int[sizes.length];
+        totalCapacity = 0;
+        for (int level = 0; level < sizes.length; level++) {
+            int depth = sizes.length - 1 - level;
+            capacities[level] = Math.max(MIN_CAPACITY, (int) Math.ceil(k * Math.pow(DECAY, depth)));
+            totalCapacity += capacities[level];
+        }
+    }
+
+    /**
+     * Añade un valor al final de un nivel, creando el nivel si no existe
+     *
+     * @param level Nivel
+     * @param value Valor
+     */
+    private void append(int level, float value) {
+        if (level >= sizes.length) {
+            levels = Arrays.copyOf(levels, level + 1);
+            sizes = Arrays.copyOf(sizes, level + 1);
+            for (int i = 0; i <= level; i++) {
+                if (levels[i] == null) {
+                    levels[i] = new float[INITIAL_LEVEL_SIZE];
+                }
+            }
+            updateCapacities();
+        }
+        if (sizes[level] == levels[level].length) {
+            levels[level] = Arrays.copyOf(levels[level], levels[level].length * 2);
+        }
+        levels[level][sizes[level]++] = value;
+        retained++;
+    }
+
+    /**
+     * Compacta niveles mientras el resumen guarde más valores que su capacidad total
+     */
+    private void compress() {
+        while (retained >= totalCapacity) {
+            int level = 0;
+            while (sizes[level] < capacities[level]) {
+                level++;
+            }
+            compact(level);
+        }
+    }
+
+    /**
+     * Ordena un nivel y sube la mitad de sus valores al nivel siguiente. Si el nivel tiene un número impar de
+     * valores, el mayor se queda en el nivel
+     *
+     * @param level Nivel a compactar
+     */
+    private void compact(int level) {
+        int size = sizes[level];
+        float[] values = levels[level];
+        Arrays.sort(values, 0, size);
+        int pairs = size / 2;
+        int offset = ThreadLocalRandom.current().nextBoolean() ? 1 : 0;
+        for (int i = 0; i < pairs; i++) {
+            append(level + 1, values[2 * i + offset]);
+        }
+        float[] current = levels[level];
+        int kept = size % 2;
+        if (kept == 1) {
+            current[0] = current[size - 1];
+        }
+        sizes[level] = kept;
+        retained -= size - kept;
+    }
+
+    /**
+     * Devuelve los valores guardados ordenados con su peso acumulado, calculándolos si han cambiado.
+     * Cada valor se ordena como un long con el valor en los 32 bits altos (en un orden de int que respeta el de
+     * float) y su nivel en los bajos
+     *
+     * @return Vista ordenada
+     */
+    private SortedView sortedView() {
+        SortedView sorted = view;
+        if (sorted != null) {
+            return sorted;
+        }
+        long[] keys = new long[getRetained()];
+        int count = 0;
+        for (int level = 0; level < sizes.length; level++) {
+            for (int i = 0; i < sizes[level]; i++) {
+                keys[count++] = ((long) sortableBits(Float.floatToIntBits(levels[level][i])) << Integer.SIZE)
+                        | level;
+            }
+        }
+        Arrays.sort(keys);
+        float[] values = new float[count];
+        long[] weights = new long[count];
+        long cumulative = 0;
+        for (int i = 0; i < count; i++) {
+            values[i] = Float.intBitsToFloat(sortableBits((int) (keys[i] >> Integer.SIZE)));
+            cumulative += 1L << (int) keys[i];
+            weights[i] = cumulative;
+        }
+        sorted = new SortedView(values, weights);
+        view = sorted;
+        return sorted;
+    }
+
+    /**
+     * Convierte los bits de un float en un int que se ordena igual que el float. La conversión es su propia inversa
+     *
+     * @param bits Bits del float
+     * @return Bits ordenables
+     */
+    private static int sortableBits(int bits) {
+        return bits ^ ((bits >> 31) & Integer.MAX_VALUE);
+    }
+
+    /**
+     * Valores guardados ordenados y peso acumulado de cada uno
+     *
+     * @param values  Valores ordenados
+     * @param weights Peso acumulado hasta cada valor, incluido
+     */
+    private record SortedView(float[] values, long[] weights) {
+    }
+}
@@ -0,0 +1,313 @@
+package com.madiben.services.analytics;
+
+import com.madiben.models.MeteorologyData;
+import com.madiben.models.dto.MeteorologyDayData;
+import com.madiben.models.dto.MeteorologyProvinceDayData;
+import com.madiben.models.dto.MeteorologyProvinceDaySummary;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collector;
+
+/**
+ * Acumulador de un grupo de MeteorologyData (un día, o un día y una provincia): número de registros, sumas,
+ * registros extremos y lugares con lluvia, calculados en una sola pasada con aritmética de primitivos.
+ * Se puede usar como Collector y admite añadir y quitar registros, para mantenerlo al día sin recorrer
+ * de nuevo el grupo. Las sumas se guardan en punto fijo (enteros escalados por 2^24), de forma que quitar un
+ * registro deshace exactamente lo que sumó al añadirlo y el resultado no depende del orden de las sumas.
+ * Si se quita un registro que era un extremo, el extremo ya no se conoce y el acumulador deja de ser exacto
+ * hasta que se reconstruya con los registros del grupo
+ */
+public class MeteorologyAggregate {
+    private static final double SCALE = 1 << 24;
+    private final List<String> rainyLocations = new ArrayList<>();
+    private long count = 0;
+    private long maxTemperatureSum = 0;
+    private long minTemperatureSum = 0;
+    private long precipitationSum = 0;
+    private MeteorologyData maxTemperatureData;
+    private MeteorologyData minTemperatureData;
+    private MeteorologyData maxPrecipitationData;
+    private boolean exact = true;
+
+    /**
+     * Añade un registro al grupo. Si empata con un extremo, se mantiene el extremo anterior
+     *
+     * @param data Registro a añadir
+     */
+    public void add(MeteorologyData data) {
+        count++;
+        maxTemperatureSum += toFixed(data.getMaxTemperature());
+        minTemperatureSum += toFixed(data.getMinTemperature());
+        precipitationSum += toFixed(data.getPrecipitation());
+        if (data.getPrecipitation() > 0) {
+            rainyLocations.add(data.getLocation());
+        }
+        if (maxTemperatureData == null || data.getMaxTemperature() > maxTemperatureData.getMaxTemperature()) {
+            maxTemperatureData = data;
+        }
+        if (minTemperatureData == null || data.getMinTemperature() < minTemperatureData.getMinTemperature()) {
+            minTemperatureData = data;
+        }
+        if (maxPrecipitationData == null || data.getPrecipitation() > maxPrecipitationData.getPrecipitation()) {
+            maxPrecipitationData = data;
+        }
+    }
+
+    /**
+     * Une a este acumulador los registros de otro acumulador, como si se hubieran añadido después de los suyos.
+     * Si hay empate en un extremo, se mantiene el de este acumulador
+     *
+     * @param other Acumulador de los registros siguientes
+     * @return Este acumulador
+     */
+    public MeteorologyAggregate merge(MeteorologyAggregate other) {
+        count += other.count;
+        maxTemperatureSum += other.maxTemperatureSum;
+        minTemperatureSum += other.minTemperatureSum;
+        precipitationSum += other.precipitationSum;
+        rainyLocations.addAll(other.rainyLocations);
+        if (maxTemperatureData == null || (other.maxTemperatureData != null
+                && other.maxTemperatureData.getMaxTemperature() > maxTemperatureData.getMaxTemperature())) {
+            maxTemperatureData = other.maxTemperatureData;
+        }
+        if (minTemperatureData == null || (other.minTemperatureData != null
+                && other.minTemperatureData.getMinTemperature() < minTemperatureData.getMinTemperature())) {
+            minTemperatureData = other.minTemperatureData;
+        }
+        if (maxPrecipitationData == null || (other.maxPrecipitationData != null
+                && other.maxPrecipitationData.getPrecipitation() > maxPrecipitationData.getPrecipitation())) {
+            maxPrecipitationData = other.maxPrecipitationData;
+        }
+        exact &= other.exact;
+        return this;
+    }
+
+    /**
+     * Devuelve un Collector que acumula los elementos de un Stream en un MeteorologyAggregate.
+     * Respeta el orden del Stream, también en paralelo
+     *
+     * @return Collector de MeteorologyData a MeteorologyAggregate
+     */
+    public static Collector<MeteorologyData, MeteorologyAggregate, MeteorologyAggregate> collector() {
+        return Collector.of(MeteorologyAggregate::new, MeteorologyAggregate::add, MeteorologyAggregate::merge,
+                Collector.Characteristics.IDENTITY_FINISH);
+    }
+
+    /**
+     * Quita un registro del grupo. El registro debe haberse añadido antes con los mismos valores
+     *
+     * @param data Registro a quitar
+     * @return ¿Sigue siendo exacto el acumulador? Es false si el registro era uno de los extremos
+     */
+    public boolean remove(MeteorologyData data) {
+        count--;
+        maxTemperatureSum -= toFixed(data.getMaxTemperature());
+        minTemperatureSum -= toFixed(data.getMinTemperature());
+        precipitationSum -= toFixed(data.getPrecipitation());
+        if (data.getPrecipitation() > 0) {
+            rainyLocations.remove(data.getLocation());
+        }
+        if (sameKey(data, maxTemperatureData) || sameKey(data, minTemperatureData)
+                || sameKey(data, maxPrecipitationData)) {
+            exact = false;
+        }
+        return exact;
+    }
+
+    /**
+     * Devuelve si los extremos del acumulador se conocen
+     *
+     * @return ¿Es exacto?
+     */
+    public boolean isExact() {
+        return exact;
+    }
+
+    /**
+     * Devuelve el número de registros del grupo
+     *
+     * @return Número de registros
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Devuelve el registro con mayor temperatura
+     *
+     * @return Optional del registro con mayor temperatura
+     */
+    public Optional<MeteorologyData> getMaxTemperatureData() {
+        return Optional.ofNullable(maxTemperatureData);
+    }
+
+    /**
+     * Devuelve el registro con menor temperatura
+     *
+     * @return Optional del registro con menor temperatura
+     */
+    public Optional<MeteorologyData> getMinTemperatureData() {
+        return Optional.ofNullable(minTemperatureData);
+    }
+
+    /**
+     * Devuelve el registro con mayor precipitación
+     *
+     * @return Optional del registro con mayor precipitación
+     */
+    public Optional<MeteorologyData> getMaxPrecipitationData() {
+        return Optional.ofNullable(maxPrecipitationData);
+    }
+
+    /**
+     * Devuelve la mayor temperatura del grupo
+     *
+     * @return Temperatura máxima, o 0 si el grupo está vacío
+     */
+    public float getMaxTemperature() {
+        return maxTemperatureData != null ? maxTemperatureData.getMaxTemperature() : 0.0f;
+    }
+
+    /**
+     * Devuelve la menor temperatura del grupo
+     *
+     * @return Temperatura mínima, o 0 si el grupo está vacío
+     */
+    public float getMinTemperature() {
+        return minTemperatureData != null ? minTemperatureData.getMinTemperature() : 0.0f;
+    }
+
+    /**
+     * Devuelve la media de las temperaturas máximas
+     *
+     * @return Media de las temperaturas máximas, o 0 si el grupo está vacío
+     */
+    public double getAvgMaxTemperature() {
+        return average(maxTemperatureSum);
+    }
+
+    /**
+     * Devuelve la media de las temperaturas mínimas
+     *
+     * @return Media de las temperaturas mínimas, o 0 si el grupo está vacío
+     */
+    public double getAvgMinTemperature() {
+        return average(minTemperatureSum);
+    }
+
+    /**
+     * Devuelve la media de la temperatura media ((máxima + mínima) / 2) de cada registro
+     *
+     * @return Temperatura media, o 0 si el grupo está vacío
+     */
+    public double getAvgTemperature() {
+        return average(maxTemperatureSum + minTemperatureSum) / 2;
+    }
+
+    /**
+     * Devuelve la precipitación media
+     *
+     * @return Precipitación media, o 0 si el grupo está vacío
+     */
+    public double getAvgPrecipitation() {
+        return average(precipitationSum);
+    }
+
+    /**
+     * Devuelve los lugares de los registros con precipitación, en el orden en que se añadieron
+     *
+     * @return Lista de lugares con precipitación
+     */
+    public List<String> getRainyLocations() {
+        return new ArrayList<>(rainyLocations);
+    }
+
+    /**
+     * Convierte el acumulador de un día en un MeteorologyDayData
+     *
+     * @param date Día del grupo
+     * @return MeteorologyDayData con los extremos del día
+     */
+    public MeteorologyDayData toDayData(LocalDate date) {
+        return MeteorologyDayData.builder()
+                .date(date)
+                .maxTemperature(getMaxTemperatureData())
+                .minTemperature(getMinTemperatureData())
+                .maxPrecipitation(getMaxPrecipitationData())
+                .build();
+    }
+
+    /**
+     * Convierte el acumulador de un día y una provincia en un MeteorologyProvinceDayData
+     *
+     * @param date Día del grupo
+     * @return MeteorologyProvinceDayData con los extremos y las medias del día en la provincia
+     */
+    public MeteorologyProvinceDayData toProvinceDayData(LocalDate date) {
+        return MeteorologyProvinceDayData.builder()
+                .date(date)
+                .maxTemperature(getMaxTemperatureData())
+                .minTemperature(getMinTemperatureData())
+                .avgMaxTemperature(getAvgMaxTemperature())
+                .avgMinTemperature(getAvgMinTemperature())
+                .maxPrecipitation(getMaxPrecipitationData())
+                .avgPrecipitation(getAvgPrecipitation())
+                .build();
+    }
+
+    /**
+     * Convierte el acumulador de un día y una provincia en un MeteorologyProvinceDaySummary,
+     * con los lugares con lluvia ordenados por nombre
+     *
+     * @param date     Día del grupo
+     * @param province Provincia del grupo
+     * @return MeteorologyProvinceDaySummary del día en la provincia
+     */
+    public MeteorologyProvinceDaySummary toSummary(LocalDate date, String province) {
+        return MeteorologyProvinceDaySummary.builder()
+                .date(date)
+                .province(province)
+                .maxTemperature(getMaxTemperature())
+                .minTemperature(getMinTemperature())
+                .avgTemperature(getAvgTemperature())
+                .avgPrecipitation(getAvgPrecipitation())
+                .rainyLocations(rainyLocations.stream().sorted().toList())
+                .build();
+    }
+
+    /**
+     * Convierte un valor en punto fijo
+     *
+     * @param value Valor
+     * @return Valor escalado por 2^24 y redondeado
+     */
+    private static long toFixed(float value) {
+        return Math.round(value * SCALE);
+    }
+
+    /**
+     * Devuelve la media de una suma en punto fijo
+     *
+     * @param fixedSum Suma en punto fijo
+     * @return Media, o 0 si el grupo está vacío
+     */
+    private double average(long fixedSum) {
+        return count > 0 ? fixedSum / SCALE / count : 0.0;
+    }
+
+    /**
+     * Compara dos registros por su clave natural (día, provincia y lugar)
+     *
+     * @param data  Registro
+     * @param other Otro registro, puede ser null
+     * @return ¿Tienen la misma clave natural?
+     */
+    private static boolean sameKey(MeteorologyData data, MeteorologyData other) {
+        return other != null && data.getDate().equals(other.getDate())
+                && data.getProvince().equalsIgnoreCase(other.getProvince())
+                && data.getLocation().equals(other.getLocation());
+    }
+}
@@ -0,0 +1,295 @@
+package com.madiben.services.analytics;
+
+import com.madiben.models.MeteorologyData;
+import com.madiben.models.dto.CacheStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Caché de los agregados de cada día y de cada día y provincia
+ * Cada día se guarda como un DayAggregate con el acumulador del día y el de cada provincia. Los días se desalojan
+ * completos y en orden LRU cuando se supera el número máximo de días. Los días cacheados se mantienen al día
+ * con add y remove; si un borrado deja un acumulador sin extremos conocidos, el día se invalida y se vuelve a
+ * cargar la próxima vez que se consulte. Cada escritura, add, remove o invalidación incrementa una generación;
+ * quien lee los registros de un día de la base de datos tras un fallo puede cachearlos con putIfUnchanged, que no
+ * los cachea si la caché ha cambiado mientras los leía o si hay una escritura en curso (entre beginWrite y
+ * endWrite) que aún no ha aplicado sus cambios. Todos los métodos están sincronizados sobre la propia caché
+ */
+public class MeteorologyAggregateCache {
+    private final Logger logger = LoggerFactory.getLogger(MeteorologyAggregateCache.class);
+    private final int maxDays;
+    private final LinkedHashMap<LocalDate, DayAggregate> days;
+    private long generation = 0;
+    private int writers = 0;
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+    private long invalidations = 0;
+
+    /**
+     * Constructor de MeteorologyAggregateCache
+     *
+     * @param maxDays Número máximo de días cacheados. Con 0 la caché está desactivada
+     */
+    public MeteorologyAggregateCache(int maxDays) {
+        this.maxDays = Math.max(0, maxDays);
+        this.days = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<LocalDate, DayAggregate> eldest) {
+                boolean evict = size() > MeteorologyAggregateCache.this.maxDays;
+                if (evict) {
+                    evictions++;
+                }
+                return evict;
+            }
+        };
+    }
+
+    /**
+     * Devuelve si la caché está activada
+     *
+     * @return ¿Está activada?
+     */
+    public boolean isEnabled() {
+        return maxDays > 0;
+    }
+
+    /**
+     * Devuelve el número máximo de días cacheados
+     *
+     * @return Número máximo de días
+     */
+    public int getMaxDays() {
+        return maxDays;
+    }
+
+    /**
+     * Devuelve la generación actual, para usarla después con putIfUnchanged
+     *
+     * @return Generación actual
+     */
+    public synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * Marca el comienzo de una escritura en la base de datos cuyos cambios se aplicarán después con add y remove.
+     * Se debe llamar a endWrite al terminar, aunque falle
+     */
+    public synchronized void beginWrite() {
+        generation++;
+        writers++;
+    }
+
+    /**
+     * Marca el final de una escritura empezada con beginWrite
+     */
+    public synchronized void endWrite() {
+        generation++;
+        writers--;
+    }
+
+    /**
+     * Devuelve los agregados de un día si están cacheados
+     *
+     * @param date Día
+     * @return Optional de los agregados del día
+     */
+    public synchronized Optional<DayAggregate> get(LocalDate date) {
+        DayAggregate day = days.get(date);
+        if (day == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return Optional.ofNullable(day);
+    }
+
+    /**
+     * Calcula y cachea los agregados de un día a partir de todos sus registros
+     *
+     * @param date     Día
+     * @param dataList Todos los registros del día
+     * @return Agregados del día
+     */
+    public synchronized DayAggregate put(LocalDate date, List<MeteorologyData> dataList) {
+        DayAggregate day = new DayAggregate();
+        dataList.forEach(day::add);
+        if (isEnabled()) {
+            days.put(date, day);
+        }
+        String msg = "Agregados del día " + date + " calculados con " + dataList.size() + " registros";
+        logger.debug(msg);
+        return day;
+    }
+
+    /**
+     * Calcula los agregados de un día y los cachea solo si la caché no ha cambiado desde la generación indicada
+     * y no hay escrituras en curso
+     *
+     * @param date       Día
+     * @param dataList   Todos los registros del día
+     * @param generation Generación obtenida antes de leer los registros
+     * @return Agregados del día, cacheados o no
+     */
+    public synchronized DayAggregate putIfUnchanged(LocalDate date, List<MeteorologyData> dataList,
+                                                    long generation) {
+        if (generation != this.generation || writers > 0) {
+            DayAggregate day = new DayAggregate();
+            dataList.forEach(day::add);
+            return day;
+        }
+        return put(date, dataList);
+    }
+
+    /**
+     * Añade un registro nuevo a los agregados de su día, si el día está cacheado
+     *
+     * @param data Registro añadido al repositorio
+     */
+    public synchronized void add(MeteorologyData data) {
+        generation++;
+        DayAggregate day = days.get(data.getDate());
+        if (day != null) {
+            day.add(data);
+        }
+    }
+
+    /**
+     * Quita un registro borrado de los agregados de su día, si el día está cacheado.
+     * Si el registro era un extremo del día o de su provincia, el día se invalida
+     *
+     * @param data Registro borrado del repositorio, con los valores que tenía
+     */
+    public synchronized void remove(MeteorologyData data) {
+        generation++;
+        DayAggregate day = days.get(data.getDate());
+        if (day != null && !day.remove(data)) {
+            invalidate(data.getDate());
+        }
+    }
+
+    /**
+     * Invalida los agregados de un día
+     *
+     * @param date Día
+     */
+    public synchronized void invalidate(LocalDate date) {
+        generation++;
+        if (days.remove(date) != null) {
+            invalidations++;
+        }
+    }
+
+    /**
+     * Invalida los agregados de varios días
+     *
+     * @param dates Días
+     */
+    public synchronized void invalidateAll(Collection<LocalDate> dates) {
+        dates.forEach(this::invalidate);
+    }
+
+    /**
+     * Invalida todos los agregados
+     */
+    public synchronized void clear() {
+        generation++;
+        invalidations += days.size();
+        days.clear();
+    }
+
+    /**
+     * Devuelve el número de días cacheados
+     *
+     * @return Número de días
+     */
+    public synchronized int size() {
+        return days.size();
+    }
+
+    /**
+     * Devuelve las estadísticas de la caché. El tamaño se mide en días
+     *
+     * @return CacheStats con el tamaño y los contadores de la caché
+     */
+    public synchronized CacheStats getStats() {
+        return CacheStats.builder()
+                .size(days.size())
+                .maxSize(maxDays)
+                .hits(hits)
+                .misses(misses)
+                .evictions(evictions)
+                .invalidations(invalidations)
+                .build();
+    }
+
+    /**
+     * Agregados de un día: el acumulador de todo el día y el de cada provincia,
+     * ordenadas por nombre sin distinguir mayúsculas y minúsculas
+     */
+    public static class DayAggregate {
+        private final MeteorologyAggregate total = new MeteorologyAggregate();
+        private final TreeMap<String, MeteorologyAggregate> provinces = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+        /**
+         * Devuelve el acumulador de todo el día
+         *
+         * @return Acumulador del día
+         */
+        public MeteorologyAggregate getTotal() {
+            return total;
+        }
+
+        /**
+         * Devuelve el acumulador de una provincia
+         *
+         * @param province Provincia (sin distinguir mayúsculas y minúsculas)
+         * @return Optional del acumulador de la provincia, vacío si no tiene registros ese día
+         */
+        public Optional<MeteorologyAggregate> getProvince(String province) {
+            return Optional.ofNullable(provinces.get(province));
+        }
+
+        /**
+         * Devuelve el acumulador de cada provincia del día, ordenadas por nombre
+         *
+         * @return Mapa de solo lectura de provincia a acumulador
+         */
+        public SortedMap<String, MeteorologyAggregate> getProvinces() {
+            return Collections.unmodifiableSortedMap(provinces);
+        }
+
+        /**
+         * Añade un registro al día y a su provincia
+         *
+         * @param data Registro
+         */
+        void add(MeteorologyData data) {
+            total.add(data);
+            provinces.computeIfAbsent(data.getProvince(), province -> new MeteorologyAggregate()).add(data);
+        }
+
+        /**
+         * Quita un registro del día y de su provincia
+         *
+         * @param data Registro
+         * @return ¿Siguen siendo exactos los acumuladores?
+         */
+        boolean remove(MeteorologyData data) {
+            boolean exact = total.remove(data);
+            MeteorologyAggregate province = provinces.get(data.getProvince());
+            if (province == null) {
+                return false;
+            }
+            exact &= province.remove(data);
+            if (province.getCount() == 0) {
+                provinces.remove(data.getProvince());
+            }
+            return exact;
+        }
+    }
+}
@@ -0,0 +1,542 @@
+package com.madiben.services.analytics;
+
+import com.madiben.exceptions.ReadCSVFailException;
+import com.madiben.models.MeteorologyData;
+import com.madiben.models.dto.MeteorologyDayData;
+import com.madiben.models.dto.MeteorologyProvinceDayData;
+import com.madiben.models.dto.MeteorologyProvinceDaySummary;
+import com.madiben.repositories.meteorology.MeteorologyDataRepository;
+import com.madiben.services.io.CsvManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+
+/**
+ * Almacén columnar en memoria de los datos de meteorología para las consultas analíticas
+ * Cada campo se guarda en un array de primitivos: las temperaturas y la precipitación en float[], el día como
+ * epoch day en un int[], las dos horas como minutos del día empaquetados en un int[] y la localidad y la provincia
+ * como ids de un NameDictionary. Una fila ocupa 28 bytes, frente a los más de 150 bytes de un MeteorologyData
+ * con su UUID, su LocalDate y sus dos LocalTime, y las agregaciones recorren arrays contiguos.
+ * Las provincias no distinguen mayúsculas y minúsculas, igual que la columna Province de la base de datos,
+ * y se devuelven con la primera forma leída.
+ * No guarda el UUID de los registros. No es thread-safe mientras se añaden datos; una vez cargado se puede
+ * consultar desde varios hilos
+ */
+public class MeteorologyColumnStore {
+    private static final int DEFAULT_CAPACITY = 1024;
+    private static final int BYTES_PER_ROW = 7 * Integer.BYTES;
+    private static final int MINUTE_BITS = 16;
+    private static final int MINUTE_MASK = (1 << MINUTE_BITS) - 1;
+    private static final int NO_TIME = MINUTE_MASK;
+    private final Logger logger = LoggerFactory.getLogger(MeteorologyColumnStore.class);
+    private final NameDictionary locations = new NameDictionary();
+    private final NameDictionary provinces = new NameDictionary(true);
+    private int size = 0;
+    private int minDate = Integer.MAX_VALUE;
+    private int maxDate = Integer.MIN_VALUE;
+    private int[] dates;
+    private int[] times;
+    private int[] locationIds;
+    private int[] provinceIds;
+    private float[] maxTemperatures;
+    private float[] minTemperatures;
+    private float[] precipitations;
+
+    /**
+     * Constructor de MeteorologyColumnStore con la capacidad inicial por defecto
+     */
+    public MeteorologyColumnStore() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor de MeteorologyColumnStore
+     *
+     * @param initialCapacity Número de filas reservadas inicialmente
+     */
+    public MeteorologyColumnStore(int initialCapacity) {
+        resize(Math.max(1, initialCapacity));
+    }
+
+    /**
+     * Carga en un almacén columnar los archivos CSV de una carpeta. Los archivos se parsean de uno en uno
+     * con AemetByteParser y cada fila se añade a las columnas según se lee, sin acumular MeteorologyData
+     *
+     * @param path Ruta de la carpeta donde están los archivos de meteorología
+     * @return Almacén con los datos de todos los archivos
+     * @throws ReadCSVFailException No se ha podido leer la carpeta o algún archivo
+     */
+    public static MeteorologyColumnStore fromCsv(String path) throws ReadCSVFailException {
+        MeteorologyColumnStore store = new MeteorologyColumnStore();
+        CsvManager csvManager = CsvManager.getInstance();
+        for (Path file : csvManager.folderFiles(path)) {
+            csvManager.fileBytesToMeteorologyData(path, file.getFileName().toString(), store::add);
+        }
+        store.trimToSize();
+        store.logLoaded("CSV " + path);
+        return store;
+    }
+
+    /**
+     * Carga en un almacén columnar todos los datos del repositorio. Las filas se añaden a las columnas
+     * según se recorre el resultado de la consulta, sin cargar antes la lista completa
+     *
+     * @param repository Repositorio de MeteorologyData
+     * @return Almacén con todos los datos del repositorio
+     * @throws SQLException No se ha podido consultar el repositorio
+     */
+    public static MeteorologyColumnStore fromRepository(MeteorologyDataRepository repository) throws SQLException {
+        MeteorologyColumnStore store = new MeteorologyColumnStore();
+        repository.forEach(store::add);
+        store.trimToSize();
+        store.logLoaded("repositorio");
+        return store;
+    }
+
+    /**
+     * Añade un MeteorologyData al final de las columnas
+     *
+     * @param data Datos a añadir
+     */
+    public void add(MeteorologyData data) {
+        if (size == dates.length) {
+            resize(size * 2);
+        }
+        int date = (int) data.getDate().toEpochDay();
+        dates[size] = date;
+        times[size] = (minuteOf(data.getMaxTemperatureTime()) << MINUTE_BITS)
+                | minuteOf(data.getMinTemperatureTime());
+        locationIds[size] = locations.encode(data.getLocation());
+        provinceIds[size] = provinces.encode(data.getProvince());
+        maxTemperatures[size] = data.getMaxTemperature();
+        minTemperatures[size] = data.getMinTemperature();
+        precipitations[size] = data.getPrecipitation();
+        minDate = Math.min(minDate, date);
+        maxDate = Math.max(maxDate, date);
+        size++;
+    }
+
+    /**
+     * Añade varios MeteorologyData al final de las columnas
+     *
+     * @param dataList Datos a añadir
+     */
+    public void addAll(Iterable<MeteorologyData> dataList) {
+        dataList.forEach(this::add);
+    }
+
+    /**
+     * Reduce la capacidad de las columnas al número de filas, liberando el espacio reservado sin usar
+     */
+    public void trimToSize() {
+        if (size < dates.length) {
+            resize(Math.max(1, size));
+        }
+    }
+
+    /**
+     * Devuelve el número de filas del almacén
+     *
+     * @return Número de filas
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Devuelve la memoria aproximada que ocupan las columnas, sin contar los diccionarios
+     *
+     * @return Bytes reservados por las columnas
+     */
+    public long estimatedSizeBytes() {
+        return (long) dates.length * BYTES_PER_ROW;
+    }
+
+    /**
+     * Reconstruye el MeteorologyData de una fila. Como el almacén no guarda el UUID, se le asigna uno nuevo
+     *
+     * @param row Índice de la fila
+     * @return MeteorologyData de la fila
+     */
+    public MeteorologyData row(int row) {
+        Objects.checkIndex(row, size);
+        return MeteorologyData.builder()
+                .date(LocalDate.ofEpochDay(dates[row]))
+                .location(locations.decode(locationIds[row]))
+                .province(provinces.decode(provinceIds[row]))
+                .maxTemperature(maxTemperatures[row])
+                .maxTemperatureTime(timeOf(times[row] >>> MINUTE_BITS))
+                .minTemperature(minTemperatures[row])
+                .minTemperatureTime(timeOf(times[row] & MINUTE_MASK))
+                .precipitation(precipitations[row])
+                .build();
+    }
+
+    /**
+     * Devuelve la fila con mayor precipitación. Si hay empate, la primera
+     *
+     * @return Optional de MeteorologyData con la mayor precipitación
+     */
+    public Optional<MeteorologyData> maxPrecipitation() {
+        if (size == 0) {
+            return Optional.empty();
+        }
+        int best = 0;
+        for (int i = 1; i < size; i++) {
+            if (precipitations[i] > precipitations[best]) {
+                best = i;
+            }
+        }
+        return Optional.of(row(best));
+    }
+
+    /**
+     * Devuelve por cada día la fila de mayor temperatura, la de menor temperatura y la de mayor precipitación
+     * en una sola pasada. Si hay empate, la primera
+     *
+     * @return Lista de MeteorologyDayData ordenada por fecha
+     */
+    public List<MeteorologyDayData> dayData() {
+        int days = daySpan();
+        int[] maxRows = emptyRows(days);
+        int[] minRows = emptyRows(days);
+        int[] rainRows = emptyRows(days);
+        for (int i = 0; i < size; i++) {
+            int day = dates[i] - minDate;
+            if (maxRows[day] < 0) {
+                maxRows[day] = i;
+                minRows[day] = i;
+                rainRows[day] = i;
+                continue;
+            }
+            if (maxTemperatures[i] > maxTemperatures[maxRows[day]]) {
+                maxRows[day] = i;
+            }
+            if (minTemperatures[i] < minTemperatures[minRows[day]]) {
+                minRows[day] = i;
+            }
+            if (precipitations[i] > precipitations[rainRows[day]]) {
+                rainRows[day] = i;
+            }
+        }
+        List<MeteorologyDayData> result = new ArrayList<>();
+        for (int day = 0; day < days; day++) {
+            if (maxRows[day] >= 0) {
+                result.add(MeteorologyDayData.builder()
+                        .date(LocalDate.ofEpochDay((long) minDate + day))
+                        .maxTemperature(Optional.of(row(maxRows[day])))
+                        .minTemperature(Optional.of(row(minRows[day])))
+                        .maxPrecipitation(Optional.of(row(rainRows[day])))
+                        .build());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Devuelve por cada día de una provincia las filas extremas y las medias del día en una sola pasada
+     *
+     * @param province Provincia a consultar (sin distinguir mayúsculas y minúsculas)
+     * @return Lista de MeteorologyProvinceDayData ordenada por fecha
+     */
+    public List<MeteorologyProvinceDayData> provinceDayData(String province) {
+        boolean[] matches = provinces.matchIgnoreCase(province);
+        int days = daySpan();
+        int[] maxRows = emptyRows(days);
+        int[] minRows = emptyRows(days);
+        int[] rainRows = emptyRows(days);
+        int[] counts = new int[days];
+        double[] maxSums = new double[days];
+        double[] minSums = new double[days];
+        double[] rainSums = new double[days];
+        for (int i = 0; i < size; i++) {
+            if (!matches[provinceIds[i]]) {
+                continue;
+            }
+            int day = dates[i] - minDate;
+            if (counts[day] == 0) {
+                maxRows[day] = i;
+                minRows[day] = i;
+                rainRows[day] = i;
+            } else {
+                if (maxTemperatures[i] > maxTemperatures[maxRows[day]]) {
+                    maxRows[day] = i;
+                }
+                if (minTemperatures[i] < minTemperatures[minRows[day]]) {
+                    minRows[day] = i;
+                }
+                if (precipitations[i] > precipitations[rainRows[day]]) {
+                    rainRows[day] = i;
+                }
+            }
+            counts[day]++;
+            maxSums[day] += maxTemperatures[i];
+            minSums[day] += minTemperatures[i];
+            rainSums[day] += precipitations[i];
+        }
+        List<MeteorologyProvinceDayData> result = new ArrayList<>();
+        for (int day = 0; day < days; day++) {
+            int count = counts[day];
+            if (count > 0) {
+                result.add(MeteorologyProvinceDayData.builder()
+                        .date(LocalDate.ofEpochDay((long) minDate + day))
+                        .maxTemperature(Optional.of(row(maxRows[day])))
+                        .minTemperature(Optional.of(row(minRows[day])))
+                        .avgMaxTemperature(maxSums[day] / count)
+                        .avgMinTemperature(minSums[day] / count)
+                        .maxPrecipitation(Optional.of(row(rainRows[day])))
+                        .avgPrecipitation(rainSums[day] / count)
+                        .build());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Devuelve el resumen de cada día y provincia. Los grupos se indexan por día presente y id de provincia,
+     * por lo que los acumuladores son arrays y no hace falta ningún mapa. Los lugares con lluvia de cada grupo
+     * se colocan de forma contigua en una segunda pasada
+     *
+     * @return Lista de MeteorologyProvinceDaySummary ordenada por fecha y provincia
+     */
+    public List<MeteorologyProvinceDaySummary> provinceDaySummaries() {
+        int span = daySpan();
+        int[] denseDays = emptyRows(span);
+        for (int i = 0; i < size; i++) {
+            denseDays[dates[i] - minDate] = 0;
+        }
+        int days = 0;
+        for (int day = 0; day < span; day++) {
+            if (denseDays[day] == 0) {
+                denseDays[day] = days++;
+            }
+        }
+        int provinceCount = provinces.size();
+        int groups = Math.multiplyExact(days, provinceCount);
+        int[] counts = new int[groups];
+        int[] rainyCounts = new int[groups + 1];
+        float[] maxima = new float[groups];
+        float[] minima = new float[groups];
+        double[] temperatureSums = new double[groups];
+        double[] rainSums = new double[groups];
+        for (int i = 0; i < size; i++) {
+            int group = denseDays[dates[i] - minDate] * provinceCount + provinceIds[i];
+            if (counts[group] == 0 || maxTemperatures[i] > maxima[group]) {
+                maxima[group] = maxTemperatures[i];
+            }
+            if (counts[group] == 0 || minTemperatures[i] < minima[group]) {
+                minima[group] = minTemperatures[i];
+            }
+            counts[group]++;
+            temperatureSums[group] += ((double) maxTemperatures[i] + minTemperatures[i]) / 2;
+            rainSums[group] += precipitations[i];
+            if (precipitations[i] > 0) {
+                rainyCounts[group + 1]++;
+            }
+        }
+        for (int group = 0; group < groups; group++) {
+            rainyCounts[group + 1] += rainyCounts[group];
+        }
+        int[] rainyLocations = new int[rainyCounts[groups]];
+        int[] next = Arrays.copyOf(rainyCounts, groups);
+        for (int i = 0; i < size; i++) {
+            if (precipitations[i] > 0) {
+                int group = denseDays[dates[i] - minDate] * provinceCount + provinceIds[i];
+                rainyLocations[next[group]++] = locationIds[i];
+            }
+        }
+        Integer[] provinceOrder = new Integer[provinceCount];
+        Arrays.setAll(provinceOrder, id -> id);
+        Arrays.sort(provinceOrder, Comparator.comparing(provinces::decode, String.CASE_INSENSITIVE_ORDER));
+        List<MeteorologyProvinceDaySummary> result = new ArrayList<>();
+        for (int day = 0; day < span; day++) {
+            if (denseDays[day] < 0) {
+                continue;
+            }
+            for (int provinceId : provinceOrder) {
+                int group = denseDays[day] * provinceCount + provinceId;
+                int count = counts[group];
+                if (count == 0) {
+                    continue;
+                }
+                List<String> rainy = new ArrayList<>(rainyCounts[group + 1] - rainyCounts[group]);
+                for (int j = rainyCounts[group]; j < rainyCounts[group + 1]; j++) {
+                    rainy.add(locations.decode(rainyLocations[j]));
+                }
+                Collections.sort(rainy);
+                result.add(MeteorologyProvinceDaySummary.builder()
+                        .date(LocalDate.ofEpochDay((long) minDate + day))
+                        .province(provinces.decode(provinceId))
+                        .maxTemperature(maxima[group])
+                        .minTemperature(minima[group])
+                        .avgTemperature(temperatureSums[group] / count)
+                        .avgPrecipitation(rainSums[group] / count)
+                        .rainyLocations(rainy)
+                        .build());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Devuelve la temperatura máxima del almacén
+     *
+     * @return Temperatura máxima, o 0 si está vacío
+     */
+    public float maxTemperature() {
+        if (size == 0) {
+            return 0.0f;
+        }
+        float max = maxTemperatures[0];
+        for (int i = 1; i < size; i++) {
+            max = Math.max(max, maxTemperatures[i]);
+        }
+        return max;
+    }
+
+    /**
+     * Devuelve la temperatura mínima del almacén
+     *
+     * @return Temperatura mínima, o 0 si está vacío
+     */
+    public float minTemperature() {
+        if (size == 0) {
+            return 0.0f;
+        }
+        float min = minTemperatures[0];
+        for (int i = 1; i < size; i++) {
+            min = Math.min(min, minTemperatures[i]);
+        }
+        return min;
+    }
+
+    /**
+     * Devuelve la media de la temperatura media ((máxima + mínima) / 2) de cada fila
+     *
+     * @return Temperatura media, o 0 si está vacío
+     */
+    public double avgTemperature() {
+        if (size == 0) {
+            return 0.0;
+        }
+        double sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += ((double) maxTemperatures[i] + minTemperatures[i]) / 2;
+        }
+        return sum / size;
+    }
+
+    /**
+     * Devuelve la precipitación media
+     *
+     * @return Precipitación media, o 0 si está vacío
+     */
+    public double avgPrecipitation() {
+        if (size == 0) {
+            return 0.0;
+        }
+        double sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += precipitations[i];
+        }
+        return sum / size;
+    }
+
+    /**
+     * Devuelve las localidades de las filas con precipitación, en el orden de las filas
+     *
+     * @return Lista de localidades con precipitación
+     */
+    public List<String> locationsWithPrecipitation() {
+        List<String> result = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            if (precipitations[i] > 0) {
+                result.add(locations.decode(locationIds[i]));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Cambia la capacidad de todas las columnas
+     *
+     * @param capacity Nueva capacidad
+     */
+    private void resize(int capacity) {
+        if (dates == null) {
+            dates = new int[capacity];
+            times = new int[capacity];
+            locationIds = new int[capacity];
+            provinceIds = new int[capacity];
+            maxTemperatures = new float[capacity];
+            minTemperatures = new float[capacity];
+            precipitations = new float[capacity];
+            return;
+        }
+        dates = Arrays.copyOf(dates, capacity);
+        times = Arrays.copyOf(times, capacity);
+        locationIds = Arrays.copyOf(locationIds, capacity);
+        provinceIds = Arrays.copyOf(provinceIds, capacity);
+        maxTemperatures = Arrays.copyOf(maxTemperatures, capacity);
+        minTemperatures = Arrays.copyOf(minTemperatures, capacity);
+        precipitations = Arrays.copyOf(precipitations, capacity);
+    }
+
+    /**
+     * Devuelve el número de días entre el primer y el último día del almacén, ambos incluidos
+     *
+     * @return Número de días, o 0 si está vacío
+     */
+    private int daySpan() {
+        return size == 0 ? 0 : maxDate - minDate + 1;
+    }
+
+    /**
+     * Crea un array de índices de fila sin asignar (-1)
+     *
+     * @param length Longitud del array
+     * @return Array relleno de -1
+     */
+    private static int[] emptyRows(int length) {
+        int[] rows = new int[length];
+        Arrays.fill(rows, -1);
+        return rows;
+    }
+
+    /**
+     * Convierte una hora en minutos del día
+     *
+     * @param time Hora
+     * @return Minutos del día, o NO_TIME si no hay hora
+     */
+    private static int minuteOf(LocalTime time) {
+        return time == null ? NO_TIME : time.getHour() * 60 + time.getMinute();
+    }
+
+    /**
+     * Convierte unos minutos del día en una hora
+     *
+     * @param minute Minutos del día
+     * @return Hora, o null si es NO_TIME
+     */
+    private static LocalTime timeOf(int minute) {
+        return minute == NO_TIME ? null : LocalTime.of(minute / 60, minute % 60);
+    }
+
+    /**
+     * Registra en el log el tamaño del almacén cargado
+     *
+     * @param source Origen de los datos
+     */
+    private void logLoaded(String source) {
+        String msg = "Almacén columnar cargado desde " + source + ": " + size + " filas, "
+                + estimatedSizeBytes() / 1024 + " KB, " + locations.size() + " localidades, "
+                + provinces.size() + " provincias";
+        logger.debug(msg);
+    }
+}
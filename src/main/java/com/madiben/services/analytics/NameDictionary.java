@@ -0,0 +1,85 @@
+package com.madiben.services.analytics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Diccionario que codifica cada nombre distinto (localidad o provincia) como un id entero consecutivo,
+ * de forma que las columnas de MeteorologyColumnStore guardan un int por fila en lugar de una referencia a un String.
+ * Los ids empiezan en 0 y se asignan en el orden en que aparecen los nombres. Si no distingue mayúsculas y
+ * minúsculas, las variantes de un nombre comparten id y se decodifican como la primera que apareció
+ */
+public class NameDictionary {
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+    private final boolean ignoreCase;
+
+    /**
+     * Constructor de NameDictionary que distingue mayúsculas y minúsculas
+     */
+    public NameDictionary() {
+        this(false);
+    }
+
+    /**
+     * Constructor de NameDictionary
+     *
+     * @param ignoreCase Si es true, los nombres que solo se diferencian en mayúsculas y minúsculas tienen el mismo id
+     */
+    public NameDictionary(boolean ignoreCase) {
+        this.ignoreCase = ignoreCase;
+    }
+
+    /**
+     * Devuelve el id de un nombre, añadiéndolo al diccionario si aún no está
+     *
+     * @param name Nombre a codificar
+     * @return Id del nombre
+     */
+    public int encode(String name) {
+        String key = ignoreCase ? name.toLowerCase(Locale.ROOT) : name;
+        Integer id = ids.get(key);
+        if (id == null) {
+            id = names.size();
+            ids.put(key, id);
+            names.add(name);
+        }
+        return id;
+    }
+
+    /**
+     * Devuelve el nombre de un id
+     *
+     * @param id Id del nombre
+     * @return Nombre del id
+     */
+    public String decode(int id) {
+        return names.get(id);
+    }
+
+    /**
+     * Devuelve qué ids corresponden a un nombre sin distinguir mayúsculas y minúsculas
+     *
+     * @param name Nombre a buscar
+     * @return Array indexado por id con true en los ids cuyo nombre coincide
+     */
+    public boolean[] matchIgnoreCase(String name) {
+        boolean[] matches = new boolean[names.size()];
+        for (int id = 0; id < matches.length; id++) {
+            matches[id] = names.get(id).equalsIgnoreCase(name);
+        }
+        return matches;
+    }
+
+    /**
+     * Devuelve el número de nombres distintos del diccionario
+     *
+     * @return Número de nombres
+     */
+    public int size() {
+        return names.size();
+    }
+}
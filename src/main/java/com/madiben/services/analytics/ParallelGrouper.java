@@ -0,0 +1,160 @@
+package com.madiben.services.analytics;
+
+import com.madiben.utils.ApplicationProperties;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
+
+/**
+ * Agrupa listas grandes en paralelo con un ForkJoinPool
+ * La lista se divide en trozos contiguos; cada tarea acumula su trozo en sus propios acumuladores por clave
+ * y los resultados parciales se unen de izquierda a derecha, como si la lista se hubiera recorrido en orden.
+ * Con un Collector que respete el orden (MeteorologyAggregate.collector(), toList...) el resultado es idéntico
+ * al de la agrupación secuencial, que es la que se usa con listas de menos de threshold elementos
+ */
+public class ParallelGrouper {
+    private static final int MIN_LEAF_SIZE = 4096;
+    private static final int LEAVES_PER_THREAD = 4;
+    private static ParallelGrouper instance;
+    private final ForkJoinPool pool;
+    private final int threshold;
+
+    /**
+     * Constructor de ParallelGrouper
+     *
+     * @param parallelism Número de hilos del ForkJoinPool. Con 0 o menos, uno por procesador
+     * @param threshold   Tamaño mínimo de la lista para agrupar en paralelo
+     */
+    public ParallelGrouper(int parallelism, int threshold) {
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.threshold = Math.max(1, threshold);
+    }
+
+    /**
+     * Devuelve la instancia configurada con analytics.parallelism y analytics.parallel.threshold
+     * SINGLETON
+     *
+     * @return Instancia de ParallelGrouper
+     */
+    public static synchronized ParallelGrouper getInstance() {
+        if (instance == null) {
+            ApplicationProperties properties = ApplicationProperties.getInstance();
+            instance = new ParallelGrouper(
+                    Integer.parseInt(properties.readProperty("analytics.parallelism", "0")),
+                    Integer.parseInt(properties.readProperty("analytics.parallel.threshold", "100000")));
+        }
+        return instance;
+    }
+
+    /**
+     * Agrupa los elementos de una lista por clave y acumula cada grupo con un Collector
+     *
+     * @param data       Lista de elementos
+     * @param classifier Función que devuelve la clave de cada elemento
+     * @param downstream Collector que acumula los elementos de cada grupo
+     * @param <T>        Tipo de los elementos
+     * @param <K>        Tipo de la clave
+     * @param <A>        Tipo del acumulador del Collector
+     * @param <R>        Tipo del resultado de cada grupo
+     * @return Mapa ordenado por clave con el resultado de cada grupo
+     */
+    public <T, K extends Comparable<? super K>, A, R> SortedMap<K, R> groupBy(
+            List<T> data, Function<? super T, ? extends K> classifier, Collector<? super T, A, R> downstream) {
+        GroupTask<T, K, A> task = new GroupTask<>(data, 0, data.size(), leafSize(data.size()), classifier,
+                downstream.supplier(), downstream.accumulator(), downstream.combiner());
+        Map<K, A> groups = data.size() < threshold ? task.compute() : pool.invoke(task);
+        Function<A, R> finisher = downstream.finisher();
+        SortedMap<K, R> result = new TreeMap<>();
+        groups.forEach((key, container) -> result.put(key, finisher.apply(container)));
+        return result;
+    }
+
+    /**
+     * Devuelve el tamaño de los trozos que se acumulan sin dividir
+     *
+     * @param size Tamaño de la lista
+     * @return Tamaño de cada trozo
+     */
+    private int leafSize(int size) {
+        if (size < threshold) {
+            return Math.max(1, size);
+        }
+        return Math.max(MIN_LEAF_SIZE, size / (pool.getParallelism() * LEAVES_PER_THREAD));
+    }
+
+    /**
+     * Tarea que agrupa un trozo [from, to) de la lista
+     *
+     * @param <T> Tipo de los elementos
+     * @param <K> Tipo de la clave
+     * @param <A> Tipo del acumulador
+     */
+    private static class GroupTask<T, K, A> extends RecursiveTask<Map<K, A>> {
+        private final List<T> data;
+        private final int from;
+        private final int to;
+        private final int leafSize;
+        private final Function<? super T, ? extends K> classifier;
+        private final Supplier<A> supplier;
+        private final BiConsumer<A, ? super T> accumulator;
+        private final BinaryOperator<A> combiner;
+
+        /**
+         * Constructor de GroupTask
+         *
+         * @param data        Lista de elementos
+         * @param from        Primer índice del trozo
+         * @param to          Índice siguiente al último del trozo
+         * @param leafSize    Tamaño a partir del cual el trozo se divide
+         * @param classifier  Función que devuelve la clave de cada elemento
+         * @param supplier    Constructor de acumuladores
+         * @param accumulator Función que añade un elemento a un acumulador
+         * @param combiner    Función que une dos acumuladores, el izquierdo primero
+         */
+        GroupTask(List<T> data, int from, int to, int leafSize, Function<? super T, ? extends K> classifier,
+                  Supplier<A> supplier, BiConsumer<A, ? super T> accumulator, BinaryOperator<A> combiner) {
+            this.data = data;
+            this.from = from;
+            this.to = to;
+            this.leafSize = leafSize;
+            this.classifier = classifier;
+            this.supplier = supplier;
+            this.accumulator = accumulator;
+            this.combiner = combiner;
+        }
+
+        /**
+         * Acumula el trozo, o lo divide en dos mitades y une sus resultados de izquierda a derecha
+         *
+         * @return Acumulador de cada clave del trozo
+         */
+        @Override
+        protected Map<K, A> compute() {
+            if (to - from <= leafSize) {
+                Map<K, A> groups = new HashMap<>();
+                for (int i = from; i < to; i++) {
+                    T element = data.get(i);
+                    accumulator.accept(groups.computeIfAbsent(classifier.apply(element), key -> supplier.get()),
+                            element);
+                }
+                return groups;
+            }
+            int middle = (from + to) >>> 1;
+            GroupTask<T, K, A> left = new GroupTask<>(data, from, middle, leafSize, classifier, supplier,
+                    accumulator, combiner);
+            GroupTask<T, K, A> right = new GroupTask<>(data, middle, to, leafSize, classifier, supplier,
+                    accumulator, combiner);
+            left.fork();
+            Map<K, A> rightGroups = right.compute();
+            Map<K, A> groups = left.join();
+            rightGroups.forEach((key, container) -> groups.merge(key, container, combiner));
+            return groups;
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.madiben.services.analytics;
+
+import com.madiben.models.MeteorologyData;
+import com.madiben.models.dto.ProvinceQuantiles;
+
+import java.io.*;
+import java.time.YearMonth;
+import java.util.Locale;
+
+/**
+ * Resúmenes de cuantiles (KllSketch) de la temperatura máxima y de la precipitación de una provincia en un mes
+ * Guarda también qué días del mes contiene, para saber si unir otro resumen del mismo mes contaría dos veces
+ * los registros de algún día. Se guarda en la base de datos en formato binario (toBytes): unos 2 KB por medida
+ * cuando está lleno, y solo sus valores mientras tiene menos de k registros
+ */
+public class ProvinceMonthSketch {
+    private static final int VERSION = 1;
+    private final String province;
+    private final YearMonth month;
+    private final KllSketch maxTemperature;
+    private final KllSketch precipitation;
+    private int days;
+
+    /**
+     * Constructor de ProvinceMonthSketch vacío
+     *
+     * @param province Provincia
+     * @param month    Mes
+     */
+    public ProvinceMonthSketch(String province, YearMonth month) {
+        this(province, month, new KllSketch(), new KllSketch(), 0);
+    }
+
+    /**
+     * Constructor de ProvinceMonthSketch
+     *
+     * @param province       Provincia
+     * @param month          Mes
+     * @param maxTemperature Resumen de la temperatura máxima
+     * @param precipitation  Resumen de la precipitación
+     * @param days           Días del mes que contiene, como bits (bit 0 = día 1)
+     */
+    private ProvinceMonthSketch(String province, YearMonth month, KllSketch maxTemperature,
+                                KllSketch precipitation, int days) {
+        this.province = province;
+        this.month = month;
+        this.maxTemperature = maxTemperature;
+        this.precipitation = precipitation;
+        this.days = days;
+    }
+
+    /**
+     * Lee un resumen guardado con toBytes
+     *
+     * @param province Provincia
+     * @param month    Mes
+     * @param bytes    Resumen en formato binario
+     * @return Resumen leído
+     * @throws IOException Si los datos no son un resumen válido
+     */
+    public static ProvinceMonthSketch fromBytes(String province, YearMonth month, byte[] bytes) throws IOException {
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes));
+        int version = input.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Versión del resumen de cuantiles no soportada: " + version);
+        }
+        int days = input.readInt();
+        return new ProvinceMonthSketch(province, month, KllSketch.readFrom(input), KllSketch.readFrom(input), days);
+    }
+
+    /**
+     * Devuelve la clave del resumen de un registro
+     *
+     * @param data Registro
+     * @return Clave de su provincia y su mes
+     */
+    public static Key keyOf(MeteorologyData data) {
+        return Key.of(data.getProvince(), YearMonth.from(data.getDate()));
+    }
+
+    /**
+     * Añade un registro del mes y la provincia del resumen
+     *
+     * @param data Registro
+     */
+    public void add(MeteorologyData data) {
+        maxTemperature.add(data.getMaxTemperature());
+        precipitation.add(data.getPrecipitation());
+        days |= 1 << (data.getDate().getDayOfMonth() - 1);
+    }
+
+    /**
+     * Une a este resumen los registros de otro
+     *
+     * @param other Resumen a unir
+     * @return Este resumen
+     */
+    public ProvinceMonthSketch merge(ProvinceMonthSketch other) {
+        maxTemperature.merge(other.maxTemperature);
+        precipitation.merge(other.precipitation);
+        days |= other.days;
+        return this;
+    }
+
+    /**
+     * Devuelve si este resumen y otro tienen algún día en común, en cuyo caso unirlos contaría dos veces
+     * los registros de ese día
+     *
+     * @param other Otro resumen
+     * @return ¿Comparten algún día?
+     */
+    public boolean overlaps(ProvinceMonthSketch other) {
+        return (days & other.days) != 0;
+    }
+
+    /**
+     * Devuelve el resumen en formato binario: versión, días y los dos KllSketch
+     *
+     * @return Bytes del resumen
+     */
+    public byte[] toBytes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            output.writeByte(VERSION);
+            output.writeInt(days);
+            maxTemperature.writeTo(output);
+            precipitation.writeTo(output);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Devuelve la provincia del resumen
+     *
+     * @return Provincia
+     */
+    public String getProvince() {
+        return province;
+    }
+
+    /**
+     * Devuelve el mes del resumen
+     *
+     * @return Mes
+     */
+    public YearMonth getMonth() {
+        return month;
+    }
+
+    /**
+     * Devuelve la clave del resumen
+     *
+     * @return Clave de la provincia y el mes
+     */
+    public Key getKey() {
+        return Key.of(province, month);
+    }
+
+    /**
+     * Devuelve el número de registros del resumen
+     *
+     * @return Número de registros
+     */
+    public long getCount() {
+        return maxTemperature.getN();
+    }
+
+    /**
+     * Devuelve el resumen de la temperatura máxima
+     *
+     * @return KllSketch de la temperatura máxima
+     */
+    public KllSketch getMaxTemperature() {
+        return maxTemperature;
+    }
+
+    /**
+     * Devuelve el resumen de la precipitación
+     *
+     * @return KllSketch de la precipitación
+     */
+    public KllSketch getPrecipitation() {
+        return precipitation;
+    }
+
+    /**
+     * Devuelve una copia del resumen
+     *
+     * @return Copia independiente
+     */
+    public ProvinceMonthSketch copy() {
+        return new ProvinceMonthSketch(province, month).merge(this);
+    }
+
+    /**
+     * Devuelve los percentiles 50, 90 y 99 de la temperatura máxima y de la precipitación
+     *
+     * @param month Mes del resultado: el del resumen, o null si el resumen une varios años
+     * @return ProvinceQuantiles con los percentiles y el error de rango
+     */
+    public ProvinceQuantiles toQuantiles(YearMonth month) {
+        return ProvinceQuantiles.builder()
+                .province(province)
+                .month(month)
+                .calendarMonth(this.month.getMonth())
+                .count(getCount())
+                .maxTemperatureP50(maxTemperature.getQuantile(0.5))
+                .maxTemperatureP90(maxTemperature.getQuantile(0.9))
+                .maxTemperatureP99(maxTemperature.getQuantile(0.99))
+                .precipitationP50(precipitation.getQuantile(0.5))
+                .precipitationP90(precipitation.getQuantile(0.9))
+                .precipitationP99(precipitation.getQuantile(0.99))
+                .rankError(getCount() < maxTemperature.getK() ? 0.0
+                        : KllSketch.getNormalizedRankError(maxTemperature.getK()))
+                .build();
+    }
+
+    /**
+     * Clave de un resumen: provincia en minúsculas, ya que la provincia no distingue mayúsculas y minúsculas, y mes
+     *
+     * @param province Provincia en minúsculas
+     * @param month    Mes
+     */
+    public record Key(String province, YearMonth month) {
+        /**
+         * Crea la clave de una provincia y un mes
+         *
+         * @param province Provincia (sin distinguir mayúsculas y minúsculas)
+         * @param month    Mes
+         * @return Clave
+         */
+        public static Key of(String province, YearMonth month) {
+            return new Key(province.toLowerCase(Locale.ROOT), month);
+        }
+    }
+}
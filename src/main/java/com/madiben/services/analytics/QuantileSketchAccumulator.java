@@ -0,0 +1,99 @@
+package com.madiben.services.analytics;
+
+import com.madiben.models.MeteorologyData;
+import com.madiben.services.io.ParallelCsvIngestor;
+
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Acumula los resúmenes de cuantiles de cada provincia y mes de los registros de una ingesta
+ * Cada hilo que añade registros (cada escritor de ParallelCsvIngestor) tiene sus propios resúmenes parciales,
+ * así añadir no necesita sincronización; al terminar la ingesta getSketches une los parciales de todos los hilos.
+ * Los meses de los trozos que no se han podido guardar (el escritor lanza una excepción o guarda menos registros de
+ * los recibidos) quedan marcados para reconstruirlos desde la base de datos, ya que parte del trozo puede haberse
+ * guardado
+ */
+public class QuantileSketchAccumulator {
+    private final Queue<Map<ProvinceMonthSketch.Key, ProvinceMonthSketch>> partials = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<Map<ProvinceMonthSketch.Key, ProvinceMonthSketch>> partial = ThreadLocal.withInitial(
+            () -> {
+                Map<ProvinceMonthSketch.Key, ProvinceMonthSketch> sketches = new HashMap<>();
+                partials.add(sketches);
+                return sketches;
+            });
+    private final Set<ProvinceMonthSketch.Key> dirty = ConcurrentHashMap.newKeySet();
+    private final LongAdder added = new LongAdder();
+
+    /**
+     * Añade un registro al resumen parcial de su provincia y mes del hilo actual
+     *
+     * @param data Registro
+     */
+    public void add(MeteorologyData data) {
+        partial.get().computeIfAbsent(ProvinceMonthSketch.keyOf(data),
+                key -> new ProvinceMonthSketch(data.getProvince(), key.month())).add(data);
+        added.increment();
+    }
+
+    /**
+     * Devuelve un escritor que guarda cada trozo con writer y, si se ha guardado entero, añade sus registros a los
+     * resúmenes. Si no, los meses del trozo se marcan para reconstruirlos; si writer lanza una excepción, se relanza
+     *
+     * @param writer Escritor de los trozos
+     * @return Escritor que además acumula los resúmenes
+     */
+    public ParallelCsvIngestor.ChunkWriter tracking(ParallelCsvIngestor.ChunkWriter writer) {
+        return rows -> {
+            long saved;
+            try {
+                saved = writer.write(rows);
+            } catch (SQLException | RuntimeException e) {
+                rows.forEach(data -> dirty.add(ProvinceMonthSketch.keyOf(data)));
+                throw e;
+            }
+            if (saved < rows.size()) {
+                rows.forEach(data -> dirty.add(ProvinceMonthSketch.keyOf(data)));
+            } else {
+                rows.forEach(this::add);
+            }
+            return saved;
+        };
+    }
+
+    /**
+     * Devuelve el número de registros añadidos a los resúmenes
+     *
+     * @return Número de registros añadidos
+     */
+    public long getAdded() {
+        return added.sum();
+    }
+
+    /**
+     * Une los resúmenes parciales de todos los hilos. Se debe llamar cuando ya no se añaden registros
+     *
+     * @return Resumen de cada provincia y mes de los registros añadidos
+     */
+    public Map<ProvinceMonthSketch.Key, ProvinceMonthSketch> getSketches() {
+        Map<ProvinceMonthSketch.Key, ProvinceMonthSketch> sketches = new HashMap<>();
+        for (Map<ProvinceMonthSketch.Key, ProvinceMonthSketch> sketchesOfThread : partials) {
+            sketchesOfThread.forEach((key, sketch) -> sketches.computeIfAbsent(key,
+                    k -> new ProvinceMonthSketch(sketch.getProvince(), k.month())).merge(sketch));
+        }
+        return sketches;
+    }
+
+    /**
+     * Devuelve los meses de cada provincia que se deben reconstruir desde la base de datos porque algún trozo
+     * con registros suyos no se ha podido guardar
+     *
+     * @return Claves de los resúmenes a reconstruir
+     */
+    public Set<ProvinceMonthSketch.Key> getDirtyKeys() {
+        return Set.copyOf(dirty);
+    }
+}
@@ -0,0 +1,295 @@
+package com.madiben.services.analytics;
+
+import com.madiben.models.dto.StationRangeStats;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Serie temporal de una estación (lugar y provincia) ordenada por día, con un registro por día
+ * Cada medida se guarda en un array de primitivos: el día como epoch day en un int[] y las temperaturas y la
+ * precipitación en float[]. Un rango de días se localiza con dos búsquedas binarias, el máximo y el mínimo de un
+ * rango se obtienen en O(log n) con un FloatSegmentTree por medida y la precipitación total en O(1) con sumas
+ * acumuladas, sin recorrer los días del rango. Es inmutable y se puede consultar desde varios hilos
+ */
+public class StationSeries {
+    private final String location;
+    private final String province;
+    private final int[] days;
+    private final float[] maxTemperatures;
+    private final float[] minTemperatures;
+    private final float[] precipitations;
+    private final double[] precipitationSums;
+    private final FloatSegmentTree maxTemperatureTree;
+    private final FloatSegmentTree minTemperatureTree;
+    private final FloatSegmentTree maxPrecipitationTree;
+
+    /**
+     * Constructor de StationSeries. Los arrays no se copian y no deben cambiar después
+     *
+     * @param location        Lugar de la estación
+     * @param province        Provincia de la estación
+     * @param days            Días como epoch day, ordenados y sin repetir
+     * @param maxTemperatures Temperatura máxima de cada día
+     * @param minTemperatures Temperatura mínima de cada día
+     * @param precipitations  Precipitación de cada día
+     */
+    StationSeries(String location, String province, int[] days, float[] maxTemperatures, float[] minTemperatures,
+                  float[] precipitations) {
+        this.location = location;
+        this.province = province;
+        this.days = days;
+        this.maxTemperatures = maxTemperatures;
+        this.minTemperatures = minTemperatures;
+        this.precipitations = precipitations;
+        this.precipitationSums = new double[days.length + 1];
+        for (int i = 0; i < days.length; i++) {
+            precipitationSums[i + 1] = precipitationSums[i] + precipitations[i];
+        }
+        this.maxTemperatureTree = FloatSegmentTree.max(maxTemperatures);
+        this.minTemperatureTree = FloatSegmentTree.min(minTemperatures);
+        this.maxPrecipitationTree = FloatSegmentTree.max(precipitations);
+    }
+
+    /**
+     * Devuelve el lugar de la estación
+     *
+     * @return Lugar
+     */
+    public String getLocation() {
+        return location;
+    }
+
+    /**
+     * Devuelve la provincia de la estación
+     *
+     * @return Provincia
+     */
+    public String getProvince() {
+        return province;
+    }
+
+    /**
+     * Devuelve el número de días de la serie
+     *
+     * @return Número de días
+     */
+    public int size() {
+        return days.length;
+    }
+
+    /**
+     * Devuelve el primer día de la serie
+     *
+     * @return Primer día
+     */
+    public LocalDate getFirstDate() {
+        return LocalDate.ofEpochDay(days[0]);
+    }
+
+    /**
+     * Devuelve el último día de la serie
+     *
+     * @return Último día
+     */
+    public LocalDate getLastDate() {
+        return LocalDate.ofEpochDay(days[days.length - 1]);
+    }
+
+    /**
+     * Devuelve un día de la serie como epoch day
+     *
+     * @param index Posición en la serie
+     * @return Día
+     */
+    int getEpochDay(int index) {
+        return days[index];
+    }
+
+    /**
+     * Devuelve la temperatura máxima de un día de la serie
+     *
+     * @param index Posición en la serie
+     * @return Temperatura máxima
+     */
+    float getMaxTemperature(int index) {
+        return maxTemperatures[index];
+    }
+
+    /**
+     * Devuelve la temperatura mínima de un día de la serie
+     *
+     * @param index Posición en la serie
+     * @return Temperatura mínima
+     */
+    float getMinTemperature(int index) {
+        return minTemperatures[index];
+    }
+
+    /**
+     * Devuelve la precipitación de un día de la serie
+     *
+     * @param index Posición en la serie
+     * @return Precipitación
+     */
+    float getPrecipitation(int index) {
+        return precipitations[index];
+    }
+
+    /**
+     * Devuelve la parte de la serie de un rango de días, localizada con búsqueda binaria
+     *
+     * @param from Primer día del rango (incluido)
+     * @param to   Último día del rango (incluido)
+     * @return Slice con los días de la serie dentro del rango, vacío si no hay ninguno
+     */
+    public Slice slice(LocalDate from, LocalDate to) {
+        int start = lowerBound(from.toEpochDay());
+        int end = lowerBound(to.toEpochDay() + 1);
+        return new Slice(start, Math.max(start, end));
+    }
+
+    /**
+     * Devuelve los extremos y la precipitación total de la estación en un rango de días
+     *
+     * @param from Primer día del rango (incluido)
+     * @param to   Último día del rango (incluido)
+     * @return Optional de StationRangeStats, vacío si la estación no tiene días en el rango
+     */
+    public Optional<StationRangeStats> getStats(LocalDate from, LocalDate to) {
+        return slice(from, to).getStats();
+    }
+
+    /**
+     * Devuelve la primera posición cuyo día no es anterior a un día dado
+     *
+     * @param day Día como epoch day
+     * @return Posición, o el número de días si todos son anteriores
+     */
+    private int lowerBound(long day) {
+        int low = 0;
+        int high = days.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (days[middle] < day) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Parte contigua [start, end) de la serie de una estación. No copia los datos hasta que se piden sus arrays
+     */
+    public class Slice {
+        private final int start;
+        private final int end;
+
+        /**
+         * Constructor de Slice
+         *
+         * @param start Primera posición
+         * @param end   Posición siguiente a la última
+         */
+        private Slice(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * Devuelve el número de días del trozo
+         *
+         * @return Número de días
+         */
+        public int size() {
+            return end - start;
+        }
+
+        /**
+         * Devuelve si el trozo no tiene días
+         *
+         * @return ¿Está vacío?
+         */
+        public boolean isEmpty() {
+            return start == end;
+        }
+
+        /**
+         * Devuelve un día del trozo
+         *
+         * @param index Posición dentro del trozo
+         * @return Día
+         */
+        public LocalDate getDate(int index) {
+            return LocalDate.ofEpochDay(days[start + Objects.checkIndex(index, size())]);
+        }
+
+        /**
+         * Devuelve los días del trozo como epoch day
+         *
+         * @return Copia de los días
+         */
+        public int[] getEpochDays() {
+            return Arrays.copyOfRange(days, start, end);
+        }
+
+        /**
+         * Devuelve la temperatura máxima de cada día del trozo
+         *
+         * @return Copia de las temperaturas máximas
+         */
+        public float[] getMaxTemperatures() {
+            return Arrays.copyOfRange(maxTemperatures, start, end);
+        }
+
+        /**
+         * Devuelve la temperatura mínima de cada día del trozo
+         *
+         * @return Copia de las temperaturas mínimas
+         */
+        public float[] getMinTemperatures() {
+            return Arrays.copyOfRange(minTemperatures, start, end);
+        }
+
+        /**
+         * Devuelve la precipitación de cada día del trozo
+         *
+         * @return Copia de las precipitaciones
+         */
+        public float[] getPrecipitations() {
+            return Arrays.copyOfRange(precipitations, start, end);
+        }
+
+        /**
+         * Devuelve los extremos y la precipitación total del trozo
+         *
+         * @return Optional de StationRangeStats, vacío si el trozo no tiene días
+         */
+        public Optional<StationRangeStats> getStats() {
+            if (isEmpty()) {
+                return Optional.empty();
+            }
+            int maxTemperature = maxTemperatureTree.query(start, end);
+            int minTemperature = minTemperatureTree.query(start, end);
+            int maxPrecipitation = maxPrecipitationTree.query(start, end);
+            return Optional.of(StationRangeStats.builder()
+                    .location(location)
+                    .province(province)
+                    .from(LocalDate.ofEpochDay(days[start]))
+                    .to(LocalDate.ofEpochDay(days[end - 1]))
+                    .days(size())
+                    .maxTemperature(maxTemperatures[maxTemperature])
+                    .maxTemperatureDate(LocalDate.ofEpochDay(days[maxTemperature]))
+                    .minTemperature(minTemperatures[minTemperature])
+                    .minTemperatureDate(LocalDate.ofEpochDay(days[minTemperature]))
+                    .maxPrecipitation(precipitations[maxPrecipitation])
+                    .maxPrecipitationDate(LocalDate.ofEpochDay(days[maxPrecipitation]))
+                    .totalPrecipitation(precipitationSums[end] - precipitationSums[start])
+                    .build());
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package com.madiben.services.analytics;
+
+import com.madiben.exceptions.ReadCSVFailException;
+import com.madiben.models.MeteorologyData;
+import com.madiben.repositories.meteorology.MeteorologyDataRepository;
+import com.madiben.services.io.CsvManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * Índice en memoria de la serie temporal de cada estación, por lugar
+ * Hay lugares con el mismo nombre en provincias distintas, así que cada lugar puede tener varias estaciones,
+ * una por provincia. Las consultas de una estación ("As Pontes, 2015-2020, máxima diaria") se resuelven sobre
+ * su StationSeries sin recorrer los datos de las demás. Es un índice de solo lectura: para reflejar cambios
+ * del repositorio hay que volver a construirlo
+ */
+public class StationTimeSeriesIndex {
+    private static final Logger logger = LoggerFactory.getLogger(StationTimeSeriesIndex.class);
+    private final Map<String, List<StationSeries>> stations;
+    private final int stationCount;
+    private final long size;
+
+    /**
+     * Constructor de StationTimeSeriesIndex
+     *
+     * @param stations Estaciones de cada lugar
+     */
+    private StationTimeSeriesIndex(Map<String, List<StationSeries>> stations) {
+        this.stations = stations;
+        this.stationCount = stations.values().stream().mapToInt(List::size).sum();
+        this.size = stations.values().stream().flatMap(List::stream).mapToLong(StationSeries::size).sum();
+    }
+
+    /**
+     * Construye el índice con los archivos CSV de una carpeta, que se parsean con AemetByteParser
+     * sin acumular MeteorologyData
+     *
+     * @param path Ruta de la carpeta donde están los archivos de meteorología
+     * @return Índice con los datos de todos los archivos
+     * @throws ReadCSVFailException No se ha podido leer la carpeta o algún archivo
+     */
+    public static StationTimeSeriesIndex fromCsv(String path) throws ReadCSVFailException {
+        Builder builder = new Builder();
+        CsvManager csvManager = CsvManager.getInstance();
+        for (Path file : csvManager.folderFiles(path)) {
+            csvManager.fileBytesToMeteorologyData(path, file.getFileName().toString(), builder::add);
+        }
+        return builder.build("CSV " + path);
+    }
+
+    /**
+     * Construye el índice con todos los datos del repositorio, según se recorre el resultado de la consulta
+     *
+     * @param repository Repositorio de MeteorologyData
+     * @return Índice con todos los datos del repositorio
+     * @throws SQLException No se ha podido consultar el repositorio
+     */
+    public static StationTimeSeriesIndex fromRepository(MeteorologyDataRepository repository) throws SQLException {
+        Builder builder = new Builder();
+        repository.forEach(builder::add);
+        return builder.build("repositorio");
+    }
+
+    /**
+     * Construye el índice con una colección de MeteorologyData
+     *
+     * @param dataList Datos
+     * @return Índice con los datos
+     */
+    public static StationTimeSeriesIndex of(Iterable<MeteorologyData> dataList) {
+        Builder builder = new Builder();
+        dataList.forEach(builder::add);
+        return builder.build("lista");
+    }
+
+    /**
+     * Devuelve las estaciones de un lugar, una por provincia
+     *
+     * @param location Lugar a buscar
+     * @return Lista de estaciones ordenada por provincia, vacía si el lugar no está en el índice
+     */
+    public List<StationSeries> find(String location) {
+        return stations.getOrDefault(location, List.of());
+    }
+
+    /**
+     * Devuelve la estación de un lugar en una provincia (sin distinguir mayúsculas y minúsculas)
+     *
+     * @param location Lugar a buscar
+     * @param province Provincia a buscar
+     * @return Optional de la estación
+     */
+    public Optional<StationSeries> find(String location, String province) {
+        return find(location).stream().filter(station -> station.getProvince().equalsIgnoreCase(province))
+                .findFirst();
+    }
+
+    /**
+     * Devuelve los lugares del índice
+     *
+     * @return Conjunto de solo lectura de los lugares
+     */
+    public Set<String> getLocations() {
+        return Collections.unmodifiableSet(stations.keySet());
+    }
+
+    /**
+     * Devuelve el número de estaciones del índice
+     *
+     * @return Número de estaciones
+     */
+    public int getStationCount() {
+        return stationCount;
+    }
+
+    /**
+     * Devuelve el número de días de todas las estaciones
+     *
+     * @return Número de registros del índice
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Estación: lugar y provincia en minúsculas, ya que la provincia no distingue mayúsculas y minúsculas
+     *
+     * @param location Lugar
+     * @param province Provincia en minúsculas
+     */
+    private record StationKey(String location, String province) {
+    }
+
+    /**
+     * Acumula los registros de cada estación en arrays de primitivos en el orden en que llegan, y al construir
+     * el índice los ordena por día. Si una estación tiene varios registros del mismo día se queda con el último,
+     * igual que la ingesta con MERGE
+     */
+    public static class Builder {
+        private static final int INITIAL_CAPACITY = 64;
+        private final Map<StationKey, SeriesBuilder> series = new HashMap<>();
+
+        /**
+         * Añade un registro a la serie de su estación
+         *
+         * @param data Registro
+         */
+        public void add(MeteorologyData data) {
+            series.computeIfAbsent(new StationKey(data.getLocation(), data.getProvince().toLowerCase(Locale.ROOT)),
+                    key -> new SeriesBuilder(data.getLocation(), data.getProvince())).add(data);
+        }
+
+        /**
+         * Construye el índice con los registros añadidos
+         *
+         * @return Índice
+         */
+        public StationTimeSeriesIndex build() {
+            return build("registros añadidos");
+        }
+
+        /**
+         * Construye el índice con los registros añadidos y registra de dónde se ha cargado
+         *
+         * @param source Origen de los datos, para el log
+         * @return Índice
+         */
+        private StationTimeSeriesIndex build(String source) {
+            Map<String, List<StationSeries>> stations = new HashMap<>();
+            for (SeriesBuilder builder : series.values()) {
+                stations.computeIfAbsent(builder.location, location -> new ArrayList<>()).add(builder.build());
+            }
+            stations.values().forEach(list -> list.sort(Comparator.comparing(StationSeries::getProvince,
+                    String.CASE_INSENSITIVE_ORDER)));
+            StationTimeSeriesIndex index = new StationTimeSeriesIndex(stations);
+            String msg = "Índice de series por estación cargado desde " + source + ": " + index.getStationCount() +
+                    " estaciones, " + index.size() + " registros";
+            logger.debug(msg);
+            return index;
+        }
+    }
+
+    /**
+     * Columnas de una estación mientras se añaden registros
+     */
+    private static class SeriesBuilder {
+        private final String location;
+        private final String province;
+        private int size = 0;
+        private int[] days = new int[Builder.INITIAL_CAPACITY];
+        private float[] maxTemperatures = new float[Builder.INITIAL_CAPACITY];
+        private float[] minTemperatures = new float[Builder.INITIAL_CAPACITY];
+        private float[] precipitations = new float[Builder.INITIAL_CAPACITY];
+
+        /**
+         * Constructor de SeriesBuilder
+         *
+         * @param location Lugar de la estación
+         * @param province Provincia de la estación, tal y como aparece en su primer registro
+         */
+        SeriesBuilder(String location, String province) {
+            this.location = location;
+            this.province = province;
+        }
+
+        /**
+         * Añade un registro al final de las columnas
+         *
+         * @param data Registro
+         */
+        void add(MeteorologyData data) {
+            if (size == days.length) {
+                int capacity = size * 2;
+                days = Arrays.copyOf(days, capacity);
+                maxTemperatures = Arrays.copyOf(maxTemperatures, capacity);
+                minTemperatures = Arrays.copyOf(minTemperatures, capacity);
+                precipitations = Arrays.copyOf(precipitations, capacity);
+            }
+            days[size] = (int) data.getDate().toEpochDay();
+            maxTemperatures[size] = data.getMaxTemperature();
+            minTemperatures[size] = data.getMinTemperature();
+            precipitations[size] = data.getPrecipitation();
+            size++;
+        }
+
+        /**
+         * Ordena las columnas por día y construye la serie. Cada fila se ordena como un long con el día en los 32
+         * bits altos y su posición en los bajos, así el orden es estable y el último registro de un día repetido
+         * es el último de su grupo
+         *
+         * @return Serie de la estación
+         */
+        StationSeries build() {
+            long[] order = new long[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = ((long) days[i] << Integer.SIZE) | i;
+            }
+            Arrays.sort(order);
+            int count = 0;
+            int[] sortedDays = new int[size];
+            float[] sortedMaxTemperatures = new float[size];
+            float[] sortedMinTemperatures = new float[size];
+            float[] sortedPrecipitations = new float[size];
+            for (int i = 0; i < size; i++) {
+                int row = (int) order[i];
+                if (i + 1 < size && days[(int) order[i + 1]] == days[row]) {
+                    continue;
+                }
+                sortedDays[count] = days[row];
+                sortedMaxTemperatures[count] = maxTemperatures[row];
+                sortedMinTemperatures[count] = minTemperatures[row];
+                sortedPrecipitations[count] = precipitations[row];
+                count++;
+            }
+            return new StationSeries(location, province, Arrays.copyOf(sortedDays, count),
+                    Arrays.copyOf(sortedMaxTemperatures, count), Arrays.copyOf(sortedMinTemperatures, count),
+                    Arrays.copyOf(sortedPrecipitations, count));
+        }
+    }
+}
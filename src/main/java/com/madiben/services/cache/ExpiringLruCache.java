@@ -0,0 +1,158 @@
+package com.madiben.services.cache;
+
+import com.madiben.models.dto.CacheStats;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caché acotada en tamaño y en tiempo
+ * Las entradas se guardan en un LinkedHashMap ordenado por acceso: al superar maxSize se desaloja la menos usada
+ * recientemente, y una entrada con más de ttl de antigüedad se descarta al consultarla.
+ * Cada invalidación incrementa una generación; quien lee el valor de la fuente de datos tras un fallo puede
+ * guardarlo con putIfUnchanged para no cachear un valor que se ha invalidado mientras lo leía.
+ * Todos los métodos están sincronizados sobre la propia caché
+ *
+ * @param <K> Tipo de la clave
+ * @param <V> Tipo del valor
+ */
+public class ExpiringLruCache<K, V> {
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LinkedHashMap<K, Entry<V>> entries;
+    private long generation = 0;
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+    private long expirations = 0;
+    private long invalidations = 0;
+
+    /**
+     * Constructor de ExpiringLruCache
+     *
+     * @param maxSize   Número máximo de entradas. Con 0 la caché está desactivada
+     * @param ttlMillis Tiempo máximo que se guarda una entrada. Con 0 las entradas no caducan
+     */
+    public ExpiringLruCache(int maxSize, long ttlMillis) {
+        this.maxSize = Math.max(0, maxSize);
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, ttlMillis));
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                boolean evict = size() > ExpiringLruCache.this.maxSize;
+                if (evict) {
+                    evictions++;
+                }
+                return evict;
+            }
+        };
+    }
+
+    /**
+     * Devuelve el valor de una clave si está en la caché y no ha caducado
+     *
+     * @param key Clave
+     * @return Optional del valor
+     */
+    public synchronized Optional<V> get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry != null && ttlNanos > 0 && System.nanoTime() - entry.createdAt() > ttlNanos) {
+            entries.remove(key);
+            expirations++;
+            entry = null;
+        }
+        if (entry == null) {
+            misses++;
+            return Optional.empty();
+        }
+        hits++;
+        return Optional.of(entry.value());
+    }
+
+    /**
+     * Guarda el valor de una clave
+     *
+     * @param key   Clave
+     * @param value Valor
+     */
+    public synchronized void put(K key, V value) {
+        if (maxSize > 0) {
+            entries.put(key, new Entry<>(value, System.nanoTime()));
+        }
+    }
+
+    /**
+     * Devuelve la generación actual, para usarla después con putIfUnchanged
+     *
+     * @return Generación actual
+     */
+    public synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * Guarda el valor de una clave solo si no ha habido ninguna invalidación desde la generación indicada
+     *
+     * @param key        Clave
+     * @param value      Valor leído de la fuente de datos
+     * @param generation Generación obtenida antes de leer el valor
+     * @return ¿Guardado?
+     */
+    public synchronized boolean putIfUnchanged(K key, V value, long generation) {
+        if (generation != this.generation) {
+            return false;
+        }
+        put(key, value);
+        return true;
+    }
+
+    /**
+     * Invalida el valor de una clave
+     *
+     * @param key Clave
+     */
+    public synchronized void invalidate(K key) {
+        generation++;
+        if (entries.remove(key) != null) {
+            invalidations++;
+        }
+    }
+
+    /**
+     * Invalida todos los valores
+     */
+    public synchronized void clear() {
+        generation++;
+        invalidations += entries.size();
+        entries.clear();
+    }
+
+    /**
+     * Devuelve las estadísticas de la caché
+     *
+     * @return CacheStats con el tamaño y los contadores de la caché
+     */
+    public synchronized CacheStats getStats() {
+        return CacheStats.builder()
+                .size(entries.size())
+                .maxSize(maxSize)
+                .hits(hits)
+                .misses(misses)
+                .evictions(evictions)
+                .expirations(expirations)
+                .invalidations(invalidations)
+                .build();
+    }
+
+    /**
+     * Entrada de la caché
+     *
+     * @param value     Valor
+     * @param createdAt Momento en el que se guardó (System.nanoTime)
+     * @param <V>       Tipo del valor
+     */
+    private record Entry<V>(V value, long createdAt) {
+    }
+}
@@ -0,0 +1,177 @@
+package com.madiben.services.database;
+
+import lombok.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Inserción por lotes sobre un único PreparedStatement
+ * Los registros se acumulan con addBatch y se envían con executeBatch cada batchSize registros,
+ * confirmando la transacción por cada lote. Si un lote falla, se reintenta registro a registro
+ * para aislar los registros erróneos sin perder el resto del lote.
+ * La conexión es propia del BatchInserter y se devuelve al pool al cerrarlo
+ */
+public class BatchInserter implements AutoCloseable {
+    private final Logger logger = LoggerFactory.getLogger(BatchInserter.class);
+    private final ConnectionPool pool;
+    private final Connection connection;
+    private final StatementCache statements;
+    private final PreparedStatement preparedStatement;
+    private final int batchSize;
+    private final boolean previousAutoCommit;
+    private final List<Object[]> pending = new ArrayList<>();
+    private final long startTime = System.nanoTime();
+    private long inserted = 0;
+    private long failed = 0;
+
+    /**
+     * Constructor de BatchInserter
+     *
+     * @param pool       Pool al que se devuelve la conexión al cerrar
+     * @param connection Conexión con la base de datos obtenida del pool
+     * @param statements Caché de PreparedStatement de la conexión
+     * @param insertSQL  Consulta SQL de tipo insert
+     * @param batchSize  Número de registros por lote
+     * @throws SQLException No se ha podido preparar la consulta
+     */
+    BatchInserter(@NonNull ConnectionPool pool, @NonNull Connection connection, @NonNull StatementCache statements,
+                  @NonNull String insertSQL, int batchSize) throws SQLException {
+        this.pool = pool;
+        this.connection = connection;
+        this.statements = statements;
+        this.batchSize = Math.max(1, batchSize);
+        this.previousAutoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        this.preparedStatement = statements.prepare(insertSQL, false);
+    }
+
+    /**
+     * Añade un registro al lote actual. Si el lote está completo, se envía a la base de datos
+     *
+     * @param params parámetros de la consulta parametrizada
+     * @throws SQLException No se ha podido realizar la operación
+     */
+    public void add(Object... params) throws SQLException {
+        bind(params);
+        preparedStatement.addBatch();
+        pending.add(params);
+        if (pending.size() >= batchSize) {
+            flush();
+        }
+    }
+
+    /**
+     * Envía el lote pendiente a la base de datos y confirma la transacción
+     *
+     * @throws SQLException No se ha podido realizar la operación
+     */
+    public void flush() throws SQLException {
+        if (pending.isEmpty()) {
+            return;
+        }
+        try {
+            preparedStatement.executeBatch();
+            connection.commit();
+            inserted += pending.size();
+        } catch (BatchUpdateException e) {
+            logger.warn("Error en el lote, reintentando registro a registro", e);
+            connection.rollback();
+            preparedStatement.clearBatch();
+            insertOneByOne();
+            connection.commit();
+        } finally {
+            pending.clear();
+        }
+    }
+
+    /**
+     * Inserta los registros del lote pendiente uno a uno. Cada registro se protege con un savepoint,
+     * de forma que un registro erróneo no deshace los demás
+     *
+     * @throws SQLException No se ha podido realizar la operación
+     */
+    private void insertOneByOne() throws SQLException {
+        for (Object[] params : pending) {
+            Savepoint savepoint = connection.setSavepoint();
+            try {
+                bind(params);
+                preparedStatement.executeUpdate();
+                inserted++;
+            } catch (SQLException e) {
+                connection.rollback(savepoint);
+                failed++;
+                String msg = "Registro descartado: " + Arrays.toString(params) + " - " + e.getMessage();
+                logger.error(msg);
+            }
+        }
+    }
+
+    /**
+     * Asigna los parámetros al PreparedStatement
+     *
+     * @param params parámetros de la consulta parametrizada
+     * @throws SQLException No se ha podido asignar algún parámetro
+     */
+    private void bind(Object... params) throws SQLException {
+        for (int i = 0; i < params.length; i++) {
+            preparedStatement.setObject(i + 1, params[i]);
+        }
+    }
+
+    /**
+     * Devuelve el número de registros insertados
+     *
+     * @return Número de registros insertados
+     */
+    public long getInserted() {
+        return inserted;
+    }
+
+    /**
+     * Devuelve el número de registros descartados por error
+     *
+     * @return Número de registros descartados
+     */
+    public long getFailed() {
+        return failed;
+    }
+
+    /**
+     * Devuelve el rendimiento de la inserción en registros por segundo
+     *
+     * @return Registros insertados por segundo
+     */
+    public double getRowsPerSecond() {
+        double seconds = (System.nanoTime() - startTime) / 1_000_000_000.0;
+        return seconds > 0 ? inserted / seconds : 0.0;
+    }
+
+    /**
+     * Envía el lote pendiente, devuelve el PreparedStatement a la caché, restaura el modo autocommit de la conexión
+     * y la devuelve al pool
+     *
+     * @throws SQLException No se ha podido realizar la operación
+     */
+    @Override
+    public void close() throws SQLException {
+        try {
+            flush();
+        } finally {
+            try {
+                preparedStatement.clearBatch();
+                statements.release(preparedStatement);
+                connection.setAutoCommit(previousAutoCommit);
+            } finally {
+                pool.release(connection);
+            }
+            String msg = "Inserción por lotes: " + inserted + " registros insertados, " + failed + " descartados ("
+                    + String.format("%.0f", getRowsPerSecond()) + " registros/s)";
+            logger.info(msg);
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.madiben.services.database;
+
+import com.madiben.models.dto.ConnectionPoolMetrics;
+import lombok.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool acotado de conexiones JDBC
+ * Como mucho hay maxSize conexiones prestadas a la vez; si no queda ninguna libre, el hilo espera
+ * hasta timeoutMillis a que se devuelva una. Las conexiones libres se reutilizan (la última devuelta primero)
+ * y solo se abren conexiones nuevas cuando no hay ninguna libre.
+ * Cada conexión tiene su propia caché de PreparedStatement, que se cierra junto con la conexión
+ */
+public class ConnectionPool implements AutoCloseable {
+    private final Logger logger = LoggerFactory.getLogger(ConnectionPool.class);
+    private final String connectionUrl;
+    private final String user;
+    private final String password;
+    private final int maxSize;
+    private final long timeoutMillis;
+    private final int statementCacheSize;
+    private final Semaphore permits;
+    private final BlockingDeque<Connection> idle = new LinkedBlockingDeque<>();
+    private final Map<Connection, StatementCache> statementCaches = new ConcurrentHashMap<>();
+    private final StatementCache.Counters statementCounters = new StatementCache.Counters();
+    private final AtomicInteger active = new AtomicInteger();
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private volatile boolean closed = false;
+
+    /**
+     * Constructor de ConnectionPool
+     *
+     * @param connectionUrl      URL de conexión JDBC
+     * @param user               Usuario de la base de datos
+     * @param password           Contraseña de la base de datos
+     * @param maxSize            Número máximo de conexiones abiertas
+     * @param timeoutMillis      Tiempo máximo de espera para obtener una conexión
+     * @param statementCacheSize Número máximo de PreparedStatement en caché por conexión
+     */
+    public ConnectionPool(@NonNull String connectionUrl, String user, String password, int maxSize,
+                          long timeoutMillis, int statementCacheSize) {
+        this.connectionUrl = connectionUrl;
+        this.user = user;
+        this.password = password;
+        this.maxSize = Math.max(1, maxSize);
+        this.timeoutMillis = Math.max(0, timeoutMillis);
+        this.statementCacheSize = Math.max(0, statementCacheSize);
+        this.permits = new Semaphore(this.maxSize, true);
+    }
+
+    /**
+     * Obtiene una conexión del pool, esperando si todas están prestadas
+     * La conexión se debe devolver con release
+     *
+     * @return Conexión en modo autocommit
+     * @throws SQLException No se ha podido abrir la conexión o se ha agotado el tiempo de espera
+     */
+    public Connection acquire() throws SQLException {
+        if (closed) {
+            throw new SQLException("El pool de conexiones está cerrado");
+        }
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                timeouts.increment();
+                throw new SQLException("Tiempo de espera agotado al obtener una conexión (" + timeoutMillis + " ms)");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Espera de conexión interrumpida", e);
+        }
+        long waited = System.nanoTime() - start;
+        acquisitions.increment();
+        waitNanos.add(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+        try {
+            Connection connection = idle.pollFirst();
+            while (connection != null && connection.isClosed()) {
+                discard(connection);
+                connection = idle.pollFirst();
+            }
+            if (connection == null) {
+                connection = DriverManager.getConnection(connectionUrl, user, password);
+                statementCaches.put(connection, new StatementCache(connection, statementCacheSize,
+                        statementCounters));
+                logger.debug("Nueva conexión abierta en el pool");
+            }
+            active.incrementAndGet();
+            return connection;
+        } catch (SQLException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Devuelve una conexión al pool. Si tiene una transacción abierta, se deshace
+     *
+     * @param connection Conexión obtenida con acquire
+     */
+    public void release(@NonNull Connection connection) {
+        try {
+            if (connection.isClosed()) {
+                discard(connection);
+            } else {
+                if (!connection.getAutoCommit()) {
+                    connection.rollback();
+                    connection.setAutoCommit(true);
+                }
+                if (closed) {
+                    discard(connection);
+                } else {
+                    idle.offerFirst(connection);
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("La conexión devuelta no es válida, se descarta", e);
+            discard(connection);
+        } finally {
+            active.decrementAndGet();
+            permits.release();
+        }
+    }
+
+    /**
+     * Devuelve la caché de PreparedStatement de una conexión prestada por el pool
+     *
+     * @param connection Conexión obtenida con acquire
+     * @return Caché de PreparedStatement de la conexión
+     * @throws SQLException La conexión no pertenece al pool
+     */
+    public StatementCache statements(@NonNull Connection connection) throws SQLException {
+        StatementCache cache = statementCaches.get(connection);
+        if (cache == null) {
+            throw new SQLException("La conexión no pertenece al pool");
+        }
+        return cache;
+    }
+
+    /**
+     * Devuelve el estado actual del pool
+     *
+     * @return ConnectionPoolMetrics con las conexiones activas, libres y los tiempos de espera
+     */
+    public ConnectionPoolMetrics getMetrics() {
+        return ConnectionPoolMetrics.builder()
+                .maxSize(maxSize)
+                .active(active.get())
+                .idle(idle.size())
+                .acquisitions(acquisitions.sum())
+                .timeouts(timeouts.sum())
+                .totalWaitMillis(waitNanos.sum() / 1_000_000.0)
+                .maxWaitMillis(maxWaitNanos.get() / 1_000_000.0)
+                .statementCacheHits(statementCounters.hits.sum())
+                .statementCacheMisses(statementCounters.misses.sum())
+                .statementCacheEvictions(statementCounters.evictions.sum())
+                .build();
+    }
+
+    /**
+     * Devuelve el número máximo de conexiones del pool
+     *
+     * @return Número máximo de conexiones
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Cierra las conexiones libres. Las conexiones prestadas se cierran al devolverse
+     */
+    @Override
+    public void close() {
+        closed = true;
+        Connection connection = idle.pollFirst();
+        while (connection != null) {
+            discard(connection);
+            connection = idle.pollFirst();
+        }
+    }
+
+    /**
+     * Cierra una conexión y su caché de PreparedStatement, registrando el error si no se ha podido cerrar
+     *
+     * @param connection Conexión a cerrar
+     */
+    private void discard(Connection connection) {
+        StatementCache cache = statementCaches.remove(connection);
+        if (cache != null) {
+            cache.clear();
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            logger.error("La conexión no se ha podido cerrar", e);
+        }
+    }
+}
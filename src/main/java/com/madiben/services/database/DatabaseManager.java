@@ -1,5 +1,6 @@
 package com.madiben.services.database;
 
+import com.madiben.models.dto.ConnectionPoolMetrics;
 import com.madiben.utils.ApplicationProperties;
 import io.github.cdimascio.dotenv.Dotenv;
 import lombok.NonNull;
@@ -10,25 +11,39 @@ import org.slf4j.LoggerFactory;
 import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.sql.*;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Controlador de Bases de Datos
+ * Las conexiones se obtienen de un pool acotado (db.pool.size) y cada operación abre y cierra su propio
+ * ResultSet, por lo que se puede usar desde varios hilos a la vez. Los PreparedStatement se reutilizan
+ * desde la caché LRU de cada conexión (db.statement.cache.size).
+ * Una transacción iniciada con beginTransaction queda asociada al hilo que la inicia hasta commit o rollback
  */
 public class DatabaseManager {
     private static DatabaseManager controller;
     private final Logger logger = LoggerFactory.getLogger(DatabaseManager.class);
+    private final ThreadLocal<Transaction> transaction = new ThreadLocal<>();
     private String serverUrl;
     private String databaseName;
     private String user;
     private String password;
     private String driver;
     private String initScript;
-    private Connection connection;
-    private PreparedStatement preparedStatement;
+    private int batchSize;
+    private int poolSize;
+    private long poolTimeout;
+    private int statementCacheSize;
+    private int fetchSize;
     private String connectionUrl;
+    private volatile ConnectionPool pool;
     private boolean dataInitialized = false;
 
     /**
@@ -43,7 +58,7 @@ public class DatabaseManager {
      *
      * @return instancia del controladorBD
      */
-    public static DatabaseManager getInstance() {
+    public static synchronized DatabaseManager getInstance() {
         if (controller == null) {
             controller = new DatabaseManager();
         }
@@ -59,6 +74,11 @@ public class DatabaseManager {
         databaseName = properties.readProperty("db.name", "AppDatabase");
         driver = properties.readProperty("db.driver", "org.h2.Driver");
         initScript = properties.readProperty("db.init", "false");
+        batchSize = Integer.parseInt(properties.readProperty("db.batch.size", "1000"));
+        poolSize = Integer.parseInt(properties.readProperty("db.pool.size", "8"));
+        poolTimeout = Long.parseLong(properties.readProperty("db.pool.timeout.ms", "30000"));
+        statementCacheSize = Integer.parseInt(properties.readProperty("db.statement.cache.size", "32"));
+        fetchSize = Integer.parseInt(properties.readProperty("db.fetch.size", "1000"));
         Dotenv dotenv = Dotenv.load();
         user = dotenv.get("DATABASE_USER");
         password = dotenv.get("DATABASE_PASSWORD");
@@ -67,27 +87,47 @@ public class DatabaseManager {
     }
 
     /**
-     * Abre la conexión con el servidor  de base de datos
+     * Crea el pool de conexiones con el servidor de base de datos si no está creado
      *
      * @throws SQLException Servidor no accesible por problemas de conexión o datos de acceso incorrectos
      */
     public void open() throws SQLException {
-        if (connection != null && !connection.isClosed()) {
+        if (pool != null) {
             return;
         }
-        connection = DriverManager.getConnection(connectionUrl, user, password);
-        try {
-            initData();
-        } catch (IOException e) {
-            logger.error("error inicializando la base de datos", e);
+        synchronized (this) {
+            if (pool != null) {
+                return;
+            }
+            ConnectionPool newPool = new ConnectionPool(connectionUrl, user, password, poolSize, poolTimeout,
+                    statementCacheSize);
+            Connection connection = newPool.acquire();
+            try {
+                try {
+                    initData(connection);
+                } catch (IOException e) {
+                    logger.error("error inicializando la base de datos", e);
+                }
+                new SchemaMigrator(connection).migrate();
+            } catch (SQLException | RuntimeException e) {
+                newPool.close();
+                throw e;
+            } finally {
+                newPool.release(connection);
+            }
+            String msg = "Pool de conexiones creado con " + newPool.getMaxSize() + " conexiones como máximo";
+            logger.debug(msg);
+            pool = newPool;
         }
     }
 
     /**
      * Inicializa la base de datos con los datos del fichero data.sql
-     * Solo si el properties tiene la propiedad db.init en TRUE
+     * Solo si el properties tiene la propiedad db.init en TRUE. Después se aplican las migraciones del esquema
+     *
+     * @param connection Conexión con la que se ejecuta el script
      */
-    public void initData() throws SQLException, IOException {
+    private void initData(Connection connection) throws SQLException, IOException {
         if (!dataInitialized && initScript.equalsIgnoreCase("true")) {
             String sql = new String(Objects.requireNonNull(getClass().getClassLoader()
                     .getResourceAsStream("data.sql")).readAllBytes(), StandardCharsets.UTF_8);
@@ -99,49 +139,103 @@ public class DatabaseManager {
     }
 
     /**
-     * Cierra la conexión con el servidor de base de datos
+     * Cierra el pool de conexiones con el servidor de base de datos
      */
-    public void close() {
-        try {
-            preparedStatement.close();
-            connection.close();
-        } catch (SQLException e) {
-            logger.error("La conexión no se ha podido cerrar");
+    public synchronized void close() {
+        if (pool != null) {
+            String msg = "Cerrando el pool de conexiones: " + pool.getMetrics();
+            logger.debug(msg);
+            pool.close();
+            pool = null;
         }
     }
 
     /**
-     * Realiza una consulta a la base de datos de manera "preparada" obteniendo los
-     * parámetros opcionales si son necesarios
+     * Devuelve las métricas del pool de conexiones: conexiones activas, libres y tiempos de espera
      *
-     * @param querySQL consulta SQL de tipo select
-     * @param params   parámetros de la consulta parametrizada
-     * @return ResultSet de la consulta
-     * @throws SQLException No se ha podido realizar la consulta o la tabla no existe
+     * @return ConnectionPoolMetrics del pool, o vacío si el pool no está abierto
+     */
+    public Optional<ConnectionPoolMetrics> getPoolMetrics() {
+        ConnectionPool current = pool;
+        return current == null ? Optional.empty() : Optional.of(current.getMetrics());
+    }
+
+    /**
+     * Ejecuta una operación con la conexión de la transacción del hilo actual o,
+     * si no hay ninguna, con una conexión del pool que se devuelve al terminar.
+     * La operación recibe también el pool del que se ha obtenido la conexión, que es el que tiene su caché
+     * de PreparedStatement aunque el pool se haya cerrado y vuelto a abrir mientras tanto
+     *
+     * @param operation Operación a ejecutar
+     * @return Resultado de la operación
+     * @throws SQLException No se ha podido realizar la operación
      */
-    private ResultSet executeQuery(@NonNull String querySQL, Object... params) throws SQLException {
+    private <T> T withConnection(ConnectionOperation<T> operation) throws SQLException {
+        Transaction transactional = transaction.get();
+        if (transactional != null) {
+            return operation.execute(transactional.pool(), transactional.connection());
+        }
         this.open();
-        var strParams = Arrays.toString(params);
-        String msg = "Ejecutando consulta: " + querySQL + " con parámetros: " + strParams;
-        logger.debug(msg);
-        preparedStatement = connection.prepareStatement(querySQL);
-        for (int i = 0; i < params.length; i++) {
-            preparedStatement.setObject(i + 1, params[i]);
+        ConnectionPool current = pool;
+        Connection connection = current.acquire();
+        try {
+            return operation.execute(current, connection);
+        } finally {
+            current.release(connection);
         }
-        return preparedStatement.executeQuery();
+    }
+
+    /**
+     * Ejecuta una operación con el PreparedStatement de la consulta, obtenido de la caché de la conexión
+     * y con los parámetros ya asignados. Al terminar, el PreparedStatement se devuelve a la caché
+     *
+     * @param sql          consulta SQL
+     * @param generatedKey ¿Debe devolver las claves generadas?
+     * @param operation    Operación a ejecutar
+     * @param params       parámetros de la consulta parametrizada
+     * @return Resultado de la operación
+     * @throws SQLException No se ha podido preparar o ejecutar la consulta
+     */
+    private <T> T withStatement(String sql, boolean generatedKey, StatementOperation<T> operation, Object... params)
+            throws SQLException {
+        return withConnection((current, connection) -> {
+            var strParams = Arrays.toString(params);
+            String msg = "Ejecutando consulta: " + sql + " con parámetros: " + strParams;
+            logger.debug(msg);
+            StatementCache statements = current.statements(connection);
+            PreparedStatement preparedStatement = statements.prepare(sql, generatedKey);
+            try {
+                for (int i = 0; i < params.length; i++) {
+                    preparedStatement.setObject(i + 1, params[i]);
+                }
+                return operation.execute(preparedStatement);
+            } finally {
+                statements.release(preparedStatement);
+            }
+        });
     }
 
     /**
      * Realiza una consulta select a la base de datos de manera "preparada" obteniendo los
-     * parámetros opcionales si son necesarios
+     * parámetros opcionales si son necesarios. El PreparedStatement y el ResultSet se cierran al terminar
      *
      * @param querySQL consulta SQL de tipo select
+     * @param mapper   conversor de cada fila del resultado
      * @param params   parámetros de la consulta parametrizada
-     * @return ResultSet de la consulta
+     * @return Lista con una fila convertida por cada fila del resultado
      * @throws SQLException No se ha podido realizar la consulta o la tabla no existe
      */
-    public Optional<ResultSet> select(@NonNull String querySQL, Object... params) throws SQLException {
-        return Optional.of(executeQuery(querySQL, params));
+    public <T> List<T> select(@NonNull String querySQL, @NonNull RowMapper<T> mapper, Object... params)
+            throws SQLException {
+        return withStatement(querySQL, false, preparedStatement -> {
+            List<T> list = new ArrayList<>();
+            try (var res = preparedStatement.executeQuery()) {
+                while (res.next()) {
+                    list.add(mapper.map(res));
+                }
+            }
+            return list;
+        }, params);
     }
 
     /**
@@ -149,17 +243,129 @@ public class DatabaseManager {
      * parámetros opcionales si son necesarios
      *
      * @param querySQL consulta SQL de tipo select
+     * @param mapper   conversor de cada fila del resultado
      * @param limit    número de registros de la página
      * @param offset   desplazamiento de registros o número de registros ignorados para comenzar la devolución
      * @param params   parámetros de la consulta parametrizada
-     * @return ResultSet de la consulta
+     * @return Lista con una fila convertida por cada fila del resultado
      * @throws SQLException No se ha podido realizar la consulta o la tabla no existe o el desplazamiento
      *                      es mayor que el número de registros
      */
-    public Optional<ResultSet> select(@NonNull String querySQL, int limit, int offset, Object... params)
-            throws SQLException {
+    public <T> List<T> select(@NonNull String querySQL, @NonNull RowMapper<T> mapper, int limit, int offset,
+                              Object... params) throws SQLException {
         String query = querySQL + " LIMIT " + limit + " OFFSET " + offset;
-        return Optional.of(executeQuery(query, params));
+        return select(query, mapper, params);
+    }
+
+    /**
+     * Realiza una consulta select y pasa cada fila convertida al consumidor a medida que se recorre el resultado,
+     * sin acumularlas en una lista. El cursor pide las filas al driver en bloques de db.fetch.size
+     *
+     * @param querySQL consulta SQL de tipo select
+     * @param mapper   conversor de cada fila del resultado
+     * @param action   consumidor de cada fila convertida
+     * @param params   parámetros de la consulta parametrizada
+     * @return Número de filas recorridas
+     * @throws SQLException No se ha podido realizar la consulta o la tabla no existe
+     */
+    public <T> long forEach(@NonNull String querySQL, @NonNull RowMapper<T> mapper,
+                            @NonNull Consumer<? super T> action, Object... params) throws SQLException {
+        return withStatement(querySQL, false, preparedStatement -> {
+            long rows = 0;
+            preparedStatement.setFetchSize(fetchSize);
+            try (var res = preparedStatement.executeQuery()) {
+                while (res.next()) {
+                    action.accept(mapper.map(res));
+                    rows++;
+                }
+            }
+            return rows;
+        }, params);
+    }
+
+    /**
+     * Realiza una consulta select y devuelve un Stream que convierte las filas a medida que se consume,
+     * sobre un ResultSet de solo avance que pide las filas al driver en bloques de db.fetch.size.
+     * El Stream ocupa una conexión del pool (o la de la transacción del hilo) hasta que se cierra, por lo que
+     * se debe usar en un try-with-resources. Su PreparedStatement queda prestado por la caché hasta entonces, así
+     * que otras consultas de la misma conexión no lo reutilizan ni lo cierran. Los errores al recorrer el resultado
+     * se lanzan como UncheckedSQLException
+     *
+     * @param querySQL consulta SQL de tipo select
+     * @param mapper   conversor de cada fila del resultado
+     * @param params   parámetros de la consulta parametrizada
+     * @return Stream de filas convertidas que se debe cerrar
+     * @throws SQLException No se ha podido realizar la consulta o la tabla no existe
+     */
+    public <T> Stream<T> stream(@NonNull String querySQL, @NonNull RowMapper<T> mapper, Object... params)
+            throws SQLException {
+        Transaction transactional = transaction.get();
+        if (transactional == null) {
+            this.open();
+        }
+        ConnectionPool current = transactional != null ? transactional.pool() : pool;
+        Connection connection = transactional != null ? transactional.connection() : current.acquire();
+        StatementCache statements = null;
+        PreparedStatement preparedStatement = null;
+        try {
+            var strParams = Arrays.toString(params);
+            String msg = "Abriendo cursor: " + querySQL + " con parámetros: " + strParams;
+            logger.debug(msg);
+            statements = current.statements(connection);
+            preparedStatement = statements.prepare(querySQL, false);
+            for (int i = 0; i < params.length; i++) {
+                preparedStatement.setObject(i + 1, params[i]);
+            }
+            preparedStatement.setFetchSize(fetchSize);
+            ResultCursor<T> cursor = new ResultCursor<>(preparedStatement.executeQuery(), mapper);
+            StatementCache cursorStatements = statements;
+            PreparedStatement cursorStatement = preparedStatement;
+            return StreamSupport.stream(cursor, false).onClose(() -> {
+                cursor.close();
+                cursorStatements.release(cursorStatement);
+                if (transactional == null) {
+                    current.release(connection);
+                }
+            });
+        } catch (SQLException | RuntimeException e) {
+            if (preparedStatement != null) {
+                statements.release(preparedStatement);
+            }
+            if (transactional == null) {
+                current.release(connection);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Realiza una consulta select que devuelve como mucho una fila
+     *
+     * @param querySQL consulta SQL de tipo select
+     * @param mapper   conversor de la fila del resultado
+     * @param params   parámetros de la consulta parametrizada
+     * @return Optional con la primera fila del resultado
+     * @throws SQLException No se ha podido realizar la consulta o la tabla no existe
+     */
+    public <T> Optional<T> selectOne(@NonNull String querySQL, @NonNull RowMapper<T> mapper, Object... params)
+            throws SQLException {
+        return withStatement(querySQL, false, preparedStatement -> {
+            try (var res = preparedStatement.executeQuery()) {
+                return res.next() ? Optional.of(mapper.map(res)) : Optional.<T>empty();
+            }
+        }, params);
+    }
+
+    /**
+     * Devuelve el plan de ejecución de una consulta, para comprobar qué índices utiliza
+     *
+     * @param querySQL consulta SQL
+     * @param params   parámetros de la consulta parametrizada
+     * @return Plan de ejecución devuelto por EXPLAIN
+     * @throws SQLException No se ha podido obtener el plan de la consulta
+     */
+    public String explain(@NonNull String querySQL, Object... params) throws SQLException {
+        return String.join("\n", select("EXPLAIN " + querySQL, res -> res.getString(1), params));
     }
 
     /**
@@ -167,21 +373,50 @@ public class DatabaseManager {
      * parámetros opcionales si son necesarios
      *
      * @param insertSQL consulta SQL de tipo insert
+     * @param keyMapper conversor de la clave generada
      * @param params    parámetros de la consulta parametrizada
      * @return Clave del registro insertado
      * @throws SQLException tabla no existe o no se ha podido realizar la operación
      */
-    public Optional<ResultSet> insertAndGetKey(@NonNull String insertSQL, Object... params) throws SQLException {
+    public <T> Optional<T> insertAndGetKey(@NonNull String insertSQL, @NonNull RowMapper<T> keyMapper,
+                                           Object... params) throws SQLException {
+        return withStatement(insertSQL, true, preparedStatement -> {
+            preparedStatement.executeUpdate();
+            try (var keys = preparedStatement.getGeneratedKeys()) {
+                return keys.next() ? Optional.of(keyMapper.map(keys)) : Optional.<T>empty();
+            }
+        }, params);
+    }
+
+    /**
+     * Crea un BatchInserter para insertar registros por lotes reutilizando un único PreparedStatement
+     * El BatchInserter usa una conexión propia del pool, que se devuelve al cerrarlo
+     *
+     * @param insertSQL consulta SQL de tipo insert
+     * @return BatchInserter que se deberá cerrar al terminar la inserción
+     * @throws SQLException tabla no existe o no se ha podido preparar la consulta
+     */
+    public BatchInserter batchInsert(@NonNull String insertSQL) throws SQLException {
         this.open();
-        var strParams = Arrays.toString(params);
-        String msg = "Ejecutando consulta " + insertSQL + " con parámetros: " + strParams;
+        String msg = "Iniciando inserción por lotes de " + batchSize + " registros: " + insertSQL;
         logger.debug(msg);
-        preparedStatement = connection.prepareStatement(insertSQL, Statement.RETURN_GENERATED_KEYS);
-        for (int i = 0; i < params.length; i++) {
-            preparedStatement.setObject(i + 1, params[i]);
+        ConnectionPool current = pool;
+        Connection connection = current.acquire();
+        try {
+            return new BatchInserter(current, connection, current.statements(connection), insertSQL, batchSize);
+        } catch (SQLException e) {
+            current.release(connection);
+            throw e;
         }
-        preparedStatement.executeUpdate();
-        return Optional.of(preparedStatement.getGeneratedKeys());
+    }
+
+    /**
+     * Devuelve el número de registros por lote configurado en db.batch.size
+     *
+     * @return Número de registros por lote
+     */
+    public int getBatchSize() {
+        return batchSize;
     }
 
     /**
@@ -233,15 +468,7 @@ public class DatabaseManager {
      * @throws SQLException no se ha podido realizar la operación
      */
     private int updateQuery(@NonNull String genericSQL, Object... params) throws SQLException {
-        this.open();
-        var strParams = Arrays.toString(params);
-        String msg = "Ejecutando consulta " + genericSQL + " con parámetros: " + strParams;
-        logger.debug(msg);
-        preparedStatement = connection.prepareStatement(genericSQL);
-        for (int i = 0; i < params.length; i++) {
-            preparedStatement.setObject(i + 1, params[i]);
-        }
-        return preparedStatement.executeUpdate();
+        return withStatement(genericSQL, false, PreparedStatement::executeUpdate, params);
     }
 
     /**
@@ -258,15 +485,25 @@ public class DatabaseManager {
     }
 
     /**
-     * Inicia una transacción
+     * Inicia una transacción en el hilo actual
+     * Todas las operaciones del hilo usan la misma conexión hasta commit o rollback
      *
-     * @throws SQLException No se ha podido realizar la operación
+     * @throws SQLException No se ha podido realizar la operación o ya hay una transacción abierta en el hilo
      */
     public void beginTransaction() throws SQLException {
-        if (connection == null) {
-            this.open();
+        if (transaction.get() != null) {
+            throw new SQLException("Ya hay una transacción abierta en este hilo");
+        }
+        this.open();
+        ConnectionPool current = pool;
+        Connection connection = current.acquire();
+        try {
+            connection.setAutoCommit(false);
+        } catch (SQLException e) {
+            current.release(connection);
+            throw e;
         }
-        connection.setAutoCommit(false);
+        transaction.set(new Transaction(current, connection));
     }
 
     /**
@@ -275,8 +512,12 @@ public class DatabaseManager {
      * @throws SQLException No se ha podido realizar la operación
      */
     public void commit() throws SQLException {
-        connection.commit();
-        connection.setAutoCommit(true);
+        Transaction current = currentTransaction();
+        try {
+            current.connection().commit();
+        } finally {
+            endTransaction(current);
+        }
     }
 
     /**
@@ -284,11 +525,43 @@ public class DatabaseManager {
      *
      * @throws SQLException No se ha podido realizar la operación
      */
-    private void rollback() throws SQLException {
-        connection.rollback();
-        connection.setAutoCommit(true);
+    public void rollback() throws SQLException {
+        Transaction current = currentTransaction();
+        try {
+            current.connection().rollback();
+        } finally {
+            endTransaction(current);
+        }
+    }
+
+    /**
+     * Devuelve la transacción del hilo actual
+     *
+     * @return Transacción del hilo
+     * @throws SQLException No hay ninguna transacción abierta en el hilo
+     */
+    private Transaction currentTransaction() throws SQLException {
+        Transaction current = transaction.get();
+        if (current == null) {
+            throw new SQLException("No hay ninguna transacción abierta en este hilo");
+        }
+        return current;
     }
 
+    /**
+     * Termina la transacción del hilo actual y devuelve su conexión al pool del que se obtuvo
+     *
+     * @param current Transacción del hilo
+     */
+    private void endTransaction(Transaction current) {
+        transaction.remove();
+        try {
+            current.connection().setAutoCommit(true);
+        } catch (SQLException e) {
+            logger.error("No se ha podido restaurar el modo autocommit", e);
+        }
+        current.pool().release(current.connection());
+    }
 
     /**
      * Inicializa la base de datos con los datos del fichero data.sql
@@ -301,9 +574,40 @@ public class DatabaseManager {
     public void initData(@NonNull String sqlFile, boolean logWriter) throws FileNotFoundException, SQLException {
         String msg = "Inicializando datos de fichero: " + sqlFile + " con logWriter: " + logWriter;
         logger.debug(msg);
-        this.open();
-        var sr = new ScriptRunner(connection);
         var reader = new BufferedReader(new FileReader(sqlFile));
-        sr.runScript(reader);
+        withConnection((current, connection) -> {
+            var sr = new ScriptRunner(connection);
+            sr.runScript(reader);
+            return null;
+        });
+    }
+
+    /**
+     * Operación que se ejecuta con una conexión de la base de datos y el pool del que se ha obtenido
+     *
+     * @param <T> Tipo del resultado
+     */
+    @FunctionalInterface
+    private interface ConnectionOperation<T> {
+        T execute(ConnectionPool current, Connection connection) throws SQLException;
+    }
+
+    /**
+     * Transacción abierta en un hilo: su conexión y el pool al que se debe devolver
+     *
+     * @param pool       Pool del que se ha obtenido la conexión
+     * @param connection Conexión de la transacción
+     */
+    private record Transaction(ConnectionPool pool, Connection connection) {
+    }
+
+    /**
+     * Operación que se ejecuta con un PreparedStatement con los parámetros ya asignados
+     *
+     * @param <T> Tipo del resultado
+     */
+    @FunctionalInterface
+    private interface StatementOperation<T> {
+        T execute(PreparedStatement preparedStatement) throws SQLException;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,79 @@
+package com.madiben.services.database;
+
+import com.madiben.exceptions.UncheckedSQLException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator que recorre un ResultSet de solo avance y convierte cada fila al pedirla
+ * Deja de avanzar en cuanto se cierra, aunque queden filas
+ *
+ * @param <T> Tipo del objeto de cada fila
+ */
+class ResultCursor<T> extends Spliterators.AbstractSpliterator<T> implements AutoCloseable {
+    private final Logger logger = LoggerFactory.getLogger(ResultCursor.class);
+    private final ResultSet res;
+    private final RowMapper<T> mapper;
+    private long rows = 0;
+    private boolean closed = false;
+
+    /**
+     * Constructor de ResultCursor
+     *
+     * @param res    ResultSet a recorrer
+     * @param mapper Conversor de cada fila
+     */
+    ResultCursor(ResultSet res, RowMapper<T> mapper) {
+        super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+        this.res = res;
+        this.mapper = mapper;
+    }
+
+    /**
+     * Convierte la siguiente fila y se la pasa al consumidor
+     *
+     * @param action Consumidor de la fila
+     * @return ¿Había otra fila?
+     */
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        if (closed) {
+            return false;
+        }
+        try {
+            if (!res.next()) {
+                close();
+                return false;
+            }
+            action.accept(mapper.map(res));
+            rows++;
+            return true;
+        } catch (SQLException e) {
+            throw new UncheckedSQLException(e);
+        }
+    }
+
+    /**
+     * Cierra el ResultSet
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            res.close();
+        } catch (SQLException e) {
+            logger.error("El ResultSet no se ha podido cerrar", e);
+        }
+        String msg = "Cursor cerrado tras " + rows + " filas";
+        logger.debug(msg);
+    }
+}
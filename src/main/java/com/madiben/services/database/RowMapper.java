@@ -0,0 +1,22 @@
+package com.madiben.services.database;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Convierte la fila actual de un ResultSet en un objeto
+ * El ResultSet solo es válido durante la llamada: se cierra al terminar la consulta
+ *
+ * @param <T> Tipo del objeto de la fila
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+    /**
+     * Convierte la fila actual del ResultSet
+     *
+     * @param res ResultSet posicionado en la fila
+     * @return Objeto de la fila
+     * @throws SQLException No se ha podido leer la fila
+     */
+    T map(ResultSet res) throws SQLException;
+}
@@ -0,0 +1,143 @@
+package com.madiben.services.database;
+
+import lombok.NonNull;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Aplica las migraciones del esquema de la base de datos
+ * Cada migración es un script de db/migration con el nombre V{versión}__{descripción}.sql.
+ * Las versiones aplicadas se guardan en la tabla SchemaVersion, por lo que cada script se ejecuta una sola vez
+ * y una base de datos existente se actualiza aplicando solo los scripts que le faltan
+ */
+public class SchemaMigrator {
+    private static final String MIGRATIONS_PATH = "db/migration/";
+    private static final List<String> MIGRATIONS = List.of(
+            "V1__create_meteorology_data.sql",
+            "V2__meteorology_data_indexes.sql",
+            "V3__ingested_file.sql",
+            "V4__meteorology_data_location_index.sql",
+            "V5__province_month_sketch.sql",
+            "V6__ingested_file_last_modified.sql");
+    private final Logger logger = LoggerFactory.getLogger(SchemaMigrator.class);
+    private final Connection connection;
+
+    /**
+     * Constructor de SchemaMigrator
+     *
+     * @param connection Conexión con la que se aplican las migraciones
+     */
+    public SchemaMigrator(@NonNull Connection connection) {
+        this.connection = connection;
+    }
+
+    /**
+     * Aplica en orden las migraciones que aún no se han aplicado
+     *
+     * @return Número de migraciones aplicadas
+     * @throws SQLException No se ha podido aplicar alguna migración
+     */
+    public int migrate() throws SQLException {
+        createVersionTable();
+        int current = currentVersion();
+        int applied = 0;
+        for (String script : MIGRATIONS) {
+            int version = versionOf(script);
+            if (version > current) {
+                apply(version, script);
+                applied++;
+            }
+        }
+        String msg = "Esquema de la base de datos en la versión " + Math.max(current, latestVersion())
+                + " (" + applied + " migraciones aplicadas)";
+        logger.debug(msg);
+        return applied;
+    }
+
+    /**
+     * Devuelve la última versión del esquema disponible
+     *
+     * @return Versión de la última migración
+     */
+    public static int latestVersion() {
+        return versionOf(MIGRATIONS.get(MIGRATIONS.size() - 1));
+    }
+
+    /**
+     * Crea la tabla SchemaVersion si no existe
+     *
+     * @throws SQLException No se ha podido crear la tabla
+     */
+    private void createVersionTable() throws SQLException {
+        try (var statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS SchemaVersion (Version INT NOT NULL PRIMARY KEY, " +
+                    "Script VARCHAR(255) NOT NULL, AppliedOn TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+        }
+    }
+
+    /**
+     * Devuelve la versión actual del esquema
+     *
+     * @return Versión de la última migración aplicada, o 0 si no se ha aplicado ninguna
+     * @throws SQLException No se ha podido consultar la tabla SchemaVersion
+     */
+    private int currentVersion() throws SQLException {
+        try (var statement = connection.createStatement();
+             var res = statement.executeQuery("SELECT COALESCE(MAX(Version), 0) FROM SchemaVersion")) {
+            return res.next() ? res.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * Ejecuta el script de una migración y registra su versión
+     *
+     * @param version Versión de la migración
+     * @param script  Nombre del script
+     * @throws SQLException No se ha podido aplicar la migración
+     */
+    private void apply(int version, String script) throws SQLException {
+        String msg = "Aplicando migración " + script;
+        logger.info(msg);
+        InputStream input = getClass().getClassLoader().getResourceAsStream(MIGRATIONS_PATH + script);
+        if (input == null) {
+            throw new SQLException("No se ha encontrado la migración " + script);
+        }
+        boolean previousAutoCommit = connection.getAutoCommit();
+        try (Reader reader = new InputStreamReader(input, StandardCharsets.UTF_8)) {
+            var sr = new ScriptRunner(connection);
+            sr.setLogWriter(null);
+            sr.setStopOnError(true);
+            sr.setAutoCommit(true);
+            sr.runScript(reader);
+        } catch (Exception e) {
+            throw new SQLException("Error al aplicar la migración " + script, e);
+        } finally {
+            connection.setAutoCommit(previousAutoCommit);
+        }
+        try (var preparedStatement = connection.prepareStatement(
+                "INSERT INTO SchemaVersion (Version, Script) VALUES (?, ?)")) {
+            preparedStatement.setInt(1, version);
+            preparedStatement.setString(2, script);
+            preparedStatement.executeUpdate();
+        }
+    }
+
+    /**
+     * Devuelve la versión de un script de migración a partir de su nombre
+     *
+     * @param script Nombre del script (V{versión}__{descripción}.sql)
+     * @return Versión del script
+     */
+    private static int versionOf(String script) {
+        return Integer.parseInt(script.substring(1, script.indexOf("__")));
+    }
+}
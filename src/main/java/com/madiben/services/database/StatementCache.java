@@ -0,0 +1,148 @@
+package com.madiben.services.database;
+
+import lombok.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caché LRU de PreparedStatement de una conexión, indexada por la consulta SQL
+ * Una conexión solo la usa un hilo a la vez, por lo que la caché no necesita sincronización;
+ * los contadores sí son compartidos entre las cachés de todas las conexiones del pool.
+ * Los PreparedStatement de la caché no se cierran al terminar cada operación sino al salir de la caché.
+ * Cada PreparedStatement entregado por prepare queda prestado hasta release: mientras tanto no se vuelve a entregar
+ * (otra consulta con el mismo SQL en la misma conexión, como un cursor abierto en una transacción, recibe uno nuevo
+ * fuera de la caché) ni se cierra al expulsarlo de la caché, sino al devolverlo
+ */
+public class StatementCache {
+    private final Logger logger = LoggerFactory.getLogger(StatementCache.class);
+    private final Connection connection;
+    private final int capacity;
+    private final Counters counters;
+    private final Map<String, PreparedStatement> statements;
+    private final Map<PreparedStatement, String> inUse = new IdentityHashMap<>();
+
+    /**
+     * Constructor de StatementCache
+     *
+     * @param connection Conexión de los PreparedStatement
+     * @param capacity   Número máximo de PreparedStatement en caché. Con 0 no se guarda ninguno
+     * @param counters   Contadores de aciertos, fallos y expulsiones
+     */
+    StatementCache(@NonNull Connection connection, int capacity, @NonNull Counters counters) {
+        this.connection = connection;
+        this.capacity = Math.max(0, capacity);
+        this.counters = counters;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() > StatementCache.this.capacity) {
+                    counters.evictions.increment();
+                    if (!inUse.containsKey(eldest.getValue())) {
+                        closeQuietly(eldest.getValue());
+                    }
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Devuelve el PreparedStatement de la consulta, preparándolo si no está en caché o si el de la caché está
+     * prestado. Se debe devolver con release al terminar de usarlo
+     *
+     * @param sql          consulta SQL
+     * @param generatedKey ¿Debe devolver las claves generadas?
+     * @return PreparedStatement de la consulta
+     * @throws SQLException No se ha podido preparar la consulta
+     */
+    public PreparedStatement prepare(@NonNull String sql, boolean generatedKey) throws SQLException {
+        String key = (generatedKey ? "K:" : "N:") + sql;
+        PreparedStatement cached = statements.get(key);
+        boolean cachedInUse = cached != null && inUse.containsKey(cached);
+        if (cached != null && !cachedInUse && !cached.isClosed()) {
+            counters.hits.increment();
+            inUse.put(cached, key);
+            return cached;
+        }
+        counters.misses.increment();
+        PreparedStatement preparedStatement = connection.prepareStatement(sql,
+                generatedKey ? Statement.RETURN_GENERATED_KEYS : Statement.NO_GENERATED_KEYS);
+        if (capacity > 0 && !cachedInUse) {
+            statements.put(key, preparedStatement);
+        }
+        inUse.put(preparedStatement, key);
+        return preparedStatement;
+    }
+
+    /**
+     * Devuelve un PreparedStatement obtenido con prepare. Si está en caché se limpian sus parámetros
+     * para la próxima vez; si no (caché desactivada, entregado porque el de la caché estaba prestado o expulsado
+     * mientras estaba prestado), se cierra
+     *
+     * @param preparedStatement PreparedStatement a devolver
+     */
+    public void release(@NonNull PreparedStatement preparedStatement) {
+        String key = inUse.remove(preparedStatement);
+        try {
+            if (key == null || statements.get(key) != preparedStatement) {
+                preparedStatement.close();
+            } else if (!preparedStatement.isClosed()) {
+                preparedStatement.clearParameters();
+            }
+        } catch (SQLException e) {
+            logger.error("El PreparedStatement no se ha podido liberar", e);
+            closeQuietly(preparedStatement);
+        }
+    }
+
+    /**
+     * Cierra todos los PreparedStatement de la caché y los prestados
+     */
+    public void clear() {
+        statements.values().forEach(this::closeQuietly);
+        statements.clear();
+        inUse.keySet().forEach(this::closeQuietly);
+        inUse.clear();
+    }
+
+    /**
+     * Devuelve el número de PreparedStatement en caché
+     *
+     * @return Número de PreparedStatement en caché
+     */
+    int size() {
+        return statements.size();
+    }
+
+    /**
+     * Cierra un PreparedStatement registrando el error si no se ha podido cerrar
+     *
+     * @param preparedStatement PreparedStatement a cerrar
+     */
+    private void closeQuietly(PreparedStatement preparedStatement) {
+        try {
+            preparedStatement.close();
+        } catch (SQLException e) {
+            logger.error("El PreparedStatement no se ha podido cerrar", e);
+        }
+    }
+
+    /**
+     * Contadores de aciertos, fallos y expulsiones compartidos por las cachés de un pool
+     */
+    static class Counters {
+        final LongAdder hits = new LongAdder();
+        final LongAdder misses = new LongAdder();
+        final LongAdder evictions = new LongAdder();
+    }
+}
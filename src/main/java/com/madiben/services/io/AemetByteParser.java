@@ -0,0 +1,361 @@
+package com.madiben.services.io;
+
+import com.madiben.models.MeteorologyData;
+import com.madiben.utils.UtilParsers;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Parser de los CSV de AEMET que trabaja directamente sobre los bytes en Windows-1252
+ * Recorre el buffer una sola vez buscando los separadores, parsea los números y las horas sin crear
+ * Strings intermedios y reutiliza los nombres de localidad y provincia ya vistos.
+ * No es thread-safe: cada hilo debe usar su propia instancia
+ */
+public class AemetByteParser {
+    private static final Charset WINDOWS_1252 = Charset.forName("windows-1252");
+    private static final float[] POW10 = {1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f};
+    private static final int MAX_FAST_DIGITS = 7;
+    private static final LocalTime[] TIMES = new LocalTime[24 * 60];
+
+    static {
+        for (int i = 0; i < TIMES.length; i++) {
+            TIMES[i] = LocalTime.of(i / 60, i % 60);
+        }
+    }
+
+    private final NameTable names = new NameTable();
+    private int pos;
+
+    /**
+     * Parsea todas las líneas del buffer, desde su posición hasta su límite
+     *
+     * @param buffer Buffer con los bytes del CSV
+     * @param date   Fecha de los datos (obtenida del nombre del archivo)
+     * @return Lista de MeteorologyData
+     */
+    public List<MeteorologyData> parse(ByteBuffer buffer, LocalDate date) {
+        List<MeteorologyData> list = new ArrayList<>();
+        parse(buffer, date, list::add);
+        return list;
+    }
+
+    /**
+     * Parsea todas las líneas del buffer, desde su posición hasta su límite, y se las pasa al consumidor
+     *
+     * @param buffer Buffer con los bytes del CSV
+     * @param date   Fecha de los datos (obtenida del nombre del archivo)
+     * @param sink   Consumidor de cada MeteorologyData
+     */
+    public void parse(ByteBuffer buffer, LocalDate date, Consumer<MeteorologyData> sink) {
+        pos = buffer.position();
+        int limit = buffer.limit();
+        while (pos < limit) {
+            sink.accept(parseLine(buffer, limit, date));
+        }
+    }
+
+    /**
+     * Parsea la línea que empieza en la posición actual y avanza hasta el inicio de la siguiente
+     *
+     * @param buf   Buffer con los bytes del CSV
+     * @param limit Límite del buffer
+     * @param date  Fecha de los datos
+     * @return MeteorologyData de la línea
+     */
+    private MeteorologyData parseLine(ByteBuffer buf, int limit, LocalDate date) {
+        int lineStart = pos;
+        int end = nextField(buf, limit, lineStart);
+        String location = names.intern(buf, pos, end);
+        pos = end + 1;
+        end = nextField(buf, limit, lineStart);
+        String province = names.intern(buf, pos, end);
+        pos = end + 1;
+        end = nextField(buf, limit, lineStart);
+        float maxTemperature = parseFloat(buf, pos, end);
+        pos = end + 1;
+        end = nextField(buf, limit, lineStart);
+        LocalTime maxTemperatureTime = parseTime(buf, pos, end);
+        pos = end + 1;
+        end = nextField(buf, limit, lineStart);
+        float minTemperature = parseFloat(buf, pos, end);
+        pos = end + 1;
+        end = nextField(buf, limit, lineStart);
+        LocalTime minTemperatureTime = parseTime(buf, pos, end);
+        pos = end + 1;
+        end = lastFieldEnd(buf, limit);
+        float precipitation = parseFloat(buf, pos, end);
+        pos = skipLine(buf, limit, end);
+        return MeteorologyData.builder()
+                .date(date)
+                .location(location)
+                .province(province)
+                .maxTemperature(maxTemperature)
+                .maxTemperatureTime(maxTemperatureTime)
+                .minTemperature(minTemperature)
+                .minTemperatureTime(minTemperatureTime)
+                .precipitation(precipitation)
+                .build();
+    }
+
+    /**
+     * Devuelve la posición del ';' que cierra el campo actual
+     *
+     * @param buf       Buffer con los bytes del CSV
+     * @param limit     Límite del buffer
+     * @param lineStart Inicio de la línea, para el mensaje de error
+     * @return Posición del separador
+     */
+    private int nextField(ByteBuffer buf, int limit, int lineStart) {
+        for (int i = pos; i < limit; i++) {
+            byte b = buf.get(i);
+            if (b == ';') {
+                return i;
+            }
+            if (b == '\n') {
+                throw malformedLine(buf, lineStart, i);
+            }
+        }
+        throw malformedLine(buf, lineStart, limit);
+    }
+
+    /**
+     * Devuelve la posición donde termina el último campo: ';', salto de línea o fin del buffer
+     *
+     * @param buf   Buffer con los bytes del CSV
+     * @param limit Límite del buffer
+     * @return Posición del final del campo
+     */
+    private int lastFieldEnd(ByteBuffer buf, int limit) {
+        for (int i = pos; i < limit; i++) {
+            byte b = buf.get(i);
+            if (b == ';' || b == '\n') {
+                return i;
+            }
+        }
+        return limit;
+    }
+
+    /**
+     * Devuelve la posición siguiente al salto de línea, ignorando los campos sobrantes
+     *
+     * @param buf   Buffer con los bytes del CSV
+     * @param limit Límite del buffer
+     * @param from  Posición desde la que buscar
+     * @return Inicio de la siguiente línea
+     */
+    private int skipLine(ByteBuffer buf, int limit, int from) {
+        for (int i = from; i < limit; i++) {
+            if (buf.get(i) == '\n') {
+                return i + 1;
+            }
+        }
+        return limit;
+    }
+
+    /**
+     * Parsea un float en formato decimal simple ("-12.5", "18.3 "). Con hasta 7 dígitos el número y la
+     * potencia de 10 son exactos en float, por lo que la división da el mismo resultado que
+     * Float.parseFloat. Cualquier otro formato se delega en Float.parseFloat
+     *
+     * @param buf   Buffer con los bytes del CSV
+     * @param start Inicio del campo
+     * @param end   Fin del campo (exclusivo)
+     * @return Valor del campo
+     */
+    private float parseFloat(ByteBuffer buf, int start, int end) {
+        int from = start;
+        int to = end;
+        while (from < to && buf.get(from) <= ' ') {
+            from++;
+        }
+        while (to > from && buf.get(to - 1) <= ' ') {
+            to--;
+        }
+        int i = from;
+        boolean negative = false;
+        if (i < to && (buf.get(i) == '-' || buf.get(i) == '+')) {
+            negative = buf.get(i) == '-';
+            i++;
+        }
+        int mantissa = 0;
+        int digits = 0;
+        int decimals = -1;
+        for (; i < to; i++) {
+            byte b = buf.get(i);
+            if (b >= '0' && b <= '9') {
+                if (++digits > MAX_FAST_DIGITS) {
+                    return Float.parseFloat(asString(buf, start, end));
+                }
+                mantissa = mantissa * 10 + (b - '0');
+                if (decimals >= 0) {
+                    decimals++;
+                }
+            } else if (b == '.' && decimals < 0) {
+                decimals = 0;
+            } else {
+                return Float.parseFloat(asString(buf, start, end));
+            }
+        }
+        if (digits == 0) {
+            return Float.parseFloat(asString(buf, start, end));
+        }
+        float value = decimals > 0 ? mantissa / POW10[decimals] : mantissa;
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parsea una hora en formato H:mm. Cualquier otro formato se delega en UtilParsers.parseLocalTime
+     *
+     * @param buf   Buffer con los bytes del CSV
+     * @param start Inicio del campo
+     * @param end   Fin del campo (exclusivo)
+     * @return Hora del campo
+     */
+    private LocalTime parseTime(ByteBuffer buf, int start, int end) {
+        int length = end - start;
+        if ((length == 4 || length == 5) && buf.get(end - 3) == ':') {
+            int hour = digit(buf, start);
+            if (length == 5) {
+                hour = hour * 10 + digit(buf, start + 1);
+            }
+            int minute = digit(buf, end - 2) * 10 + digit(buf, end - 1);
+            if (hour >= 0 && hour < 24 && minute >= 0 && minute < 60) {
+                return TIMES[hour * 60 + minute];
+            }
+        }
+        return UtilParsers.parseLocalTime(asString(buf, start, end));
+    }
+
+    /**
+     * Devuelve el valor de un dígito ASCII, o un valor negativo si no es un dígito
+     *
+     * @param buf   Buffer con los bytes del CSV
+     * @param index Posición del dígito
+     * @return Valor del dígito
+     */
+    private int digit(ByteBuffer buf, int index) {
+        int d = buf.get(index) - '0';
+        return d >= 0 && d <= 9 ? d : -100;
+    }
+
+    /**
+     * Crea un String con los bytes de un campo. Solo se usa en los casos poco frecuentes
+     *
+     * @param buf   Buffer con los bytes del CSV
+     * @param start Inicio del campo
+     * @param end   Fin del campo (exclusivo)
+     * @return String del campo
+     */
+    private static String asString(ByteBuffer buf, int start, int end) {
+        byte[] bytes = new byte[end - start];
+        buf.get(start, bytes);
+        return new String(bytes, WINDOWS_1252);
+    }
+
+    /**
+     * Crea la excepción de línea mal formada
+     *
+     * @param buf   Buffer con los bytes del CSV
+     * @param start Inicio de la línea
+     * @param end   Fin de la línea
+     * @return Excepción con el contenido de la línea
+     */
+    private static IllegalArgumentException malformedLine(ByteBuffer buf, int start, int end) {
+        return new IllegalArgumentException("Línea mal formada: " + asString(buf, start, end)
+                .replace("\r", "").replace("\n", ""));
+    }
+
+    /**
+     * Tabla hash de direccionamiento abierto que asocia los bytes de un nombre con su String,
+     * para decodificar cada localidad y provincia una sola vez
+     */
+    private static final class NameTable {
+        private byte[][] keys = new byte[1024][];
+        private String[] values = new String[1024];
+        private int size;
+
+        /**
+         * Devuelve el String de los bytes indicados, decodificándolo solo la primera vez
+         *
+         * @param buf   Buffer con los bytes del CSV
+         * @param start Inicio del nombre
+         * @param end   Fin del nombre (exclusivo)
+         * @return Nombre decodificado
+         */
+        String intern(ByteBuffer buf, int start, int end) {
+            int hash = 1;
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + buf.get(i);
+            }
+            int mask = keys.length - 1;
+            int slot = (hash ^ (hash >>> 16)) & mask;
+            while (keys[slot] != null) {
+                if (matches(keys[slot], buf, start, end)) {
+                    return values[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            byte[] key = new byte[end - start];
+            buf.get(start, key);
+            String value = new String(key, WINDOWS_1252);
+            keys[slot] = key;
+            values[slot] = value;
+            if (++size * 2 > keys.length) {
+                resize();
+            }
+            return value;
+        }
+
+        /**
+         * Compara una clave con los bytes del buffer
+         *
+         * @param key   Clave guardada
+         * @param buf   Buffer con los bytes del CSV
+         * @param start Inicio del nombre
+         * @param end   Fin del nombre (exclusivo)
+         * @return ¿Iguales?
+         */
+        private boolean matches(byte[] key, ByteBuffer buf, int start, int end) {
+            if (key.length != end - start) {
+                return false;
+            }
+            for (int i = 0; i < key.length; i++) {
+                if (key[i] != buf.get(start + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Duplica el tamaño de la tabla
+         */
+        private void resize() {
+            byte[][] oldKeys = keys;
+            String[] oldValues = values;
+            keys = new byte[oldKeys.length * 2][];
+            values = new String[oldValues.length * 2];
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != null) {
+                    int hash = 1;
+                    for (byte b : oldKeys[i]) {
+                        hash = 31 * hash + b;
+                    }
+                    int slot = (hash ^ (hash >>> 16)) & mask;
+                    while (keys[slot] != null) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+    }
+}
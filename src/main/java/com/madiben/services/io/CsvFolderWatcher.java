@@ -0,0 +1,294 @@
+package com.madiben.services.io;
+
+import com.madiben.exceptions.ReadCSVFailException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Clase CsvFolderWatcher que vigila la carpeta de los archivos CSV con un WatchService
+ * y pasa al procesador los archivos nuevos o modificados.
+ * Un archivo solo se procesa cuando lleva debounceMillis sin eventos y su tamaño no ha cambiado,
+ * para no leer archivos a medio escribir. Los archivos listos esperan en una cola acotada que atiende
+ * un único hilo; si la cola está llena, el archivo sigue pendiente y se vuelve a intentar más tarde.
+ * El hilo que procesa los archivos no se interrumpe al cerrar: espera en la cola con un tiempo máximo y comprueba
+ * si debe seguir, así un archivo nunca se deja a medio procesar
+ */
+public class CsvFolderWatcher implements AutoCloseable {
+    private static final String CSV_EXTENSION = ".csv";
+    private static final long QUEUE_POLL_MILLIS = 200;
+    private static final long CLOSE_TIMEOUT_MILLIS = 60_000;
+    private final Logger logger = LoggerFactory.getLogger(CsvFolderWatcher.class);
+    private final Path folder;
+    private final long debounceMillis;
+    private final BlockingQueue<Path> queue;
+    private final Set<Path> queued = ConcurrentHashMap.newKeySet();
+    private final Map<Path, PendingFile> pending = new HashMap<>();
+    private final FileHandler handler;
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private WatchService watchService;
+    private Thread watcherThread;
+    private Thread workerThread;
+    private volatile boolean running = false;
+
+    /**
+     * Constructor de CsvFolderWatcher
+     *
+     * @param folder         Carpeta de los archivos CSV
+     * @param debounceMillis Tiempo sin cambios que debe pasar para considerar que un archivo está completo
+     * @param queueCapacity  Número máximo de archivos en espera de ser procesados
+     * @param handler        Procesador de cada archivo nuevo o modificado
+     */
+    public CsvFolderWatcher(Path folder, long debounceMillis, int queueCapacity, FileHandler handler) {
+        this.folder = folder;
+        this.debounceMillis = Math.max(0, debounceMillis);
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.handler = handler;
+    }
+
+    /**
+     * Empieza a vigilar la carpeta en segundo plano
+     *
+     * @throws IOException No se ha podido vigilar la carpeta
+     */
+    public synchronized void start() throws IOException {
+        if (running) {
+            return;
+        }
+        watchService = folder.getFileSystem().newWatchService();
+        folder.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        running = true;
+        watcherThread = new Thread(this::watch, "csv-watcher");
+        workerThread = new Thread(this::work, "csv-watcher-worker");
+        watcherThread.start();
+        workerThread.start();
+        String msg = "Vigilando la carpeta " + folder + " (espera de " + debounceMillis + " ms)";
+        logger.info(msg);
+    }
+
+    /**
+     * Espera a que se deje de vigilar la carpeta
+     *
+     * @throws InterruptedException Se ha interrumpido la espera
+     */
+    public void awaitTermination() throws InterruptedException {
+        Thread watcher = watcherThread;
+        Thread worker = workerThread;
+        if (watcher != null) {
+            watcher.join();
+        }
+        if (worker != null) {
+            worker.join();
+        }
+    }
+
+    /**
+     * Deja de vigilar la carpeta. El archivo que se esté procesando termina de procesarse: se espera hasta
+     * CLOSE_TIMEOUT_MILLIS a que lo haga, y los archivos que aún estaban en la cola no se procesan
+     */
+    @Override
+    public synchronized void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            logger.error("Error al cerrar el WatchService", e);
+        }
+        watcherThread.interrupt();
+        try {
+            workerThread.join(CLOSE_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (workerThread.isAlive()) {
+            String msg = "El archivo en proceso no ha terminado en " + CLOSE_TIMEOUT_MILLIS + " ms";
+            logger.warn(msg);
+        }
+        queue.clear();
+        queued.clear();
+        String msg = "Carpeta " + folder + " sin vigilar: " + processed.get() + " archivos procesados, "
+                + failed.get() + " con errores";
+        logger.info(msg);
+    }
+
+    /**
+     * Devuelve el número de archivos procesados
+     *
+     * @return Número de archivos procesados
+     */
+    public long getProcessed() {
+        return processed.get();
+    }
+
+    /**
+     * Devuelve el número de archivos cuyo procesamiento ha fallado
+     *
+     * @return Número de archivos con errores
+     */
+    public long getFailed() {
+        return failed.get();
+    }
+
+    /**
+     * Bucle del hilo que recibe los eventos de la carpeta y encola los archivos que ya están completos
+     */
+    private void watch() {
+        long pollMillis = Math.max(50, debounceMillis / 2);
+        try {
+            while (running) {
+                WatchKey key = watchService.poll(pollMillis, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            logger.warn("Se han perdido eventos de la carpeta, se revisan todos los archivos");
+                            touchAll();
+                        } else if (event.context() instanceof Path fileName) {
+                            touch(folder.resolve(fileName));
+                        }
+                    }
+                    key.reset();
+                }
+                enqueueSettled();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            logger.debug("WatchService cerrado");
+        }
+    }
+
+    /**
+     * Bucle del hilo que procesa los archivos de la cola de uno en uno. Espera cada archivo como mucho
+     * QUEUE_POLL_MILLIS para comprobar si debe seguir, en lugar de que close lo interrumpa
+     */
+    private void work() {
+        try {
+            while (running) {
+                Path file = queue.poll(QUEUE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (file == null || !running) {
+                    continue;
+                }
+                queued.remove(file);
+                long start = System.nanoTime();
+                try {
+                    handler.handle(file);
+                    processed.incrementAndGet();
+                    String msg = "Archivo " + file.getFileName() + " procesado en "
+                            + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms";
+                    logger.info(msg);
+                } catch (Exception e) {
+                    failed.incrementAndGet();
+                    String msg = "Error al procesar el archivo " + file.getFileName();
+                    logger.error(msg, e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Registra un evento de un archivo CSV, reiniciando su espera
+     *
+     * @param file Archivo del evento
+     */
+    private void touch(Path file) {
+        if (file.getFileName().toString().toLowerCase().endsWith(CSV_EXTENSION)) {
+            pending.put(file, new PendingFile(System.currentTimeMillis(), sizeOf(file)));
+        }
+    }
+
+    /**
+     * Registra un evento de todos los archivos CSV de la carpeta
+     */
+    private void touchAll() {
+        try (Stream<Path> files = Files.list(folder)) {
+            files.filter(Files::isRegularFile).forEach(this::touch);
+        } catch (IOException e) {
+            logger.error("No se ha podido listar la carpeta", e);
+        }
+    }
+
+    /**
+     * Encola los archivos pendientes que llevan debounceMillis sin eventos y sin cambiar de tamaño.
+     * Si un archivo ha cambiado de tamaño, su espera se reinicia; si la cola está llena, sigue pendiente
+     */
+    private void enqueueSettled() {
+        long now = System.currentTimeMillis();
+        Iterator<Map.Entry<Path, PendingFile>> iterator = pending.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Path, PendingFile> entry = iterator.next();
+            Path file = entry.getKey();
+            if (now - entry.getValue().lastEvent() < debounceMillis) {
+                continue;
+            }
+            long size = sizeOf(file);
+            if (size < 0) {
+                iterator.remove();
+            } else if (size != entry.getValue().size()) {
+                entry.setValue(new PendingFile(now, size));
+            } else if (!queued.add(file)) {
+                iterator.remove();
+            } else if (queue.offer(file)) {
+                iterator.remove();
+            } else {
+                queued.remove(file);
+            }
+        }
+    }
+
+    /**
+     * Devuelve el tamaño de un archivo
+     *
+     * @param file Archivo
+     * @return Tamaño del archivo, o -1 si ya no existe
+     */
+    private long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Procesador de los archivos nuevos o modificados
+     */
+    @FunctionalInterface
+    public interface FileHandler {
+        /**
+         * Procesa un archivo
+         *
+         * @param file Archivo nuevo o modificado
+         * @throws ReadCSVFailException No se ha podido leer el archivo
+         * @throws SQLException         No se han podido guardar sus datos
+         */
+        void handle(Path file) throws ReadCSVFailException, SQLException;
+    }
+
+    /**
+     * Archivo pendiente de estar completo
+     *
+     * @param lastEvent Momento del último evento del archivo
+     * @param size      Tamaño del archivo en el último evento
+     */
+    private record PendingFile(long lastEvent, long size) {
+    }
+}
@@ -2,16 +2,25 @@ package com.madiben.services.io;
 
 import com.madiben.exceptions.ReadCSVFailException;
 import com.madiben.models.MeteorologyData;
+import com.madiben.utils.ApplicationProperties;
 import com.madiben.utils.UtilParsers;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.*;
-import java.nio.charset.StandardCharsets;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDate;
-import java.util.ArrayList;
-import java.util.List;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Clase CsvManager que administra la exportación e importación de datos CSV
@@ -19,12 +28,17 @@ import java.util.List;
 public class CsvManager {
 
     private static CsvManager csvManagerInstance;
+    private final Logger logger = LoggerFactory.getLogger(CsvManager.class);
+    private final ThreadLocal<AemetByteParser> byteParser = ThreadLocal.withInitial(AemetByteParser::new);
+    private final long mappedWindowSize;
 
     /**
      * Constructor privado para evitar la creación de instancia
      * SINGLETON
      */
     private CsvManager() {
+        mappedWindowSize = Long.parseLong(ApplicationProperties.getInstance()
+                .readProperty("csv.mmap.window.mb", "512")) * 1024 * 1024;
     }
 
     /**
@@ -49,18 +63,50 @@ public class CsvManager {
      * @return Lista de MeteorologyData con todos los datos de los diferentes archivos
      */
     public List<MeteorologyData> folderDataToMeteorologyList(String path) throws ReadCSVFailException {
-        List<MeteorologyData> totalData = new ArrayList<>();
+        try (Stream<MeteorologyData> stream = folderDataToMeteorologyStream(path)) {
+            return stream.toList();
+        } catch (UncheckedIOException e) {
+            throw new ReadCSVFailException(e.getMessage());
+        }
+    }
+
+    /**
+     * Dado una path donde se ubica la carpeta de los archivos CSV de meteorología,
+     * devuelve un Stream perezoso de MeteorologyData con los datos de los diferentes archivos.
+     * Los archivos se abren de uno en uno y las líneas se leen a medida que el consumidor las pide,
+     * por lo que la memoria utilizada no depende del tamaño de la carpeta.
+     * Si un archivo no se puede leer o tiene una línea no válida, se registra el error y se pasa al siguiente
+     * archivo; las líneas anteriores del archivo ya se han entregado.
+     * El Stream se debe cerrar para liberar el archivo abierto (try-with-resources)
+     *
+     * @param path Ruta de la carpeta donde están los archivos de meteorología
+     * @return Stream de MeteorologyData
+     * @throws ReadCSVFailException No se ha podido leer la carpeta
+     */
+    public Stream<MeteorologyData> folderDataToMeteorologyStream(String path) throws ReadCSVFailException {
+        FolderSpliterator spliterator = new FolderSpliterator(folderFiles(path));
+        return StreamSupport.stream(spliterator, false).onClose(spliterator::close);
+    }
+
+    /**
+     * Devuelve los archivos de la carpeta de los archivos CSV de meteorología
+     *
+     * @param path Ruta de la carpeta donde están los archivos de meteorología
+     * @return Lista de rutas de los archivos
+     * @throws ReadCSVFailException No se ha podido leer la carpeta
+     */
+    public List<Path> folderFiles(String path) throws ReadCSVFailException {
+        List<Path> files = new ArrayList<>();
         try (DirectoryStream<Path> directoryStream = java.nio.file.Files.newDirectoryStream(Paths.get(path))) {
             for (Path filePath : directoryStream) {
                 if (java.nio.file.Files.isRegularFile(filePath)) {
-                    String fileName = filePath.getFileName().toString();
-                    totalData.addAll(fileToMeteorologyDataList(path, fileName));
+                    files.add(filePath);
                 }
             }
         } catch (IOException e) {
             throw new ReadCSVFailException(e.getMessage());
         }
-        return totalData;
+        return files;
     }
 
     /**
@@ -69,42 +115,322 @@ public class CsvManager {
      *
      * @param path     Ruta de la carpeta donde está el archivo de meteorología
      * @param fileName Nombre del archivo de meteorología
+     * @throws ReadCSVFailException No se ha podido leer el archivo o tiene una línea no válida
      */
     public List<MeteorologyData> fileToMeteorologyDataList(String path, String fileName) throws ReadCSVFailException {
-        LocalDate date = UtilParsers.getInstance().parseFileNameToDate(fileName);
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream
-                (path + File.separator + fileName), "Windows-1252"))) {
+        LocalDate date = fileNameToDate(fileName);
+        try (BufferedReader reader = openReader(Paths.get(path, fileName))) {
             return reader.lines()
-                    .map(line -> line.split(";"))
-                    .map(values -> MeteorologyData.builder()
-                            .date(date)
-                            .location(decodeWindows1252ToUTF8(values[0]))
-                            .province(decodeWindows1252ToUTF8(values[1]))
-                            .maxTemperature(Float.parseFloat(values[2]))
-                            .maxTemperatureTime(UtilParsers.parseLocalTime(values[3]))
-                            .minTemperature(Float.parseFloat(values[4]))
-                            .minTemperatureTime(UtilParsers.parseLocalTime(values[5]))
-                            .precipitation(Float.parseFloat(values[6]))
-                            .build()
-                    )
+                    .map(line -> lineToMeteorologyData(line, date))
                     .toList();
+        } catch (IOException | UncheckedIOException e) {
+            throw new ReadCSVFailException(e.getMessage());
+        } catch (IndexOutOfBoundsException | IllegalArgumentException | DateTimeParseException e) {
+            throw new ReadCSVFailException(fileName + " tiene una línea no válida: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Dado una path donde se ubica el archivo CSV de meteorología, devuelve una lista de MeteorologyData
+     * con todos los datos del archivo, parseando directamente los bytes con AemetByteParser.
+     * Produce los mismos datos que fileToMeteorologyDataList, pero sin crear un String por línea y campo
+     *
+     * @param path     Ruta de la carpeta donde está el archivo de meteorología
+     * @param fileName Nombre del archivo de meteorología
+     * @return Lista de MeteorologyData con todos los datos del archivo
+     * @throws ReadCSVFailException No se ha podido leer el archivo
+     */
+    public List<MeteorologyData> fileBytesToMeteorologyDataList(String path, String fileName)
+            throws ReadCSVFailException {
+        List<MeteorologyData> list = new ArrayList<>();
+        fileBytesToMeteorologyData(path, fileName, list::add);
+        return list;
+    }
+
+    /**
+     * Dado una path donde se ubica el archivo CSV de meteorología, parsea directamente sus bytes con
+     * AemetByteParser y pasa cada MeteorologyData al consumidor sin acumularlos en una lista
+     *
+     * @param path     Ruta de la carpeta donde está el archivo de meteorología
+     * @param fileName Nombre del archivo de meteorología
+     * @param sink     Consumidor de cada MeteorologyData
+     * @throws ReadCSVFailException No se ha podido leer el archivo
+     */
+    public void fileBytesToMeteorologyData(String path, String fileName, Consumer<MeteorologyData> sink)
+            throws ReadCSVFailException {
+        LocalDate date = fileNameToDate(fileName);
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(java.nio.file.Files.readAllBytes(Paths.get(path, fileName)));
+            byteParser.get().parse(buffer, date, sink);
         } catch (IOException e) {
             throw new ReadCSVFailException(e.getMessage());
         }
     }
 
     /**
-     * Decodifica un string de windows-1252 a UTF-8
+     * Dado una path donde se ubica un archivo CSV de meteorología de gran tamaño, devuelve una lista de
+     * MeteorologyData con todos los datos del archivo leyéndolo mediante memoria mapeada
+     *
+     * @param path     Ruta de la carpeta donde está el archivo de meteorología
+     * @param fileName Nombre del archivo de meteorología
+     * @return Lista de MeteorologyData con todos los datos del archivo
+     * @throws ReadCSVFailException No se ha podido leer el archivo
+     */
+    public List<MeteorologyData> mappedFileToMeteorologyDataList(String path, String fileName)
+            throws ReadCSVFailException {
+        List<MeteorologyData> list = new ArrayList<>();
+        mappedFileToMeteorologyData(path, fileName, mappedWindowSize, list::addAll);
+        return list;
+    }
+
+    /**
+     * Lee un archivo CSV de meteorología mapeándolo en memoria, con la fecha de los datos tomada del nombre
+     * del archivo (AemetYYYYMMDD)
      *
-     * @param input String en windows-1252
-     * @return String en UTF-8
+     * @param path       Ruta de la carpeta donde está el archivo de meteorología
+     * @param fileName   Nombre del archivo de meteorología
+     * @param windowSize Tamaño máximo en bytes de cada ventana mapeada
+     * @param sink       Consumidor de los datos de cada ventana
+     * @throws ReadCSVFailException No se ha podido leer el archivo o su nombre no contiene una fecha
      */
-    private String decodeWindows1252ToUTF8(String input) {
+    public void mappedFileToMeteorologyData(String path, String fileName, long windowSize,
+                                            Consumer<List<MeteorologyData>> sink) throws ReadCSVFailException {
+        mappedFileToMeteorologyData(path, fileName, fileNameToDate(fileName), windowSize, sink);
+    }
+
+    /**
+     * Lee un archivo CSV de meteorología mapeándolo en memoria con FileChannel.map, sin copias intermedias.
+     * El archivo se mapea por ventanas de como máximo windowSize bytes (cortadas en un salto de línea),
+     * así se pueden leer archivos mayores que el límite de un MappedByteBuffer. Cada ventana se divide
+     * en trozos por saltos de línea que se parsean en paralelo, y sus datos se pasan en orden al consumidor.
+     * Las filas de AEMET no incluyen la fecha, así que se indica aparte para los archivos cuyo nombre no la contiene
+     *
+     * @param path       Ruta de la carpeta donde está el archivo de meteorología
+     * @param fileName   Nombre del archivo de meteorología
+     * @param date       Fecha de los datos del archivo
+     * @param windowSize Tamaño máximo en bytes de cada ventana mapeada
+     * @param sink       Consumidor de los datos de cada ventana
+     * @throws ReadCSVFailException No se ha podido leer el archivo
+     */
+    public void mappedFileToMeteorologyData(String path, String fileName, LocalDate date, long windowSize,
+                                            Consumer<List<MeteorologyData>> sink) throws ReadCSVFailException {
+        long maxWindow = Math.max(1, Math.min(windowSize, Integer.MAX_VALUE));
+        try (FileChannel channel = FileChannel.open(Paths.get(path, fileName), StandardOpenOption.READ)) {
+            long size = channel.size();
+            long windowStart = 0;
+            while (windowStart < size) {
+                long length = Math.min(maxWindow, size - windowStart);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, length);
+                int end = (int) length;
+                if (windowStart + length < size) {
+                    end = lastLineEnd(window, end);
+                    if (end == 0) {
+                        throw new ReadCSVFailException("línea mayor que la ventana de " + maxWindow + " bytes");
+                    }
+                }
+                sink.accept(parseInParallel(window, end, date));
+                windowStart += end;
+            }
+        } catch (IOException e) {
+            throw new ReadCSVFailException(e.getMessage());
+        }
+    }
+
+    /**
+     * Devuelve la fecha de los datos de un archivo a partir de su nombre (AemetYYYYMMDD)
+     *
+     * @param fileName Nombre del archivo de meteorología
+     * @return Fecha de los datos
+     * @throws ReadCSVFailException El nombre del archivo no contiene una fecha válida
+     */
+    private LocalDate fileNameToDate(String fileName) throws ReadCSVFailException {
         try {
-            return new String(input.getBytes(StandardCharsets.UTF_8), "windows-1252");
-        } catch (UnsupportedEncodingException e) {
-            e.printStackTrace();
-            return input;
+            return UtilParsers.getInstance().parseFileNameToDate(fileName);
+        } catch (DateTimeParseException e) {
+            throw new ReadCSVFailException("el nombre de " + fileName + " no contiene una fecha válida");
+        }
+    }
+
+    /**
+     * Divide la ventana en tantos trozos como procesadores, cortando siempre en un salto de línea,
+     * y los parsea en paralelo manteniendo el orden de las líneas
+     *
+     * @param window Ventana mapeada del archivo
+     * @param end    Fin de la última línea completa de la ventana
+     * @param date   Fecha de los datos
+     * @return Lista de MeteorologyData de la ventana
+     */
+    private List<MeteorologyData> parseInParallel(ByteBuffer window, int end, LocalDate date) {
+        int parts = Runtime.getRuntime().availableProcessors();
+        List<ByteBuffer> chunks = new ArrayList<>();
+        int start = 0;
+        for (int i = 1; i <= parts && start < end; i++) {
+            int chunkEnd = i == parts ? end : nextLineStart(window, Math.max(start, (int) ((long) end * i / parts)), end);
+            if (chunkEnd > start) {
+                chunks.add(window.slice(start, chunkEnd - start));
+            }
+            start = chunkEnd;
+        }
+        return chunks.parallelStream()
+                .flatMap(chunk -> byteParser.get().parse(chunk, date).stream())
+                .toList();
+    }
+
+    /**
+     * Devuelve la posición siguiente al último salto de línea anterior a end, o 0 si no hay ninguno
+     *
+     * @param buffer Buffer del archivo
+     * @param end    Posición desde la que buscar hacia atrás
+     * @return Fin de la última línea completa
+     */
+    private int lastLineEnd(ByteBuffer buffer, int end) {
+        for (int i = end - 1; i >= 0; i--) {
+            if (buffer.get(i) == '\n') {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Devuelve la posición siguiente al primer salto de línea desde from, o end si no hay ninguno
+     *
+     * @param buffer Buffer del archivo
+     * @param from   Posición desde la que buscar
+     * @param end    Límite de la búsqueda
+     * @return Inicio de la siguiente línea
+     */
+    private int nextLineStart(ByteBuffer buffer, int from, int end) {
+        for (int i = from; i < end; i++) {
+            if (buffer.get(i) == '\n') {
+                return i + 1;
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Abre un archivo CSV de meteorología con la codificación Windows-1252
+     *
+     * @param filePath Ruta del archivo
+     * @return BufferedReader del archivo
+     * @throws IOException No se ha podido abrir el archivo
+     */
+    private BufferedReader openReader(Path filePath) throws IOException {
+        return new BufferedReader(new InputStreamReader(new FileInputStream(filePath.toFile()), "Windows-1252"));
+    }
+
+    /**
+     * Convierte una línea del CSV de meteorología en un MeteorologyData
+     *
+     * @param line Línea del CSV
+     * @param date Fecha de los datos (obtenida del nombre del archivo)
+     * @return MeteorologyData de la línea
+     */
+    private MeteorologyData lineToMeteorologyData(String line, LocalDate date) {
+        String[] values = line.split(";");
+        return MeteorologyData.builder()
+                .date(date)
+                .location(values[0])
+                .province(values[1])
+                .maxTemperature(Float.parseFloat(values[2]))
+                .maxTemperatureTime(UtilParsers.parseLocalTime(values[3]))
+                .minTemperature(Float.parseFloat(values[4]))
+                .minTemperatureTime(UtilParsers.parseLocalTime(values[5]))
+                .precipitation(Float.parseFloat(values[6]))
+                .build();
+    }
+
+    /**
+     * Spliterator que recorre las líneas de una lista de archivos CSV de meteorología.
+     * Solo mantiene abierto un archivo a la vez y lee una línea por cada tryAdvance,
+     * de forma que el ritmo de lectura lo marca el consumidor del Stream
+     */
+    private class FolderSpliterator extends Spliterators.AbstractSpliterator<MeteorologyData> {
+        private final Iterator<Path> files;
+        private Path file;
+        private BufferedReader reader;
+        private LocalDate date;
+        private long lineNumber;
+
+        /**
+         * Constructor de FolderSpliterator
+         *
+         * @param files Archivos CSV a recorrer
+         */
+        FolderSpliterator(List<Path> files) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.files = files.iterator();
+        }
+
+        /**
+         * Lee la siguiente línea y se la pasa al consumidor. Si el archivo actual ha terminado,
+         * lo cierra y abre el siguiente. Si el archivo no se puede leer o la línea no es válida, registra el error
+         * y pasa al siguiente archivo
+         *
+         * @param action Consumidor del MeteorologyData
+         * @return ¿Quedan datos?
+         */
+        @Override
+        public boolean tryAdvance(Consumer<? super MeteorologyData> action) {
+            while (true) {
+                MeteorologyData data;
+                try {
+                    if (reader == null) {
+                        if (!files.hasNext()) {
+                            return false;
+                        }
+                        file = files.next();
+                        lineNumber = 0;
+                        date = fileNameToDate(file.getFileName().toString());
+                        reader = openReader(file);
+                    }
+                    String line = reader.readLine();
+                    if (line == null) {
+                        close();
+                        continue;
+                    }
+                    lineNumber++;
+                    data = lineToMeteorologyData(line, date);
+                } catch (ReadCSVFailException | IOException | UncheckedIOException | IndexOutOfBoundsException
+                         | IllegalArgumentException | DateTimeParseException e) {
+                    skipFile(e);
+                    continue;
+                }
+                action.accept(data);
+                return true;
+            }
+        }
+
+        /**
+         * Registra el error de lectura del archivo actual y lo cierra para pasar al siguiente
+         *
+         * @param e Error de lectura
+         */
+        private void skipFile(Exception e) {
+            String msg = "Error al leer el CSV " + file.getFileName()
+                    + (lineNumber > 0 ? " en la línea " + lineNumber : "") + ", se omite el resto del archivo";
+            logger.error(msg, e);
+            try {
+                close();
+            } catch (UncheckedIOException closeError) {
+                logger.debug("No se ha podido cerrar el CSV", closeError);
+            }
+        }
+
+        /**
+         * Cierra el archivo abierto, si lo hay
+         */
+        void close() {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } finally {
+                    reader = null;
+                }
+            }
         }
     }
 }
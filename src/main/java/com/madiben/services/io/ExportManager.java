@@ -2,33 +2,55 @@ package com.madiben.services.io;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
 import com.madiben.adapters.LocalDateAdapter;
 import com.madiben.adapters.LocalTimeAdapter;
 import com.madiben.exceptions.CreateFolderException;
 import com.madiben.models.MeteorologyData;
+import com.madiben.services.io.format.*;
+import com.madiben.utils.ApplicationProperties;
 
-import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.SQLException;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
- * Clase ExportManager que administra la exportacin de datos
+ * Clase ExportManager que administra la exportación de datos
+ * Los datos se escriben en streaming con un ExportFormat: cada elemento se serializa en cuanto llega de su origen
+ * (una lista o un cursor de la base de datos), así que la memoria usada no depende del número de elementos
+ * exportados. Los archivos exportados se pueden volver a leer con importMeteorologyData, que elige el formato
+ * por la extensión del archivo. El Gson de los formatos JSON se crea una sola vez
  */
 public class ExportManager {
-
     private static ExportManager exportManagerInstance;
+    private final Gson gson = new GsonBuilder()
+            .registerTypeAdapter(LocalDate.class, new LocalDateAdapter())
+            .registerTypeAdapter(LocalTime.class, new LocalTimeAdapter())
+            .create();
+    private final ExportFormat defaultFormat;
 
     /**
-     * Constructor privado para evitar la creacin de instancia
+     * Constructor privado para evitar la creación de instancia
      * SINGLETON
      */
     private ExportManager() {
+        ApplicationProperties properties = ApplicationProperties.getInstance();
+        ExportFormat configured = switch (properties.readProperty("export.format", "json")) {
+            case "jsonl" -> jsonLines();
+            case "bin" -> binary();
+            default -> json(Boolean.parseBoolean(properties.readProperty("export.pretty", "true")));
+        };
+        defaultFormat = Boolean.parseBoolean(properties.readProperty("export.gzip", "false"))
+                ? new GzipFormat(configured) : configured;
     }
 
     /**
@@ -44,6 +66,66 @@ public class ExportManager {
         return exportManagerInstance;
     }
 
+    /**
+     * Devuelve el formato configurado con export.format, export.pretty y export.gzip
+     *
+     * @return Formato de exportación por defecto
+     */
+    public ExportFormat getFormat() {
+        return defaultFormat;
+    }
+
+    /**
+     * Devuelve el formato JSON (un array de objetos)
+     *
+     * @param prettyPrinting ¿Indentar el JSON? Sin indentar el archivo es más pequeño y se escribe antes
+     * @return Formato JSON
+     */
+    public ExportFormat json(boolean prettyPrinting) {
+        return new JsonFormat(gson, prettyPrinting);
+    }
+
+    /**
+     * Devuelve el formato JSON Lines (un objeto JSON por línea)
+     *
+     * @return Formato JSON Lines
+     */
+    public ExportFormat jsonLines() {
+        return new JsonLinesFormat(gson);
+    }
+
+    /**
+     * Devuelve el formato binario por columnas
+     *
+     * @return Formato binario por columnas
+     */
+    public ExportFormat binary() {
+        return new ColumnarBinaryFormat();
+    }
+
+    /**
+     * Devuelve el formato de un archivo según su extensión: .json, .jsonl o .bin, seguida de .gz si está comprimido
+     *
+     * @param fileName Nombre del archivo
+     * @return Formato del archivo
+     * @throws IllegalArgumentException Si la extensión no es de ningún formato
+     */
+    public ExportFormat formatOf(String fileName) {
+        if (fileName.endsWith(".gz")) {
+            return new GzipFormat(formatOf(fileName.substring(0, fileName.length() - ".gz".length())));
+        }
+        if (fileName.endsWith(".jsonl")) {
+            return jsonLines();
+        }
+        if (fileName.endsWith(".json")) {
+            return json(false);
+        }
+        if (fileName.endsWith(".bin")) {
+            return binary();
+        }
+        throw new IllegalArgumentException("Formato de archivo no soportado: " + fileName);
+    }
+
     /**
      * Crea la carpeta out si no existe
      */
@@ -59,31 +141,124 @@ public class ExportManager {
     }
 
     /**
-     * Exporta los datos de meteorologa a un archivo CSV
+     * Exporta los datos de meteorología a un archivo con el formato configurado
      *
      * @param data     Lista de MeteorologyData
-     * @param fileName Nombre del archivo
+     * @param fileName Nombre del archivo, sin extensión
      * @throws CreateFolderException Si no se puede crear la carpeta out
      * @throws IOException           Si no se puede crear el archivo
      */
     public void exportMeteorologyData(List<MeteorologyData> data, String fileName) throws CreateFolderException,
             IOException {
+        try {
+            exportMeteorologyData(fileName, action -> {
+                data.forEach(action);
+                return data.size();
+            });
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Exporta a un archivo con el formato configurado los datos de meteorología que entrega un origen,
+     * a medida que los entrega
+     *
+     * @param fileName Nombre del archivo, sin extensión
+     * @param source   Origen de los datos, por ejemplo un recorrido con cursor del repositorio
+     * @return Número de elementos exportados
+     * @throws CreateFolderException Si no se puede crear la carpeta out
+     * @throws IOException           Si no se puede escribir el archivo
+     * @throws SQLException          Si el origen no puede leer los datos
+     */
+    public long exportMeteorologyData(String fileName, MeteorologyDataSource source) throws CreateFolderException,
+            IOException, SQLException {
+        return exportMeteorologyData(fileName, source, defaultFormat);
+    }
+
+    /**
+     * Exporta al archivo out/{fileName}{extensión del formato} los datos de meteorología que entrega un origen,
+     * a medida que los entrega. Se escriben en un archivo temporal de la carpeta out que sustituye al archivo final
+     * con un movimiento atómico al terminar; si falla, el temporal se borra y el archivo final no cambia
+     *
+     * @param fileName Nombre del archivo, sin extensión
+     * @param source   Origen de los datos, por ejemplo un recorrido con cursor del repositorio
+     * @param format   Formato del archivo
+     * @return Número de elementos exportados
+     * @throws CreateFolderException Si no se puede crear la carpeta out
+     * @throws IOException           Si no se puede escribir el archivo
+     * @throws SQLException          Si el origen no puede leer los datos
+     */
+    public long exportMeteorologyData(String fileName, MeteorologyDataSource source, ExportFormat format)
+            throws CreateFolderException, IOException, SQLException {
         createOutFolderIfNotExists();
-        Gson gson = new GsonBuilder()
-                .registerTypeAdapter(LocalDate.class, new LocalDateAdapter())
-                .registerTypeAdapter(LocalTime.class, new LocalTimeAdapter())
-                .setPrettyPrinting()
-                .create();
-        FileWriter writer = null;
+        Path path = Paths.get("out", fileName + format.getExtension());
+        Path temporary = Files.createTempFile(path.getParent(), fileName + ".", ".tmp");
         try {
-            writer = new FileWriter("out" + File.separator + fileName + ".json");
-            gson.toJson(data, writer);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        } finally {
-            if (writer != null) {
-                writer.close();
+            long exported;
+            try (MeteorologyDataWriter writer = format.writer(Files.newOutputStream(temporary))) {
+                exported = source.forEach(data -> {
+                    try {
+                        writer.write(data);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
             }
+            Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return exported;
+        } catch (IOException | SQLException | RuntimeException e) {
+            deleteTemporary(temporary, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Borra el archivo temporal de una exportación que ha fallado
+     *
+     * @param temporary Archivo temporal
+     * @param failure   Error de la exportación, al que se añade el del borrado si también falla
+     */
+    private static void deleteTemporary(Path temporary, Exception failure) {
+        try {
+            Files.deleteIfExists(temporary);
+        } catch (IOException e) {
+            failure.addSuppressed(e);
+        }
+    }
+
+    /**
+     * Lee un archivo exportado y entrega sus datos de uno en uno al consumidor
+     * El formato se elige por la extensión del archivo
+     *
+     * @param file   Archivo exportado
+     * @param action Consumidor de cada elemento
+     * @return Número de elementos leídos
+     * @throws IOException Si no se puede leer el archivo o su formato no es válido
+     */
+    public long importMeteorologyData(Path file, Consumer<MeteorologyData> action) throws IOException {
+        ExportFormat fileFormat = formatOf(file.getFileName().toString());
+        try (InputStream in = Files.newInputStream(file)) {
+            return fileFormat.read(in, action);
+        } catch (JsonParseException e) {
+            throw new IOException("Archivo " + file + " no válido: " + e.getMessage(), e);
         }
     }
+
+    /**
+     * Origen de los datos a exportar, que los entrega de uno en uno
+     */
+    @FunctionalInterface
+    public interface MeteorologyDataSource {
+        /**
+         * Entrega cada elemento al consumidor
+         *
+         * @param action Consumidor de cada elemento
+         * @return Número de elementos entregados
+         * @throws SQLException Si no se pueden leer los datos
+         */
+        long forEach(Consumer<MeteorologyData> action) throws SQLException;
+    }
 }
@@ -0,0 +1,183 @@
+package com.madiben.services.io;
+
+import com.madiben.exceptions.ReadCSVFailException;
+import com.madiben.models.IngestedFile;
+import com.madiben.models.dto.FileIngestionReport;
+import com.madiben.repositories.ingestion.IngestedFileRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Clase IncrementalCsvIngestor que solo ingiere los archivos CSV nuevos o modificados
+ * Por cada archivo ingerido sin errores se guarda un punto de control con su tamaño, su fecha de modificación y su
+ * hash SHA-256. En la siguiente ingesta los puntos de control se leen con una sola consulta y los archivos con el
+ * mismo tamaño y fecha se saltan sin leerlos; solo se calcula el hash de los que tienen el mismo tamaño y otra fecha
+ * (se saltan si el hash no ha cambiado) y de los nuevos o modificados, para su punto de control. Así el coste de
+ * una ingesta depende de los archivos nuevos, más una consulta del tamaño y la fecha de cada archivo.
+ * Los archivos pendientes se ingieren con ParallelCsvIngestor, y el escritor debe ser idempotente
+ * (por ejemplo, upsertAll) para que reingerir un archivo modificado no duplique sus registros
+ */
+public class IncrementalCsvIngestor {
+    private static final int HASH_BUFFER_SIZE = 1 << 16;
+    private final Logger logger = LoggerFactory.getLogger(IncrementalCsvIngestor.class);
+    private final IngestedFileRepository checkpoints;
+    private final ParallelCsvIngestor ingestor;
+
+    /**
+     * Constructor de IncrementalCsvIngestor
+     *
+     * @param checkpoints Repositorio de los puntos de control de los archivos ingeridos
+     * @param ingestor    Ingestor de los archivos pendientes
+     */
+    public IncrementalCsvIngestor(IngestedFileRepository checkpoints, ParallelCsvIngestor ingestor) {
+        this.checkpoints = checkpoints;
+        this.ingestor = ingestor;
+    }
+
+    /**
+     * Ingiere los archivos CSV de la carpeta que no se han ingerido antes o que han cambiado
+     *
+     * @param path   Ruta de la carpeta donde están los archivos de meteorología
+     * @param writer Escritor idempotente que guarda cada trozo y devuelve el número de registros guardados
+     * @return Informe de cada archivo, ordenado por nombre de archivo. Los archivos saltados se marcan como skipped
+     * @throws ReadCSVFailException No se ha podido leer la carpeta o algún archivo
+     * @throws SQLException         No se han podido leer o guardar los puntos de control
+     */
+    public List<FileIngestionReport> ingest(String path, ParallelCsvIngestor.ChunkWriter writer)
+            throws ReadCSVFailException, SQLException {
+        return ingest(CsvManager.getInstance().folderFiles(path), writer);
+    }
+
+    /**
+     * Ingiere los archivos CSV indicados que no se han ingerido antes o que han cambiado
+     *
+     * @param files  Archivos de meteorología
+     * @param writer Escritor idempotente que guarda cada trozo y devuelve el número de registros guardados
+     * @return Informe de cada archivo, ordenado por nombre de archivo. Los archivos saltados se marcan como skipped
+     * @throws ReadCSVFailException No se ha podido leer algún archivo
+     * @throws SQLException         No se han podido leer o guardar los puntos de control
+     */
+    public List<FileIngestionReport> ingest(List<Path> files, ParallelCsvIngestor.ChunkWriter writer)
+            throws ReadCSVFailException, SQLException {
+        List<FileIngestionReport> reports = new ArrayList<>();
+        List<Path> pending = new ArrayList<>();
+        Map<String, IngestedFile> fingerprints = new HashMap<>();
+        Map<String, IngestedFile> previousCheckpoints = loadCheckpoints(files);
+        for (Path file : files) {
+            String fileName = file.getFileName().toString();
+            IngestedFile fingerprint = fingerprint(file);
+            IngestedFile previous = previousCheckpoints.get(fileName);
+            boolean unchanged = false;
+            if (previous != null && previous.matches(fingerprint.getSize(), fingerprint.getLastModified())) {
+                unchanged = true;
+            } else if (previous != null && previous.getSize() == fingerprint.getSize()) {
+                fingerprint.setHash(hash(file));
+                unchanged = previous.matches(fingerprint.getSize(), fingerprint.getHash());
+                if (unchanged) {
+                    previous.setLastModified(fingerprint.getLastModified());
+                    checkpoints.save(previous);
+                }
+            }
+            if (unchanged) {
+                reports.add(FileIngestionReport.builder()
+                        .fileName(fileName)
+                        .skipped(true)
+                        .build());
+            } else {
+                if (fingerprint.getHash() == null) {
+                    fingerprint.setHash(hash(file));
+                }
+                pending.add(file);
+                fingerprints.put(fileName, fingerprint);
+            }
+        }
+        String msg = "Ingesta incremental: " + pending.size() + " archivos nuevos o modificados, "
+                + reports.size() + " sin cambios";
+        logger.info(msg);
+        List<FileIngestionReport> ingestedReports = pending.isEmpty() ? List.of() : ingestor.ingest(pending, writer);
+        for (FileIngestionReport report : ingestedReports) {
+            if (report.isSuccess()) {
+                IngestedFile checkpoint = fingerprints.get(report.getFileName());
+                checkpoint.setRows(report.getSavedRows());
+                checkpoint.setIngestedOn(LocalDateTime.now());
+                checkpoints.save(checkpoint);
+            }
+        }
+        return Stream.concat(reports.stream(), ingestedReports.stream())
+                .sorted(Comparator.comparing(FileIngestionReport::getFileName))
+                .toList();
+    }
+
+    /**
+     * Lee los puntos de control de los archivos: el del archivo si solo hay uno (por ejemplo, al vigilar la carpeta)
+     * y todos con una sola consulta si hay más
+     *
+     * @param files Archivos de meteorología
+     * @return Mapa de nombre de archivo a su punto de control
+     * @throws SQLException No se han podido leer los puntos de control
+     */
+    private Map<String, IngestedFile> loadCheckpoints(List<Path> files) throws SQLException {
+        Map<String, IngestedFile> result = new HashMap<>();
+        if (files.size() == 1) {
+            checkpoints.findByFileName(files.get(0).getFileName().toString())
+                    .ifPresent(checkpoint -> result.put(checkpoint.getFileName(), checkpoint));
+        } else if (!files.isEmpty()) {
+            checkpoints.findAll().forEach(checkpoint -> result.put(checkpoint.getFileName(), checkpoint));
+        }
+        return result;
+    }
+
+    /**
+     * Lee el tamaño y la fecha de modificación de un archivo, sin leer su contenido
+     *
+     * @param file Archivo
+     * @return IngestedFile con el nombre, el tamaño y la fecha de modificación del archivo, sin hash
+     * @throws ReadCSVFailException No se han podido leer los atributos del archivo
+     */
+    private IngestedFile fingerprint(Path file) throws ReadCSVFailException {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            return IngestedFile.builder()
+                    .fileName(file.getFileName().toString())
+                    .size(attributes.size())
+                    .lastModified(attributes.lastModifiedTime().toMillis())
+                    .build();
+        } catch (IOException e) {
+            throw new ReadCSVFailException(file.getFileName() + " - " + e.getMessage());
+        }
+    }
+
+    /**
+     * Calcula el hash SHA-256 de un archivo
+     *
+     * @param file Archivo
+     * @return Hash del archivo en hexadecimal
+     * @throws ReadCSVFailException No se ha podido leer el archivo
+     */
+    private String hash(Path file) throws ReadCSVFailException {
+        try (InputStream input = Files.newInputStream(file)) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[HASH_BUFFER_SIZE];
+            int read = input.read(buffer);
+            while (read != -1) {
+                digest.update(buffer, 0, read);
+                read = input.read(buffer);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (IOException | NoSuchAlgorithmException e) {
+            throw new ReadCSVFailException(file.getFileName() + " - " + e.getMessage());
+        }
+    }
+}
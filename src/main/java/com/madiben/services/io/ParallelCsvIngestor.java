@@ -0,0 +1,256 @@
+package com.madiben.services.io;
+
+import com.madiben.exceptions.ReadCSVFailException;
+import com.madiben.models.MeteorologyData;
+import com.madiben.models.dto.FileIngestionReport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Clase ParallelCsvIngestor que lee los archivos CSV de una carpeta en paralelo
+ * Cada archivo se parsea en un hilo del pool de lectores y sus datos se envían en trozos a una cola acotada
+ * a medida que se parsean, de la que uno o varios escritores los van guardando por lotes. Si la cola está llena,
+ * los lectores esperan, así los registros en memoria quedan limitados por la capacidad de la cola más un trozo en
+ * curso por lector y por escritor; cada lector tiene además en memoria los bytes del archivo que está leyendo
+ */
+public class ParallelCsvIngestor {
+    private static final Chunk POISON = new Chunk(null, List.of());
+    private final Logger logger = LoggerFactory.getLogger(ParallelCsvIngestor.class);
+    private final int parallelism;
+    private final int writers;
+    private final int queueCapacity;
+    private final int chunkSize;
+
+    /**
+     * Constructor de ParallelCsvIngestor
+     *
+     * @param parallelism   Número de hilos lectores
+     * @param writers       Número de hilos escritores
+     * @param queueCapacity Número máximo de trozos en espera de ser guardados
+     * @param chunkSize     Número de registros por trozo
+     */
+    public ParallelCsvIngestor(int parallelism, int writers, int queueCapacity, int chunkSize) {
+        this.parallelism = Math.max(1, parallelism);
+        this.writers = Math.max(1, writers);
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    /**
+     * Lee en paralelo los archivos CSV de la carpeta y los guarda con el escritor indicado
+     *
+     * @param path   Ruta de la carpeta donde están los archivos de meteorología
+     * @param writer Escritor que guarda cada trozo y devuelve el número de registros guardados
+     * @return Informe de cada archivo, ordenado por nombre de archivo
+     * @throws ReadCSVFailException No se ha podido leer la carpeta
+     */
+    public List<FileIngestionReport> ingest(String path, ChunkWriter writer) throws ReadCSVFailException {
+        return ingest(CsvManager.getInstance().folderFiles(path), writer);
+    }
+
+    /**
+     * Lee en paralelo los archivos CSV indicados y los guarda con el escritor indicado
+     *
+     * @param files  Archivos de meteorología a leer
+     * @param writer Escritor que guarda cada trozo y devuelve el número de registros guardados
+     * @return Informe de cada archivo, ordenado por nombre de archivo
+     * @throws ReadCSVFailException Se ha interrumpido la ingesta
+     */
+    public List<FileIngestionReport> ingest(List<Path> files, ChunkWriter writer) throws ReadCSVFailException {
+        ConcurrentMap<String, FileState> states = new ConcurrentHashMap<>();
+        BlockingQueue<Chunk> queue = new ArrayBlockingQueue<>(queueCapacity);
+        ExecutorService readerPool = Executors.newFixedThreadPool(parallelism);
+        ExecutorService writerPool = Executors.newFixedThreadPool(writers);
+        try {
+            List<Future<?>> writerTasks = new ArrayList<>();
+            for (int i = 0; i < writers; i++) {
+                writerTasks.add(writerPool.submit(() -> writeChunks(queue, writer, states)));
+            }
+            List<Future<?>> readerTasks = new ArrayList<>();
+            for (Path file : files) {
+                FileState state = new FileState();
+                states.put(file.getFileName().toString(), state);
+                readerTasks.add(readerPool.submit(() -> readFile(file, state, queue)));
+            }
+            awaitAll(readerTasks);
+            for (int i = 0; i < writers; i++) {
+                queue.put(POISON);
+            }
+            awaitAll(writerTasks);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ReadCSVFailException("ingesta interrumpida");
+        } finally {
+            readerPool.shutdownNow();
+            writerPool.shutdownNow();
+        }
+        return buildReports(states);
+    }
+
+    /**
+     * Parsea un archivo y envía sus datos a la cola en trozos de chunkSize registros a medida que los parsea.
+     * Cada trozo se guarda por separado, así que si falla la lectura de una línea o la escritura de un trozo, los
+     * trozos anteriores del archivo ya están guardados: el informe lo marca como guardado a medias
+     * (isPartiallySaved) y, con un escritor idempotente, basta con volver a ingerir el archivo
+     *
+     * @param file  Archivo a leer
+     * @param state Estado de la ingesta del archivo
+     * @param queue Cola de trozos pendientes de guardar
+     */
+    private void readFile(Path file, FileState state, BlockingQueue<Chunk> queue) {
+        long start = System.nanoTime();
+        String fileName = file.getFileName().toString();
+        List<MeteorologyData> rows = new ArrayList<>(chunkSize);
+        try {
+            CsvManager.getInstance().fileBytesToMeteorologyData(file.getParent().toString(), fileName, data -> {
+                rows.add(data);
+                state.parsedRows.incrementAndGet();
+                if (rows.size() >= chunkSize) {
+                    put(queue, new Chunk(fileName, List.copyOf(rows)));
+                    rows.clear();
+                }
+            });
+            if (!rows.isEmpty()) {
+                put(queue, new Chunk(fileName, List.copyOf(rows)));
+            }
+        } catch (CancellationException e) {
+            state.error = "lectura interrumpida";
+        } catch (Exception e) {
+            state.error = e.getClass().getSimpleName() + ": " + e.getMessage();
+        } finally {
+            state.nanos.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Envía un trozo a la cola, esperando si está llena
+     *
+     * @param queue Cola de trozos pendientes de guardar
+     * @param chunk Trozo a enviar
+     * @throws CancellationException Se ha interrumpido la espera
+     */
+    private void put(BlockingQueue<Chunk> queue, Chunk chunk) {
+        try {
+            queue.put(chunk);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("lectura interrumpida");
+        }
+    }
+
+    /**
+     * Toma trozos de la cola y los guarda hasta recibir la marca de fin. Si el escritor lanza una excepción
+     * o guarda menos registros de los del trozo, se anota como error del archivo
+     *
+     * @param queue  Cola de trozos pendientes de guardar
+     * @param writer Escritor de los trozos
+     * @param states Estado de la ingesta de cada archivo
+     */
+    private void writeChunks(BlockingQueue<Chunk> queue, ChunkWriter writer, ConcurrentMap<String, FileState> states) {
+        try {
+            Chunk chunk = queue.take();
+            while (chunk != POISON) {
+                FileState state = states.get(chunk.fileName());
+                long start = System.nanoTime();
+                try {
+                    long saved = writer.write(chunk.rows());
+                    state.savedRows.addAndGet(saved);
+                    if (saved < chunk.rows().size()) {
+                        state.error = "guardados " + saved + " de " + chunk.rows().size() + " registros de un trozo";
+                    }
+                } catch (Exception e) {
+                    state.error = e.getClass().getSimpleName() + ": " + e.getMessage();
+                } finally {
+                    state.nanos.addAndGet(System.nanoTime() - start);
+                }
+                chunk = queue.take();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Espera a que terminen todas las tareas
+     *
+     * @param tasks Tareas a esperar
+     * @throws InterruptedException Se ha interrumpido la espera
+     */
+    private void awaitAll(List<Future<?>> tasks) throws InterruptedException {
+        for (Future<?> task : tasks) {
+            try {
+                task.get();
+            } catch (ExecutionException e) {
+                logger.error("Error en una tarea de ingesta", e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Construye los informes de cada archivo ordenados por nombre de archivo
+     *
+     * @param states Estado de la ingesta de cada archivo
+     * @return Lista de informes
+     */
+    private List<FileIngestionReport> buildReports(ConcurrentMap<String, FileState> states) {
+        List<FileIngestionReport> reports = states.entrySet().stream()
+                .map(entry -> FileIngestionReport.builder()
+                        .fileName(entry.getKey())
+                        .parsedRows(entry.getValue().parsedRows.get())
+                        .savedRows(entry.getValue().savedRows.get())
+                        .millis(TimeUnit.NANOSECONDS.toMillis(entry.getValue().nanos.get()))
+                        .error(entry.getValue().error)
+                        .build())
+                .sorted(Comparator.comparing(FileIngestionReport::getFileName))
+                .toList();
+        reports.stream().filter(report -> !report.isSuccess()).forEach(report -> {
+            String msg = "Error al ingerir " + report.getFileName() + ": " + report.getParsedRows() + " leídos, "
+                    + report.getSavedRows() + " guardados" + (report.isPartiallySaved() ? " (guardado a medias)" : "")
+                    + (report.getError() != null ? " - " + report.getError() : "");
+            logger.error(msg);
+        });
+        return reports;
+    }
+
+    /**
+     * Escritor de trozos de MeteorologyData
+     */
+    @FunctionalInterface
+    public interface ChunkWriter {
+        /**
+         * Guarda un trozo de registros
+         *
+         * @param rows Registros a guardar
+         * @return Número de registros guardados
+         * @throws SQLException No se ha podido guardar
+         */
+        long write(List<MeteorologyData> rows) throws SQLException;
+    }
+
+    /**
+     * Trozo de registros de un archivo
+     *
+     * @param fileName Nombre del archivo de origen
+     * @param rows     Registros del trozo
+     */
+    private record Chunk(String fileName, List<MeteorologyData> rows) {
+    }
+
+    /**
+     * Estado de la ingesta de un archivo, compartido entre lector y escritores
+     */
+    private static class FileState {
+        private final AtomicLong parsedRows = new AtomicLong();
+        private final AtomicLong savedRows = new AtomicLong();
+        private final AtomicLong nanos = new AtomicLong();
+        private volatile String error;
+    }
+}
@@ -0,0 +1,319 @@
+package com.madiben.services.io;
+
+import com.madiben.exceptions.CreateFolderException;
+import com.madiben.models.MeteorologyData;
+import com.madiben.models.dto.FileExportReport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.*;
+import java.util.regex.Pattern;
+
+/**
+ * Clase ParallelProvinceExporter que exporta los datos de todas las provincias, cada una a su archivo,
+ * recorriendo los datos una sola vez
+ * El origen debe entregar los datos ordenados por provincia (por ejemplo, con una única consulta ORDER BY Province).
+ * El hilo que recorre el origen reparte los registros en trozos a la cola de la provincia en curso, y cada provincia
+ * se escribe en su archivo en un hilo del pool de escritores, en paralelo con la lectura de las siguientes.
+ * Los trozos pendientes de escribir de todas las provincias están limitados por queueCapacity, por lo que la memoria
+ * utilizada no depende del número de registros. Cada archivo se escribe en un temporal que sustituye al final solo
+ * si la provincia se exporta entera: si el origen falla, la provincia en curso recibe ABORT y su archivo no cambia
+ */
+public class ParallelProvinceExporter {
+    private static final List<MeteorologyData> END = List.of();
+    private static final List<MeteorologyData> ABORT = Collections.unmodifiableList(new ArrayList<>());
+    private static final Pattern INVALID_FILE_NAME_CHARS = Pattern.compile("[\\\\/:*?\"<>|]");
+    private final Logger logger = LoggerFactory.getLogger(ParallelProvinceExporter.class);
+    private final int parallelism;
+    private final int queueCapacity;
+    private final int chunkSize;
+
+    /**
+     * Constructor de ParallelProvinceExporter
+     *
+     * @param parallelism   Número de hilos escritores
+     * @param queueCapacity Número máximo de trozos en espera de ser escritos
+     * @param chunkSize     Número de registros por trozo
+     */
+    public ParallelProvinceExporter(int parallelism, int queueCapacity, int chunkSize) {
+        this.parallelism = Math.max(1, parallelism);
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    /**
+     * Exporta los datos de cada provincia al archivo out/{provincia} con el formato configurado en ExportManager.
+     * Los caracteres que no pueden formar parte de un nombre de archivo (como la barra de "Araba/Álava")
+     * se sustituyen por un guion
+     *
+     * @param source Origen de los datos, ordenados por provincia
+     * @return Informe de cada archivo, en el orden de las provincias
+     * @throws CreateFolderException Si no se puede crear la carpeta out
+     * @throws SQLException          Si el origen no puede leer los datos
+     */
+    public List<FileExportReport> export(ExportManager.MeteorologyDataSource source) throws CreateFolderException,
+            SQLException {
+        ExportManager.getInstance().createOutFolderIfNotExists();
+        Semaphore permits = new Semaphore(queueCapacity);
+        ExecutorService writerPool = Executors.newFixedThreadPool(parallelism);
+        Router router = new Router(writerPool, permits);
+        try {
+            source.forEach(router::route);
+            router.finish();
+        } catch (InterruptedExportException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("exportación interrumpida", e.getCause());
+        } catch (SQLException | RuntimeException e) {
+            router.abort();
+            router.awaitWriters();
+            throw e;
+        } finally {
+            router.abort();
+            writerPool.shutdown();
+        }
+        return router.reports();
+    }
+
+    /**
+     * Escribe el archivo de una provincia con los trozos que llegan a su cola, hasta recibir la marca de fin.
+     * Si recibe ABORT, la exportación de la provincia falla y ExportManager borra su archivo temporal
+     *
+     * @param province Provincia
+     * @param queue    Cola de trozos de la provincia
+     * @param permits  Permisos de los trozos pendientes de escribir, se devuelve uno por cada trozo tomado
+     * @return Informe del archivo
+     */
+    private FileExportReport writeProvince(String province, BlockingQueue<List<MeteorologyData>> queue,
+                                           Semaphore permits) {
+        long start = System.nanoTime();
+        String fileName = INVALID_FILE_NAME_CHARS.matcher(province).replaceAll("-");
+        String extension = ExportManager.getInstance().getFormat().getExtension();
+        FileExportReport.FileExportReportBuilder report = FileExportReport.builder()
+                .fileName(fileName + extension)
+                .province(province);
+        boolean[] finished = {false};
+        try {
+            report.rows(ExportManager.getInstance().exportMeteorologyData(fileName, action -> {
+                long rows = 0;
+                List<MeteorologyData> chunk = take(queue, permits);
+                while (chunk != END) {
+                    if (chunk == ABORT) {
+                        finished[0] = true;
+                        throw new IllegalStateException("el origen de los datos ha fallado");
+                    }
+                    chunk.forEach(action);
+                    rows += chunk.size();
+                    chunk = take(queue, permits);
+                }
+                finished[0] = true;
+                return rows;
+            }));
+            report.bytes(Files.size(Paths.get("out", fileName + extension)));
+        } catch (Exception e) {
+            report.error(e.getClass().getSimpleName() + ": " + e.getMessage());
+        } finally {
+            if (!finished[0]) {
+                drain(queue, permits);
+            }
+        }
+        report.millis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return report.build();
+    }
+
+    /**
+     * Toma el siguiente trozo de la cola y devuelve su permiso
+     *
+     * @param queue   Cola de trozos
+     * @param permits Permisos de los trozos pendientes
+     * @return Trozo, o END o ABORT si no quedan más
+     */
+    private static List<MeteorologyData> take(BlockingQueue<List<MeteorologyData>> queue, Semaphore permits) {
+        try {
+            List<MeteorologyData> chunk = queue.take();
+            if (chunk != END && chunk != ABORT) {
+                permits.release();
+            }
+            return chunk;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedExportException(e);
+        }
+    }
+
+    /**
+     * Descarta los trozos que quedan en la cola tras un error, devolviendo sus permisos para no bloquear al lector
+     *
+     * @param queue   Cola de trozos
+     * @param permits Permisos de los trozos pendientes
+     */
+    private static void drain(BlockingQueue<List<MeteorologyData>> queue, Semaphore permits) {
+        try {
+            List<MeteorologyData> chunk = take(queue, permits);
+            while (chunk != END && chunk != ABORT) {
+                chunk = take(queue, permits);
+            }
+        } catch (InterruptedExportException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Reparte los registros del origen entre las provincias. Solo lo usa el hilo que recorre el origen
+     */
+    private class Router {
+        private final ExecutorService writerPool;
+        private final Semaphore permits;
+        private final Set<String> provinces = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        private final List<Future<FileExportReport>> writers = new ArrayList<>();
+        private String province;
+        private BlockingQueue<List<MeteorologyData>> queue;
+        private List<MeteorologyData> chunk;
+
+        /**
+         * Constructor de Router
+         *
+         * @param writerPool Pool de escritores
+         * @param permits    Permisos de los trozos pendientes de escribir
+         */
+        Router(ExecutorService writerPool, Semaphore permits) {
+            this.writerPool = writerPool;
+            this.permits = permits;
+        }
+
+        /**
+         * Añade un registro al trozo de su provincia. Si la provincia cambia, cierra la anterior
+         * y empieza a escribir la nueva
+         *
+         * @param data Registro
+         */
+        void route(MeteorologyData data) {
+            if (province == null || !province.equalsIgnoreCase(data.getProvince())) {
+                finish();
+                start(data.getProvince());
+            }
+            chunk.add(data);
+            if (chunk.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        /**
+         * Empieza a escribir una provincia en un hilo del pool de escritores
+         *
+         * @param newProvince Provincia
+         */
+        private void start(String newProvince) {
+            if (!provinces.add(newProvince)) {
+                throw new IllegalStateException("Los datos no están ordenados por provincia: " + newProvince);
+            }
+            String msg = "Exportando provincia " + newProvince;
+            logger.debug(msg);
+            province = newProvince;
+            queue = new LinkedBlockingQueue<>();
+            chunk = new ArrayList<>(chunkSize);
+            BlockingQueue<List<MeteorologyData>> provinceQueue = queue;
+            writers.add(writerPool.submit(() -> writeProvince(newProvince, provinceQueue, permits)));
+        }
+
+        /**
+         * Envía el trozo en curso a la cola de la provincia, esperando si hay demasiados trozos pendientes
+         */
+        private void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                throw new InterruptedExportException(e);
+            }
+            queue.add(chunk);
+            chunk = new ArrayList<>(chunkSize);
+        }
+
+        /**
+         * Envía el último trozo y la marca de fin de la provincia en curso
+         */
+        void finish() {
+            if (queue != null) {
+                flush();
+                queue.add(END);
+                queue = null;
+            }
+        }
+
+        /**
+         * Envía ABORT a la provincia en curso si la exportación se ha interrumpido, para que no sustituya su archivo
+         * por uno incompleto
+         */
+        void abort() {
+            if (queue != null) {
+                queue.add(ABORT);
+                queue = null;
+            }
+        }
+
+        /**
+         * Espera a que terminen los escritores tras un error del origen, así al salir de export ningún archivo
+         * se sigue escribiendo
+         */
+        void awaitWriters() {
+            try {
+                for (Future<FileExportReport> writer : writers) {
+                    writer.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                logger.error("Error en un escritor de la exportación", e.getCause());
+            }
+        }
+
+        /**
+         * Espera a que terminen todos los escritores y devuelve sus informes
+         *
+         * @return Informe de cada archivo
+         * @throws SQLException Se ha interrumpido la espera
+         */
+        List<FileExportReport> reports() throws SQLException {
+            List<FileExportReport> reports = new ArrayList<>();
+            try {
+                for (Future<FileExportReport> writer : writers) {
+                    reports.add(writer.get());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("exportación interrumpida", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+            reports.stream().filter(report -> !report.isSuccess()).forEach(report -> {
+                String msg = "Error al exportar " + report.getFileName() + ": " + report.getError();
+                logger.error(msg);
+            });
+            return reports;
+        }
+    }
+
+    /**
+     * Interrupción de la exportación dentro de un consumidor, que no puede lanzar InterruptedException
+     */
+    private static class InterruptedExportException extends RuntimeException {
+        /**
+         * Constructor de InterruptedExportException
+         *
+         * @param cause Interrupción original
+         */
+        InterruptedExportException(InterruptedException cause) {
+            super(cause);
+        }
+    }
+}
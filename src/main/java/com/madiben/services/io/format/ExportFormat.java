@@ -0,0 +1,41 @@
+package com.madiben.services.io.format;
+
+import com.madiben.models.MeteorologyData;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.function.Consumer;
+
+/**
+ * Formato de los archivos de exportación de MeteorologyData
+ * Cada formato sabe escribir los datos de uno en uno en un flujo de salida y volver a leerlos de uno en uno,
+ * de forma que ni la exportación ni la importación cargan el archivo completo en memoria
+ */
+public interface ExportFormat {
+    /**
+     * Devuelve la extensión de los archivos del formato, con el punto
+     *
+     * @return Extensión, por ejemplo ".json"
+     */
+    String getExtension();
+
+    /**
+     * Abre un escritor sobre un flujo de salida. Al cerrar el escritor se cierra también el flujo
+     *
+     * @param out Flujo de salida
+     * @return Escritor de MeteorologyData
+     * @throws IOException Si no se puede escribir en el flujo
+     */
+    MeteorologyDataWriter writer(OutputStream out) throws IOException;
+
+    /**
+     * Lee los datos de un flujo de entrada y los entrega de uno en uno al consumidor
+     *
+     * @param in     Flujo de entrada
+     * @param action Consumidor de cada elemento
+     * @return Número de elementos leídos
+     * @throws IOException Si no se puede leer el flujo o su contenido no es de este formato
+     */
+    long read(InputStream in, Consumer<MeteorologyData> action) throws IOException;
+}
@@ -0,0 +1,42 @@
+package com.madiben.services.io.format;
+
+import com.madiben.models.MeteorologyData;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Formato comprimido con gzip de otro formato. La extensión es la del formato comprimido seguida de ".gz"
+ */
+public class GzipFormat implements ExportFormat {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private final ExportFormat format;
+
+    /**
+     * Constructor de GzipFormat
+     *
+     * @param format Formato que se comprime
+     */
+    public GzipFormat(ExportFormat format) {
+        this.format = format;
+    }
+
+    @Override
+    public String getExtension() {
+        return format.getExtension() + ".gz";
+    }
+
+    @Override
+    public MeteorologyDataWriter writer(OutputStream out) throws IOException {
+        return format.writer(new GZIPOutputStream(out, BUFFER_SIZE));
+    }
+
+    @Override
+    public long read(InputStream in, Consumer<MeteorologyData> action) throws IOException {
+        return format.read(new GZIPInputStream(in, BUFFER_SIZE), action);
+    }
+}
@@ -0,0 +1,76 @@
+package com.madiben.services.io.format;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.madiben.models.MeteorologyData;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Formato JSON: un array con un objeto por elemento, opcionalmente indentado
+ */
+public class JsonFormat implements ExportFormat {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private final Gson gson;
+    private final TypeAdapter<MeteorologyData> adapter;
+    private final boolean prettyPrinting;
+
+    /**
+     * Constructor de JsonFormat
+     *
+     * @param gson           Gson con los adaptadores de LocalDate y LocalTime
+     * @param prettyPrinting ¿Indentar el JSON?
+     */
+    public JsonFormat(Gson gson, boolean prettyPrinting) {
+        this.gson = gson;
+        this.adapter = gson.getAdapter(MeteorologyData.class);
+        this.prettyPrinting = prettyPrinting;
+    }
+
+    @Override
+    public String getExtension() {
+        return ".json";
+    }
+
+    @Override
+    public MeteorologyDataWriter writer(OutputStream out) throws IOException {
+        JsonWriter jsonWriter = gson.newJsonWriter(new BufferedWriter(new OutputStreamWriter(out,
+                StandardCharsets.UTF_8), BUFFER_SIZE));
+        if (prettyPrinting) {
+            jsonWriter.setIndent("  ");
+        }
+        jsonWriter.beginArray();
+        return new MeteorologyDataWriter() {
+            @Override
+            public void write(MeteorologyData data) throws IOException {
+                adapter.write(jsonWriter, data);
+            }
+
+            @Override
+            public void close() throws IOException {
+                try (jsonWriter) {
+                    jsonWriter.endArray();
+                }
+            }
+        };
+    }
+
+    @Override
+    public long read(InputStream in, Consumer<MeteorologyData> action) throws IOException {
+        JsonReader jsonReader = gson.newJsonReader(new BufferedReader(new InputStreamReader(in,
+                StandardCharsets.UTF_8), BUFFER_SIZE));
+        long rows = 0;
+        jsonReader.beginArray();
+        while (jsonReader.peek() != JsonToken.END_ARRAY) {
+            action.accept(adapter.read(jsonReader));
+            rows++;
+        }
+        jsonReader.endArray();
+        return rows;
+    }
+}
@@ -0,0 +1,71 @@
+package com.madiben.services.io.format;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonWriter;
+import com.madiben.models.MeteorologyData;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Formato JSON Lines: un objeto JSON por línea, sin array que lo envuelva.
+ * Cada línea se puede leer por separado, por lo que el archivo se puede procesar, dividir o concatenar
+ * con herramientas de texto
+ */
+public class JsonLinesFormat implements ExportFormat {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private final Gson gson;
+    private final TypeAdapter<MeteorologyData> adapter;
+
+    /**
+     * Constructor de JsonLinesFormat
+     *
+     * @param gson Gson con los adaptadores de LocalDate y LocalTime
+     */
+    public JsonLinesFormat(Gson gson) {
+        this.gson = gson;
+        this.adapter = gson.getAdapter(MeteorologyData.class);
+    }
+
+    @Override
+    public String getExtension() {
+        return ".jsonl";
+    }
+
+    @Override
+    public MeteorologyDataWriter writer(OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        JsonWriter jsonWriter = gson.newJsonWriter(writer);
+        // En modo lenient JsonWriter admite varios valores de primer nivel; el salto de línea se escribe aparte
+        jsonWriter.setLenient(true);
+        return new MeteorologyDataWriter() {
+            @Override
+            public void write(MeteorologyData data) throws IOException {
+                adapter.write(jsonWriter, data);
+                writer.write('\n');
+            }
+
+            @Override
+            public void close() throws IOException {
+                writer.close();
+            }
+        };
+    }
+
+    @Override
+    public long read(InputStream in, Consumer<MeteorologyData> action) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), BUFFER_SIZE);
+        long rows = 0;
+        String line = reader.readLine();
+        while (line != null) {
+            if (!line.isBlank()) {
+                action.accept(adapter.fromJson(line));
+                rows++;
+            }
+            line = reader.readLine();
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,20 @@
+package com.madiben.services.io.format;
+
+import com.madiben.models.MeteorologyData;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Escritor de MeteorologyData en un formato de exportación
+ * close termina el archivo (cierra el array JSON, escribe el último bloque...) y cierra el flujo de salida
+ */
+public interface MeteorologyDataWriter extends Closeable {
+    /**
+     * Escribe un elemento
+     *
+     * @param data Elemento
+     * @throws IOException Si no se puede escribir
+     */
+    void write(MeteorologyData data) throws IOException;
+}
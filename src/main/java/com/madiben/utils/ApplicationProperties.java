@@ -1,6 +1,8 @@
 package com.madiben.utils;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
 import java.util.Properties;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -9,22 +11,30 @@ import java.util.logging.Logger;
  * Esta clase contiene métodos para leer propiedades de un fichero
  */
 public class ApplicationProperties {
+    private static final List<String> PROPERTY_FILES = List.of("database.properties", "application.properties");
 
     private static ApplicationProperties applicationPropertiesInstance;
     private final Properties properties;
 
     /**
      * Constructor
-     * Lee el fichero de propiedades y lo carga en un objeto Properties
-     * Si no se puede leer el fichero, se muestra un mensaje de error en el log
+     * Lee los ficheros de propiedades y los carga en un objeto Properties: database.properties con la conexión a la
+     * base de datos y application.properties con la configuración de la ingesta, las cachés, los análisis y la
+     * exportación
+     * Si no se puede leer algún fichero, se muestra un mensaje de error en el log
      */
     private ApplicationProperties() {
         properties = new Properties();
-        try {
-            properties.load(getClass().getClassLoader().getResourceAsStream("database.properties"));
-        } catch (IOException ex) {
-            Logger.getLogger(getClass().getName()).log(Level.ALL, ex,
-                    () -> "IOException - Error al leer el fichero de propiedades.");
+        for (String file : PROPERTY_FILES) {
+            try (InputStream input = getClass().getClassLoader().getResourceAsStream(file)) {
+                if (input == null) {
+                    throw new IOException("No se ha encontrado el fichero " + file);
+                }
+                properties.load(input);
+            } catch (IOException ex) {
+                Logger.getLogger(getClass().getName()).log(Level.ALL, ex,
+                        () -> "IOException - Error al leer el fichero de propiedades " + file + ".");
+            }
         }
     }
 
@@ -42,11 +52,12 @@ public class ApplicationProperties {
 
     /**
      * Devuelve el valor de una clave del fichero de propiedades
+     * Si existe una propiedad del sistema (-Dclave=valor) con el mismo nombre, tiene prioridad sobre el fichero
      *
      * @param keyName Nombre de la clave
      * @return Valor de la clave
      */
     public String readProperty(String keyName, String ifNotExistStr) {
-        return properties.getProperty(keyName, ifNotExistStr);
+        return System.getProperty(keyName, properties.getProperty(keyName, ifNotExistStr));
     }
 }
\ No newline at end of file
@@ -8,7 +8,8 @@ import java.time.format.DateTimeFormatter;
  * Clase de utilidades para parsear
  */
 public class UtilParsers {
-
+    private static final DateTimeFormatter FILE_DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("H:mm");
 
     private static UtilParsers utilParsersInstance;
 
@@ -35,8 +36,7 @@ public class UtilParsers {
      * @return Fecha del fichero
      */
     public LocalDate parseFileNameToDate(String fileName) {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyyMMdd");
-        return LocalDate.parse(fileName.replaceAll("\\D", ""), formatter);
+        return LocalDate.parse(fileName.replaceAll("\\D", ""), FILE_DATE_FORMATTER);
     }
 
     /**
@@ -46,7 +46,6 @@ public class UtilParsers {
      * @return Hora del fichero
      */
     public static LocalTime parseLocalTime(String timeStr) {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("H:mm");
-        return LocalTime.parse(timeStr, formatter);
+        return LocalTime.parse(timeStr, TIME_FORMATTER);
     }
 }
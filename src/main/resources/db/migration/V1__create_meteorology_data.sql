@@ -0,0 +1,11 @@
+CREATE TABLE IF NOT EXISTS MeteorologyData (
+                                 ID UUID DEFAULT RANDOM_UUID() NOT NULL PRIMARY KEY,
+                                 DayDate DATE,
+                                 Location VARCHAR(255),
+                                 Province VARCHAR(255),
+                                 MaxTemperature DECIMAL(5, 2),
+                                 MaxTemperatureTime TIME,
+                                 MinTemperature DECIMAL(5, 2),
+                                 MinTemperatureTime TIME,
+                                 Precipitation DECIMAL(5, 2)
+);
@@ -0,0 +1,24 @@
+-- Las temperaturas y la precipitación se guardan como REAL, igual que los float del modelo
+ALTER TABLE MeteorologyData ALTER COLUMN MaxTemperature REAL;
+ALTER TABLE MeteorologyData ALTER COLUMN MinTemperature REAL;
+ALTER TABLE MeteorologyData ALTER COLUMN Precipitation REAL;
+
+-- La provincia se compara sin distinguir mayúsculas y minúsculas, así el filtro Province = ? puede usar un índice
+ALTER TABLE MeteorologyData ALTER COLUMN Province VARCHAR_IGNORECASE(255);
+
+-- Se conserva un único registro por día, provincia y lugar antes de crear la clave natural: el último insertado
+-- (mayor _ROWID_), igual que upsertAll, donde la última escritura sustituye a las anteriores. El ID es un UUID
+-- aleatorio y no sirve para elegir el registro que se conserva
+DELETE FROM MeteorologyData m WHERE EXISTS (SELECT 1 FROM MeteorologyData o
+    WHERE o.DayDate = m.DayDate AND o.Province = m.Province AND o.Location = m.Location AND o._ROWID_ > m._ROWID_);
+
+-- Clave natural: un lugar tiene un único registro por día. Hay lugares con el mismo nombre en provincias distintas,
+-- por lo que la provincia forma parte de la clave. Su primera columna sirve también para agrupar y filtrar por día
+ALTER TABLE MeteorologyData ADD CONSTRAINT IF NOT EXISTS UK_MeteorologyData_Day_Province_Location
+    UNIQUE (DayDate, Province, Location);
+
+-- Filtro por provincia ordenado por día
+CREATE INDEX IF NOT EXISTS IDX_MeteorologyData_Province_Day ON MeteorologyData (Province, DayDate);
+
+-- Mayor precipitación
+CREATE INDEX IF NOT EXISTS IDX_MeteorologyData_Precipitation ON MeteorologyData (Precipitation DESC);
@@ -0,0 +1,8 @@
+-- Archivos CSV ya ingeridos, con su tamaño y su hash SHA-256 para detectar si han cambiado
+CREATE TABLE IF NOT EXISTS IngestedFile (
+                                 FileName VARCHAR(255) NOT NULL PRIMARY KEY,
+                                 FileSize BIGINT NOT NULL,
+                                 FileHash VARCHAR(64) NOT NULL,
+                                 RowCount BIGINT NOT NULL,
+                                 IngestedOn TIMESTAMP NOT NULL
+);
@@ -0,0 +1,2 @@
+-- Filtro por lugar ordenado por día
+CREATE INDEX IF NOT EXISTS IDX_MeteorologyData_Location_Day ON MeteorologyData (Location, DayDate);
@@ -0,0 +1,7 @@
+-- Resúmenes de cuantiles (KLL) de cada provincia y mes, en el formato binario de ProvinceMonthSketch
+CREATE TABLE IF NOT EXISTS ProvinceMonthSketch (
+                                 Province VARCHAR_IGNORECASE(255) NOT NULL,
+                                 MonthDate DATE NOT NULL,
+                                 Sketch VARBINARY NOT NULL,
+                                 PRIMARY KEY (Province, MonthDate)
+);
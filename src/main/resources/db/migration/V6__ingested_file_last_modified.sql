@@ -0,0 +1,3 @@
+-- Fecha de modificación (milisegundos desde epoch) de cada archivo ingerido, para saltar los archivos con el mismo
+-- tamaño y fecha sin calcular su hash. Los puntos de control anteriores quedan a NULL y se comparan por hash
+ALTER TABLE IngestedFile ADD COLUMN IF NOT EXISTS LastModified BIGINT;
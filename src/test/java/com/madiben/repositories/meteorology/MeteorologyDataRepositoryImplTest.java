@@ -0,0 +1,82 @@
+package com.madiben.repositories.meteorology;
+
+import com.madiben.models.MeteorologyData;
+import com.madiben.models.dto.MeteorologyDayData;
+import com.madiben.services.analytics.MeteorologyAggregate;
+import com.madiben.services.analytics.MeteorologyColumnStore;
+import com.madiben.services.database.TestDatabase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Comprueba que, con empates en los extremos, la consulta de los datos de cada día elige los mismos registros que
+ * los agregados en memoria de una lista y del almacén columnar cargados desde el repositorio
+ */
+class MeteorologyDataRepositoryImplTest {
+    private static final LocalDate FIRST_DAY = LocalDate.of(2017, 10, 29);
+    private MeteorologyDataRepositoryImpl repository;
+
+    @BeforeEach
+    void clear() throws SQLException {
+        TestDatabase.clear();
+        repository = new MeteorologyDataRepositoryImpl(TestDatabase.database());
+    }
+
+    @Test
+    void dayDataBreaksTiesLikeInMemoryAggregates() throws SQLException {
+        List<MeteorologyData> rows = new ArrayList<>();
+        Random random = new Random(42);
+        for (int day = 0; day < 4; day++) {
+            for (int location = 0; location < 20; location++) {
+                rows.add(MeteorologyData.builder()
+                        .date(FIRST_DAY.plusDays(day))
+                        .province(location % 2 == 0 ? "Madrid" : "Sevilla")
+                        .location("Lugar " + random.nextInt(1000) + " " + location)
+                        .maxTemperature(20 + random.nextInt(3))
+                        .maxTemperatureTime(LocalTime.NOON)
+                        .minTemperature(random.nextInt(3))
+                        .minTemperatureTime(LocalTime.MIDNIGHT)
+                        .precipitation(random.nextInt(2))
+                        .build());
+            }
+        }
+        Collections.shuffle(rows, random);
+        repository.saveAll(rows);
+
+        List<MeteorologyDayData> fromDatabase = repository.findDayData();
+        Map<LocalDate, MeteorologyAggregate> fromList = repository.findAll().stream()
+                .collect(Collectors.groupingBy(MeteorologyData::getDate, TreeMap::new,
+                        MeteorologyAggregate.collector()));
+        List<MeteorologyDayData> fromColumns = MeteorologyColumnStore.fromRepository(repository).dayData();
+
+        assertEquals(4, fromDatabase.size());
+        for (int i = 0; i < fromDatabase.size(); i++) {
+            MeteorologyDayData day = fromDatabase.get(i);
+            MeteorologyDayData listDay = fromList.get(day.getDate()).toDayData(day.getDate());
+            assertEquals(keys(listDay), keys(day), day.getDate().toString());
+            assertEquals(keys(fromColumns.get(i)), keys(day), day.getDate().toString());
+        }
+    }
+
+    /**
+     * Devuelve la clave natural (provincia y lugar) de los tres extremos de un día
+     *
+     * @param day Datos del día
+     * @return Provincia y lugar del extremo de temperatura máxima, de temperatura mínima y de precipitación
+     */
+    private static List<String> keys(MeteorologyDayData day) {
+        Function<Optional<MeteorologyData>, String> key = data -> data
+                .map(row -> row.getProvince() + "/" + row.getLocation()).orElse(null);
+        return List.of(key.apply(day.getMaxTemperature()), key.apply(day.getMinTemperature()),
+                key.apply(day.getMaxPrecipitation()));
+    }
+}
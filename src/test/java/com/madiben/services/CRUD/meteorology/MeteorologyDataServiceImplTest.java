@@ -0,0 +1,196 @@
+package com.madiben.services.CRUD.meteorology;
+
+import com.madiben.models.MeteorologyData;
+import com.madiben.models.dto.MeteorologyDayData;
+import com.madiben.models.dto.MeteorologyProvinceDaySummary;
+import com.madiben.repositories.analytics.ProvinceMonthSketchRepositoryImpl;
+import com.madiben.repositories.meteorology.MeteorologyDataRepository;
+import com.madiben.repositories.meteorology.MeteorologyDataRepositoryImpl;
+import com.madiben.services.analytics.MeteorologyAggregate;
+import com.madiben.services.analytics.MeteorologyAggregateCache;
+import com.madiben.services.database.TestDatabase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Comprueba que save, update y delete mantienen los agregados de la caché iguales a los que se calculan de nuevo
+ * desde la base de datos, y que las escrituras del servicio invalidan la caché de elementos
+ */
+class MeteorologyDataServiceImplTest {
+    private static final LocalDate FIRST_DAY = LocalDate.of(2017, 10, 29);
+    private static final String[] PROVINCES = {"A Coruña", "Madrid", "Sevilla"};
+    private MeteorologyDataRepository repository;
+    private MeteorologyDataServiceImpl service;
+    private List<MeteorologyData> rows;
+
+    @BeforeEach
+    void loadRows() throws SQLException {
+        TestDatabase.clear();
+        repository = new MeteorologyDataRepositoryImpl(TestDatabase.database());
+        service = MeteorologyDataServiceImpl.getInstance(repository, QuantileSketchServiceImpl.getInstance(
+                new ProvinceMonthSketchRepositoryImpl(TestDatabase.database()), repository));
+        rows = new ArrayList<>();
+        Random random = new Random(42);
+        for (int day = 0; day < 3; day++) {
+            for (String province : PROVINCES) {
+                for (int location = 0; location < 8; location++) {
+                    rows.add(row(FIRST_DAY.plusDays(day), province, province + " " + location, random));
+                }
+            }
+        }
+        service.saveAll(rows);
+        assertAggregatesMatchDatabase();
+    }
+
+    @Test
+    void saveKeepsAggregates() throws SQLException {
+        MeteorologyData hottest = row(FIRST_DAY, "Madrid", "Madrid nuevo", new Random(1)).toBuilder()
+                .maxTemperature(45.5f).precipitation(80.25f).build();
+        service.save(hottest);
+        assertAggregatesMatchDatabase();
+        assertEquals(Optional.of(hottest), dayData(FIRST_DAY).getMaxTemperature());
+        service.save(row(FIRST_DAY.plusDays(1), "Sevilla", "Sevilla nuevo", new Random(2)));
+        assertAggregatesMatchDatabase();
+    }
+
+    @Test
+    void updateKeepsAggregatesWithStoredId() throws SQLException {
+        MeteorologyData ordinary = ordinaryRow(FIRST_DAY);
+        service.update(ordinary.getUuid().toString(), ordinary.toBuilder().uuid(UUID.randomUUID())
+                .maxTemperature(50.5f).minTemperature(-20.25f).precipitation(99.5f).build());
+        assertAggregatesMatchDatabase();
+        MeteorologyDayData day = dayData(ordinary.getDate());
+        assertEquals(ordinary.getUuid(), day.getMaxTemperature().orElseThrow().getUuid());
+        assertEquals(ordinary.getUuid(), day.getMinTemperature().orElseThrow().getUuid());
+
+        MeteorologyData extreme = day.getMaxTemperature().orElseThrow();
+        service.update(extreme.getUuid().toString(), extreme.toBuilder().uuid(UUID.randomUUID())
+                .maxTemperature(1.5f).minTemperature(0.5f).precipitation(0).build());
+        assertAggregatesMatchDatabase();
+    }
+
+    @Test
+    void deleteKeepsAggregates() throws SQLException {
+        MeteorologyData extreme = dayData(FIRST_DAY).getMaxTemperature().orElseThrow();
+        assertTrue(service.delete(extreme.getUuid().toString()));
+        assertAggregatesMatchDatabase();
+        MeteorologyData ordinary = ordinaryRow(FIRST_DAY.plusDays(2));
+        assertTrue(service.delete(ordinary.getUuid().toString()));
+        assertAggregatesMatchDatabase();
+    }
+
+    @Test
+    void writesInvalidateEntityCache() throws SQLException {
+        MeteorologyData stored = rows.get(0);
+        String id = stored.getUuid().toString();
+        assertEquals(Optional.of(stored), service.findById(id));
+        long hits = service.getCacheStats().get("elementos").getHits();
+        service.findById(id).orElseThrow().setLocation("Modificado sin guardar");
+        assertEquals(Optional.of(stored), service.findById(id));
+        assertEquals(hits + 2, service.getCacheStats().get("elementos").getHits());
+
+        repository.update(id, stored.toBuilder().maxTemperature(1.5f).build());
+        assertEquals(stored.getMaxTemperature(), service.findById(id).orElseThrow().getMaxTemperature());
+        service.update(id, stored.toBuilder().maxTemperature(2.5f).build());
+        assertEquals(2.5f, service.findById(id).orElseThrow().getMaxTemperature());
+
+        service.upsertAll(List.of(stored.toBuilder().maxTemperature(3.5f).build()));
+        assertEquals(3.5f, service.findById(id).orElseThrow().getMaxTemperature());
+
+        assertTrue(service.delete(id));
+        assertEquals(Optional.empty(), service.findById(id));
+    }
+
+    /**
+     * Comprueba que los datos de cada día y los resúmenes por día y provincia que devuelve el servicio son iguales
+     * a los de unos agregados calculados de nuevo con los registros de la base de datos
+     */
+    private void assertAggregatesMatchDatabase() throws SQLException {
+        MeteorologyAggregateCache fresh = new MeteorologyAggregateCache(366);
+        List<MeteorologyDayData> expectedDays = new ArrayList<>();
+        List<MeteorologyProvinceDaySummary> expectedSummaries = new ArrayList<>();
+        for (LocalDate date : repository.findDates()) {
+            MeteorologyAggregateCache.DayAggregate day = fresh.put(date, repository.findByDateRange(date, date));
+            expectedDays.add(day.getTotal().toDayData(date));
+            for (Map.Entry<String, MeteorologyAggregate> province : day.getProvinces().entrySet()) {
+                expectedSummaries.add(province.getValue().toSummary(date, province.getKey()));
+            }
+        }
+        assertEquals(expectedDays, service.findDayData());
+        assertEquals(expectedSummaries, service.findProvinceDaySummaries());
+    }
+
+    /**
+     * Devuelve los datos de un día según el servicio
+     *
+     * @param date Día
+     * @return Datos del día
+     */
+    private MeteorologyDayData dayData(LocalDate date) {
+        try {
+            return service.findDayData().stream().filter(day -> day.getDate().equals(date)).findFirst().orElseThrow();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Devuelve un registro cargado de un día que no es ningún extremo ni de su día ni de su provincia, así que
+     * quitarlo no invalida el día en la caché
+     *
+     * @param date Día
+     * @return Registro
+     */
+    private MeteorologyData ordinaryRow(LocalDate date) {
+        List<MeteorologyData> day = rows.stream().filter(data -> data.getDate().equals(date)).toList();
+        return day.stream()
+                .filter(data -> !isExtreme(data, day))
+                .filter(data -> !isExtreme(data, day.stream()
+                        .filter(other -> other.getProvince().equals(data.getProvince())).toList()))
+                .findFirst().orElseThrow();
+    }
+
+    /**
+     * Devuelve si un registro es alguno de los extremos de un grupo de registros
+     *
+     * @param data  Registro
+     * @param group Registros del grupo
+     * @return ¿Es un extremo?
+     */
+    private static boolean isExtreme(MeteorologyData data, List<MeteorologyData> group) {
+        MeteorologyAggregate aggregate = new MeteorologyAggregate();
+        group.forEach(aggregate::add);
+        return data.equals(aggregate.getMaxTemperatureData().orElseThrow())
+                || data.equals(aggregate.getMinTemperatureData().orElseThrow())
+                || data.equals(aggregate.getMaxPrecipitationData().orElseThrow());
+    }
+
+    /**
+     * Genera un registro con valores aleatorios de cuatro decimales, para que no haya empates en los extremos
+     *
+     * @param date     Día
+     * @param province Provincia
+     * @param location Lugar
+     * @param random   Generador de números aleatorios
+     * @return Registro
+     */
+    private static MeteorologyData row(LocalDate date, String province, String location, Random random) {
+        return MeteorologyData.builder()
+                .date(date)
+                .province(province)
+                .location(location)
+                .maxTemperature(20 + random.nextInt(150) / 10f + random.nextInt(1000) / 10000f)
+                .maxTemperatureTime(LocalTime.of(12 + random.nextInt(6), random.nextInt(60)))
+                .minTemperature(random.nextInt(150) / 10f + random.nextInt(1000) / 10000f)
+                .minTemperatureTime(LocalTime.of(random.nextInt(8), random.nextInt(60)))
+                .precipitation(random.nextBoolean() ? 0 : random.nextInt(300) / 10f + random.nextInt(1000) / 10000f)
+                .build();
+    }
+}
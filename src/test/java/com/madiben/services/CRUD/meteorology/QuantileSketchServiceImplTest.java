@@ -0,0 +1,155 @@
+package com.madiben.services.CRUD.meteorology;
+
+import com.madiben.controllers.MeteorologyDataController;
+import com.madiben.models.MeteorologyData;
+import com.madiben.models.dto.ProvinceQuantiles;
+import com.madiben.repositories.analytics.ProvinceMonthSketchRepositoryImpl;
+import com.madiben.repositories.meteorology.MeteorologyDataRepository;
+import com.madiben.repositories.meteorology.MeteorologyDataRepositoryImpl;
+import com.madiben.services.analytics.ProvinceMonthSketch;
+import com.madiben.services.database.TestDatabase;
+import com.madiben.services.io.ExportManager;
+import com.madiben.services.io.format.MeteorologyDataWriter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Comprueba que las escrituras que no son ingestas de CSV (save, update, delete e importData) mantienen los
+ * resúmenes de cuantiles iguales a los que se construyen de nuevo desde la base de datos. Cada provincia y mes tiene
+ * menos registros que KllSketch.DEFAULT_K, así los resúmenes son exactos y se pueden comparar con igualdad
+ */
+class QuantileSketchServiceImplTest {
+    private static final LocalDate FIRST_DAY = LocalDate.of(2017, 10, 29);
+    private static final String[] PROVINCES = {"A Coruña", "Madrid", "Sevilla"};
+    private MeteorologyDataRepository repository;
+    private QuantileSketchService sketchService;
+    private MeteorologyDataServiceImpl service;
+    private List<MeteorologyData> rows;
+
+    @TempDir
+    Path folder;
+
+    @BeforeEach
+    void loadRows() throws SQLException {
+        TestDatabase.clear();
+        repository = new MeteorologyDataRepositoryImpl(TestDatabase.database());
+        sketchService = QuantileSketchServiceImpl.getInstance(
+                new ProvinceMonthSketchRepositoryImpl(TestDatabase.database()), repository);
+        service = MeteorologyDataServiceImpl.getInstance(repository, sketchService);
+        rows = new ArrayList<>();
+        Random random = new Random(42);
+        for (int day = 0; day < 5; day++) {
+            for (String province : PROVINCES) {
+                for (int location = 0; location < 4; location++) {
+                    rows.add(row(FIRST_DAY.plusDays(day), province, province + " " + location, random));
+                }
+            }
+        }
+        service.saveAll(rows);
+        sketchService.rebuild();
+        assertSketchesMatchDatabase();
+    }
+
+    @Test
+    void saveUpdatesSketches() throws SQLException {
+        service.save(row(FIRST_DAY, "Madrid", "Madrid nuevo", new Random(1)));
+        assertSketchesMatchDatabase();
+        service.save(row(LocalDate.of(2017, 12, 1), "Sevilla", "Sevilla nuevo", new Random(2)));
+        assertSketchesMatchDatabase();
+        assertTrue(sketchService.getQuantiles("Sevilla", YearMonth.of(2017, 12)).isPresent());
+    }
+
+    @Test
+    void updateMovesRowBetweenSketches() throws SQLException {
+        MeteorologyData moved = rows.get(0);
+        service.update(moved.getUuid().toString(), moved.toBuilder().province("Sevilla")
+                .date(LocalDate.of(2017, 11, 2)).maxTemperature(41.5f).build());
+        assertSketchesMatchDatabase();
+    }
+
+    @Test
+    void deleteRemovesEmptySketch() throws SQLException {
+        MeteorologyData alone = service.save(row(LocalDate.of(2018, 1, 5), "Madrid", "Madrid nuevo",
+                new Random(3))).orElseThrow();
+        assertTrue(sketchService.getQuantiles("Madrid", YearMonth.of(2018, 1)).isPresent());
+        assertTrue(service.delete(alone.getUuid().toString()));
+        assertSketchesMatchDatabase();
+        assertTrue(sketchService.getQuantiles("Madrid", YearMonth.of(2018, 1)).isEmpty());
+        assertTrue(service.delete(rows.get(5).getUuid().toString()));
+        assertSketchesMatchDatabase();
+    }
+
+    @Test
+    void importDataUpdatesSketches() throws IOException, SQLException {
+        MeteorologyDataController controller = new MeteorologyDataController(service);
+        List<MeteorologyData> imported = new ArrayList<>();
+        Random random = new Random(4);
+        for (String province : PROVINCES) {
+            imported.add(row(LocalDate.of(2017, 12, 10), province, province + " importado", random));
+        }
+        imported.add(rows.get(7).toBuilder().maxTemperature(39.25f).precipitation(12.5f).build());
+        Path file = folder.resolve("importado.jsonl");
+        try (MeteorologyDataWriter writer = ExportManager.getInstance().jsonLines()
+                .writer(Files.newOutputStream(file))) {
+            for (MeteorologyData data : imported) {
+                writer.write(data);
+            }
+        }
+        assertEquals(imported.size(), controller.importData(file));
+        assertSketchesMatchDatabase();
+    }
+
+    /**
+     * Comprueba que los percentiles de cada provincia y mes que devuelve el servicio son iguales a los de unos
+     * resúmenes construidos de nuevo con los registros de la base de datos
+     */
+    private void assertSketchesMatchDatabase() throws SQLException {
+        Map<ProvinceMonthSketch.Key, ProvinceMonthSketch> expected = new HashMap<>();
+        for (MeteorologyData data : repository.findAll()) {
+            expected.computeIfAbsent(ProvinceMonthSketch.keyOf(data),
+                    key -> new ProvinceMonthSketch(data.getProvince(), key.month())).add(data);
+        }
+        for (String province : PROVINCES) {
+            List<ProvinceQuantiles> expectedQuantiles = expected.values().stream()
+                    .filter(sketch -> sketch.getKey().province().equals(province.toLowerCase(Locale.ROOT)))
+                    .sorted(Comparator.comparing(ProvinceMonthSketch::getMonth))
+                    .map(sketch -> sketch.toQuantiles(sketch.getMonth()))
+                    .toList();
+            assertEquals(expectedQuantiles, sketchService.getQuantiles(province), province);
+        }
+    }
+
+    /**
+     * Genera un registro con valores aleatorios
+     *
+     * @param date     Día
+     * @param province Provincia
+     * @param location Lugar
+     * @param random   Generador de números aleatorios
+     * @return Registro
+     */
+    private static MeteorologyData row(LocalDate date, String province, String location, Random random) {
+        return MeteorologyData.builder()
+                .date(date)
+                .province(province)
+                .location(location)
+                .maxTemperature(20 + random.nextInt(150) / 10f)
+                .maxTemperatureTime(LocalTime.of(12 + random.nextInt(6), random.nextInt(60)))
+                .minTemperature(random.nextInt(150) / 10f)
+                .minTemperatureTime(LocalTime.of(random.nextInt(8), random.nextInt(60)))
+                .precipitation(random.nextBoolean() ? 0 : random.nextInt(300) / 10f)
+                .build();
+    }
+}
@@ -0,0 +1,120 @@
+package com.madiben.services.analytics;
+
+import com.madiben.models.dto.MeteorologyRollingDayData;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Comprueba ClimatologyEngine contra un cálculo ingenuo que recorre cada ventana entera, en una serie de varios años
+ * con huecos cortos y más largos que las ventanas, un 29 de febrero y ventanas en los extremos de la serie
+ */
+class ClimatologyEngineTest {
+    private static final double DELTA = 1e-6;
+    private static final int[] WINDOWS = {1, 7, 30, 365};
+
+    @Test
+    void rollingWindowsMatchNaiveRecomputation() {
+        Random random = new Random(5);
+        int[] gaps = new int[900];
+        for (int i = 0; i < gaps.length; i++) {
+            int gap = i > 80 && random.nextInt(10) == 0 ? 2 + random.nextInt(10) : 1;
+            gaps[i] = i == 400 ? 400 : gap;
+        }
+        int size = gaps.length;
+        int[] days = new int[size];
+        float[] maxTemperatures = new float[size];
+        float[] minTemperatures = new float[size];
+        float[] precipitations = new float[size];
+        int day = (int) LocalDate.of(2015, 12, 20).toEpochDay();
+        for (int i = 0; i < size; i++) {
+            day += gaps[i];
+            days[i] = day;
+            maxTemperatures[i] = 15 + random.nextInt(200) / 10f;
+            minTemperatures[i] = -5 + random.nextInt(150) / 10f;
+            precipitations[i] = random.nextInt(3) == 0 ? random.nextInt(500) / 10f : 0;
+        }
+        StationSeries station = new StationSeries("Getafe", "Madrid", days, maxTemperatures, minTemperatures,
+                precipitations);
+        List<MeteorologyRollingDayData> result = new ClimatologyEngine(WINDOWS).compute(station);
+
+        assertEquals(size, result.size());
+        double cumulative = 0;
+        for (int i = 0; i < size; i++) {
+            MeteorologyRollingDayData data = result.get(i);
+            LocalDate date = LocalDate.ofEpochDay(days[i]);
+            String at = date.toString();
+            assertEquals(date, data.getDate());
+            double avgTemperature = ((double) maxTemperatures[i] + minTemperatures[i]) / 2;
+            assertEquals(avgTemperature, data.getAvgTemperature(), DELTA, at);
+            for (int window : WINDOWS) {
+                double temperatureSum = 0;
+                double precipitationSum = 0;
+                int count = 0;
+                for (int j = 0; j <= i; j++) {
+                    if (days[j] > days[i] - window) {
+                        temperatureSum += ((double) maxTemperatures[j] + minTemperatures[j]) / 2;
+                        precipitationSum += precipitations[j];
+                        count++;
+                    }
+                }
+                assertEquals(temperatureSum / count, data.getRollingAvgTemperature().get(window), DELTA,
+                        at + " ventana " + window);
+                assertEquals(precipitationSum, data.getRollingPrecipitation().get(window), DELTA,
+                        at + " ventana " + window);
+            }
+
+            cumulative += precipitations[i];
+            double year = 0;
+            double normalTemperature = 0;
+            double normalPrecipitation = 0;
+            int normalCount = 0;
+            for (int j = 0; j < size; j++) {
+                LocalDate other = LocalDate.ofEpochDay(days[j]);
+                if (j <= i && other.getYear() == date.getYear()) {
+                    year += precipitations[j];
+                }
+                if (other.getMonth() == date.getMonth() && other.getDayOfMonth() == date.getDayOfMonth()) {
+                    normalTemperature += ((double) maxTemperatures[j] + minTemperatures[j]) / 2;
+                    normalPrecipitation += precipitations[j];
+                    normalCount++;
+                }
+            }
+            assertEquals(cumulative, data.getCumulativePrecipitation(), DELTA, at);
+            assertEquals(year, data.getYearPrecipitation(), DELTA, at);
+            assertEquals(normalTemperature / normalCount, data.getNormalTemperature(), DELTA, at);
+            assertEquals(avgTemperature - normalTemperature / normalCount, data.getTemperatureAnomaly(), DELTA, at);
+            assertEquals(normalPrecipitation / normalCount, data.getNormalPrecipitation(), DELTA, at);
+        }
+        assertTrue(result.stream().anyMatch(data -> data.getDate().equals(LocalDate.of(2016, 2, 29))));
+    }
+
+    @Test
+    void firstDayWindowsOnlyContainIt() {
+        int first = (int) LocalDate.of(2017, 10, 29).toEpochDay();
+        StationSeries station = new StationSeries("Getafe", "Madrid", new int[]{first, first + 400},
+                new float[]{20, 30}, new float[]{10, 20}, new float[]{4, 6});
+        List<MeteorologyRollingDayData> result = new ClimatologyEngine(WINDOWS).compute(station);
+        for (MeteorologyRollingDayData data : result) {
+            for (int window : WINDOWS) {
+                assertEquals(data.getAvgTemperature(), data.getRollingAvgTemperature().get(window));
+                assertEquals(data.getPrecipitation(), data.getRollingPrecipitation().get(window));
+            }
+        }
+        assertEquals(10, result.get(1).getCumulativePrecipitation());
+        assertEquals(6, result.get(1).getYearPrecipitation());
+    }
+
+    @Test
+    void emptySeriesAndInvalidWindows() {
+        StationSeries empty = new StationSeries("Getafe", "Madrid", new int[0], new float[0], new float[0],
+                new float[0]);
+        assertTrue(new ClimatologyEngine(WINDOWS).compute(empty).isEmpty());
+        assertThrows(IllegalArgumentException.class, ClimatologyEngine::new);
+        assertThrows(IllegalArgumentException.class, () -> new ClimatologyEngine(7, 0));
+    }
+}
@@ -0,0 +1,67 @@
+package com.madiben.services.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Comprueba FloatSegmentTree contra un recorrido de fuerza bruta en todos los rangos de arrays de distintos tamaños,
+ * con muchos empates, incluidos los rangos de un solo elemento y los vacíos
+ */
+class FloatSegmentTreeTest {
+
+    @Test
+    void everyRangeMatchesBruteForce() {
+        Random random = new Random(7);
+        for (int size = 1; size <= 70; size++) {
+            float[] values = new float[size];
+            for (int i = 0; i < size; i++) {
+                values[i] = random.nextInt(4) - 1.5f;
+            }
+            FloatSegmentTree max = FloatSegmentTree.max(values);
+            FloatSegmentTree min = FloatSegmentTree.min(values);
+            for (int from = 0; from <= size; from++) {
+                for (int to = from; to <= size; to++) {
+                    String range = size + ": [" + from + ", " + to + ")";
+                    assertEquals(bruteForce(values, from, to, true), max.query(from, to), range);
+                    assertEquals(bruteForce(values, from, to, false), min.query(from, to), range);
+                }
+            }
+        }
+    }
+
+    @Test
+    void singleElementRangeReturnsItsPosition() {
+        float[] values = {3, 3, 3, 1, 3};
+        FloatSegmentTree max = FloatSegmentTree.max(values);
+        FloatSegmentTree min = FloatSegmentTree.min(values);
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(i, max.query(i, i + 1));
+            assertEquals(i, min.query(i, i + 1));
+        }
+        assertEquals(0, max.query(0, values.length));
+        assertEquals(1, max.query(1, values.length));
+        assertEquals(3, min.query(0, values.length));
+    }
+
+    /**
+     * Devuelve la primera posición del extremo de un rango recorriéndolo entero
+     *
+     * @param values Valores
+     * @param from   Primera posición del rango
+     * @param to     Posición siguiente a la última del rango
+     * @param max    ¿Se busca el máximo? Si es false, el mínimo
+     * @return Posición del extremo, o -1 si el rango está vacío
+     */
+    private static int bruteForce(float[] values, int from, int to, boolean max) {
+        int best = -1;
+        for (int i = from; i < to; i++) {
+            if (best == -1 || (max ? values[i] > values[best] : values[i] < values[best])) {
+                best = i;
+            }
+        }
+        return best;
+    }
+}
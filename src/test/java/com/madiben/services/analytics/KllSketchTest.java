@@ -0,0 +1,202 @@
+package com.madiben.services.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Comprueba el error de rango de KllSketch frente a los cuantiles exactos, su formato binario y la unión de
+ * resúmenes. Los flujos se generan con una semilla fija; la compactación de KllSketch es aleatoria, pero la cota
+ * de getNormalizedRankError se cumple con probabilidad del 99 % y el error real suele ser mucho menor
+ */
+class KllSketchTest {
+    private static final int K = KllSketch.DEFAULT_K;
+    private static final int VALUES = 200_000;
+
+    @Test
+    void rankErrorWithinNormalizedRankError() {
+        float[] values = randomValues(VALUES, 42);
+        KllSketch sketch = new KllSketch(K);
+        for (float value : values) {
+            sketch.add(value);
+        }
+        assertEquals(VALUES, sketch.getN());
+        assertTrue(sketch.getRetained() < 3 * K);
+        assertRankError(sketch, values);
+    }
+
+    @Test
+    void exactQuantilesBelowK() {
+        float[] values = randomValues(K - 1, 7);
+        KllSketch sketch = new KllSketch(K);
+        for (float value : values) {
+            sketch.add(value);
+        }
+        float[] sorted = values.clone();
+        Arrays.sort(sorted);
+        for (int i = 1; i <= 100; i++) {
+            double q = i / 100.0;
+            assertEquals(sorted[(int) Math.ceil(q * sorted.length) - 1], sketch.getQuantile(q), "q = " + q);
+        }
+    }
+
+    @Test
+    void writeToAndReadFromKeepTheSketch() throws IOException {
+        KllSketch sketch = new KllSketch(K);
+        for (float value : randomValues(VALUES, 3)) {
+            sketch.add(value);
+        }
+        byte[] bytes = toBytes(sketch);
+        KllSketch read = KllSketch.readFrom(new DataInputStream(new ByteArrayInputStream(bytes)));
+        assertEquals(sketch.getK(), read.getK());
+        assertEquals(sketch.getN(), read.getN());
+        assertEquals(sketch.getMin(), read.getMin());
+        assertEquals(sketch.getMax(), read.getMax());
+        assertEquals(sketch.getRetained(), read.getRetained());
+        for (int i = 0; i <= 100; i++) {
+            assertEquals(sketch.getQuantile(i / 100.0), read.getQuantile(i / 100.0), "q = " + i / 100.0);
+        }
+        assertArrayEquals(bytes, toBytes(read));
+    }
+
+    @Test
+    void readFromRejectsInvalidK() {
+        byte[] bytes = {0, 1};
+        assertThrows(IOException.class,
+                () -> KllSketch.readFrom(new DataInputStream(new ByteArrayInputStream(bytes))));
+    }
+
+    @Test
+    void mergeBelowKEqualsSingleStream() {
+        float[] values = randomValues(K - 1, 11);
+        KllSketch single = new KllSketch(K);
+        KllSketch merged = new KllSketch(K);
+        KllSketch other = new KllSketch(K);
+        for (int i = 0; i < values.length; i++) {
+            single.add(values[i]);
+            (i % 2 == 0 ? merged : other).add(values[i]);
+        }
+        merged.merge(other);
+        assertEquals(single.getN(), merged.getN());
+        for (int i = 0; i <= 100; i++) {
+            assertEquals(single.getQuantile(i / 100.0), merged.getQuantile(i / 100.0), "q = " + i / 100.0);
+        }
+    }
+
+    @Test
+    void mergeKeepsRankErrorOfSingleStream() {
+        float[] values = randomValues(VALUES, 5);
+        KllSketch single = new KllSketch(K);
+        KllSketch[] parts = {new KllSketch(K), new KllSketch(K), new KllSketch(K), new KllSketch(K)};
+        for (int i = 0; i < values.length; i++) {
+            single.add(values[i]);
+            parts[(int) ((long) i * parts.length / values.length)].add(values[i]);
+        }
+        KllSketch merged = new KllSketch(K);
+        for (KllSketch part : parts) {
+            merged.merge(part);
+        }
+        assertEquals(single.getN(), merged.getN());
+        assertEquals(single.getMin(), merged.getMin());
+        assertEquals(single.getMax(), merged.getMax());
+        assertTrue(merged.getRetained() < 3 * K);
+        assertRankError(single, values);
+        assertRankError(merged, values);
+    }
+
+    /**
+     * Comprueba que el rango real del valor de cada percentil está a menos de getNormalizedRankError del percentil
+     *
+     * @param sketch Resumen
+     * @param values Valores añadidos al resumen
+     */
+    private static void assertRankError(KllSketch sketch, float[] values) {
+        float[] sorted = values.clone();
+        Arrays.sort(sorted);
+        double bound = KllSketch.getNormalizedRankError(sketch.getK());
+        for (int i = 1; i < 100; i++) {
+            double q = i / 100.0;
+            float value = sketch.getQuantile(q);
+            double lowRank = (double) lowerBound(sorted, value) / sorted.length;
+            double highRank = (double) upperBound(sorted, value) / sorted.length;
+            double error = Math.max(0, Math.max(lowRank - q, q - highRank));
+            assertTrue(error <= bound, "q = " + q + ": error de rango " + error + " mayor que " + bound);
+        }
+    }
+
+    /**
+     * Devuelve el número de valores menores que value
+     *
+     * @param sorted Valores ordenados
+     * @param value  Valor
+     * @return Número de valores menores
+     */
+    private static int lowerBound(float[] sorted, float value) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sorted[middle] < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Devuelve el número de valores menores o iguales que value
+     *
+     * @param sorted Valores ordenados
+     * @param value  Valor
+     * @return Número de valores menores o iguales
+     */
+    private static int upperBound(float[] sorted, float value) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sorted[middle] <= value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Genera valores parecidos a temperaturas: normales con media 15 y desviación 8, redondeados a una décima
+     *
+     * @param count Número de valores
+     * @param seed  Semilla
+     * @return Valores
+     */
+    private static float[] randomValues(int count, long seed) {
+        Random random = new Random(seed);
+        float[] values = new float[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = Math.round((15 + 8 * random.nextGaussian()) * 10) / 10f;
+        }
+        return values;
+    }
+
+    /**
+     * Devuelve el resumen en el formato de writeTo
+     *
+     * @param sketch Resumen
+     * @return Bytes del resumen
+     */
+    private static byte[] toBytes(KllSketch sketch) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            sketch.writeTo(output);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,68 @@
+package com.madiben.services.analytics;
+
+import com.madiben.models.MeteorologyData;
+import com.madiben.models.dto.MeteorologyProvinceDaySummary;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Comprueba que MeteorologyColumnStore calcula las medias en double y agrupa las provincias sin distinguir
+ * mayúsculas y minúsculas, igual que la base de datos
+ */
+class MeteorologyColumnStoreTest {
+    private static final LocalDate DAY = LocalDate.of(2017, 10, 29);
+
+    @Test
+    void avgTemperatureUsesDouble() {
+        MeteorologyColumnStore store = new MeteorologyColumnStore();
+        store.add(data("Madrid", "Getafe", 3e38f, 3e38f, 0));
+        store.add(data("Madrid", "Alcalá", 0.1f, 0.2f, 0));
+        double expected = (((double) 3e38f + 3e38f) / 2 + ((double) 0.1f + 0.2f) / 2) / 2;
+        assertEquals(expected, store.avgTemperature());
+    }
+
+    @Test
+    void provinceDaySummariesIgnoreCase() {
+        MeteorologyColumnStore store = new MeteorologyColumnStore();
+        store.add(data("Madrid", "Getafe", 20, 5, 1));
+        store.add(data("MADRID", "Alcalá", 22, 3, 0));
+        store.add(data("Sevilla", "Utrera", 25, 10, 0));
+        List<MeteorologyProvinceDaySummary> summaries = store.provinceDaySummaries();
+        assertEquals(2, summaries.size());
+        MeteorologyProvinceDaySummary madrid = summaries.get(0);
+        assertEquals("Madrid", madrid.getProvince());
+        assertEquals(22, madrid.getMaxTemperature());
+        assertEquals(3, madrid.getMinTemperature());
+        assertEquals(List.of("Getafe"), madrid.getRainyLocations());
+        assertEquals(21, store.provinceDayData("madrid").get(0).getAvgMaxTemperature());
+    }
+
+    /**
+     * Crea un MeteorologyData del día de prueba
+     *
+     * @param province       Provincia
+     * @param location       Lugar
+     * @param maxTemperature Temperatura máxima
+     * @param minTemperature Temperatura mínima
+     * @param precipitation  Precipitación
+     * @return Datos de meteorología
+     */
+    private static MeteorologyData data(String province, String location, float maxTemperature,
+                                        float minTemperature, float precipitation) {
+        return MeteorologyData.builder()
+                .date(DAY)
+                .province(province)
+                .location(location)
+                .maxTemperature(maxTemperature)
+                .maxTemperatureTime(LocalTime.NOON)
+                .minTemperature(minTemperature)
+                .minTemperatureTime(LocalTime.MIDNIGHT)
+                .precipitation(precipitation)
+                .build();
+    }
+}
@@ -0,0 +1,68 @@
+package com.madiben.services.analytics;
+
+import com.madiben.models.MeteorologyData;
+import com.madiben.models.dto.MeteorologyDayData;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Comprueba que ParallelGrouper da el mismo resultado que la agrupación secuencial por debajo y por encima del umbral
+ * de paralelismo, también con empates en los extremos y con Collectors que dependen del orden
+ */
+class ParallelGrouperTest {
+    private static final int THRESHOLD = 1000;
+    private static final LocalDate FIRST_DAY = LocalDate.of(2017, 1, 1);
+    private final ParallelGrouper grouper = new ParallelGrouper(4, THRESHOLD);
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, THRESHOLD - 1, THRESHOLD, THRESHOLD + 1, 50_000})
+    void parallelResultEqualsSequential(int size) {
+        List<MeteorologyData> data = data(size);
+
+        SortedMap<LocalDate, List<MeteorologyData>> lists = grouper.groupBy(data, MeteorologyData::getDate,
+                Collectors.toList());
+        assertEquals(data.stream().collect(Collectors.groupingBy(MeteorologyData::getDate, TreeMap::new,
+                Collectors.toList())), lists);
+
+        SortedMap<LocalDate, MeteorologyAggregate> aggregates = grouper.groupBy(data, MeteorologyData::getDate,
+                MeteorologyAggregate.collector());
+        Map<LocalDate, MeteorologyAggregate> sequential = data.stream().collect(Collectors.groupingBy(
+                MeteorologyData::getDate, TreeMap::new, MeteorologyAggregate.collector()));
+        assertEquals(sequential.keySet(), aggregates.keySet());
+        sequential.forEach((date, aggregate) -> {
+            MeteorologyDayData expected = aggregate.toDayData(date);
+            assertEquals(expected, aggregates.get(date).toDayData(date), date.toString());
+        });
+    }
+
+    /**
+     * Genera registros de pocos días con valores de un rango pequeño, para que haya muchos empates
+     *
+     * @param size Número de registros
+     * @return Registros
+     */
+    private static List<MeteorologyData> data(int size) {
+        Random random = new Random(size);
+        return IntStream.range(0, size)
+                .mapToObj(i -> MeteorologyData.builder()
+                        .uuid(new UUID(0, i))
+                        .date(FIRST_DAY.plusDays(random.nextInt(5)))
+                        .province("Provincia " + random.nextInt(3))
+                        .location("Lugar " + i)
+                        .maxTemperature(random.nextInt(10))
+                        .maxTemperatureTime(LocalTime.NOON)
+                        .minTemperature(-random.nextInt(10))
+                        .minTemperatureTime(LocalTime.MIDNIGHT)
+                        .precipitation(random.nextInt(3))
+                        .build())
+                .toList();
+    }
+}
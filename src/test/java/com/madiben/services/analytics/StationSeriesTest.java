@@ -0,0 +1,94 @@
+package com.madiben.services.analytics;
+
+import com.madiben.models.dto.StationRangeStats;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Comprueba los extremos y la precipitación total de StationSeries contra un recorrido de fuerza bruta, en una serie
+ * con huecos y empates, con rangos de un día, rangos que empiezan o terminan en un hueco y rangos fuera de la serie
+ */
+class StationSeriesTest {
+    private static final int FIRST_DAY = (int) LocalDate.of(2017, 1, 1).toEpochDay();
+
+    @Test
+    void statsMatchBruteForce() {
+        Random random = new Random(11);
+        int size = 60;
+        int[] days = new int[size];
+        float[] maxTemperatures = new float[size];
+        float[] minTemperatures = new float[size];
+        float[] precipitations = new float[size];
+        int day = FIRST_DAY;
+        for (int i = 0; i < size; i++) {
+            day += 1 + (random.nextInt(4) == 0 ? random.nextInt(5) : 0);
+            days[i] = day;
+            maxTemperatures[i] = 20 + random.nextInt(4);
+            minTemperatures[i] = random.nextInt(4);
+            precipitations[i] = random.nextInt(3) * 0.1f;
+        }
+        StationSeries series = new StationSeries("Getafe", "Madrid", days, maxTemperatures, minTemperatures,
+                precipitations);
+        for (int from = days[0] - 3; from <= days[size - 1] + 3; from++) {
+            for (int to = from - 1; to <= days[size - 1] + 3; to++) {
+                LocalDate fromDate = LocalDate.ofEpochDay(from);
+                LocalDate toDate = LocalDate.ofEpochDay(to);
+                String range = fromDate + " - " + toDate;
+                Optional<StationRangeStats> stats = series.getStats(fromDate, toDate);
+                int start = 0;
+                while (start < size && days[start] < from) {
+                    start++;
+                }
+                int end = start;
+                while (end < size && days[end] <= to) {
+                    end++;
+                }
+                if (start == end) {
+                    assertTrue(stats.isEmpty(), range);
+                    continue;
+                }
+                StationRangeStats actual = stats.orElseThrow();
+                int maxTemperature = start;
+                int minTemperature = start;
+                int maxPrecipitation = start;
+                double total = 0;
+                for (int i = start; i < end; i++) {
+                    maxTemperature = maxTemperatures[i] > maxTemperatures[maxTemperature] ? i : maxTemperature;
+                    minTemperature = minTemperatures[i] < minTemperatures[minTemperature] ? i : minTemperature;
+                    maxPrecipitation = precipitations[i] > precipitations[maxPrecipitation] ? i : maxPrecipitation;
+                    total += precipitations[i];
+                }
+                assertEquals(end - start, actual.getDays(), range);
+                assertEquals(LocalDate.ofEpochDay(days[start]), actual.getFrom(), range);
+                assertEquals(LocalDate.ofEpochDay(days[end - 1]), actual.getTo(), range);
+                assertEquals(maxTemperatures[maxTemperature], actual.getMaxTemperature(), range);
+                assertEquals(LocalDate.ofEpochDay(days[maxTemperature]), actual.getMaxTemperatureDate(), range);
+                assertEquals(minTemperatures[minTemperature], actual.getMinTemperature(), range);
+                assertEquals(LocalDate.ofEpochDay(days[minTemperature]), actual.getMinTemperatureDate(), range);
+                assertEquals(precipitations[maxPrecipitation], actual.getMaxPrecipitation(), range);
+                assertEquals(LocalDate.ofEpochDay(days[maxPrecipitation]), actual.getMaxPrecipitationDate(),
+                        range);
+                assertEquals(total, actual.getTotalPrecipitation(), 1e-9, range);
+            }
+        }
+    }
+
+    @Test
+    void singleDaySeries() {
+        int[] days = {FIRST_DAY};
+        StationSeries series = new StationSeries("Getafe", "Madrid", days, new float[]{20}, new float[]{5},
+                new float[]{0});
+        LocalDate date = LocalDate.ofEpochDay(FIRST_DAY);
+        StationRangeStats stats = series.getStats(date, date).orElseThrow();
+        assertEquals(1, stats.getDays());
+        assertEquals(date, stats.getMaxTemperatureDate());
+        assertEquals(date, stats.getMinTemperatureDate());
+        assertTrue(series.getStats(date.plusDays(1), date.plusDays(5)).isEmpty());
+        assertTrue(series.getStats(date.minusDays(5), date.minusDays(1)).isEmpty());
+    }
+}
@@ -0,0 +1,69 @@
+package com.madiben.services.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Comprueba la caducidad, el desalojo LRU y la invalidación de ExpiringLruCache
+ */
+class ExpiringLruCacheTest {
+
+    @Test
+    void entryExpiresAfterTtl() throws InterruptedException {
+        ExpiringLruCache<String, Integer> cache = new ExpiringLruCache<>(10, 50);
+        cache.put("a", 1);
+        assertEquals(Optional.of(1), cache.get("a"));
+        Thread.sleep(100);
+        assertEquals(Optional.empty(), cache.get("a"));
+        assertEquals(1, cache.getStats().getExpirations());
+        assertEquals(0, cache.getStats().getSize());
+    }
+
+    @Test
+    void zeroTtlNeverExpires() throws InterruptedException {
+        ExpiringLruCache<String, Integer> cache = new ExpiringLruCache<>(10, 0);
+        cache.put("a", 1);
+        Thread.sleep(20);
+        assertEquals(Optional.of(1), cache.get("a"));
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvicted() {
+        ExpiringLruCache<String, Integer> cache = new ExpiringLruCache<>(2, 0);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        assertTrue(cache.get("a").isPresent());
+        cache.put("c", 3);
+        assertEquals(Optional.empty(), cache.get("b"));
+        assertEquals(Optional.of(1), cache.get("a"));
+        assertEquals(Optional.of(3), cache.get("c"));
+        assertEquals(1, cache.getStats().getEvictions());
+        assertEquals(2, cache.getStats().getSize());
+    }
+
+    @Test
+    void zeroSizeDisablesCache() {
+        ExpiringLruCache<String, Integer> cache = new ExpiringLruCache<>(0, 0);
+        cache.put("a", 1);
+        assertEquals(Optional.empty(), cache.get("a"));
+    }
+
+    @Test
+    void invalidationDiscardsValueReadBeforeIt() {
+        ExpiringLruCache<String, Integer> cache = new ExpiringLruCache<>(10, 0);
+        cache.put("a", 1);
+        long generation = cache.generation();
+        cache.invalidate("a");
+        assertEquals(Optional.empty(), cache.get("a"));
+        assertFalse(cache.putIfUnchanged("a", 1, generation));
+        assertEquals(Optional.empty(), cache.get("a"));
+        assertTrue(cache.putIfUnchanged("a", 2, cache.generation()));
+        assertEquals(Optional.of(2), cache.get("a"));
+        cache.clear();
+        assertEquals(Optional.empty(), cache.get("a"));
+        assertEquals(2, cache.getStats().getInvalidations());
+    }
+}
@@ -0,0 +1,125 @@
+package com.madiben.services.database;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Comprueba que BatchInserter guarda los registros válidos de un lote con registros erróneos, cuenta los
+ * descartados y devuelve la conexión al pool al cerrarse
+ */
+class BatchInserterTest {
+    private static final String INSERT_SQL = "INSERT INTO Item (ID, Name) VALUES (?, ?)";
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void openPool() throws SQLException {
+        pool = new ConnectionPool("jdbc:h2:mem:batchInserter;DB_CLOSE_DELAY=-1", "", "", 2, 1000, 4);
+        Connection connection = pool.acquire();
+        try (var statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS Item");
+            statement.execute("CREATE TABLE Item (ID INT PRIMARY KEY, Name VARCHAR(10) NOT NULL)");
+        } finally {
+            pool.release(connection);
+        }
+    }
+
+    @AfterEach
+    void closePool() {
+        pool.close();
+    }
+
+    @Test
+    void validBatchesAreInserted() throws SQLException {
+        BatchInserter inserter = inserter(3);
+        for (int i = 0; i < 7; i++) {
+            inserter.add(i, "item " + i);
+        }
+        assertEquals(6, inserter.getInserted());
+        inserter.close();
+        assertEquals(7, inserter.getInserted());
+        assertEquals(0, inserter.getFailed());
+        assertEquals(List.of(0, 1, 2, 3, 4, 5, 6), ids());
+    }
+
+    @Test
+    void mixedBatchKeepsValidRowsAndCountsInvalidRows() throws SQLException {
+        BatchInserter inserter = inserter(10);
+        inserter.add(1, "uno");
+        inserter.add(2, "dos");
+        inserter.add(1, "repetido");
+        inserter.add(3, null);
+        inserter.add(4, "nombre demasiado largo");
+        inserter.add(5, "cinco");
+        inserter.close();
+        assertEquals(3, inserter.getInserted());
+        assertEquals(3, inserter.getFailed());
+        assertEquals(List.of(1, 2, 5), ids());
+    }
+
+    @Test
+    void failedBatchDoesNotUndoPreviousBatches() throws SQLException {
+        BatchInserter inserter = inserter(2);
+        inserter.add(1, "uno");
+        inserter.add(2, "dos");
+        inserter.add(2, "repetido");
+        inserter.add(3, "tres");
+        inserter.close();
+        assertEquals(3, inserter.getInserted());
+        assertEquals(1, inserter.getFailed());
+        assertEquals(List.of(1, 2, 3), ids());
+    }
+
+    @Test
+    void closeReturnsConnectionToPool() throws SQLException {
+        BatchInserter inserter = inserter(2);
+        inserter.add(1, "uno");
+        assertEquals(1, pool.getMetrics().getActive());
+        inserter.close();
+        assertEquals(0, pool.getMetrics().getActive());
+        Connection connection = pool.acquire();
+        try {
+            assertTrue(connection.getAutoCommit());
+        } finally {
+            pool.release(connection);
+        }
+    }
+
+    /**
+     * Crea un BatchInserter con una conexión del pool
+     *
+     * @param batchSize Número de registros por lote
+     * @return BatchInserter
+     */
+    private BatchInserter inserter(int batchSize) throws SQLException {
+        Connection connection = pool.acquire();
+        return new BatchInserter(pool, connection, pool.statements(connection), INSERT_SQL, batchSize);
+    }
+
+    /**
+     * Devuelve los ids guardados en la tabla, ordenados
+     *
+     * @return Ids guardados
+     */
+    private List<Integer> ids() throws SQLException {
+        List<Integer> ids = new ArrayList<>();
+        Connection connection = pool.acquire();
+        try (var statement = connection.createStatement();
+             ResultSet res = statement.executeQuery("SELECT ID FROM Item ORDER BY ID")) {
+            while (res.next()) {
+                ids.add(res.getInt(1));
+            }
+        } finally {
+            pool.release(connection);
+        }
+        return ids;
+    }
+}
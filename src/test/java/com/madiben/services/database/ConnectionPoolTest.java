@@ -0,0 +1,97 @@
+package com.madiben.services.database;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Comprueba que ConnectionPool limita las conexiones prestadas, agota el tiempo de espera cuando no queda ninguna,
+ * reutiliza las conexiones devueltas con su caché de PreparedStatement y cierra las libres al cerrarse
+ */
+class ConnectionPoolTest {
+    private static final String URL = "jdbc:h2:mem:connectionPool;DB_CLOSE_DELAY=-1";
+    private ConnectionPool pool;
+
+    @AfterEach
+    void closePool() {
+        pool.close();
+    }
+
+    @Test
+    void exhaustedPoolTimesOut() throws SQLException {
+        pool = new ConnectionPool(URL, "", "", 2, 100, 4);
+        Connection first = pool.acquire();
+        Connection second = pool.acquire();
+        assertNotSame(first, second);
+        assertThrows(SQLException.class, () -> pool.acquire());
+        assertEquals(1, pool.getMetrics().getTimeouts());
+        assertEquals(2, pool.getMetrics().getActive());
+        pool.release(first);
+        pool.release(second);
+        assertEquals(0, pool.getMetrics().getActive());
+        assertEquals(2, pool.getMetrics().getIdle());
+    }
+
+    @Test
+    void waitingThreadGetsReleasedConnection() throws Exception {
+        pool = new ConnectionPool(URL, "", "", 1, 10_000, 4);
+        Connection connection = pool.acquire();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Connection> waiting = executor.submit(() -> pool.acquire());
+            assertThrows(TimeoutException.class, () -> waiting.get(200, TimeUnit.MILLISECONDS));
+            pool.release(connection);
+            Connection handedOver = waiting.get(10, TimeUnit.SECONDS);
+            assertSame(connection, handedOver);
+            pool.release(handedOver);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void releasedConnectionIsReusedWithItsStatementCache() throws SQLException {
+        pool = new ConnectionPool(URL, "", "", 2, 1000, 4);
+        Connection connection = pool.acquire();
+        StatementCache cache = pool.statements(connection);
+        PreparedStatement statement = cache.prepare("SELECT 1", false);
+        cache.release(statement);
+        connection.setAutoCommit(false);
+        pool.release(connection);
+
+        Connection reused = pool.acquire();
+        assertSame(connection, reused);
+        assertTrue(reused.getAutoCommit());
+        assertSame(cache, pool.statements(reused));
+        PreparedStatement cached = cache.prepare("SELECT 1", false);
+        assertSame(statement, cached);
+        cache.release(cached);
+        assertEquals(1, pool.getMetrics().getStatementCacheHits());
+        pool.release(reused);
+    }
+
+    @Test
+    void closeClosesIdleConnectionsAndTheirStatements() throws SQLException {
+        pool = new ConnectionPool(URL, "", "", 2, 1000, 4);
+        Connection idle = pool.acquire();
+        PreparedStatement statement = pool.statements(idle).prepare("SELECT 1", false);
+        pool.statements(idle).release(statement);
+        pool.release(idle);
+        Connection borrowed = pool.acquire();
+        Connection other = pool.acquire();
+        pool.release(borrowed);
+        pool.close();
+        assertTrue(idle.isClosed());
+        assertTrue(statement.isClosed());
+        assertFalse(other.isClosed());
+        pool.release(other);
+        assertTrue(other.isClosed());
+        assertThrows(SQLException.class, () -> pool.acquire());
+    }
+}
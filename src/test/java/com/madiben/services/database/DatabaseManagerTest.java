@@ -0,0 +1,58 @@
+package com.madiben.services.database;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Comprueba DatabaseManager sobre la base de datos de los tests
+ */
+class DatabaseManagerTest {
+    private static final String RANGE_SQL = "SELECT X FROM SYSTEM_RANGE(?, ?)";
+    private static final RowMapper<Long> LONG_MAPPER = res -> res.getLong(1);
+
+    @Test
+    void streamSurvivesQueryWithSameSqlInTransaction() throws SQLException {
+        DatabaseManager db = TestDatabase.database();
+        db.beginTransaction();
+        try (Stream<Long> stream = db.stream(RANGE_SQL, LONG_MAPPER, 1L, 100L)) {
+            Iterator<Long> rows = stream.iterator();
+            long sum = 0;
+            for (int i = 0; i < 10; i++) {
+                sum += rows.next();
+            }
+            List<Long> other = db.select(RANGE_SQL, LONG_MAPPER, 1L, 5L);
+            assertEquals(List.of(1L, 2L, 3L, 4L, 5L), other);
+            while (rows.hasNext()) {
+                sum += rows.next();
+            }
+            assertEquals(5050, sum);
+        } finally {
+            db.rollback();
+        }
+    }
+
+    @Test
+    void interleavedStreamsWithSameSql() throws SQLException {
+        DatabaseManager db = TestDatabase.database();
+        db.beginTransaction();
+        try (Stream<Long> first = db.stream(RANGE_SQL, LONG_MAPPER, 1L, 50L);
+             Stream<Long> second = db.stream(RANGE_SQL, LONG_MAPPER, 51L, 100L)) {
+            Iterator<Long> firstRows = first.iterator();
+            Iterator<Long> secondRows = second.iterator();
+            long sum = 0;
+            while (firstRows.hasNext() && secondRows.hasNext()) {
+                sum += firstRows.next() + secondRows.next();
+            }
+            assertFalse(firstRows.hasNext() || secondRows.hasNext());
+            assertEquals(5050, sum);
+        } finally {
+            db.rollback();
+        }
+    }
+}
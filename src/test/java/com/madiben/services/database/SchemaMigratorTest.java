@@ -0,0 +1,68 @@
+package com.madiben.services.database;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Comprueba que la migración de la clave natural conserva el último registro insertado de cada día, provincia y
+ * lugar duplicados
+ */
+class SchemaMigratorTest {
+
+    @Test
+    void naturalKeyMigrationKeepsLatestInsertedRow() throws SQLException, IOException {
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:SchemaMigratorTest")) {
+            try (var statement = connection.createStatement()) {
+                statement.execute(script("V1__create_meteorology_data.sql"));
+                statement.execute("CREATE TABLE SchemaVersion (Version INT NOT NULL PRIMARY KEY, " +
+                        "Script VARCHAR(255) NOT NULL, AppliedOn TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+                statement.execute("INSERT INTO SchemaVersion (Version, Script) VALUES (1, 'V1')");
+            }
+            String[][] rows = {{"Madrid", "Getafe", "1"}, {"Madrid", "Getafe", "2"}, {"Sevilla", "Utrera", "3"},
+                    {"MADRID", "Getafe", "4"}, {"Sevilla", "Utrera", "5"}, {"Madrid", "Alcalá", "6"}};
+            try (var insert = connection.prepareStatement("INSERT INTO MeteorologyData " +
+                    "(DayDate, Province, Location, MaxTemperature) VALUES (DATE '2017-10-29', ?, ?, ?)")) {
+                for (String[] row : rows) {
+                    insert.setString(1, row[0]);
+                    insert.setString(2, row[1]);
+                    insert.setInt(3, Integer.parseInt(row[2]));
+                    insert.executeUpdate();
+                }
+            }
+
+            new SchemaMigrator(connection).migrate();
+
+            List<Integer> kept = new ArrayList<>();
+            try (var statement = connection.createStatement();
+                 var res = statement.executeQuery("SELECT MaxTemperature FROM MeteorologyData " +
+                         "ORDER BY MaxTemperature")) {
+                while (res.next()) {
+                    kept.add(res.getInt(1));
+                }
+            }
+            assertEquals(List.of(4, 5, 6), kept);
+        }
+    }
+
+    /**
+     * Lee un script de migración
+     *
+     * @param name Nombre del script
+     * @return Contenido del script
+     */
+    private static String script(String name) throws IOException {
+        try (InputStream input = SchemaMigrator.class.getClassLoader().getResourceAsStream("db/migration/" + name)) {
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
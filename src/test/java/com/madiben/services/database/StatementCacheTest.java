@@ -0,0 +1,123 @@
+package com.madiben.services.database;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Comprueba que StatementCache reutiliza los PreparedStatement de una conexión y que nunca entrega ni cierra
+ * uno que está prestado
+ */
+class StatementCacheTest {
+    private static final String RANGE_SQL = "SELECT X FROM SYSTEM_RANGE(?, ?)";
+    private Connection connection;
+    private StatementCache.Counters counters;
+
+    @BeforeEach
+    void openConnection() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:statements");
+        counters = new StatementCache.Counters();
+    }
+
+    @AfterEach
+    void closeConnection() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    void releasedStatementIsReused() throws SQLException {
+        StatementCache cache = new StatementCache(connection, 4, counters);
+        PreparedStatement first = cache.prepare(RANGE_SQL, false);
+        cache.release(first);
+        PreparedStatement second = cache.prepare(RANGE_SQL, false);
+        cache.release(second);
+        assertSame(first, second);
+        assertFalse(first.isClosed());
+        assertEquals(1, counters.hits.sum());
+        assertEquals(1, counters.misses.sum());
+    }
+
+    @Test
+    void statementInUseIsNotHandedOutAgain() throws SQLException {
+        StatementCache cache = new StatementCache(connection, 4, counters);
+        PreparedStatement cursor = cache.prepare(RANGE_SQL, false);
+        cursor.setLong(1, 1);
+        cursor.setLong(2, 10);
+        try (ResultSet res = cursor.executeQuery()) {
+            assertTrue(res.next());
+            PreparedStatement other = cache.prepare(RANGE_SQL, false);
+            assertNotSame(cursor, other);
+            other.setLong(1, 1);
+            other.setLong(2, 3);
+            try (ResultSet otherRes = other.executeQuery()) {
+                assertEquals(3, countRows(otherRes));
+            }
+            cache.release(other);
+            assertTrue(other.isClosed());
+            assertEquals(10, 1 + countRows(res));
+        }
+        cache.release(cursor);
+        assertFalse(cursor.isClosed());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void evictionDoesNotCloseStatementInUse() throws SQLException {
+        StatementCache cache = new StatementCache(connection, 1, counters);
+        PreparedStatement cursor = cache.prepare(RANGE_SQL, false);
+        cursor.setLong(1, 1);
+        cursor.setLong(2, 10);
+        try (ResultSet res = cursor.executeQuery()) {
+            assertTrue(res.next());
+            PreparedStatement other = cache.prepare("SELECT 1", false);
+            cache.release(other);
+            assertEquals(1, counters.evictions.sum());
+            assertFalse(cursor.isClosed());
+            assertEquals(10, 1 + countRows(res));
+        }
+        cache.release(cursor);
+        assertTrue(cursor.isClosed());
+    }
+
+    @Test
+    void evictionClosesLeastRecentlyUsedStatement() throws SQLException {
+        StatementCache cache = new StatementCache(connection, 2, counters);
+        PreparedStatement first = cache.prepare("SELECT 1", false);
+        cache.release(first);
+        PreparedStatement second = cache.prepare("SELECT 2", false);
+        cache.release(second);
+        cache.release(cache.prepare("SELECT 1", false));
+        PreparedStatement third = cache.prepare("SELECT 3", false);
+        cache.release(third);
+        assertEquals(1, counters.evictions.sum());
+        assertTrue(second.isClosed());
+        assertFalse(first.isClosed());
+        assertEquals(2, cache.size());
+        cache.clear();
+        assertTrue(first.isClosed());
+        assertTrue(third.isClosed());
+        assertEquals(0, cache.size());
+    }
+
+    /**
+     * Cuenta las filas que quedan en un ResultSet
+     *
+     * @param res ResultSet
+     * @return Número de filas
+     */
+    private static int countRows(ResultSet res) throws SQLException {
+        int rows = 0;
+        while (res.next()) {
+            rows++;
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,50 @@
+package com.madiben.services.database;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.sql.SQLException;
+
+/**
+ * Base de datos H2 de los tests
+ * Usa una base de datos propia en un directorio temporal para no tocar la de la aplicación. Como DatabaseManager
+ * es un singleton, los tests que usan la base de datos deben obtenerlo siempre con database()
+ */
+public final class TestDatabase {
+
+    static {
+        try {
+            System.setProperty("db.url", Files.createTempDirectory("meteorology-test").toString());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        System.setProperty("db.name", "test");
+        System.setProperty("db.init", "true");
+    }
+
+    /**
+     * Constructor privado: clase de utilidad
+     */
+    private TestDatabase() {
+    }
+
+    /**
+     * Devuelve el DatabaseManager configurado para la base de datos de los tests
+     *
+     * @return DatabaseManager
+     */
+    public static DatabaseManager database() {
+        return DatabaseManager.getInstance();
+    }
+
+    /**
+     * Vacía las tablas de datos
+     *
+     * @throws SQLException No se han podido vaciar las tablas
+     */
+    public static void clear() throws SQLException {
+        database().delete("DELETE FROM MeteorologyData");
+        database().delete("DELETE FROM IngestedFile");
+        database().delete("DELETE FROM ProvinceMonthSketch");
+    }
+}
@@ -0,0 +1,137 @@
+package com.madiben.services.io;
+
+import com.madiben.exceptions.ReadCSVFailException;
+import com.madiben.models.MeteorologyData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Comprueba que AemetByteParser produce los mismos datos que el parser de Strings en Windows-1252
+ * (CsvManager.fileToMeteorologyDataList) con archivos de AEMET de ejemplo
+ */
+class AemetByteParserTest {
+    private static final Charset WINDOWS_1252 = Charset.forName("windows-1252");
+    private static final String[] PROVINCES = {"A Coruña", "Álava", "León", "Málaga", "Cáceres", "Ávila",
+            "Castellón", "Girona", "Illes Balears", "Santa Cruz de Tenerife"};
+    private static final String[] LOCATIONS = {"Estaca de Bares", "Vitoria-Gasteiz", "Ponferrada", "Málaga Aeropuerto",
+            "Cáceres", "Ávila", "Castelló de la Plana", "L'Estartit", "Maó", "Izaña"};
+
+    @TempDir
+    Path folder;
+
+    @Test
+    void sameDataAsStringParserForEdgeCases() throws Exception {
+        String csv = String.join("\n",
+                "Estaca de Bares;A Coruña;16.9 ;14:40;15.2 ;14:40;0",
+                "Vitoria-Gasteiz;Álava;-2.5 ;9:05;-12.75 ;0:00;0.2",
+                "Ponferrada;León;20 ;15:30;-3 ;7:10;12",
+                "Málaga Aeropuerto;Málaga;12345678.5 ;23:59;0.12345678 ;1:01;1234567.8",
+                "Cáceres;Cáceres;31.0 ;16:00;-0.1 ;6:45;+0.0",
+                "Izaña;Santa Cruz de Tenerife;9.9;5:00;-7.4;4:30;0.0") + "\n";
+        assertSameData("Aemet20171029.csv", csv);
+    }
+
+    @Test
+    void sameDataAsStringParserWithCrlfAndWithoutFinalLineBreak() throws Exception {
+        String csv = "Maó;Illes Balears;18.3 ;12:50;15.9 ;12:50;0\r\n"
+                + "L'Estartit;Girona;-1.0 ;8:05;-4 ;3:15;3.25\r\n"
+                + "Ávila;Ávila;7 ;14:00;-9.9 ;6:59;0";
+        assertSameData("Aemet20171030.csv", csv);
+    }
+
+    @Test
+    void sameDataAsStringParserOnRandomFile() throws Exception {
+        Random random = new Random(42);
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            int station = random.nextInt(LOCATIONS.length);
+            csv.append(LOCATIONS[station]).append(';').append(PROVINCES[station]).append(';')
+                    .append(randomValue(random)).append(" ;").append(randomTime(random)).append(';')
+                    .append(randomValue(random)).append(" ;").append(randomTime(random)).append(';')
+                    .append(randomValue(random)).append('\n');
+        }
+        assertSameData("Aemet20171031.csv", csv.toString());
+    }
+
+    @Test
+    void parsesFieldsOfLine() {
+        byte[] line = "Vitoria-Gasteiz;Álava;-2.5 ;9:05;-12 ;0:00;0.2\n".getBytes(WINDOWS_1252);
+        LocalDate date = LocalDate.of(2017, 10, 29);
+        List<MeteorologyData> data = new AemetByteParser().parse(ByteBuffer.wrap(line), date);
+        assertEquals(1, data.size());
+        MeteorologyData row = data.get(0);
+        assertEquals(date, row.getDate());
+        assertEquals("Vitoria-Gasteiz", row.getLocation());
+        assertEquals("Álava", row.getProvince());
+        assertEquals(-2.5f, row.getMaxTemperature());
+        assertEquals(LocalTime.of(9, 5), row.getMaxTemperatureTime());
+        assertEquals(-12f, row.getMinTemperature());
+        assertEquals(LocalTime.MIDNIGHT, row.getMinTemperatureTime());
+        assertEquals(0.2f, row.getPrecipitation());
+    }
+
+    /**
+     * Escribe el CSV en Windows-1252 y comprueba que los dos parsers leen los mismos datos,
+     * sin tener en cuenta el uuid que se genera para cada registro
+     *
+     * @param fileName Nombre del archivo, con la fecha de los datos
+     * @param csv      Contenido del archivo
+     */
+    private void assertSameData(String fileName, String csv) throws IOException, ReadCSVFailException {
+        Files.write(folder.resolve(fileName), csv.getBytes(WINDOWS_1252));
+        CsvManager csvManager = CsvManager.getInstance();
+        List<MeteorologyData> expected = csvManager.fileToMeteorologyDataList(folder.toString(), fileName);
+        List<MeteorologyData> actual = csvManager.fileBytesToMeteorologyDataList(folder.toString(), fileName);
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(withoutUuid(expected.get(i)), withoutUuid(actual.get(i)), "línea " + (i + 1));
+        }
+    }
+
+    /**
+     * Devuelve una copia del registro sin uuid
+     *
+     * @param data Registro
+     * @return Copia sin uuid
+     */
+    private static MeteorologyData withoutUuid(MeteorologyData data) {
+        return data.toBuilder().uuid(null).build();
+    }
+
+    /**
+     * Genera un valor con signo y número de decimales aleatorios, a veces con más de 7 dígitos
+     *
+     * @param random Generador de números aleatorios
+     * @return Valor como texto
+     */
+    private static String randomValue(Random random) {
+        int decimals = random.nextInt(4);
+        double max = random.nextInt(10) == 0 ? 1e8 : 50;
+        double value = (random.nextDouble() * 2 - 1) * max;
+        return decimals == 0 ? String.valueOf(Math.round(value))
+                : String.format(Locale.ROOT, "%." + decimals + "f", value);
+    }
+
+    /**
+     * Genera una hora en formato H:mm
+     *
+     * @param random Generador de números aleatorios
+     * @return Hora como texto
+     */
+    private static String randomTime(Random random) {
+        return String.format(Locale.ROOT, "%d:%02d", random.nextInt(24), random.nextInt(60));
+    }
+}
@@ -0,0 +1,45 @@
+package com.madiben.services.io;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Comprueba que cerrar CsvFolderWatcher mientras procesa un archivo deja que termine de procesarlo
+ */
+class CsvFolderWatcherTest {
+
+    @TempDir
+    Path folder;
+
+    @Test
+    void closeLetsFileInProgressFinish() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+        AtomicBoolean finished = new AtomicBoolean();
+        CsvFolderWatcher watcher = new CsvFolderWatcher(folder, 0, 4, file -> {
+            started.countDown();
+            try {
+                Thread.sleep(500);
+                finished.set(true);
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+            }
+        });
+        watcher.start();
+        Files.writeString(folder.resolve("Aemet20171029.csv"), "Ponferrada;León;20 ;15:30;-3 ;7:10;12\n");
+        assertTrue(started.await(10, TimeUnit.SECONDS), "el archivo no ha llegado al procesador");
+        watcher.close();
+        assertFalse(interrupted.get());
+        assertTrue(finished.get());
+        assertEquals(1, watcher.getProcessed());
+        watcher.awaitTermination();
+    }
+}
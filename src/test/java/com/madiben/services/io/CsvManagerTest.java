@@ -0,0 +1,63 @@
+package com.madiben.services.io;
+
+import com.madiben.exceptions.ReadCSVFailException;
+import com.madiben.models.MeteorologyData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Comprueba que el Stream de la carpeta de CSV registra y omite los archivos que no se pueden leer, en lugar de
+ * lanzar la excepción al consumidor
+ */
+class CsvManagerTest {
+    private static final Charset WINDOWS_1252 = Charset.forName("windows-1252");
+
+    @TempDir
+    Path folder;
+
+    @Test
+    void folderStreamSkipsInvalidFiles() throws IOException, ReadCSVFailException {
+        write("Aemet20171029.csv", "Ponferrada;León;20 ;15:30;-3 ;7:10;12\nÁvila;Ávila;7 ;14:00;-9.9 ;6:59;0\n");
+        write("Aemet20171030.csv", "Ponferrada;León;18 ;15:00;-1 ;7:00;0\nÁvila;Ávila;siete ;14:00;-9.9 ;6:59;0\n"
+                + "Maó;Illes Balears;18.3 ;12:50;15.9 ;12:50;0\n");
+        write("Aemet20171031.csv", "Ponferrada;León;19 ;25:00;-2 ;7:00;0\n");
+        write("Aemet20171101.csv", "Ponferrada;León\n");
+        write("sin-fecha.csv", "Ponferrada;León;20 ;15:30;-3 ;7:10;12\n");
+        write("Aemet20171102.csv", "Maó;Illes Balears;18.3 ;12:50;15.9 ;12:50;0\n");
+        List<MeteorologyData> data;
+        try (Stream<MeteorologyData> stream = CsvManager.getInstance()
+                .folderDataToMeteorologyStream(folder.toString())) {
+            data = stream.toList();
+        }
+        assertEquals(4, data.size());
+        assertEquals(2, data.stream().filter(row -> row.getDate().getDayOfMonth() == 29).count());
+        assertEquals(1, data.stream().filter(row -> row.getDate().getDayOfMonth() == 30).count());
+        assertEquals(1, data.stream().filter(row -> row.getDate().getDayOfMonth() == 2).count());
+    }
+
+    @Test
+    void fileListWrapsInvalidLine() throws IOException {
+        write("Aemet20171030.csv", "Ponferrada;León;18 ;15:00;-1 ;7:00;0\nÁvila;Ávila;siete ;14:00;-9.9 ;6:59;0\n");
+        assertThrows(ReadCSVFailException.class,
+                () -> CsvManager.getInstance().fileToMeteorologyDataList(folder.toString(), "Aemet20171030.csv"));
+    }
+
+    /**
+     * Escribe un archivo CSV en Windows-1252
+     *
+     * @param fileName Nombre del archivo
+     * @param csv      Contenido del archivo
+     */
+    private void write(String fileName, String csv) throws IOException {
+        Files.write(folder.resolve(fileName), csv.getBytes(WINDOWS_1252));
+    }
+}
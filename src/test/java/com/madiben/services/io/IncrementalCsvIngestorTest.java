@@ -0,0 +1,116 @@
+package com.madiben.services.io;
+
+import com.madiben.models.MeteorologyData;
+import com.madiben.models.dto.FileIngestionReport;
+import com.madiben.repositories.ingestion.IngestedFileRepositoryImpl;
+import com.madiben.repositories.meteorology.MeteorologyDataRepositoryImpl;
+import com.madiben.services.database.TestDatabase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Comprueba que IncrementalCsvIngestor salta los archivos ya ingeridos, vuelve a ingerir los que cambian de tamaño,
+ * de fecha o de contenido, y que la reingesta con upsertAll actualiza los registros sin duplicarlos
+ */
+class IncrementalCsvIngestorTest {
+    private static final Charset WINDOWS_1252 = Charset.forName("windows-1252");
+    private static final String FILE = "Aemet20171029.csv";
+    private static final String PONFERRADA = "Ponferrada;León;20 ;15:30;-3 ;7:10;12\n";
+    private static final String AVILA = "Ávila;Ávila;7 ;14:00;-9.9 ;6:59;0\n";
+
+    @TempDir
+    Path folder;
+    private MeteorologyDataRepositoryImpl repository;
+    private IncrementalCsvIngestor ingestor;
+    private List<List<MeteorologyData>> chunks;
+
+    @BeforeEach
+    void clear() throws SQLException {
+        TestDatabase.clear();
+        repository = new MeteorologyDataRepositoryImpl(TestDatabase.database());
+        ingestor = new IncrementalCsvIngestor(new IngestedFileRepositoryImpl(TestDatabase.database()),
+                new ParallelCsvIngestor(1, 1, 2, 100));
+        chunks = new ArrayList<>();
+    }
+
+    @Test
+    void sameFileIsSkipped() throws Exception {
+        write(PONFERRADA + AVILA, 1_000_000);
+        assertFalse(ingest().isSkipped());
+        FileIngestionReport second = ingest();
+        assertTrue(second.isSkipped());
+        assertEquals(1, chunks.size());
+        assertEquals(2, repository.findAll().size());
+    }
+
+    @Test
+    void changedSizeIsIngestedAgain() throws Exception {
+        write(PONFERRADA, 1_000_000);
+        ingest();
+        write(PONFERRADA + AVILA, 1_000_000);
+        FileIngestionReport report = ingest();
+        assertFalse(report.isSkipped());
+        assertEquals(2, report.getSavedRows());
+        assertEquals(2, repository.findAll().size());
+    }
+
+    @Test
+    void changedContentWithSameSizeIsIngestedAgain() throws Exception {
+        write(PONFERRADA, 1_000_000);
+        ingest();
+        write(PONFERRADA.replace("20 ", "21 "), 2_000_000);
+        FileIngestionReport report = ingest();
+        assertFalse(report.isSkipped());
+        List<MeteorologyData> rows = repository.findAll();
+        assertEquals(1, rows.size());
+        assertEquals(21, rows.get(0).getMaxTemperature());
+    }
+
+    @Test
+    void changedDateWithSameContentIsSkipped() throws Exception {
+        write(PONFERRADA, 1_000_000);
+        ingest();
+        write(PONFERRADA, 2_000_000);
+        assertTrue(ingest().isSkipped());
+        assertEquals(1, chunks.size());
+        assertTrue(ingest().isSkipped());
+    }
+
+    /**
+     * Ingiere la carpeta guardando los trozos con upsertAll
+     *
+     * @return Informe del archivo de prueba
+     */
+    private FileIngestionReport ingest() throws Exception {
+        List<FileIngestionReport> reports = ingestor.ingest(folder.toString(), rows -> {
+            chunks.add(rows);
+            return repository.upsertAll(rows);
+        });
+        assertEquals(1, reports.size());
+        return reports.get(0);
+    }
+
+    /**
+     * Escribe el archivo CSV de prueba en Windows-1252 con una fecha de modificación fija
+     *
+     * @param csv          Contenido del archivo
+     * @param lastModified Fecha de modificación en milisegundos
+     */
+    private void write(String csv, long lastModified) throws IOException {
+        Path file = folder.resolve(FILE);
+        Files.write(file, csv.getBytes(WINDOWS_1252));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(lastModified));
+    }
+}
@@ -0,0 +1,94 @@
+package com.madiben.services.io;
+
+import com.madiben.models.MeteorologyData;
+import com.madiben.models.dto.FileIngestionReport;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Comprueba que ParallelCsvIngestor envía cada archivo en trozos a los escritores y que los informes recogen los
+ * errores de lectura y de escritura
+ */
+class ParallelCsvIngestorTest {
+    private static final Charset WINDOWS_1252 = Charset.forName("windows-1252");
+    private static final String LINE = "Ponferrada;León;20 ;15:30;-3 ;7:10;12\n";
+
+    @TempDir
+    Path folder;
+
+    @Test
+    void savesEveryFileInChunks() throws Exception {
+        write("Aemet20171029.csv", LINE.repeat(25));
+        write("Aemet20171030.csv", LINE.repeat(7));
+        Queue<List<MeteorologyData>> chunks = new ConcurrentLinkedQueue<>();
+        List<FileIngestionReport> reports = new ParallelCsvIngestor(2, 2, 2, 10).ingest(folder.toString(), rows -> {
+            chunks.add(rows);
+            return rows.size();
+        });
+        assertEquals(2, reports.size());
+        assertTrue(reports.stream().allMatch(FileIngestionReport::isSuccess));
+        assertEquals(25, reports.get(0).getSavedRows());
+        assertEquals(7, reports.get(1).getSavedRows());
+        assertEquals(4, chunks.size());
+        assertTrue(chunks.stream().allMatch(rows -> rows.size() <= 10));
+    }
+
+    @Test
+    void writerFailureIsReported() throws Exception {
+        write("Aemet20171029.csv", LINE.repeat(25));
+        AtomicInteger calls = new AtomicInteger();
+        List<FileIngestionReport> reports = new ParallelCsvIngestor(1, 1, 1, 10).ingest(folder.toString(), rows -> {
+            if (calls.incrementAndGet() == 2) {
+                throw new SQLException("fallo de escritura");
+            }
+            return rows.size();
+        });
+        FileIngestionReport report = reports.get(0);
+        assertFalse(report.isSuccess());
+        assertTrue(report.isPartiallySaved());
+        assertEquals(15, report.getSavedRows());
+        assertTrue(report.getError().contains("fallo de escritura"));
+    }
+
+    @Test
+    void shortWriteIsReported() throws Exception {
+        write("Aemet20171029.csv", LINE.repeat(5));
+        List<FileIngestionReport> reports = new ParallelCsvIngestor(1, 1, 1, 10).ingest(folder.toString(),
+                rows -> rows.size() - 1);
+        assertFalse(reports.get(0).isSuccess());
+        assertNotNull(reports.get(0).getError());
+    }
+
+    @Test
+    void invalidLineKeepsPreviousChunks() throws Exception {
+        write("Aemet20171029.csv", LINE.repeat(12) + "Ponferrada;León;veinte ;15:30;-3 ;7:10;12\n" + LINE);
+        List<FileIngestionReport> reports = new ParallelCsvIngestor(1, 1, 1, 10).ingest(folder.toString(),
+                List::size);
+        FileIngestionReport report = reports.get(0);
+        assertFalse(report.isSuccess());
+        assertNotNull(report.getError());
+        assertEquals(10, report.getSavedRows());
+    }
+
+    /**
+     * Escribe un archivo CSV en Windows-1252
+     *
+     * @param fileName Nombre del archivo
+     * @param csv      Contenido del archivo
+     */
+    private void write(String fileName, String csv) throws IOException {
+        Files.write(folder.resolve(fileName), csv.getBytes(WINDOWS_1252));
+    }
+}
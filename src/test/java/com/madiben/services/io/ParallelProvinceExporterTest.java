@@ -0,0 +1,106 @@
+package com.madiben.services.io;
+
+import com.madiben.models.MeteorologyData;
+import com.madiben.models.dto.FileExportReport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Comprueba que ParallelProvinceExporter solo deja en la carpeta out los archivos de las provincias exportadas
+ * enteras. Las provincias de prueba tienen un prefijo propio y sus archivos se borran al terminar
+ */
+class ParallelProvinceExporterTest {
+    private static final String PREFIX = "ParallelProvinceExporterTest ";
+    private static final String FIRST = PREFIX + "A";
+    private static final String SECOND = PREFIX + "B";
+
+    @AfterEach
+    void deleteFiles() throws IOException {
+        for (Path file : testFiles()) {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void exportsEveryProvince() throws Exception {
+        List<FileExportReport> reports = new ParallelProvinceExporter(2, 2, 3).export(action -> {
+            rows(FIRST, 10).forEach(action);
+            rows(SECOND, 10).forEach(action);
+            return 20;
+        });
+        assertEquals(2, reports.size());
+        assertTrue(reports.stream().allMatch(FileExportReport::isSuccess));
+        assertTrue(Files.exists(finalFile(FIRST)));
+        assertTrue(Files.exists(finalFile(SECOND)));
+        assertEquals(2, testFiles().size());
+    }
+
+    @Test
+    void failingSourceLeavesNoFileOfProvinceInProgress() {
+        assertThrows(SQLException.class, () -> new ParallelProvinceExporter(2, 2, 3).export(action -> {
+            rows(FIRST, 10).forEach(action);
+            rows(SECOND, 7).forEach(action);
+            throw new SQLException("fallo del origen");
+        }));
+        assertTrue(Files.exists(finalFile(FIRST)));
+        assertFalse(Files.exists(finalFile(SECOND)));
+        assertEquals(1, testFiles().size());
+    }
+
+    /**
+     * Devuelve el archivo final de una provincia
+     *
+     * @param province Provincia
+     * @return Ruta del archivo
+     */
+    private static Path finalFile(String province) {
+        return Paths.get("out", province + ExportManager.getInstance().getFormat().getExtension());
+    }
+
+    /**
+     * Devuelve los archivos de la carpeta out de las provincias de prueba, incluidos los temporales
+     *
+     * @return Archivos de las provincias de prueba
+     */
+    private static List<Path> testFiles() {
+        try (Stream<Path> files = Files.list(Paths.get("out"))) {
+            return files.filter(file -> file.getFileName().toString().startsWith(PREFIX)).toList();
+        } catch (IOException e) {
+            return List.of();
+        }
+    }
+
+    /**
+     * Genera registros de una provincia
+     *
+     * @param province Provincia
+     * @param count    Número de registros
+     * @return Registros
+     */
+    private static List<MeteorologyData> rows(String province, int count) {
+        return Stream.iterate(0, i -> i + 1).limit(count)
+                .map(i -> MeteorologyData.builder()
+                        .date(LocalDate.of(2017, 10, 29))
+                        .province(province)
+                        .location(province + " " + i)
+                        .maxTemperature(20 + i)
+                        .maxTemperatureTime(LocalTime.NOON)
+                        .minTemperature(i)
+                        .minTemperatureTime(LocalTime.MIDNIGHT)
+                        .precipitation(0)
+                        .build())
+                .toList();
+    }
+}
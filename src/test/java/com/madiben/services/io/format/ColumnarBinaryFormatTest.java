@@ -0,0 +1,97 @@
+package com.madiben.services.io.format;
+
+import com.madiben.models.MeteorologyData;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Comprueba que ColumnarBinaryFormat lee lo que escribe, rechaza las cabeceras de bloque corruptas sin reservar
+ * el tamaño que anuncian y rechaza los elementos sin lugar o sin provincia
+ */
+class ColumnarBinaryFormatTest {
+    private static final int MAGIC = 0x414D4554;
+
+    @Test
+    void readsWhatItWrites() throws IOException {
+        ColumnarBinaryFormat format = new ColumnarBinaryFormat(3);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (MeteorologyDataWriter writer = format.writer(out)) {
+            for (int i = 0; i < 7; i++) {
+                writer.write(data("Lugar " + (i % 2), "Provincia"));
+            }
+        }
+        List<MeteorologyData> read = new ArrayList<>();
+        assertEquals(7, format.read(new ByteArrayInputStream(out.toByteArray()), read::add));
+        assertEquals(7, read.size());
+        assertEquals("Lugar 1", read.get(5).getLocation());
+    }
+
+    @Test
+    void hugeRowCountFailsWithoutAllocatingIt() throws IOException {
+        byte[] file = header(Integer.MAX_VALUE / 44, 0);
+        assertThrows(EOFException.class,
+                () -> new ColumnarBinaryFormat().read(new ByteArrayInputStream(file), data -> fail()));
+    }
+
+    @Test
+    void overflowingRowCountIsRejected() throws IOException {
+        byte[] file = header(Integer.MAX_VALUE, 0);
+        assertThrows(IOException.class,
+                () -> new ColumnarBinaryFormat().read(new ByteArrayInputStream(file), data -> fail()));
+        byte[] negative = header(-1, 0);
+        assertThrows(IOException.class,
+                () -> new ColumnarBinaryFormat().read(new ByteArrayInputStream(negative), data -> fail()));
+    }
+
+    @Test
+    void stationWithoutNameIsRejected() throws IOException {
+        MeteorologyDataWriter writer = new ColumnarBinaryFormat().writer(new ByteArrayOutputStream());
+        assertThrows(IOException.class, () -> writer.write(data(null, "Provincia")));
+        assertThrows(IOException.class, () -> writer.write(data("Lugar", null)));
+    }
+
+    /**
+     * Devuelve la cabecera de un archivo con la cabecera de un bloque y sin columnas
+     *
+     * @param rows        Número de filas anunciado por el bloque
+     * @param newStations Número de estaciones nuevas anunciado por el bloque
+     * @return Bytes del archivo
+     */
+    private static byte[] header(int rows, int newStations) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(1);
+            out.writeInt(rows);
+            out.writeInt(newStations);
+            out.write(new byte[100]);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Crea un MeteorologyData
+     *
+     * @param location Lugar
+     * @param province Provincia
+     * @return Datos de meteorología
+     */
+    private static MeteorologyData data(String location, String province) {
+        return MeteorologyData.builder()
+                .date(LocalDate.of(2017, 10, 29))
+                .location(location)
+                .province(province)
+                .maxTemperature(20)
+                .maxTemperatureTime(LocalTime.NOON)
+                .minTemperature(5)
+                .precipitation(0)
+                .build();
+    }
+}